@@ -370,6 +370,7 @@ intoPath
 specialClause
     : specialLimit #specialLimitStatement
     | orderByTimeClause specialLimit? #orderByTimeStatement
+    | orderByClause specialLimit? #orderByStatement
     | groupByTimeClause orderByTimeClause? specialLimit? #groupByTimeStatement
     | groupByFillClause orderByTimeClause? specialLimit? #groupByFillStatement
     | groupByLevelClause orderByTimeClause? specialLimit? #groupByLevelStatement
@@ -401,6 +402,14 @@ orderByTimeClause
     : ORDER BY TIME (DESC | ASC)?
     ;
 
+orderByClause
+    : ORDER BY orderByAttributeClause (COMMA orderByAttributeClause)*
+    ;
+
+orderByAttributeClause
+    : suffixPath (DESC | ASC)?
+    ;
+
 groupByTimeClause
     : GROUP BY LR_BRACKET timeRange COMMA DURATION_LITERAL (COMMA DURATION_LITERAL)? fillClause? RR_BRACKET
     | GROUP BY LR_BRACKET timeRange COMMA DURATION_LITERAL (COMMA DURATION_LITERAL)? RR_BRACKET
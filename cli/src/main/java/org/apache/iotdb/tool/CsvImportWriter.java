@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tool;
+
+import org.apache.iotdb.rpc.IoTDBConnectionException;
+import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.session.pool.SessionPool;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CsvImportWriter converts and writes the batches of {@link ImportCsv} with several threads, so
+ * that reading the CSV files overlaps with the conversion and the insertions. The rows of a batch
+ * are converted to tablets on a pool of convert threads, in any order. The tablet of each device is
+ * then written through a {@link SessionPool} by the write thread of the device, which writes the
+ * batches in the order they are submitted, so later rows of a device still overwrite earlier ones.
+ * At most two batches per thread are pending, beyond which the reader waits. The number of imported
+ * rows and the rows per second are printed periodically.
+ */
+class CsvImportWriter implements AutoCloseable {
+
+  private static final long REPORT_INTERVAL_IN_SECONDS = 10;
+
+  private final SessionPool sessionPool;
+  private final boolean aligned;
+
+  private final ExecutorService convertThreads;
+  private final ExecutorService[] writeThreads;
+  private final Semaphore pendingBatches;
+  private final int maxPendingBatchNum;
+  private final ScheduledExecutorService reportThread;
+
+  private final AtomicLong importedRowNum = new AtomicLong();
+  private final long startTime = System.currentTimeMillis();
+  private long lastReportTime = startTime;
+  private long lastReportRowNum = 0;
+
+  CsvImportWriter(
+      String host, int port, String username, String password, int threadNum, boolean aligned) {
+    threadNum = Math.max(1, threadNum);
+    this.sessionPool = new SessionPool(host, port, username, password, threadNum);
+    this.aligned = aligned;
+    AtomicInteger convertThreadId = new AtomicInteger();
+    this.convertThreads =
+        Executors.newFixedThreadPool(
+            threadNum,
+            r -> new Thread(r, "ImportCsv-Converter-" + convertThreadId.getAndIncrement()));
+    this.writeThreads = new ExecutorService[threadNum];
+    for (int i = 0; i < threadNum; i++) {
+      String threadName = "ImportCsv-Writer-" + i;
+      writeThreads[i] = Executors.newSingleThreadExecutor(r -> new Thread(r, threadName));
+    }
+    this.maxPendingBatchNum = threadNum * 2;
+    this.pendingBatches = new Semaphore(maxPendingBatchNum);
+    this.reportThread =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "ImportCsv-Progress");
+              thread.setDaemon(true);
+              return thread;
+            });
+    reportThread.scheduleAtFixedRate(
+        this::reportProgress,
+        REPORT_INTERVAL_IN_SECONDS,
+        REPORT_INTERVAL_IN_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  /**
+   * Convert a batch on a convert thread and write the tablet of each device by its write thread.
+   *
+   * @param devices the devices that the batch may contain
+   * @param conversion converts the batch to the tablets of the devices, which is not required to
+   *     return a tablet for every device
+   */
+  void write(Collection<String> devices, Callable<Map<String, Tablet>> conversion) {
+    pendingBatches.acquireUninterruptibly();
+    // the batch is done once the write of every device and the submission itself are done
+    AtomicInteger remainingTaskNum = new AtomicInteger(devices.size() + 1);
+    int submittedTaskNum = 0;
+    try {
+      Future<Map<String, Tablet>> tablets = convertThreads.submit(conversion);
+      for (String device : devices) {
+        writeThreads[Math.floorMod(device.hashCode(), writeThreads.length)].execute(
+            () -> {
+              try {
+                insert(tablets.get().get(device));
+              } catch (ExecutionException e) {
+                System.out.println("Meet error when convert csv because " + e.getCause());
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } finally {
+                finishTask(remainingTaskNum, 1);
+              }
+            });
+        submittedTaskNum++;
+      }
+    } finally {
+      finishTask(remainingTaskNum, devices.size() - submittedTaskNum + 1);
+    }
+  }
+
+  private void finishTask(AtomicInteger remainingTaskNum, int finishedTaskNum) {
+    if (remainingTaskNum.addAndGet(-finishedTaskNum) == 0) {
+      pendingBatches.release();
+    }
+  }
+
+  private void insert(Tablet tablet) {
+    if (tablet == null || tablet.rowSize == 0) {
+      return;
+    }
+    try {
+      if (!aligned) {
+        sessionPool.insertTablet(tablet);
+      } else {
+        sessionPool.insertAlignedTablet(tablet);
+      }
+      importedRowNum.addAndGet(tablet.rowSize);
+    } catch (IoTDBConnectionException | StatementExecutionException e) {
+      System.out.println("Meet error when insert csv because " + e.getMessage());
+    }
+  }
+
+  /** Wait until all submitted batches are written. */
+  void flush() {
+    pendingBatches.acquireUninterruptibly(maxPendingBatchNum);
+    pendingBatches.release(maxPendingBatchNum);
+  }
+
+  private synchronized void reportProgress() {
+    long currentTime = System.currentTimeMillis();
+    long rowNum = importedRowNum.get();
+    System.out.printf(
+        "Imported %d rows, %.1f rows/s%n",
+        rowNum, (rowNum - lastReportRowNum) * 1000.0 / Math.max(1, currentTime - lastReportTime));
+    lastReportTime = currentTime;
+    lastReportRowNum = rowNum;
+  }
+
+  @Override
+  public void close() {
+    try {
+      flush();
+      reportThread.shutdownNow();
+      convertThreads.shutdown();
+      for (ExecutorService writeThread : writeThreads) {
+        writeThread.shutdown();
+      }
+      long timeCost = Math.max(1, System.currentTimeMillis() - startTime);
+      System.out.printf(
+          "Imported %d rows in %.1f s, %.1f rows/s%n",
+          importedRowNum.get(), timeCost / 1000.0, importedRowNum.get() * 1000.0 / timeCost);
+    } finally {
+      sessionPool.close();
+    }
+  }
+}
@@ -25,6 +25,8 @@ import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.session.Session;
 import org.apache.iotdb.session.SessionDataSet;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -46,11 +48,15 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
@@ -79,6 +85,9 @@ public class ImportCsv extends AbstractCsvTool {
   private static final String ALIGNED_ARGS = "aligned";
   private static final String ALIGNED_NAME = "use the aligned interface";
 
+  private static final String THREAD_NUM_ARGS = "tn";
+  private static final String THREAD_NUM_NAME = "thread num";
+
   private static final String CSV_SUFFIXS = "csv";
   private static final String TXT_SUFFIXS = "txt";
 
@@ -93,6 +102,10 @@ public class ImportCsv extends AbstractCsvTool {
 
   private static int batchPointSize = 100_000;
 
+  private static int threadNum = 4;
+
+  private static CsvImportWriter writer;
+
   /**
    * create the commandline options.
    *
@@ -153,6 +166,14 @@ public class ImportCsv extends AbstractCsvTool {
             .build();
     options.addOption(opBatchPointSize);
 
+    Option opThreadNum =
+        Option.builder(THREAD_NUM_ARGS)
+            .argName(THREAD_NUM_NAME)
+            .hasArg()
+            .desc("The number of threads writing the data concurrently, 4 by default (optional)")
+            .build();
+    options.addOption(opThreadNum);
+
     return options;
   }
 
@@ -178,6 +199,9 @@ public class ImportCsv extends AbstractCsvTool {
     if (commandLine.getOptionValue(ALIGNED_ARGS) != null) {
       aligned = Boolean.valueOf(commandLine.getOptionValue(ALIGNED_ARGS));
     }
+    if (commandLine.getOptionValue(THREAD_NUM_ARGS) != null) {
+      threadNum = Integer.parseInt(commandLine.getOptionValue(THREAD_NUM_ARGS));
+    }
   }
 
   public static void main(String[] args) throws IoTDBConnectionException {
@@ -247,6 +271,7 @@ public class ImportCsv extends AbstractCsvTool {
       session.open(false);
       timeZoneID = timeZone;
       setTimeZone();
+      writer = new CsvImportWriter(host, port, username, password, threadNum, aligned);
 
       File file = new File(targetPath);
       if (file.isFile()) {
@@ -270,6 +295,10 @@ public class ImportCsv extends AbstractCsvTool {
       System.out.println("Encounter an error when connecting to server, because " + e.getMessage());
       return CODE_ERROR;
     } finally {
+      if (writer != null) {
+        writer.close();
+        writer = null;
+      }
       if (session != null) {
         session.close();
       }
@@ -337,98 +366,64 @@ public class ImportCsv extends AbstractCsvTool {
       e.printStackTrace();
     }
 
-    List<String> deviceIds = new ArrayList<>();
-    List<Long> times = new ArrayList<>();
-    List<List<String>> measurementsList = new ArrayList<>();
-    List<List<TSDataType>> typesList = new ArrayList<>();
-    List<List<Object>> valuesList = new ArrayList<>();
+    List<CSVRecord> batch = new ArrayList<>();
 
     AtomicReference<SimpleDateFormat> timeFormatter = new AtomicReference<>(null);
     AtomicReference<Boolean> hasStarted = new AtomicReference<>(false);
     AtomicInteger pointSize = new AtomicInteger(0);
 
-    ArrayList<List<Object>> failedRecords = new ArrayList<>();
+    Map<Long, List<Object>> failedRecords = new ConcurrentSkipListMap<>();
 
+    // only the types are inferred here as they depend on the record order, the records are
+    // converted by the writer
     records.forEach(
         record -> {
           if (!hasStarted.get()) {
             hasStarted.set(true);
             timeFormatter.set(formatterInit(record.get(0)));
           } else if (pointSize.get() >= batchPointSize) {
-            writeAndEmptyDataSet(deviceIds, times, typesList, valuesList, measurementsList, 3);
+            writeAndEmptyDataSet(
+                batch,
+                deviceAndMeasurementNames,
+                headerTypeMap,
+                headerNameMap,
+                timeFormatter.get(),
+                failedRecords);
             pointSize.set(0);
           }
 
-          boolean isFail = false;
-
-          for (String deviceId : deviceAndMeasurementNames.keySet()) {
-            ArrayList<TSDataType> types = new ArrayList<>();
-            ArrayList<Object> values = new ArrayList<>();
-            ArrayList<String> measurements = new ArrayList<>();
-
-            List<String> measurementNames = deviceAndMeasurementNames.get(deviceId);
-            for (String measurement : measurementNames) {
-              String header = deviceId + "." + measurement;
+          for (Map.Entry<String, List<String>> entry : deviceAndMeasurementNames.entrySet()) {
+            for (String measurement : entry.getValue()) {
+              String header = entry.getKey() + "." + measurement;
               String value = record.get(header);
               if (!"".equals(value)) {
-                TSDataType type;
                 if (!headerTypeMap.containsKey(headerNameMap.get(header))) {
-                  type = typeInfer(value);
+                  TSDataType type = typeInfer(value);
                   if (type != null) {
                     headerTypeMap.put(header, type);
-                  } else {
-                    System.out.printf(
-                        "Line '%s', column '%s': '%s' unknown type%n",
-                        record.getRecordNumber(), header, value);
-                    isFail = true;
-                  }
-                }
-                type = headerTypeMap.get(headerNameMap.get(header));
-                if (type != null) {
-                  Object valueTrans = typeTrans(value, type);
-                  if (valueTrans == null) {
-                    isFail = true;
-                    System.out.printf(
-                        "Line '%s', column '%s': '%s' can't convert to '%s'%n",
-                        record.getRecordNumber(), header, value, type);
-                  } else {
-                    measurements.add(headerNameMap.get(header).replace(deviceId + '.', ""));
-                    types.add(type);
-                    values.add(valueTrans);
-                    pointSize.getAndIncrement();
                   }
                 }
+                pointSize.getAndIncrement();
               }
             }
-            if (!measurements.isEmpty()) {
-              if (timeFormatter.get() == null) {
-                times.add(Long.valueOf(record.get(timeColumn)));
-              } else {
-                try {
-                  times.add(timeFormatter.get().parse(record.get(timeColumn)).getTime());
-                } catch (ParseException e) {
-                  System.out.println(
-                      "Meet error when insert csv because the format of time is not supported");
-                  System.exit(0);
-                }
-              }
-              deviceIds.add(deviceId);
-              typesList.add(types);
-              valuesList.add(values);
-              measurementsList.add(measurements);
-            }
-          }
-          if (isFail) {
-            failedRecords.add(record.stream().collect(Collectors.toList()));
           }
+          batch.add(record);
         });
-    if (!deviceIds.isEmpty()) {
-      writeAndEmptyDataSet(deviceIds, times, typesList, valuesList, measurementsList, 3);
+    if (!batch.isEmpty()) {
+      writeAndEmptyDataSet(
+          batch,
+          deviceAndMeasurementNames,
+          headerTypeMap,
+          headerNameMap,
+          timeFormatter.get(),
+          failedRecords);
       pointSize.set(0);
     }
 
+    writer.flush();
+
     if (!failedRecords.isEmpty()) {
-      writeCsvFile(headerNames, failedRecords, failedFilePath);
+      writeCsvFile(headerNames, new ArrayList<>(failedRecords.values()), failedFilePath);
     }
     if (hasStarted.get()) {
       System.out.println("Import completely!");
@@ -455,16 +450,14 @@ public class ImportCsv extends AbstractCsvTool {
 
     HashSet<String> typeQueriedDevice = new HashSet<>();
 
-    // the data that interface need
-    List<Long> times = new ArrayList<>();
-    List<List<TSDataType>> typesList = new ArrayList<>();
-    List<List<Object>> valuesList = new ArrayList<>();
-    List<List<String>> measurementsList = new ArrayList<>();
+    List<CSVRecord> batch = new ArrayList<>();
 
     AtomicInteger pointSize = new AtomicInteger(0);
 
-    ArrayList<List<Object>> failedRecords = new ArrayList<>();
+    Map<Long, List<Object>> failedRecords = new ConcurrentSkipListMap<>();
 
+    // only the types are inferred here as they depend on the record order, the records are
+    // converted by the writer
     records.forEach(
         record -> {
           // only run in first record
@@ -474,28 +467,29 @@ public class ImportCsv extends AbstractCsvTool {
           } else if (!Objects.equals(deviceName.get(), record.get(1))) {
             // if device changed
             writeAndEmptyDataSet(
-                deviceName.get(), times, typesList, valuesList, measurementsList, 3);
+                deviceName.get(),
+                batch,
+                headerTypeMap,
+                headerNameMap,
+                timeFormatter.get(),
+                failedRecords);
             deviceName.set(record.get(1));
             pointSize.set(0);
           } else if (pointSize.get() >= batchPointSize) {
             // insert a batch
             writeAndEmptyDataSet(
-                deviceName.get(), times, typesList, valuesList, measurementsList, 3);
+                deviceName.get(),
+                batch,
+                headerTypeMap,
+                headerNameMap,
+                timeFormatter.get(),
+                failedRecords);
             pointSize.set(0);
           }
 
-          // the data of the record
-          ArrayList<TSDataType> types = new ArrayList<>();
-          ArrayList<Object> values = new ArrayList<>();
-          ArrayList<String> measurements = new ArrayList<>();
-
-          AtomicReference<Boolean> isFail = new AtomicReference<>(false);
-
-          // read data from record
           for (String measurement : headerNameMap.keySet()) {
             String value = record.get(measurement);
             if (!"".equals(value)) {
-              TSDataType type;
               if (!headerTypeMap.containsKey(headerNameMap.get(measurement))) {
                 boolean hasResult = false;
                 // query the data type in iotdb
@@ -508,129 +502,200 @@ public class ImportCsv extends AbstractCsvTool {
                   }
                 }
                 if (!hasResult) {
-                  type = typeInfer(value);
+                  TSDataType type = typeInfer(value);
                   if (type != null) {
                     headerTypeMap.put(measurement, type);
-                  } else {
-                    System.out.printf(
-                        "Line '%s', column '%s': '%s' unknown type%n",
-                        record.getRecordNumber(), measurement, value);
-                    isFail.set(true);
                   }
                 }
               }
-              type = headerTypeMap.get(headerNameMap.get(measurement));
-              if (type != null) {
-                Object valueTrans = typeTrans(value, type);
-                if (valueTrans == null) {
-                  isFail.set(true);
-                  System.out.printf(
-                      "Line '%s', column '%s': '%s' can't convert to '%s'%n",
-                      record.getRecordNumber(), headerNameMap.get(measurement), value, type);
-                } else {
-                  values.add(valueTrans);
-                  measurements.add(headerNameMap.get(measurement));
-                  types.add(type);
-                  pointSize.getAndIncrement();
-                }
-              }
-            }
-          }
-          if (isFail.get()) {
-            failedRecords.add(record.stream().collect(Collectors.toList()));
-          }
-          if (!measurements.isEmpty()) {
-            if (timeFormatter.get() == null) {
-              times.add(Long.valueOf(record.get(timeColumn)));
-            } else {
-              try {
-                times.add(timeFormatter.get().parse(record.get(timeColumn)).getTime());
-              } catch (ParseException e) {
-                System.out.println(
-                    "Meet error when insert csv because the format of time is not supported");
-                System.exit(0);
-              }
+              pointSize.getAndIncrement();
             }
-            typesList.add(types);
-            valuesList.add(values);
-            measurementsList.add(measurements);
           }
+          batch.add(record);
         });
-    if (times.size() != 0) {
-      writeAndEmptyDataSet(deviceName.get(), times, typesList, valuesList, measurementsList, 3);
+    if (!batch.isEmpty()) {
+      writeAndEmptyDataSet(
+          deviceName.get(),
+          batch,
+          headerTypeMap,
+          headerNameMap,
+          timeFormatter.get(),
+          failedRecords);
       pointSize.set(0);
     }
+    writer.flush();
     if (!failedRecords.isEmpty()) {
-      writeCsvFile(headerNames, failedRecords, failedFilePath);
+      writeCsvFile(headerNames, new ArrayList<>(failedRecords.values()), failedFilePath);
     }
     System.out.println("Import completely!");
   }
 
+  /**
+   * hand a copy of the batch aligned by time to the writer, which converts it to a tablet for each
+   * device, and empty the batch to collect the next one
+   */
+  private static void writeAndEmptyDataSet(
+      List<CSVRecord> batch,
+      Map<String, List<String>> deviceAndMeasurementNames,
+      Map<String, TSDataType> headerTypeMap,
+      Map<String, String> headerNameMap,
+      @Nullable SimpleDateFormat timeFormatter,
+      Map<Long, List<Object>> failedRecords) {
+    List<CSVRecord> records = new ArrayList<>(batch);
+    Map<String, TSDataType> types = new HashMap<>(headerTypeMap);
+    SimpleDateFormat formatter =
+        timeFormatter == null ? null : (SimpleDateFormat) timeFormatter.clone();
+    writer.write(
+        deviceAndMeasurementNames.keySet(),
+        () -> {
+          Map<String, Tablet> tablets = new HashMap<>();
+          Set<CSVRecord> failed = new HashSet<>();
+          for (Map.Entry<String, List<String>> entry : deviceAndMeasurementNames.entrySet()) {
+            String deviceId = entry.getKey();
+            Map<String, String> columns = new LinkedHashMap<>();
+            for (String measurement : entry.getValue()) {
+              String header = deviceId + "." + measurement;
+              columns.put(header, headerNameMap.get(header).replace(deviceId + '.', ""));
+            }
+            Tablet tablet =
+                convertToTablet(
+                    deviceId, records, columns, types, headerNameMap, formatter, failed);
+            if (tablet != null) {
+              tablets.put(deviceId, tablet);
+            }
+          }
+          for (CSVRecord record : failed) {
+            failedRecords.put(
+                record.getRecordNumber(), record.stream().collect(Collectors.toList()));
+          }
+          return tablets;
+        });
+    batch.clear();
+  }
+
+  /**
+   * hand a copy of the batch of one device to the writer, which converts it to a tablet, and empty
+   * the batch to collect the next one
+   */
   private static void writeAndEmptyDataSet(
       String device,
-      List<Long> times,
-      List<List<TSDataType>> typesList,
-      List<List<Object>> valuesList,
-      List<List<String>> measurementsList,
-      int retryTime) {
-    try {
-      if (!aligned) {
-        session.insertRecordsOfOneDevice(device, times, measurementsList, typesList, valuesList);
-      } else {
-        session.insertAlignedRecordsOfOneDevice(
-            device, times, measurementsList, typesList, valuesList);
+      List<CSVRecord> batch,
+      Map<String, TSDataType> headerTypeMap,
+      Map<String, String> headerNameMap,
+      @Nullable SimpleDateFormat timeFormatter,
+      Map<Long, List<Object>> failedRecords) {
+    List<CSVRecord> records = new ArrayList<>(batch);
+    Map<String, TSDataType> types = new HashMap<>(headerTypeMap);
+    SimpleDateFormat formatter =
+        timeFormatter == null ? null : (SimpleDateFormat) timeFormatter.clone();
+    writer.write(
+        Collections.singletonList(device),
+        () -> {
+          Set<CSVRecord> failed = new HashSet<>();
+          Tablet tablet =
+              convertToTablet(
+                  device, records, headerNameMap, types, headerNameMap, formatter, failed);
+          for (CSVRecord record : failed) {
+            failedRecords.put(
+                record.getRecordNumber(), record.stream().collect(Collectors.toList()));
+          }
+          return tablet == null
+              ? Collections.emptyMap()
+              : Collections.singletonMap(device, tablet);
+        });
+    batch.clear();
+  }
+
+  /**
+   * convert the records of a device to a tablet, which is called by the convert threads of the
+   * writer
+   *
+   * @param columns the headers of the columns of the device and their measurement names
+   * @param types the data types of the columns inferred when the batch is collected
+   * @param failed collects the records with a value that can't be converted
+   * @return the tablet of the rows and columns with values, or null if there is none
+   */
+  private static Tablet convertToTablet(
+      String device,
+      List<CSVRecord> records,
+      Map<String, String> columns,
+      Map<String, TSDataType> types,
+      Map<String, String> headerNameMap,
+      @Nullable SimpleDateFormat timeFormatter,
+      Set<CSVRecord> failed) {
+    List<String> headers = new ArrayList<>(columns.keySet());
+    Object[][] values = new Object[headers.size()][records.size()];
+    boolean[] columnHasValue = new boolean[headers.size()];
+    long[] times = new long[records.size()];
+    int rowNum = 0;
+    for (CSVRecord record : records) {
+      boolean rowHasValue = false;
+      for (int i = 0; i < headers.size(); i++) {
+        String header = headers.get(i);
+        String value = record.get(header);
+        if ("".equals(value)) {
+          continue;
+        }
+        TSDataType type = types.get(headerNameMap.get(header));
+        if (type == null) {
+          System.out.printf(
+              "Line '%s', column '%s': '%s' unknown type%n",
+              record.getRecordNumber(), header, value);
+          failed.add(record);
+          continue;
+        }
+        Object valueTrans = typeTrans(value, type);
+        if (valueTrans == null) {
+          System.out.printf(
+              "Line '%s', column '%s': '%s' can't convert to '%s'%n",
+              record.getRecordNumber(), headerNameMap.get(header), value, type);
+          failed.add(record);
+          continue;
+        }
+        values[i][rowNum] = valueTrans;
+        columnHasValue[i] = true;
+        rowHasValue = true;
       }
-    } catch (IoTDBConnectionException e) {
-      if (retryTime > 0) {
-        try {
-          session.open();
-        } catch (IoTDBConnectionException ex) {
-          System.out.println("Meet error when insert csv because " + e.getMessage());
+      if (rowHasValue) {
+        if (timeFormatter == null) {
+          times[rowNum] = Long.parseLong(record.get(timeColumn));
+        } else {
+          try {
+            times[rowNum] = timeFormatter.parse(record.get(timeColumn)).getTime();
+          } catch (ParseException e) {
+            System.out.println(
+                "Meet error when insert csv because the format of time is not supported");
+            System.exit(0);
+          }
         }
-        writeAndEmptyDataSet(device, times, typesList, valuesList, measurementsList, --retryTime);
+        rowNum++;
       }
-    } catch (StatementExecutionException e) {
-      System.out.println("Meet error when insert csv because " + e.getMessage());
-    } finally {
-      times.clear();
-      typesList.clear();
-      valuesList.clear();
-      measurementsList.clear();
     }
-  }
+    if (rowNum == 0) {
+      return null;
+    }
 
-  private static void writeAndEmptyDataSet(
-      List<String> deviceIds,
-      List<Long> times,
-      List<List<TSDataType>> typesList,
-      List<List<Object>> valuesList,
-      List<List<String>> measurementsList,
-      int retryTime) {
-    try {
-      if (!aligned) {
-        session.insertRecords(deviceIds, times, measurementsList, typesList, valuesList);
-      } else {
-        session.insertAlignedRecords(deviceIds, times, measurementsList, typesList, valuesList);
+    // only the columns with values are written, so that no empty timeseries is created
+    List<MeasurementSchema> schemas = new ArrayList<>();
+    List<Integer> columnIndexes = new ArrayList<>();
+    for (int i = 0; i < headers.size(); i++) {
+      if (columnHasValue[i]) {
+        String header = headers.get(i);
+        schemas.add(
+            new MeasurementSchema(columns.get(header), types.get(headerNameMap.get(header))));
+        columnIndexes.add(i);
       }
-    } catch (IoTDBConnectionException e) {
-      if (retryTime > 0) {
-        try {
-          session.open();
-        } catch (IoTDBConnectionException ex) {
-          System.out.println("Meet error when insert csv because " + e.getMessage());
-        }
-        writeAndEmptyDataSet(
-            deviceIds, times, typesList, valuesList, measurementsList, --retryTime);
+    }
+    Tablet tablet = new Tablet(device, schemas, rowNum);
+    for (int row = 0; row < rowNum; row++) {
+      tablet.addTimestamp(row, times[row]);
+      for (int i = 0; i < columnIndexes.size(); i++) {
+        // a null value is marked in the bitmap of the column
+        tablet.addValue(schemas.get(i).getMeasurementId(), row, values[columnIndexes.get(i)][row]);
       }
-    } catch (StatementExecutionException e) {
-      System.out.println("Meet error when insert csv because " + e.getMessage());
-    } finally {
-      deviceIds.clear();
-      times.clear();
-      typesList.clear();
-      valuesList.clear();
-      measurementsList.clear();
     }
+    tablet.rowSize = rowNum;
+    return tablet;
   }
 
   /**
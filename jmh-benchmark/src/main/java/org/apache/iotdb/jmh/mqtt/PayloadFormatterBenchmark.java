@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.mqtt;
+
+import org.apache.iotdb.db.protocol.mqtt.JSONPayloadFormatter;
+import org.apache.iotdb.db.protocol.mqtt.Message;
+import org.apache.iotdb.db.protocol.mqtt.PayloadFormatter;
+import org.apache.iotdb.db.protocol.mqtt.StreamingJSONPayloadFormatter;
+import org.apache.iotdb.db.protocol.mqtt.TabletPayloadFormatter;
+import org.apache.iotdb.db.protocol.mqtt.TabletPayloadFormatter.RowSink;
+import org.apache.iotdb.db.protocol.mqtt.TabletPayloadFormatter.ValueReader;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats one MQTT payload with the json and the json-stream formatters. A payload holds the given
+ * number of rows of one device in the batch format, or a single row when rowNum is 1. The score is
+ * payloads per second.
+ *
+ * <p>{@link #format()} builds the messages, while {@link #formatTablet(Blackhole)} reads the values
+ * as doubles the way the handler fills a tablet, through {@link TabletPayloadFormatter} if the
+ * formatter supports it and by parsing the values of the messages otherwise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatterBenchmark {
+
+  @Param({"json", "json-stream"})
+  public String formatterName;
+
+  @Param({"1", "100"})
+  public int rowNum;
+
+  @Param({"10"})
+  public int measurementNum;
+
+  private PayloadFormatter formatter;
+
+  private ByteBuf payload;
+
+  private RowSink sink;
+
+  @Setup(Level.Trial)
+  public void setUp(Blackhole blackhole) {
+    switch (formatterName) {
+      case "json":
+        formatter = new JSONPayloadFormatter();
+        break;
+      case "json-stream":
+        formatter = new StreamingJSONPayloadFormatter();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown payload format named: " + formatterName);
+    }
+    byte[] bytes = generatePayload().getBytes(StandardCharsets.UTF_8);
+    payload = Unpooled.wrappedBuffer(bytes);
+    sink = new DoubleSink(blackhole);
+  }
+
+  /** Generate the payload from a fixed seed, so that the results can be compared directly. */
+  private String generatePayload() {
+    Random random = new Random(rowNum * 31L + measurementNum);
+    long time = 1586076045524L;
+    StringBuilder builder = new StringBuilder("{\"device\":\"root.sg.d1\",");
+    if (rowNum == 1) {
+      builder.append("\"timestamp\":").append(time).append(',');
+    } else {
+      builder.append("\"timestamps\":[");
+      for (int i = 0; i < rowNum; i++) {
+        builder.append(i == 0 ? "" : ",").append(time + i * 1000L);
+      }
+      builder.append("],");
+    }
+    builder.append("\"measurements\":[");
+    for (int i = 0; i < measurementNum; i++) {
+      builder.append(i == 0 ? "" : ",").append("\"s").append(i).append('"');
+    }
+    builder.append("],\"values\":");
+    if (rowNum == 1) {
+      appendRow(builder, random);
+    } else {
+      builder.append('[');
+      for (int i = 0; i < rowNum; i++) {
+        builder.append(i == 0 ? "" : ",");
+        appendRow(builder, random);
+      }
+      builder.append(']');
+    }
+    return builder.append('}').toString();
+  }
+
+  private void appendRow(StringBuilder builder, Random random) {
+    builder.append('[');
+    for (int i = 0; i < measurementNum; i++) {
+      builder.append(i == 0 ? "" : ",").append(random.nextInt(1_000_000) / 1000.0);
+    }
+    builder.append(']');
+  }
+
+  @Benchmark
+  public List<Message> format() {
+    return formatter.format(payload);
+  }
+
+  @Benchmark
+  public void formatTablet(Blackhole blackhole) {
+    if (formatter instanceof TabletPayloadFormatter) {
+      ((TabletPayloadFormatter) formatter).format(payload, sink);
+      return;
+    }
+    for (Message message : formatter.format(payload)) {
+      blackhole.consume(message.getTimestamp());
+      for (String value : message.getValues()) {
+        blackhole.consume(Double.parseDouble(value));
+      }
+    }
+  }
+
+  /** Reads the values as doubles, the type of the generated values. */
+  private static class DoubleSink implements RowSink {
+
+    private final Blackhole blackhole;
+
+    private DoubleSink(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void beginRow(String device, List<String> measurements, long time) {
+      blackhole.consume(time);
+    }
+
+    @Override
+    public void value(ValueReader reader) throws IOException {
+      blackhole.consume(reader.readDouble());
+    }
+
+    @Override
+    public void endRow() {}
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.tsfile;
+
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses and uncompresses one page the way PageWriter and PageReader do. A page holds the
+ * TS_2DIFF encoded timestamps followed by the values in the given encoding. The score is points per
+ * second, and the size of the compressed page is printed as bytes per point when a trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(EncodingBenchmark.POINT_NUM)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+  @Param({"SNAPPY", "LZ4", "GZIP"})
+  public CompressionType compressionType;
+
+  @Param({"COUNTER", "STATUS", "TEMPERATURE", "HUMIDITY", "VIBRATION"})
+  public SensorDataset dataset;
+
+  @Param({"PLAIN", "GORILLA"})
+  public TSEncoding valueEncoding;
+
+  private ICompressor compressor;
+
+  private IUnCompressor unCompressor;
+
+  private byte[] page;
+
+  private byte[] compressed;
+
+  private int compressedLength;
+
+  private byte[] uncompressed;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    SeriesData data = dataset.generate(EncodingBenchmark.POINT_NUM);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    data.encodeTimes(
+        TSEncodingBuilder.getEncodingBuilder(TSEncoding.TS_2DIFF).getEncoder(TSDataType.INT64),
+        out);
+    data.encodeValues(
+        TSEncodingBuilder.getEncodingBuilder(valueEncoding).getEncoder(data.getDataType()), out);
+    page = out.toByteArray();
+
+    compressor = ICompressor.getCompressor(compressionType);
+    unCompressor = IUnCompressor.getUnCompressor(compressionType);
+    compressed = new byte[compressor.getMaxBytesForCompression(page.length)];
+    compressedLength = compress();
+    uncompressed = new byte[page.length];
+
+    EncodingBenchmark.reportSize(
+        "uncompressed " + valueEncoding + " page of " + dataset, page.length, data.size());
+    EncodingBenchmark.reportSize(
+        compressionType + " compressed " + valueEncoding + " page of " + dataset,
+        compressedLength,
+        data.size());
+  }
+
+  @Benchmark
+  public int compress() throws IOException {
+    return compressor.compress(page, 0, page.length, compressed);
+  }
+
+  @Benchmark
+  public int uncompress() throws IOException {
+    return unCompressor.uncompress(compressed, 0, compressedLength, uncompressed, 0);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.tsfile;
+
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes one page of a sensor dataset. The score is points per second, and the size of
+ * the encoded page is printed as bytes per point when a trial starts. Subclasses choose the
+ * datasets and encodings that make sense together.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(EncodingBenchmark.POINT_NUM)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class EncodingBenchmark {
+
+  /** number of points in one page */
+  static final int POINT_NUM = 64 * 1024;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  private SeriesData data;
+
+  private TSEncoding encoding;
+
+  private byte[] encoded;
+
+  protected abstract SensorDataset getDataset();
+
+  protected abstract TSEncoding getEncoding();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    data = getDataset().generate(POINT_NUM);
+    encoding = getEncoding();
+    encode();
+    encoded = out.toByteArray();
+    reportSize(encoding + " on " + getDataset(), encoded.length, data.size());
+  }
+
+  @Benchmark
+  public int encode() throws IOException {
+    out.reset();
+    data.encodeValues(
+        TSEncodingBuilder.getEncodingBuilder(encoding).getEncoder(data.getDataType()), out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int decode(Blackhole blackhole) throws IOException {
+    return data.decodeValues(
+        Decoder.getDecoderByType(encoding, data.getDataType()),
+        ByteBuffer.wrap(encoded),
+        blackhole);
+  }
+
+  static void reportSize(String name, long sizeInByte, int pointNum) {
+    System.out.printf(
+        "%n%s: %.3f bytes per point (%d bytes for %d points)%n",
+        name, (double) sizeInByte / pointNum, sizeInByte, pointNum);
+  }
+}
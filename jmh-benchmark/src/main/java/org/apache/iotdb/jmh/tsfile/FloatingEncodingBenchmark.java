@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.tsfile;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.openjdk.jmh.annotations.Param;
+
+/** Encodings of FLOAT and DOUBLE measurements. FREQ is lossy and fits periodic signals. */
+public class FloatingEncodingBenchmark extends EncodingBenchmark {
+
+  @Param({"TEMPERATURE", "HUMIDITY", "VIBRATION"})
+  public SensorDataset dataset;
+
+  @Param({"PLAIN", "TS_2DIFF", "GORILLA", "RLE", "FREQ"})
+  public TSEncoding encoding;
+
+  @Override
+  protected SensorDataset getDataset() {
+    return dataset;
+  }
+
+  @Override
+  protected TSEncoding getEncoding() {
+    return encoding;
+  }
+}
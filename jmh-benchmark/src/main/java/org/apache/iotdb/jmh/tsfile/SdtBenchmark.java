@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.tsfile;
+
+import org.apache.iotdb.tsfile.encoding.encoder.SDTEncoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters one page with the swinging door trending encoder. The deviation is given as a ratio of
+ * the value range of the dataset, so that it means the same for all the datasets. The score is
+ * points per second, and the ratio of kept points is printed when a trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(EncodingBenchmark.POINT_NUM)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SdtBenchmark {
+
+  @Param({"COUNTER", "TEMPERATURE", "HUMIDITY", "VIBRATION"})
+  public SensorDataset dataset;
+
+  @Param({"0.001", "0.01"})
+  public double deviationRatio;
+
+  private SeriesData data;
+
+  private double compDeviation;
+
+  // SDTEncoder filters the arrays in place, so every invocation works on a copy
+  private long[] times;
+  private long[] longs;
+  private float[] floats;
+  private double[] doubles;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    data = dataset.generate(EncodingBenchmark.POINT_NUM);
+    times = new long[data.size()];
+    double min = Double.MAX_VALUE;
+    double max = -Double.MAX_VALUE;
+    for (int i = 0; i < data.size(); i++) {
+      double value;
+      switch (data.getDataType()) {
+        case INT64:
+          value = data.longs[i];
+          break;
+        case FLOAT:
+          value = data.floats[i];
+          break;
+        case DOUBLE:
+          value = data.doubles[i];
+          break;
+        default:
+          throw new UnSupportedDataTypeException(data.getDataType().name());
+      }
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    compDeviation = (max - min) * deviationRatio;
+    longs = data.longs == null ? null : new long[data.size()];
+    floats = data.floats == null ? null : new float[data.size()];
+    doubles = data.doubles == null ? null : new double[data.size()];
+
+    int keptNum = encode();
+    System.out.printf(
+        "%nSDT on %s with deviation %.4f: %d of %d points kept (%.2f%%)%n",
+        dataset, compDeviation, keptNum, data.size(), 100.0 * keptNum / data.size());
+  }
+
+  @Benchmark
+  public int encode() {
+    SDTEncoder encoder = new SDTEncoder();
+    encoder.setCompDeviation(compDeviation);
+    int size = data.size();
+    System.arraycopy(data.times, 0, times, 0, size);
+    switch (data.getDataType()) {
+      case INT64:
+        System.arraycopy(data.longs, 0, longs, 0, size);
+        return encoder.encode(times, longs, size);
+      case FLOAT:
+        System.arraycopy(data.floats, 0, floats, 0, size);
+        return encoder.encode(times, floats, size);
+      case DOUBLE:
+        System.arraycopy(data.doubles, 0, doubles, 0, size);
+        return encoder.encode(times, doubles, size);
+      default:
+        throw new UnSupportedDataTypeException(data.getDataType().name());
+    }
+  }
+}
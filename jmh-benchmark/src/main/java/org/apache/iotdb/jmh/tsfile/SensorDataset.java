@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.tsfile;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import java.util.Random;
+
+/**
+ * Synthetic series shaped like the data of real sensors. Every dataset is generated from a fixed
+ * seed, so that numbers measured on different machines or before and after a change are comparable.
+ */
+public enum SensorDataset {
+
+  /** Timestamps of a 1Hz sensor with some jitter and lost points, stored as INT64 values. */
+  TIMESTAMP(TSDataType.INT64, 1000) {
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      System.arraycopy(data.times, 0, data.longs, 0, data.size());
+    }
+  },
+
+  /** An energy meter reporting its accumulated Wh every second. */
+  COUNTER(TSDataType.INT64, 1000) {
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      long value = 1_000_000L;
+      for (int i = 0; i < data.size(); i++) {
+        // the consumption changes slowly, with a few idle periods
+        value += random.nextInt(10) == 0 ? 0 : 20 + random.nextInt(5);
+        data.longs[i] = value;
+      }
+    }
+  },
+
+  /** Running state of a machine, which changes rarely among a few enum values. */
+  STATUS(TSDataType.INT32, 1000) {
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      int state = 0;
+      for (int i = 0; i < data.size(); i++) {
+        if (random.nextInt(200) == 0) {
+          state = random.nextInt(4);
+        }
+        data.ints[i] = state;
+      }
+    }
+  },
+
+  /** Ambient temperature with a daily cycle, measured with a resolution of 0.01 degree. */
+  TEMPERATURE(TSDataType.DOUBLE, 1000) {
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      double drift = 0;
+      for (int i = 0; i < data.size(); i++) {
+        drift += random.nextGaussian() * 0.01;
+        double value = 20 + 5 * Math.sin(2 * Math.PI * i / 86_400) + drift;
+        data.doubles[i] = Math.round(value * 100) / 100.0;
+      }
+    }
+  },
+
+  /** Relative humidity with a resolution of 0.1%, stored as FLOAT. */
+  HUMIDITY(TSDataType.FLOAT, 1000) {
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      double value = 55;
+      for (int i = 0; i < data.size(); i++) {
+        value = Math.max(20, Math.min(90, value + random.nextGaussian() * 0.05));
+        data.floats[i] = Math.round(value * 10) / 10.0f;
+      }
+    }
+  },
+
+  /** Acceleration of a motor sampled at 1kHz, full precision with noise. */
+  VIBRATION(TSDataType.DOUBLE, 1) {
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      for (int i = 0; i < data.size(); i++) {
+        double t = i / 1000.0;
+        data.doubles[i] =
+            0.8 * Math.sin(2 * Math.PI * 50 * t)
+                + 0.3 * Math.sin(2 * Math.PI * 120 * t)
+                + random.nextGaussian() * 0.05;
+      }
+    }
+  },
+
+  /** Event log of a device, a handful of distinct strings dominated by one of them. */
+  EVENT(TSDataType.TEXT, 1000) {
+    private final String[] events = {
+      "running", "idle", "door_open", "door_closed", "alarm:over_heat", "alarm:low_pressure"
+    };
+
+    @Override
+    void fillValues(SeriesData data, Random random) {
+      for (int i = 0; i < data.size(); i++) {
+        int event = random.nextInt(10) < 7 ? 0 : random.nextInt(events.length);
+        data.binaries[i] = new Binary(events[event]);
+      }
+    }
+  };
+
+  /** 2022-07-01T00:00:00Z */
+  private static final long START_TIME = 1_656_633_600_000L;
+
+  private static final long SEED = 20220701L;
+
+  private final TSDataType dataType;
+
+  /** sampling interval in ms */
+  private final long interval;
+
+  SensorDataset(TSDataType dataType, long interval) {
+    this.dataType = dataType;
+    this.interval = interval;
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  /** Generate the first size points of this dataset, the result is always the same. */
+  public SeriesData generate(int size) {
+    Random random = new Random(SEED + ordinal());
+    SeriesData data = new SeriesData(dataType, size);
+    long time = START_TIME;
+    for (int i = 0; i < size; i++) {
+      data.times[i] = time + (random.nextInt(50) == 0 ? random.nextInt((int) interval + 1) / 2 : 0);
+      // about one point in a thousand is lost
+      time += random.nextInt(1000) == 0 ? 2 * interval : interval;
+    }
+    fillValues(data, random);
+    return data;
+  }
+
+  abstract void fillValues(SeriesData data, Random random);
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.jmh.tsfile;
+
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Timestamps and values of one generated series, values are kept in the array of its type. */
+public class SeriesData {
+
+  final TSDataType dataType;
+  final long[] times;
+  final int[] ints;
+  final long[] longs;
+  final float[] floats;
+  final double[] doubles;
+  final Binary[] binaries;
+
+  SeriesData(TSDataType dataType, int size) {
+    this.dataType = dataType;
+    this.times = new long[size];
+    this.ints = dataType == TSDataType.INT32 ? new int[size] : null;
+    this.longs = dataType == TSDataType.INT64 ? new long[size] : null;
+    this.floats = dataType == TSDataType.FLOAT ? new float[size] : null;
+    this.doubles = dataType == TSDataType.DOUBLE ? new double[size] : null;
+    this.binaries = dataType == TSDataType.TEXT ? new Binary[size] : null;
+  }
+
+  public int size() {
+    return times.length;
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  public long[] getTimes() {
+    return times;
+  }
+
+  /** Encode all the timestamps and flush the encoder. */
+  public void encodeTimes(Encoder encoder, ByteArrayOutputStream out) throws IOException {
+    for (long time : times) {
+      encoder.encode(time, out);
+    }
+    encoder.flush(out);
+  }
+
+  /** Encode all the values and flush the encoder. */
+  public void encodeValues(Encoder encoder, ByteArrayOutputStream out) throws IOException {
+    int size = size();
+    switch (dataType) {
+      case INT32:
+        for (int i = 0; i < size; i++) {
+          encoder.encode(ints[i], out);
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < size; i++) {
+          encoder.encode(longs[i], out);
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < size; i++) {
+          encoder.encode(floats[i], out);
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < size; i++) {
+          encoder.encode(doubles[i], out);
+        }
+        break;
+      case TEXT:
+        for (int i = 0; i < size; i++) {
+          encoder.encode(binaries[i], out);
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+    encoder.flush(out);
+  }
+
+  /**
+   * Decode all the values in the buffer into the black hole.
+   *
+   * @return number of decoded values
+   */
+  public int decodeValues(Decoder decoder, ByteBuffer buffer, Blackhole blackhole)
+      throws IOException {
+    int count = 0;
+    switch (dataType) {
+      case INT32:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readInt(buffer));
+          count++;
+        }
+        break;
+      case INT64:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readLong(buffer));
+          count++;
+        }
+        break;
+      case FLOAT:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readFloat(buffer));
+          count++;
+        }
+        break;
+      case DOUBLE:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readDouble(buffer));
+          count++;
+        }
+        break;
+      case TEXT:
+        while (decoder.hasNext(buffer)) {
+          blackhole.consume(decoder.readBinary(buffer));
+          count++;
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+    return count;
+  }
+}
@@ -37,6 +37,7 @@ public enum ThreadName {
   DATA_REGION_RECOVER_SERVICE("Data-Region-Recover"),
   FLUSH_SERVICE("Flush"),
   FLUSH_SUB_TASK_SERVICE("Flush-SubTask"),
+  FLUSH_SORT_TASK_SERVICE("Flush-SortTask"),
   COMPACTION_SERVICE("Compaction"),
   COMPACTION_SUB_SERVICE("Sub-Compaction"),
   COMPACTION_SCHEDULE("Compaction_Schedule"),
@@ -44,9 +45,13 @@ public enum ThreadName {
   WAL_SYNC("WAL-Sync"),
   WAL_DELETE("WAL-Delete"),
   WAL_RECOVER("WAL-Recover"),
+  WAL_RECOVER_REDO("WAL-Recover-Redo"),
+  WAL_RECOVER_PROGRESS("WAL-Recover-Progress"),
   INDEX_SERVICE("Index"),
   SYNC_CLIENT("Sync-Client"),
   SYNC_SERVER("Sync"),
+  MQTT_PAYLOAD_FORMAT("MQTT-Payload-Format"),
+  MQTT_BATCH_FLUSH("MQTT-Batch-Flush"),
   TIME_COST_STATISTIC("TIME_COST_STATISTIC"),
   QUERY_SERVICE("Query"),
   SUB_RAW_QUERY_SERVICE("Sub_RawQuery"),
@@ -200,6 +200,12 @@ public class IoTDBConstant {
   public static final String MQTT_HANDLER_POOL_SIZE_NAME = "mqtt_handler_pool_size";
   public static final String MQTT_PAYLOAD_FORMATTER_NAME = "mqtt_payload_formatter";
   public static final String MQTT_MAX_MESSAGE_SIZE = "mqtt_max_message_size";
+  public static final String MQTT_PAYLOAD_FORMAT_THREAD_NUM_NAME =
+      "mqtt_payload_format_thread_num";
+  public static final String MQTT_INSERT_BATCH_SIZE_NAME = "mqtt_insert_batch_size";
+  public static final String MQTT_INSERT_BATCH_INTERVAL_IN_MS_NAME =
+      "mqtt_insert_batch_interval_in_ms";
+  public static final String MQTT_MAX_PENDING_MESSAGE_NUM_NAME = "mqtt_max_pending_message_num";
 
   // thrift
   public static final int LEFT_SIZE_IN_REQUEST = 4 * 1024 * 1024;
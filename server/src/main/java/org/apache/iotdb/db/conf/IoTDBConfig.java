@@ -99,6 +99,21 @@ public class IoTDBConfig {
   /** max mqtt message size. Unit: byte */
   private int mqttMaxMessageSize = 1048576;
 
+  /** the number of threads formatting mqtt payloads and inserting the messages. */
+  private int mqttPayloadFormatThreadNum = Runtime.getRuntime().availableProcessors();
+
+  /** max number of rows of one device coalesced into one insertion of mqtt messages. */
+  private int mqttInsertBatchSize = 1000;
+
+  /** max time a row of mqtt messages waits to be coalesced before insertion. Unit: ms */
+  private long mqttInsertBatchIntervalInMs = 100;
+
+  /**
+   * max number of mqtt messages received but not formatted yet. Beyond it, the broker is blocked
+   * until the pending messages are consumed.
+   */
+  private int mqttMaxPendingMessageNum = 10000;
+
   /** Rpc binding address. */
   private String rpcAddress = "0.0.0.0";
 
@@ -134,6 +149,16 @@ public class IoTDBConfig {
   /** Ratio of memory allocated for buffered arrays */
   private double bufferedArraysMemoryProportion = 0.6;
 
+  /**
+   * Data regions whose memtables keep timestamps and numeric values in off-heap arrays. Each item
+   * is either a storage group, which covers all of its data regions, or a single data region in
+   * the form of "root.sg-1".
+   */
+  private String[] offHeapMemTableDataRegions = {};
+
+  /** Direct memory allocated for off-heap memtable arrays. Unit: byte */
+  private long offHeapMemTableMemorySize = 2L * 1024 * 1024 * 1024;
+
   /** Memory allocated proportion for timeIndex */
   private double timeIndexMemoryProportion = 0.2;
 
@@ -167,12 +192,18 @@ public class IoTDBConfig {
   /** Max number of wal nodes, each node corresponds to one wal directory */
   private int maxWalNodesNum = 0;
 
-  /** Duration a wal flush operation will wait before calling fsync. Unit: millisecond */
+  /**
+   * Max duration a wal flush operation will wait for more entries before calling fsync. The actual
+   * duration adapts to the queue depth and the measured fsync latency. Unit: millisecond
+   */
   private volatile long fsyncWalDelayInMs = 3;
 
   /** Buffer size of each wal node. Unit: byte */
   private int walBufferSize = 16 * 1024 * 1024;
 
+  /** Number of buffers the buffer of each wal node is split into, at least 2 */
+  private int walBufferNum = 4;
+
   /** Buffer entry size of each wal buffer. Unit: byte */
   private int walBufferEntrySize = 16 * 1024;
 
@@ -200,6 +231,12 @@ public class IoTDBConfig {
 
   /** The period when outdated wal files are periodically deleted. Unit: millisecond */
   private volatile long deleteWalFilesPeriodInMs = 20 * 1000;
+
+  /**
+   * Number of threads redoing wal entries into the memTables of unsealed TsFiles during recovery.
+   * Entries of the same TsFile are always redone in order.
+   */
+  private int walRecoverRedoThreadNum = Runtime.getRuntime().availableProcessors();
   // endregion
 
   /**
@@ -429,6 +466,13 @@ public class IoTDBConfig {
    */
   private long chunkPointNumLowerBoundInCompaction = 100;
 
+  /**
+   * The max estimated size of the chunk metadata held in memory by the target file writers of one
+   * compaction task, 64 MB by default. Beyond it, the chunk metadata is spilled to temp files
+   * beside the target files. Spilling is disabled if it is not positive.
+   */
+  private long compactionMaxChunkMetadataSize = 67108864L;
+
   /**
    * If compaction thread cannot acquire the write lock within this timeout, the compaction task
    * will be abort.
@@ -465,6 +509,18 @@ public class IoTDBConfig {
   /** Memory allocated for chunk cache in read process */
   private long allocateMemoryForChunkCache = allocateMemoryForRead * 100 / 1001;
 
+  /**
+   * Direct memory allocated for the compressed chunk data of the off-heap chunk cache, 0 means the
+   * off-heap tier is disabled. Unit: byte
+   */
+  private long allocateMemoryForOffHeapChunkCache = 0;
+
+  /**
+   * Whether to persist the statistics of each series along with the TsFileResource of a sealed
+   * file, so that aggregations covering the whole file can be answered without its metadata.
+   */
+  private boolean enableTsFileStatisticsRollup = true;
+
   /** Whether to enable Last cache */
   private boolean lastCacheEnable = true;
 
@@ -506,9 +562,18 @@ public class IoTDBConfig {
   /** Examining period of cache file reader : 100 seconds. Unit: millisecond */
   private long cacheFileReaderClearPeriod = 100000;
 
+  /**
+   * Max number of readers of sealed TsFiles kept open without any reference, the least recently
+   * used ones are closed beyond it. 0 means readers are closed once they are not referenced.
+   */
+  private int maxIdleFileReaderNum = 1000;
+
   /** the max executing time of query in ms. Unit: millisecond */
   private int queryTimeoutThreshold = 60000;
 
+  /** The max number of driver tasks which can be scheduled concurrently in a data node. */
+  private int maxAllowedConcurrentDriverTasks = 1000;
+
   /** the max time to live of a session in ms. Unit: millisecond */
   private int sessionTimeoutThreshold = 0;
 
@@ -614,6 +679,18 @@ public class IoTDBConfig {
   /** The limit of compaction merge can reach per second */
   private int compactionWriteThroughputMbPerSec = 16;
 
+  /**
+   * Whether to prioritize the compaction of time partitions with high read amplification and scale
+   * the compaction write throughput down with foreground write and query load.
+   */
+  private boolean enableAdaptiveCompactionSchedule = false;
+
+  /**
+   * The lower bound of the compaction write throughput under full foreground load, as a ratio of
+   * compactionWriteThroughputMbPerSec. Only works when enableAdaptiveCompactionSchedule is true.
+   */
+  private double adaptiveCompactionMinThroughputRatio = 0.2;
+
   /**
    * How many thread will be set up to perform compaction, 10 by default. Set to 1 when less than or
    * equal to 0.
@@ -705,6 +782,12 @@ public class IoTDBConfig {
   /** the default fill interval in LinearFill and PreviousFill, -1 means infinite past time */
   private int defaultFillInterval = -1;
 
+  /**
+   * Max memory in bytes that a SortOperator can use to buffer its input, sorted rows will be
+   * spilled to disk beyond it.
+   */
+  private long sortBufferSizeInBytes = 32 * 1024 * 1024L;
+
   /** The default value of primitive array size in array pool */
   private int primitiveArraySize = 32;
 
@@ -880,6 +963,12 @@ public class IoTDBConfig {
   /** Thread keep alive time in ms of data block manager. */
   private int dataBlockManagerKeepAliveTimeInMs = 1000;
 
+  /**
+   * TsBlocks whose serialized size is no less than this threshold are compressed by LZ4 before
+   * being sent to other fragment instances. Compression is disabled if it is negative.
+   */
+  private int dataBlockCompressionThresholdInBytes = 256 * 1024;
+
   /** Thrift socket and connection timeout between data node and config node. */
   private int connectionTimeoutInMS = (int) TimeUnit.SECONDS.toMillis(20);
 
@@ -994,6 +1083,14 @@ public class IoTDBConfig {
     this.defaultFillInterval = defaultFillInterval;
   }
 
+  public long getSortBufferSizeInBytes() {
+    return sortBufferSizeInBytes;
+  }
+
+  public void setSortBufferSizeInBytes(long sortBufferSizeInBytes) {
+    this.sortBufferSizeInBytes = sortBufferSizeInBytes;
+  }
+
   public boolean isEnablePartition() {
     return enablePartition;
   }
@@ -1438,6 +1535,14 @@ public class IoTDBConfig {
     this.cacheFileReaderClearPeriod = cacheFileReaderClearPeriod;
   }
 
+  public int getMaxIdleFileReaderNum() {
+    return maxIdleFileReaderNum;
+  }
+
+  public void setMaxIdleFileReaderNum(int maxIdleFileReaderNum) {
+    this.maxIdleFileReaderNum = maxIdleFileReaderNum;
+  }
+
   public int getQueryTimeoutThreshold() {
     return queryTimeoutThreshold;
   }
@@ -1446,6 +1551,14 @@ public class IoTDBConfig {
     this.queryTimeoutThreshold = queryTimeoutThreshold;
   }
 
+  public int getMaxAllowedConcurrentDriverTasks() {
+    return maxAllowedConcurrentDriverTasks;
+  }
+
+  public void setMaxAllowedConcurrentDriverTasks(int maxAllowedConcurrentDriverTasks) {
+    this.maxAllowedConcurrentDriverTasks = maxAllowedConcurrentDriverTasks;
+  }
+
   public int getSessionTimeoutThreshold() {
     return sessionTimeoutThreshold;
   }
@@ -1502,7 +1615,7 @@ public class IoTDBConfig {
     return fsyncWalDelayInMs;
   }
 
-  void setFsyncWalDelayInMs(long fsyncWalDelayInMs) {
+  public void setFsyncWalDelayInMs(long fsyncWalDelayInMs) {
     this.fsyncWalDelayInMs = fsyncWalDelayInMs;
   }
 
@@ -1514,6 +1627,14 @@ public class IoTDBConfig {
     this.walBufferSize = walBufferSize;
   }
 
+  public int getWalBufferNum() {
+    return walBufferNum;
+  }
+
+  void setWalBufferNum(int walBufferNum) {
+    this.walBufferNum = walBufferNum;
+  }
+
   public int getWalBufferEntrySize() {
     return walBufferEntrySize;
   }
@@ -1578,6 +1699,14 @@ public class IoTDBConfig {
     this.deleteWalFilesPeriodInMs = deleteWalFilesPeriodInMs;
   }
 
+  public int getWalRecoverRedoThreadNum() {
+    return walRecoverRedoThreadNum;
+  }
+
+  void setWalRecoverRedoThreadNum(int walRecoverRedoThreadNum) {
+    this.walRecoverRedoThreadNum = walRecoverRedoThreadNum;
+  }
+
   public boolean isChunkBufferPoolEnable() {
     return chunkBufferPoolEnable;
   }
@@ -1610,6 +1739,22 @@ public class IoTDBConfig {
     this.bufferedArraysMemoryProportion = bufferedArraysMemoryProportion;
   }
 
+  public String[] getOffHeapMemTableDataRegions() {
+    return offHeapMemTableDataRegions;
+  }
+
+  public void setOffHeapMemTableDataRegions(String[] offHeapMemTableDataRegions) {
+    this.offHeapMemTableDataRegions = offHeapMemTableDataRegions;
+  }
+
+  public long getOffHeapMemTableMemorySize() {
+    return offHeapMemTableMemorySize;
+  }
+
+  public void setOffHeapMemTableMemorySize(long offHeapMemTableMemorySize) {
+    this.offHeapMemTableMemorySize = offHeapMemTableMemorySize;
+  }
+
   public double getTimeIndexMemoryProportion() {
     return timeIndexMemoryProportion;
   }
@@ -1764,6 +1909,22 @@ public class IoTDBConfig {
     this.compactionWriteThroughputMbPerSec = compactionWriteThroughputMbPerSec;
   }
 
+  public boolean isEnableAdaptiveCompactionSchedule() {
+    return enableAdaptiveCompactionSchedule;
+  }
+
+  public void setEnableAdaptiveCompactionSchedule(boolean enableAdaptiveCompactionSchedule) {
+    this.enableAdaptiveCompactionSchedule = enableAdaptiveCompactionSchedule;
+  }
+
+  public double getAdaptiveCompactionMinThroughputRatio() {
+    return adaptiveCompactionMinThroughputRatio;
+  }
+
+  public void setAdaptiveCompactionMinThroughputRatio(double adaptiveCompactionMinThroughputRatio) {
+    this.adaptiveCompactionMinThroughputRatio = adaptiveCompactionMinThroughputRatio;
+  }
+
   public boolean isEnableMemControl() {
     return enableMemControl;
   }
@@ -1885,6 +2046,22 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public long getAllocateMemoryForOffHeapChunkCache() {
+    return allocateMemoryForOffHeapChunkCache;
+  }
+
+  public void setAllocateMemoryForOffHeapChunkCache(long allocateMemoryForOffHeapChunkCache) {
+    this.allocateMemoryForOffHeapChunkCache = allocateMemoryForOffHeapChunkCache;
+  }
+
+  public boolean isEnableTsFileStatisticsRollup() {
+    return enableTsFileStatisticsRollup;
+  }
+
+  public void setEnableTsFileStatisticsRollup(boolean enableTsFileStatisticsRollup) {
+    this.enableTsFileStatisticsRollup = enableTsFileStatisticsRollup;
+  }
+
   public boolean isLastCacheEnabled() {
     return lastCacheEnable;
   }
@@ -2262,6 +2439,38 @@ public class IoTDBConfig {
     this.mqttMaxMessageSize = mqttMaxMessageSize;
   }
 
+  public int getMqttPayloadFormatThreadNum() {
+    return mqttPayloadFormatThreadNum;
+  }
+
+  public void setMqttPayloadFormatThreadNum(int mqttPayloadFormatThreadNum) {
+    this.mqttPayloadFormatThreadNum = mqttPayloadFormatThreadNum;
+  }
+
+  public int getMqttInsertBatchSize() {
+    return mqttInsertBatchSize;
+  }
+
+  public void setMqttInsertBatchSize(int mqttInsertBatchSize) {
+    this.mqttInsertBatchSize = mqttInsertBatchSize;
+  }
+
+  public long getMqttInsertBatchIntervalInMs() {
+    return mqttInsertBatchIntervalInMs;
+  }
+
+  public void setMqttInsertBatchIntervalInMs(long mqttInsertBatchIntervalInMs) {
+    this.mqttInsertBatchIntervalInMs = mqttInsertBatchIntervalInMs;
+  }
+
+  public int getMqttMaxPendingMessageNum() {
+    return mqttMaxPendingMessageNum;
+  }
+
+  public void setMqttMaxPendingMessageNum(int mqttMaxPendingMessageNum) {
+    this.mqttMaxPendingMessageNum = mqttMaxPendingMessageNum;
+  }
+
   public int getTagAttributeTotalSize() {
     return tagAttributeTotalSize;
   }
@@ -2577,6 +2786,14 @@ public class IoTDBConfig {
     this.chunkPointNumLowerBoundInCompaction = chunkPointNumLowerBoundInCompaction;
   }
 
+  public long getCompactionMaxChunkMetadataSize() {
+    return compactionMaxChunkMetadataSize;
+  }
+
+  public void setCompactionMaxChunkMetadataSize(long compactionMaxChunkMetadataSize) {
+    this.compactionMaxChunkMetadataSize = compactionMaxChunkMetadataSize;
+  }
+
   public long getCompactionAcquireWriteLockTimeout() {
     return compactionAcquireWriteLockTimeout;
   }
@@ -2793,6 +3010,14 @@ public class IoTDBConfig {
     this.dataBlockManagerKeepAliveTimeInMs = dataBlockManagerKeepAliveTimeInMs;
   }
 
+  public int getDataBlockCompressionThresholdInBytes() {
+    return dataBlockCompressionThresholdInBytes;
+  }
+
+  public void setDataBlockCompressionThresholdInBytes(int dataBlockCompressionThresholdInBytes) {
+    this.dataBlockCompressionThresholdInBytes = dataBlockCompressionThresholdInBytes;
+  }
+
   public int getConnectionTimeoutInMS() {
     return connectionTimeoutInMS;
   }
@@ -202,6 +202,25 @@ public class IoTDBDescriptor {
                   "buffered_arrays_memory_proportion",
                   Double.toString(conf.getBufferedArraysMemoryProportion()))));
 
+      String offHeapMemTableDataRegions =
+          properties.getProperty("off_heap_memtable_data_regions", "").trim();
+      if (!offHeapMemTableDataRegions.isEmpty()) {
+        String[] dataRegions = offHeapMemTableDataRegions.split(",");
+        for (int i = 0; i < dataRegions.length; i++) {
+          dataRegions[i] = dataRegions[i].trim();
+        }
+        conf.setOffHeapMemTableDataRegions(dataRegions);
+      }
+
+      long offHeapMemTableMemorySize =
+          Long.parseLong(
+              properties.getProperty(
+                  "off_heap_memtable_memory_size_in_byte",
+                  Long.toString(conf.getOffHeapMemTableMemorySize())));
+      if (offHeapMemTableMemorySize > 0) {
+        conf.setOffHeapMemTableMemorySize(offHeapMemTableMemorySize);
+      }
+
       conf.setTimeIndexMemoryProportion(
           Double.parseDouble(
               properties.getProperty(
@@ -231,6 +250,18 @@ public class IoTDBDescriptor {
 
       initMemoryAllocate(properties);
 
+      conf.setAllocateMemoryForOffHeapChunkCache(
+          Long.parseLong(
+              properties.getProperty(
+                  "off_heap_chunk_cache_memory_size_in_byte",
+                  Long.toString(conf.getAllocateMemoryForOffHeapChunkCache()))));
+
+      conf.setEnableTsFileStatisticsRollup(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_tsfile_statistics_rollup",
+                  Boolean.toString(conf.isEnableTsFileStatisticsRollup()))));
+
       loadWALProps(properties);
 
       String systemDir = properties.getProperty("system_dir");
@@ -416,6 +447,17 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "query_timeout_threshold", Integer.toString(conf.getQueryTimeoutThreshold()))));
 
+      conf.setMaxIdleFileReaderNum(
+          Integer.parseInt(
+              properties.getProperty(
+                  "max_idle_file_reader_num", Integer.toString(conf.getMaxIdleFileReaderNum()))));
+
+      conf.setMaxAllowedConcurrentDriverTasks(
+          Integer.parseInt(
+              properties.getProperty(
+                  "max_allowed_concurrent_driver_tasks",
+                  Integer.toString(conf.getMaxAllowedConcurrentDriverTasks()))));
+
       conf.setSessionTimeoutThreshold(
           Integer.parseInt(
               properties.getProperty(
@@ -570,6 +612,11 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "chunk_size_lower_bound_in_compaction",
                   Long.toString(conf.getChunkSizeLowerBoundInCompaction()))));
+      conf.setCompactionMaxChunkMetadataSize(
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_max_chunk_metadata_size",
+                  Long.toString(conf.getCompactionMaxChunkMetadataSize()))));
       conf.setMaxInnerCompactionCandidateFileNum(
           Integer.parseInt(
               properties.getProperty(
@@ -587,6 +634,18 @@ public class IoTDBDescriptor {
                   "compaction_write_throughput_mb_per_sec",
                   Integer.toString(conf.getCompactionWriteThroughputMbPerSec()))));
 
+      conf.setEnableAdaptiveCompactionSchedule(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_adaptive_compaction_schedule",
+                  Boolean.toString(conf.isEnableAdaptiveCompactionSchedule()))));
+
+      conf.setAdaptiveCompactionMinThroughputRatio(
+          Double.parseDouble(
+              properties.getProperty(
+                  "adaptive_compaction_min_throughput_ratio",
+                  Double.toString(conf.getAdaptiveCompactionMinThroughputRatio()))));
+
       conf.setEnablePartialInsert(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -655,6 +714,12 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "default_fill_interval", String.valueOf(conf.getDefaultFillInterval()))));
 
+      // the memory limit of SortOperator before spilling to disk
+      conf.setSortBufferSizeInBytes(
+          Long.parseLong(
+              properties.getProperty(
+                  "sort_buffer_size_in_bytes", String.valueOf(conf.getSortBufferSizeInBytes()))));
+
       conf.setTagAttributeTotalSize(
           Integer.parseInt(
               properties.getProperty(
@@ -813,6 +878,14 @@ public class IoTDBDescriptor {
           .setTSFileStorageFs(
               FSType.valueOf(
                   properties.getProperty("tsfile_storage_fs", conf.getTsFileStorageFs().name())));
+      TSFileDescriptor.getInstance()
+          .getConfig()
+          .setUseMmapForSealedTsFile(
+              Boolean.parseBoolean(
+                  properties.getProperty(
+                      "use_mmap_for_sealed_tsfile",
+                      Boolean.toString(
+                          TSFileDescriptor.getInstance().getConfig().isUseMmapForSealedTsFile()))));
       TSFileDescriptor.getInstance()
           .getConfig()
           .setCoreSitePath(properties.getProperty("core_site_path", conf.getCoreSitePath()));
@@ -968,6 +1041,13 @@ public class IoTDBDescriptor {
       conf.setWalBufferSize(walBufferSize);
     }
 
+    int walBufferNum =
+        Integer.parseInt(
+            properties.getProperty("wal_buffer_num", Integer.toString(conf.getWalBufferNum())));
+    if (walBufferNum >= 2) {
+      conf.setWalBufferNum(walBufferNum);
+    }
+
     int walBufferEntrySize =
         Integer.parseInt(
             properties.getProperty(
@@ -984,6 +1064,15 @@ public class IoTDBDescriptor {
       conf.setWalBufferQueueCapacity(walBufferQueueCapacity);
     }
 
+    int walRecoverRedoThreadNum =
+        Integer.parseInt(
+            properties.getProperty(
+                "wal_recover_redo_thread_num",
+                Integer.toString(conf.getWalRecoverRedoThreadNum())));
+    if (walRecoverRedoThreadNum > 0) {
+      conf.setWalRecoverRedoThreadNum(walRecoverRedoThreadNum);
+    }
+
     loadWALHotModifiedProps(properties);
   }
 
@@ -1205,6 +1294,29 @@ public class IoTDBDescriptor {
       conf.setMqttMaxMessageSize(
           Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_MAX_MESSAGE_SIZE)));
     }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_PAYLOAD_FORMAT_THREAD_NUM_NAME) != null) {
+      conf.setMqttPayloadFormatThreadNum(
+          Integer.parseInt(
+              properties.getProperty(IoTDBConstant.MQTT_PAYLOAD_FORMAT_THREAD_NUM_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_INSERT_BATCH_SIZE_NAME) != null) {
+      conf.setMqttInsertBatchSize(
+          Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_INSERT_BATCH_SIZE_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_INSERT_BATCH_INTERVAL_IN_MS_NAME) != null) {
+      conf.setMqttInsertBatchIntervalInMs(
+          Long.parseLong(
+              properties.getProperty(IoTDBConstant.MQTT_INSERT_BATCH_INTERVAL_IN_MS_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_MAX_PENDING_MESSAGE_NUM_NAME) != null) {
+      conf.setMqttMaxPendingMessageNum(
+          Integer.parseInt(
+              properties.getProperty(IoTDBConstant.MQTT_MAX_PENDING_MESSAGE_NUM_NAME)));
+    }
   }
 
   // timed flush memtable
@@ -1630,6 +1742,11 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "data_block_manager_keep_alive_time_in_ms",
                 Integer.toString(conf.getDataBlockManagerKeepAliveTimeInMs()))));
+    conf.setDataBlockCompressionThresholdInBytes(
+        Integer.parseInt(
+            properties.getProperty(
+                "data_block_compression_threshold_in_bytes",
+                Integer.toString(conf.getDataBlockCompressionThresholdInBytes()))));
 
     conf.setPartitionCacheSize(
         Integer.parseInt(
@@ -80,6 +80,26 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
     return ChunkCache.getInstance().getAverageSize();
   }
 
+  @Override
+  public double getOffHeapChunkHitRatio() {
+    return OffHeapChunkCache.getInstance().calculateHitRatio();
+  }
+
+  @Override
+  public long getOffHeapChunkEvictionCount() {
+    return OffHeapChunkCache.getInstance().getEvictionCount();
+  }
+
+  @Override
+  public long getOffHeapChunkCacheMaxMemory() {
+    return OffHeapChunkCache.getInstance().getMaxMemory();
+  }
+
+  @Override
+  public long getOffHeapChunkCacheUsedMemory() {
+    return OffHeapChunkCache.getInstance().getUsedMemory();
+  }
+
   @Override
   public double getTimeSeriesMetadataHitRatio() {
     return TimeSeriesMetadataCache.getInstance().calculateTimeSeriesMetadataHitRatio();
@@ -30,6 +30,14 @@ public interface CacheHitRatioMonitorMXBean {
 
   long getChunkCacheAverageSize();
 
+  double getOffHeapChunkHitRatio();
+
+  long getOffHeapChunkEvictionCount();
+
+  long getOffHeapChunkCacheMaxMemory();
+
+  long getOffHeapChunkCacheUsedMemory();
+
   double getTimeSeriesMetadataHitRatio();
 
   long getTimeSeriesMetadataCacheEvictionCount();
@@ -40,11 +40,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. The
- * caching strategy is LRU.
+ * caching strategy is LRU. Chunks are loaded through {@link OffHeapChunkCache}, the second tier
+ * that keeps compressed chunk data in direct memory.
  */
 public class ChunkCache {
 
@@ -76,10 +78,8 @@ public class ChunkCache {
             .build(
                 chunkMetadata -> {
                   try {
-                    TsFileSequenceReader reader =
-                        FileReaderManager.getInstance()
-                            .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
-                    return reader.readMemChunk(chunkMetadata);
+                    // chunks evicted from heap may still be kept off-heap
+                    return copyMappedData(OffHeapChunkCache.getInstance().get(chunkMetadata));
                   } catch (IOException e) {
                     logger.error("Something wrong happened in reading {}", chunkMetadata, e);
                     throw e;
@@ -113,7 +113,7 @@ public class ChunkCache {
       TsFileSequenceReader reader =
           FileReaderManager.getInstance()
               .get(chunkMetaData.getFilePath(), chunkMetaData.isClosed());
-      Chunk chunk = reader.readMemChunk(chunkMetaData);
+      Chunk chunk = copyMappedData(reader.readMemChunk(chunkMetaData));
       return new Chunk(
           chunk.getHeader(),
           chunk.getData().duplicate(),
@@ -134,6 +134,23 @@ public class ChunkCache {
         chunkMetaData.getStatistics());
   }
 
+  /**
+   * The data of a chunk read from a memory-mapped file is a view of the mapping, which is released
+   * once the reader is closed, e.g. when it is evicted from {@link FileReaderManager} or the file
+   * is deleted. So it is copied to heap before the chunk is handed out.
+   */
+  private static Chunk copyMappedData(Chunk chunk) {
+    ByteBuffer data = chunk.getData();
+    if (!data.isDirect()) {
+      return chunk;
+    }
+    ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+    copy.put(data.duplicate());
+    copy.flip();
+    return new Chunk(
+        chunk.getHeader(), copy, chunk.getDeleteIntervalList(), chunk.getChunkStatistic());
+  }
+
   public double calculateChunkHitRatio() {
     return lruCache.stats().hitRate();
   }
@@ -158,10 +175,12 @@ public class ChunkCache {
   public void clear() {
     lruCache.invalidateAll();
     lruCache.cleanUp();
+    OffHeapChunkCache.getInstance().clear();
   }
 
   public void remove(ChunkMetadata chunkMetaData) {
     lruCache.invalidate(chunkMetaData);
+    OffHeapChunkCache.getInstance().remove(chunkMetaData);
   }
 
   @TestOnly
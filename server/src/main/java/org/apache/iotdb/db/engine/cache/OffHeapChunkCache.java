@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The second tier of {@link ChunkCache}. It keeps the compressed page data of chunks in direct
+ * memory, so chunks evicted from the on-heap cache can be reloaded without reading the disk while
+ * costing no GC-scanned heap. Direct memory is applied in slabs which are cut into blocks of
+ * {@link #BLOCK_SIZE_IN_BYTE}, a chunk takes as many blocks as its data needs, and the least
+ * recently used chunks are evicted when the blocks are used up. Chunk headers are small and are
+ * kept on heap with the index.
+ */
+public class OffHeapChunkCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(OffHeapChunkCache.class);
+
+  static final int BLOCK_SIZE_IN_BYTE = 8 * 1024;
+  private static final int BLOCK_NUM_PER_SLAB = 512;
+
+  /** chunks larger than this proportion of the cache are read from disk directly */
+  private static final int MAX_CHUNK_PROPORTION = 8;
+
+  private final int maxBlockNum;
+
+  /** direct memory slabs, a slab is applied when all blocks of the existing ones are in use */
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+
+  /** ids of free blocks, used as a stack, protected by this */
+  private int[] freeBlocks;
+
+  private int freeBlockNum = 0;
+
+  /** key -> cached chunk, in access order, protected by this */
+  private final LinkedHashMap<ChunkKey, CachedChunk> index = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong requestCount = new AtomicLong(0);
+  private final AtomicLong hitCount = new AtomicLong(0);
+  private final AtomicLong evictionCount = new AtomicLong(0);
+
+  private OffHeapChunkCache() {
+    this(IoTDBDescriptor.getInstance().getConfig().getAllocateMemoryForOffHeapChunkCache());
+    if (isEnabled()) {
+      logger.info("OffHeapChunkCache size = " + getMaxMemory());
+      if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+        MetricsService.getInstance()
+            .getMetricManager()
+            .getOrCreateAutoGauge(
+                Metric.CACHE_HIT.toString(),
+                MetricLevel.IMPORTANT,
+                this,
+                cache -> (long) (cache.calculateHitRatio() * 100),
+                Tag.NAME.toString(),
+                "offHeapChunk");
+      }
+    }
+  }
+
+  OffHeapChunkCache(long maxMemory) {
+    maxBlockNum = (int) Math.min(maxMemory / BLOCK_SIZE_IN_BYTE, Integer.MAX_VALUE);
+    freeBlocks = new int[Math.min(maxBlockNum, BLOCK_NUM_PER_SLAB)];
+  }
+
+  public static OffHeapChunkCache getInstance() {
+    return OffHeapChunkCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return maxBlockNum > 0;
+  }
+
+  /**
+   * Get the chunk of the given metadata from direct memory, or read it by {@link
+   * TsFileSequenceReader#readMemChunk(ChunkMetadata)} and keep a copy of its data if it is absent.
+   */
+  public Chunk get(ChunkMetadata chunkMetadata) throws IOException {
+    if (!isEnabled()) {
+      return readFromDisk(chunkMetadata);
+    }
+    ChunkKey key =
+        new ChunkKey(chunkMetadata.getFilePath(), chunkMetadata.getOffsetOfChunkHeader());
+    Chunk chunk = getIfPresent(key, chunkMetadata);
+    if (chunk == null) {
+      chunk = readFromDisk(chunkMetadata);
+      put(key, chunk.getHeader(), chunk.getData());
+    }
+    return chunk;
+  }
+
+  private Chunk readFromDisk(ChunkMetadata chunkMetadata) throws IOException {
+    TsFileSequenceReader reader =
+        FileReaderManager.getInstance()
+            .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
+    return reader.readMemChunk(chunkMetadata);
+  }
+
+  /** @return the cached chunk whose data is copied back to heap, or null if it is absent */
+  Chunk getIfPresent(ChunkKey key, ChunkMetadata chunkMetadata) {
+    requestCount.incrementAndGet();
+    ChunkHeader header;
+    ByteBuffer data;
+    synchronized (this) {
+      CachedChunk cachedChunk = index.get(key);
+      if (cachedChunk == null) {
+        return null;
+      }
+      header = cachedChunk.header;
+      // decompression needs a heap buffer, and the blocks may be reused once the lock is released
+      data = ByteBuffer.allocate(cachedChunk.dataSize);
+      copyFromBlocks(cachedChunk.blocks, data);
+    }
+    hitCount.incrementAndGet();
+    data.flip();
+    return new Chunk(
+        header, data, chunkMetadata.getDeleteIntervalList(), chunkMetadata.getStatistics());
+  }
+
+  /** Copy the data into direct memory, evicting least recently used chunks if necessary. */
+  void put(ChunkKey key, ChunkHeader header, ByteBuffer data) {
+    int dataSize = data.remaining();
+    int blockNum = (dataSize + BLOCK_SIZE_IN_BYTE - 1) / BLOCK_SIZE_IN_BYTE;
+    if (blockNum == 0 || blockNum > maxBlockNum / MAX_CHUNK_PROPORTION) {
+      return;
+    }
+    int[] blocks;
+    synchronized (this) {
+      if (index.containsKey(key)) {
+        return;
+      }
+      blocks = allocateBlocks(blockNum);
+      if (blocks == null) {
+        return;
+      }
+    }
+    // the blocks are invisible to others until the chunk is indexed, so copy without the lock
+    copyToBlocks(data.duplicate(), blocks);
+    synchronized (this) {
+      if (index.containsKey(key)) {
+        releaseBlocks(blocks);
+      } else {
+        index.put(key, new CachedChunk(header, dataSize, blocks));
+      }
+    }
+  }
+
+  private int[] allocateBlocks(int blockNum) {
+    while (freeBlockNum < blockNum && slabs.size() * BLOCK_NUM_PER_SLAB < maxBlockNum) {
+      if (!allocateSlab()) {
+        break;
+      }
+    }
+    Iterator<CachedChunk> lruIterator = index.values().iterator();
+    while (freeBlockNum < blockNum && lruIterator.hasNext()) {
+      CachedChunk evicted = lruIterator.next();
+      lruIterator.remove();
+      releaseBlocks(evicted.blocks);
+      evictionCount.incrementAndGet();
+    }
+    if (freeBlockNum < blockNum) {
+      return null;
+    }
+    int[] blocks = new int[blockNum];
+    freeBlockNum -= blockNum;
+    System.arraycopy(freeBlocks, freeBlockNum, blocks, 0, blockNum);
+    return blocks;
+  }
+
+  private boolean allocateSlab() {
+    int slabBlockNum =
+        Math.min(BLOCK_NUM_PER_SLAB, maxBlockNum - slabs.size() * BLOCK_NUM_PER_SLAB);
+    try {
+      slabs.add(ByteBuffer.allocateDirect(slabBlockNum * BLOCK_SIZE_IN_BYTE));
+    } catch (OutOfMemoryError e) {
+      logger.warn(
+          "Fail to allocate direct memory for OffHeapChunkCache, {} bytes are in use.",
+          getUsedMemory(),
+          e);
+      return false;
+    }
+    int firstBlock = (slabs.size() - 1) * BLOCK_NUM_PER_SLAB;
+    if (freeBlocks.length < freeBlockNum + slabBlockNum) {
+      int[] newFreeBlocks = new int[Math.min(freeBlocks.length * 2 + slabBlockNum, maxBlockNum)];
+      System.arraycopy(freeBlocks, 0, newFreeBlocks, 0, freeBlockNum);
+      freeBlocks = newFreeBlocks;
+    }
+    for (int i = slabBlockNum - 1; i >= 0; i--) {
+      freeBlocks[freeBlockNum++] = firstBlock + i;
+    }
+    return true;
+  }
+
+  private void releaseBlocks(int[] blocks) {
+    for (int block : blocks) {
+      freeBlocks[freeBlockNum++] = block;
+    }
+  }
+
+  private ByteBuffer blockView(int block) {
+    ByteBuffer view = slabs.get(block / BLOCK_NUM_PER_SLAB).duplicate();
+    int offset = (block % BLOCK_NUM_PER_SLAB) * BLOCK_SIZE_IN_BYTE;
+    view.limit(offset + BLOCK_SIZE_IN_BYTE);
+    view.position(offset);
+    return view;
+  }
+
+  private void copyToBlocks(ByteBuffer data, int[] blocks) {
+    int limit = data.limit();
+    for (int block : blocks) {
+      data.limit(Math.min(limit, data.position() + BLOCK_SIZE_IN_BYTE));
+      blockView(block).put(data);
+    }
+  }
+
+  private void copyFromBlocks(int[] blocks, ByteBuffer target) {
+    for (int block : blocks) {
+      ByteBuffer view = blockView(block);
+      view.limit(view.position() + Math.min(BLOCK_SIZE_IN_BYTE, target.remaining()));
+      target.put(view);
+    }
+  }
+
+  public double calculateHitRatio() {
+    long requests = requestCount.get();
+    return requests == 0 ? 0 : (double) hitCount.get() / requests;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  public long getMaxMemory() {
+    return (long) maxBlockNum * BLOCK_SIZE_IN_BYTE;
+  }
+
+  /** @return the size of blocks occupied by cached chunks */
+  public synchronized long getUsedMemory() {
+    return ((long) Math.min(slabs.size() * BLOCK_NUM_PER_SLAB, maxBlockNum) - freeBlockNum)
+        * BLOCK_SIZE_IN_BYTE;
+  }
+
+  /** Remove all chunks. The slabs are kept for later chunks. */
+  public synchronized void clear() {
+    for (CachedChunk cachedChunk : index.values()) {
+      releaseBlocks(cachedChunk.blocks);
+    }
+    index.clear();
+  }
+
+  public void remove(ChunkMetadata chunkMetadata) {
+    ChunkKey key =
+        new ChunkKey(chunkMetadata.getFilePath(), chunkMetadata.getOffsetOfChunkHeader());
+    synchronized (this) {
+      CachedChunk cachedChunk = index.remove(key);
+      if (cachedChunk != null) {
+        releaseBlocks(cachedChunk.blocks);
+      }
+    }
+  }
+
+  @TestOnly
+  synchronized boolean isEmpty() {
+    return index.isEmpty();
+  }
+
+  /** Chunks are identified by file path and offset, file paths of TsFiles are never reused. */
+  static class ChunkKey {
+
+    private final String filePath;
+    private final long offsetOfChunkHeader;
+
+    ChunkKey(String filePath, long offsetOfChunkHeader) {
+      this.filePath = filePath;
+      this.offsetOfChunkHeader = offsetOfChunkHeader;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkKey that = (ChunkKey) o;
+      return offsetOfChunkHeader == that.offsetOfChunkHeader
+          && Objects.equals(filePath, that.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(filePath, offsetOfChunkHeader);
+    }
+  }
+
+  private static class CachedChunk {
+
+    private final ChunkHeader header;
+    private final int dataSize;
+    private final int[] blocks;
+
+    private CachedChunk(ChunkHeader header, int dataSize, int[] blocks) {
+      this.header = header;
+      this.dataSize = dataSize;
+      this.blocks = blocks;
+    }
+  }
+
+  /** singleton pattern. */
+  private static class OffHeapChunkCacheHolder {
+
+    private static final OffHeapChunkCache INSTANCE = new OffHeapChunkCache();
+  }
+}
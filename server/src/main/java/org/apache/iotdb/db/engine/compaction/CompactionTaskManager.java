@@ -32,6 +32,7 @@ import org.apache.iotdb.db.engine.compaction.comparator.DefaultCompactionTaskCom
 import org.apache.iotdb.db.engine.compaction.constant.CompactionTaskStatus;
 import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
 import org.apache.iotdb.db.engine.compaction.task.CompactionTaskSummary;
+import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsRecorder;
 import org.apache.iotdb.db.utils.datastructure.FixedPriorityBlockingQueue;
 
@@ -85,6 +86,16 @@ public class CompactionTaskManager implements IService {
 
   private final RateLimiter mergeWriteRateLimiter = RateLimiter.create(Double.MAX_VALUE);
 
+  // the foreground load is sampled at most once per interval to adapt the compaction throughput
+  private static final long LOAD_SAMPLE_INTERVAL_IN_MS = 1000L;
+  // the peak rate of tsfile reads halves every hour
+  private static final long PEAK_HALF_LIFE_IN_MS = 60 * 60 * 1000L;
+  private final Object loadSampleLock = new Object();
+  private volatile long lastLoadSampleTime = 0L;
+  private long lastFileReadNum = 0L;
+  private double peakFileReadRate = 0;
+  private volatile double adaptiveThroughputRatio = 1.0;
+
   public static CompactionTaskManager getInstance() {
     return INSTANCE;
   }
@@ -270,11 +281,55 @@ public class CompactionTaskManager implements IService {
   }
 
   public RateLimiter getMergeWriteRateLimiter() {
-    setWriteMergeRate(
-        IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec());
+    double throughputMbPerSec =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec();
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableAdaptiveCompactionSchedule()) {
+      throughputMbPerSec *= getAdaptiveThroughputRatio();
+    }
+    setWriteMergeRate(throughputMbPerSec);
     return mergeWriteRateLimiter;
   }
 
+  /**
+   * Get the ratio of the configured compaction write throughput to use under current foreground
+   * load. The write load is the memtable memory usage against the reject threshold, and the query
+   * load is the rate of tsfile reads by queries against its recent peak. The ratio decreases
+   * linearly from 1 to adaptive_compaction_min_throughput_ratio as the heavier load grows.
+   */
+  private double getAdaptiveThroughputRatio() {
+    long currentTime = System.currentTimeMillis();
+    if (currentTime - lastLoadSampleTime < LOAD_SAMPLE_INTERVAL_IN_MS) {
+      return adaptiveThroughputRatio;
+    }
+    synchronized (loadSampleLock) {
+      long elapsedTime = currentTime - lastLoadSampleTime;
+      if (elapsedTime < LOAD_SAMPLE_INTERVAL_IN_MS) {
+        return adaptiveThroughputRatio;
+      }
+      long fileReadNum = ReadAmplificationTracker.getInstance().getTotalFileReadNum();
+      double fileReadRate =
+          lastLoadSampleTime == 0 ? 0 : (fileReadNum - lastFileReadNum) * 1000.0 / elapsedTime;
+      peakFileReadRate =
+          Math.max(
+              fileReadRate,
+              peakFileReadRate * Math.pow(0.5, (double) elapsedTime / PEAK_HALF_LIFE_IN_MS));
+      double queryLoad = peakFileReadRate > 0 ? fileReadRate / peakFileReadRate : 0;
+
+      SystemInfo systemInfo = SystemInfo.getInstance();
+      double writeLoad =
+          systemInfo.isRejected() || systemInfo.getRejectThershold() <= 0
+              ? 1
+              : Math.min(1, systemInfo.getTotalMemTableSize() / systemInfo.getRejectThershold());
+
+      double minRatio =
+          IoTDBDescriptor.getInstance().getConfig().getAdaptiveCompactionMinThroughputRatio();
+      adaptiveThroughputRatio = 1 - (1 - minRatio) * Math.max(queryLoad, writeLoad);
+      lastLoadSampleTime = currentTime;
+      lastFileReadNum = fileReadNum;
+      return adaptiveThroughputRatio;
+    }
+  }
+
   private void setWriteMergeRate(final double throughoutMbPerSec) {
     double throughout = throughoutMbPerSec * 1024.0 * 1024.0;
     // if throughout = 0, disable rate limiting
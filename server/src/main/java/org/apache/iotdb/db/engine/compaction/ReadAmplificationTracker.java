@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReadAmplificationTracker records how many tsfiles of each time partition are read by series
+ * scans. The redundant file reads, i.e. files read beyond the first one of a partition in a scan,
+ * decay with time and are used to prioritize the compaction of partitions which slow down queries
+ * most. The total number of file reads is used as a measure of foreground query load.
+ */
+public class ReadAmplificationTracker {
+  // the recorded file reads halve every 10 minutes
+  private static final long HALF_LIFE_IN_MS = 10 * 60 * 1000L;
+
+  // <fullStorageGroupName-timePartition, statistics>
+  private final Map<String, PartitionReadStatistics> partitionStatisticsMap =
+      new ConcurrentHashMap<>();
+
+  private final AtomicLong totalFileReadNum = new AtomicLong(0);
+
+  public static ReadAmplificationTracker getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  private ReadAmplificationTracker() {}
+
+  /**
+   * Record that a series scan reads the given tsfile.
+   *
+   * @param scannedPartitions the partitions already read by this scan, which is maintained by the
+   *     caller for each scan so that the first file of a partition is not counted as redundant
+   */
+  public void recordFileRead(TsFileResource resource, Set<String> scannedPartitions) {
+    totalFileReadNum.incrementAndGet();
+    String partitionKey = getPartitionKey(resource.getTsFile());
+    if (partitionKey == null) {
+      return;
+    }
+    boolean isFirstFileOfPartition = scannedPartitions.add(partitionKey);
+    partitionStatisticsMap
+        .computeIfAbsent(partitionKey, k -> new PartitionReadStatistics())
+        .record(isFirstFileOfPartition, System.currentTimeMillis());
+  }
+
+  /**
+   * @return the decayed number of redundant file reads in the time partition, the larger the more
+   *     the queries would benefit from compacting it
+   */
+  public double getReadAmplification(String fullStorageGroupName, long timePartition) {
+    PartitionReadStatistics statistics =
+        partitionStatisticsMap.get(getPartitionKey(fullStorageGroupName, timePartition));
+    return statistics == null ? 0 : statistics.getRedundantFileReadNum(System.currentTimeMillis());
+  }
+
+  @TestOnly
+  public int getTrackedPartitionNum() {
+    return partitionStatisticsMap.size();
+  }
+
+  public long getTotalFileReadNum() {
+    return totalFileReadNum.get();
+  }
+
+  /** Evict the statistics of a time partition whose data has been deleted. */
+  public void removePartition(String fullStorageGroupName, long timePartition) {
+    partitionStatisticsMap.remove(getPartitionKey(fullStorageGroupName, timePartition));
+  }
+
+  /** Evict the statistics of all time partitions of a data region whose data has been deleted. */
+  public void removeDataRegion(String fullStorageGroupName) {
+    String prefix = fullStorageGroupName + "-";
+    partitionStatisticsMap
+        .keySet()
+        .removeIf(key -> key.startsWith(prefix) && isTimePartition(key.substring(prefix.length())));
+  }
+
+  public void clear() {
+    partitionStatisticsMap.clear();
+  }
+
+  private static boolean isTimePartition(String str) {
+    try {
+      Long.parseLong(str);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The tsfile is placed in {storageGroup}/{dataRegionId}/{timePartition}/, so the key can be
+   * derived from its parent directories without parsing the file name.
+   */
+  private static String getPartitionKey(File tsFile) {
+    File partitionDir = tsFile.getParentFile();
+    File dataRegionDir = partitionDir == null ? null : partitionDir.getParentFile();
+    File storageGroupDir = dataRegionDir == null ? null : dataRegionDir.getParentFile();
+    if (storageGroupDir == null) {
+      return null;
+    }
+    try {
+      return getPartitionKey(
+          storageGroupDir.getName() + "-" + dataRegionDir.getName(),
+          Long.parseLong(partitionDir.getName()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static String getPartitionKey(String fullStorageGroupName, long timePartition) {
+    return fullStorageGroupName + "-" + timePartition;
+  }
+
+  private static class PartitionReadStatistics {
+    private double redundantFileReadNum = 0;
+    private long lastUpdateTime = System.currentTimeMillis();
+
+    private synchronized void record(boolean isFirstFileOfPartition, long currentTime) {
+      decay(currentTime);
+      if (!isFirstFileOfPartition) {
+        redundantFileReadNum += 1;
+      }
+    }
+
+    private synchronized double getRedundantFileReadNum(long currentTime) {
+      decay(currentTime);
+      return redundantFileReadNum;
+    }
+
+    private void decay(long currentTime) {
+      if (currentTime > lastUpdateTime) {
+        redundantFileReadNum *=
+            Math.pow(0.5, (double) (currentTime - lastUpdateTime) / HALF_LIFE_IN_MS);
+        lastUpdateTime = currentTime;
+      }
+    }
+  }
+
+  private static class InstanceHolder {
+    private static final ReadAmplificationTracker INSTANCE = new ReadAmplificationTracker();
+  }
+}
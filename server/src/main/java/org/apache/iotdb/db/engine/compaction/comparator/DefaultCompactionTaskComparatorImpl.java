@@ -45,6 +45,13 @@ public class DefaultCompactionTaskComparatorImpl implements ICompactionTaskCompa
         return o1 instanceof CrossSpaceCompactionTask ? -1 : 1;
       }
     }
+    // prefer the task in the time partition with higher read amplification, because compacting it
+    // reduces the files read by queries most
+    int readAmplificationLevel1 = getReadAmplificationLevel(o1);
+    int readAmplificationLevel2 = getReadAmplificationLevel(o2);
+    if (readAmplificationLevel1 != readAmplificationLevel2) {
+      return readAmplificationLevel2 - readAmplificationLevel1;
+    }
     if (o1 instanceof InnerSpaceCompactionTask) {
       return compareInnerSpaceCompactionTask(
           (InnerSpaceCompactionTask) o1, (InnerSpaceCompactionTask) o2);
@@ -54,6 +61,14 @@ public class DefaultCompactionTaskComparatorImpl implements ICompactionTaskCompa
     }
   }
 
+  /**
+   * The read amplification is compared by its binary logarithm, so that tasks with similar read
+   * amplification are still ordered by the rules below.
+   */
+  private int getReadAmplificationLevel(AbstractCompactionTask task) {
+    return (int) (Math.log1p(task.getReadAmplification()) / Math.log(2));
+  }
+
   public int compareInnerSpaceCompactionTask(
       InnerSpaceCompactionTask o1, InnerSpaceCompactionTask o2) {
     if (o1.isSequence() ^ o2.isSequence()) {
@@ -0,0 +1,406 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.rewrite.task;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.writer.AbstractCompactionWriter;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * This class is used to compact the nonAligned measurements by chunk and page in parallel in the
+ * fast compaction. A chunk or page which does not overlap with others and has no deletion is
+ * written to the target file without being deserialized, and only the overlapped pages are
+ * decoded and merged by point.
+ */
+public class FastCompactionPerformerSubTask implements Callable<Void> {
+  private static final long CHUNK_SIZE_LOWER_BOUND =
+      IoTDBDescriptor.getInstance().getConfig().getChunkSizeLowerBoundInCompaction();
+  private static final long CHUNK_POINT_NUM_LOWER_BOUND =
+      IoTDBDescriptor.getInstance().getConfig().getChunkPointNumLowerBoundInCompaction();
+
+  private final String device;
+  private final Set<String> measurementList;
+  // source files sorted from the oldest to the newest, data in later files overwrites earlier ones
+  private final List<TsFileResource> sortedSourceFiles;
+  private final Map<TsFileResource, TsFileSequenceReader> readerMap;
+  private final Map<TsFileResource, List<Modification>> modificationCache;
+  private final AbstractCompactionWriter compactionWriter;
+  private final int taskId;
+
+  public FastCompactionPerformerSubTask(
+      String device,
+      Set<String> measurementList,
+      List<TsFileResource> sortedSourceFiles,
+      Map<TsFileResource, TsFileSequenceReader> readerMap,
+      Map<TsFileResource, List<Modification>> modificationCache,
+      AbstractCompactionWriter compactionWriter,
+      int taskId) {
+    this.device = device;
+    this.measurementList = measurementList;
+    this.sortedSourceFiles = sortedSourceFiles;
+    this.readerMap = readerMap;
+    this.modificationCache = modificationCache;
+    this.compactionWriter = compactionWriter;
+    this.taskId = taskId;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    for (String measurement : measurementList) {
+      List<ChunkMetadataElement> chunkMetadataElements = getChunkMetadataElements(measurement);
+      if (chunkMetadataElements.isEmpty()) {
+        continue;
+      }
+      // the schema of the series is decided by the newest chunk
+      ChunkHeader newestChunkHeader =
+          Collections.max(chunkMetadataElements, ChunkMetadataElement::comparePriority)
+              .getChunk()
+              .getHeader();
+      IMeasurementSchema schema =
+          new MeasurementSchema(
+              measurement,
+              newestChunkHeader.getDataType(),
+              newestChunkHeader.getEncodingType(),
+              newestChunkHeader.getCompressionType());
+
+      compactionWriter.startMeasurement(Collections.singletonList(schema), taskId);
+      compactChunks(chunkMetadataElements, schema);
+      compactionWriter.endMeasurement(taskId);
+    }
+    return null;
+  }
+
+  /** Get chunk metadata of the series in all source files with modifications applied. */
+  private List<ChunkMetadataElement> getChunkMetadataElements(String measurement)
+      throws IllegalPathException, IOException {
+    PartialPath path = new PartialPath(device, measurement);
+    List<ChunkMetadataElement> chunkMetadataElements = new ArrayList<>();
+    for (int i = 0; i < sortedSourceFiles.size(); i++) {
+      TsFileResource resource = sortedSourceFiles.get(i);
+      if (!resource.mayContainsDevice(device)) {
+        continue;
+      }
+      TsFileSequenceReader reader = readerMap.get(resource);
+      List<ChunkMetadata> chunkMetadataList = reader.getChunkMetadataList(path, true);
+      if (chunkMetadataList.isEmpty()) {
+        continue;
+      }
+
+      List<Modification> modificationForCurrentSeries = new ArrayList<>();
+      for (Modification modification :
+          modificationCache.computeIfAbsent(
+              resource,
+              r -> new ArrayList<>(ModificationFile.getNormalMods(r).getModifications()))) {
+        if (modification.getPath().matchFullPath(path)) {
+          modificationForCurrentSeries.add(modification);
+        }
+      }
+      if (!modificationForCurrentSeries.isEmpty()) {
+        QueryUtils.modifyChunkMetaData(chunkMetadataList, modificationForCurrentSeries);
+      }
+
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        chunkMetadataElements.add(new ChunkMetadataElement(chunkMetadata, reader, i));
+      }
+    }
+    chunkMetadataElements.sort(Comparator.comparingLong(e -> e.chunkMetadata.getStartTime()));
+    return chunkMetadataElements;
+  }
+
+  private void compactChunks(
+      List<ChunkMetadataElement> chunkMetadataElements, IMeasurementSchema schema)
+      throws IOException, PageException {
+    int start = 0;
+    while (start < chunkMetadataElements.size()) {
+      // find out the chunks overlapped with each other
+      long endTime = chunkMetadataElements.get(start).chunkMetadata.getEndTime();
+      int end = start + 1;
+      while (end < chunkMetadataElements.size()
+          && chunkMetadataElements.get(end).chunkMetadata.getStartTime() <= endTime) {
+        endTime = Math.max(endTime, chunkMetadataElements.get(end).chunkMetadata.getEndTime());
+        end++;
+      }
+
+      if (end - start > 1 || !flushChunkDirectly(chunkMetadataElements.get(start), schema)) {
+        compactPages(chunkMetadataElements.subList(start, end), schema);
+      }
+      start = end;
+    }
+  }
+
+  private boolean flushChunkDirectly(ChunkMetadataElement element, IMeasurementSchema schema)
+      throws IOException {
+    ChunkMetadata chunkMetadata = element.chunkMetadata;
+    if (isDeleted(
+        chunkMetadata.getDeleteIntervalList(),
+        chunkMetadata.getStartTime(),
+        chunkMetadata.getEndTime())) {
+      return false;
+    }
+    Chunk chunk = element.getChunk();
+    if (chunk.getHeader().getDataType() != schema.getType()) {
+      return false;
+    }
+    // small chunks are merged into the chunk writer page by page
+    if (chunk.getHeader().getDataSize() < CHUNK_SIZE_LOWER_BOUND
+        && chunkMetadata.getNumOfPoints() < CHUNK_POINT_NUM_LOWER_BOUND) {
+      return false;
+    }
+    return compactionWriter.flushChunk(chunk, chunkMetadata, taskId);
+  }
+
+  private void compactPages(
+      List<ChunkMetadataElement> chunkMetadataElements, IMeasurementSchema schema)
+      throws IOException, PageException {
+    List<PageElement> pageElements = new ArrayList<>();
+    for (ChunkMetadataElement chunkMetadataElement : chunkMetadataElements) {
+      pageElements.addAll(chunkMetadataElement.getPageElements());
+    }
+    pageElements.sort(Comparator.comparingLong(e -> e.pageHeader.getStartTime()));
+
+    int start = 0;
+    while (start < pageElements.size()) {
+      // find out the pages overlapped with each other
+      long endTime = pageElements.get(start).pageHeader.getEndTime();
+      int end = start + 1;
+      while (end < pageElements.size()
+          && pageElements.get(end).pageHeader.getStartTime() <= endTime) {
+        endTime = Math.max(endTime, pageElements.get(end).pageHeader.getEndTime());
+        end++;
+      }
+
+      if (end - start > 1 || !flushPageDirectly(pageElements.get(start), schema)) {
+        mergePages(pageElements.subList(start, end));
+      }
+      start = end;
+    }
+  }
+
+  private boolean flushPageDirectly(PageElement element, IMeasurementSchema schema)
+      throws IOException, PageException {
+    PageHeader pageHeader = element.pageHeader;
+    if (isDeleted(
+        element.chunkElement.chunkMetadata.getDeleteIntervalList(),
+        pageHeader.getStartTime(),
+        pageHeader.getEndTime())) {
+      return false;
+    }
+    // the compressed page can only be appended to a chunk with the same format
+    ChunkHeader chunkHeader = element.chunkHeader;
+    if (chunkHeader.getDataType() != schema.getType()
+        || chunkHeader.getEncodingType() != schema.getEncodingType()
+        || chunkHeader.getCompressionType() != schema.getCompressor()) {
+      return false;
+    }
+    return compactionWriter.flushPage(element.compressedPageData, pageHeader, taskId);
+  }
+
+  /**
+   * Merge the overlapped pages by point. A page is decoded only when the merge reaches its start
+   * time, and for points with the same timestamp the one in the page with the highest priority is
+   * kept.
+   */
+  private void mergePages(List<PageElement> pageElements) throws IOException {
+    PriorityQueue<PageElement> activePages =
+        new PriorityQueue<>(
+            (o1, o2) -> {
+              int timeCompare =
+                  Long.compare(o1.batchData.currentTime(), o2.batchData.currentTime());
+              return timeCompare != 0
+                  ? timeCompare
+                  : o2.chunkElement.comparePriority(o1.chunkElement);
+            });
+    int nextPageIndex = 0;
+    while (nextPageIndex < pageElements.size() || !activePages.isEmpty()) {
+      if (nextPageIndex < pageElements.size()
+          && (activePages.isEmpty()
+              || pageElements.get(nextPageIndex).pageHeader.getStartTime()
+                  <= activePages.peek().batchData.currentTime())) {
+        PageElement pageElement = pageElements.get(nextPageIndex++);
+        if (pageElement.decode()) {
+          activePages.add(pageElement);
+        }
+        continue;
+      }
+
+      PageElement pageElement = activePages.poll();
+      long time = pageElement.batchData.currentTime();
+      Object value = pageElement.batchData.currentValue();
+      advance(pageElement, activePages);
+      // the points with the same timestamp in pages with lower priority are overwritten
+      while (!activePages.isEmpty() && activePages.peek().batchData.currentTime() == time) {
+        advance(activePages.poll(), activePages);
+      }
+      compactionWriter.write(time, value, taskId);
+    }
+  }
+
+  private void advance(PageElement pageElement, PriorityQueue<PageElement> activePages) {
+    pageElement.batchData.next();
+    if (pageElement.batchData.hasCurrent()) {
+      activePages.add(pageElement);
+    } else {
+      pageElement.batchData = null;
+    }
+  }
+
+  private static boolean isDeleted(
+      List<TimeRange> deleteIntervalList, long startTime, long endTime) {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    TimeRange timeRange = new TimeRange(startTime, endTime);
+    for (TimeRange deleteInterval : deleteIntervalList) {
+      if (deleteInterval.overlaps(timeRange)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class ChunkMetadataElement {
+    private final ChunkMetadata chunkMetadata;
+    private final TsFileSequenceReader reader;
+    // index of the source file in sortedSourceFiles
+    private final int fileIndex;
+    private Chunk chunk;
+
+    private ChunkMetadataElement(
+        ChunkMetadata chunkMetadata, TsFileSequenceReader reader, int fileIndex) {
+      this.chunkMetadata = chunkMetadata;
+      this.reader = reader;
+      this.fileIndex = fileIndex;
+    }
+
+    /** Chunks in newer files, or written later in the same file, have higher priority. */
+    private int comparePriority(ChunkMetadataElement other) {
+      return fileIndex != other.fileIndex
+          ? Integer.compare(fileIndex, other.fileIndex)
+          : Long.compare(
+              chunkMetadata.getOffsetOfChunkHeader(), other.chunkMetadata.getOffsetOfChunkHeader());
+    }
+
+    private Chunk getChunk() throws IOException {
+      if (chunk == null) {
+        chunk = reader.readMemChunk(chunkMetadata);
+      }
+      return chunk;
+    }
+
+    private List<PageElement> getPageElements() throws IOException {
+      Chunk chunk = getChunk();
+      ChunkHeader chunkHeader = chunk.getHeader();
+      ByteBuffer chunkDataBuffer = chunk.getData().duplicate();
+      List<PageElement> pageElements = new ArrayList<>();
+      while (chunkDataBuffer.hasRemaining()) {
+        PageHeader pageHeader;
+        if (((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER) {
+          pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunkMetadata.getStatistics());
+        } else {
+          pageHeader = PageHeader.deserializeFrom(chunkDataBuffer, chunkHeader.getDataType());
+        }
+        byte[] compressedPageBody = new byte[pageHeader.getCompressedSize()];
+        chunkDataBuffer.get(compressedPageBody);
+        pageElements.add(
+            new PageElement(
+                pageHeader, ByteBuffer.wrap(compressedPageBody), chunkHeader, this));
+      }
+      // the chunk is no longer needed once it is split into pages
+      this.chunk = null;
+      return pageElements;
+    }
+  }
+
+  private static class PageElement {
+    private final PageHeader pageHeader;
+    private final ByteBuffer compressedPageData;
+    private final ChunkHeader chunkHeader;
+    private final ChunkMetadataElement chunkElement;
+    private BatchData batchData;
+
+    private PageElement(
+        PageHeader pageHeader,
+        ByteBuffer compressedPageData,
+        ChunkHeader chunkHeader,
+        ChunkMetadataElement chunkElement) {
+      this.pageHeader = pageHeader;
+      this.compressedPageData = compressedPageData;
+      this.chunkHeader = chunkHeader;
+      this.chunkElement = chunkElement;
+    }
+
+    /** @return false if all points in the page are deleted */
+    private boolean decode() throws IOException {
+      byte[] uncompressedPageData = new byte[pageHeader.getUncompressedSize()];
+      IUnCompressor.getUnCompressor(chunkHeader.getCompressionType())
+          .uncompress(
+              compressedPageData.array(),
+              0,
+              pageHeader.getCompressedSize(),
+              uncompressedPageData,
+              0);
+      PageReader pageReader =
+          new PageReader(
+              pageHeader,
+              ByteBuffer.wrap(uncompressedPageData),
+              chunkHeader.getDataType(),
+              Decoder.getDecoderByType(chunkHeader.getEncodingType(), chunkHeader.getDataType()),
+              Decoder.getDecoderByType(
+                  TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeEncoder()),
+                  TSDataType.INT64),
+              null);
+      pageReader.setDeleteIntervalList(chunkElement.chunkMetadata.getDeleteIntervalList());
+      batchData = pageReader.getAllSatisfiedPageData();
+      return batchData.hasCurrent();
+    }
+  }
+}
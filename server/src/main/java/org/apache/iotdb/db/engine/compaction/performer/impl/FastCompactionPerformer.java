@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.performer.impl;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.cross.rewrite.task.FastCompactionPerformerSubTask;
+import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
+import org.apache.iotdb.db.engine.compaction.performer.ICrossCompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.performer.ISeqCompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.writer.AbstractCompactionWriter;
+import org.apache.iotdb.db.engine.compaction.writer.CrossSpaceCompactionWriter;
+import org.apache.iotdb.db.engine.compaction.writer.InnerSpaceCompactionWriter;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * This performer compacts nonAligned series by chunk and page instead of by point. Chunks and pages
+ * which do not overlap with others and have no deletion are written to the target files as
+ * compressed bytes, and only the overlapped pages are decoded and merged. Aligned series are
+ * compacted by point in the same way as {@link ReadPointCompactionPerformer}.
+ */
+public class FastCompactionPerformer
+    implements ICrossCompactionPerformer, ISeqCompactionPerformer {
+  private final Logger LOGGER = LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private List<TsFileResource> seqFiles = Collections.emptyList();
+  private List<TsFileResource> unseqFiles = Collections.emptyList();
+  private static final int subTaskNum =
+      IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+
+  private List<TsFileResource> targetFiles = Collections.emptyList();
+
+  // source files sorted from the oldest to the newest, used to decide which data overwrites others
+  private List<TsFileResource> sortedSourceFiles = new ArrayList<>();
+
+  private final Map<TsFileResource, TsFileSequenceReader> readerMap = new HashMap<>();
+
+  // shared by sub tasks, so it should be thread safe
+  private final Map<TsFileResource, List<Modification>> modificationCache =
+      new ConcurrentHashMap<>();
+
+  public FastCompactionPerformer(
+      List<TsFileResource> seqFiles,
+      List<TsFileResource> unseqFiles,
+      List<TsFileResource> targetFiles) {
+    this.seqFiles = seqFiles;
+    this.unseqFiles = unseqFiles;
+    this.targetFiles = targetFiles;
+  }
+
+  public FastCompactionPerformer() {}
+
+  @Override
+  public void perform()
+      throws IOException, MetadataException, StorageEngineException, InterruptedException {
+    long queryId = QueryResourceManager.getInstance().assignCompactionQueryId();
+    QueryContext queryContext = new QueryContext(queryId);
+    QueryDataSource queryDataSource = new QueryDataSource(seqFiles, unseqFiles);
+    QueryResourceManager.getInstance()
+        .getQueryFileManager()
+        .addUsedFilesForQuery(queryId, queryDataSource);
+
+    try (AbstractCompactionWriter compactionWriter = getCompactionWriter()) {
+      sortSourceFiles();
+      for (TsFileResource resource : sortedSourceFiles) {
+        readerMap.put(
+            resource, FileReaderManager.getInstance().get(resource.getTsFilePath(), true));
+      }
+      // Do not close device iterator, because tsfile reader is managed by FileReaderManager.
+      MultiTsFileDeviceIterator deviceIterator =
+          new MultiTsFileDeviceIterator(seqFiles, unseqFiles);
+      while (deviceIterator.hasNextDevice()) {
+        checkThreadInterrupted();
+        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+        String device = deviceInfo.left;
+        boolean isAligned = deviceInfo.right;
+
+        if (isAligned) {
+          QueryUtils.fillOrderIndexes(queryDataSource, device, true);
+          compactAlignedSeries(
+              device, deviceIterator, compactionWriter, queryContext, queryDataSource);
+        } else {
+          compactNonAlignedSeries(device, deviceIterator, compactionWriter);
+        }
+      }
+
+      compactionWriter.endFile();
+      ReadPointCompactionPerformer.updateDeviceStartTimeAndEndTime(targetFiles, compactionWriter);
+      ReadPointCompactionPerformer.updatePlanIndexes(targetFiles, seqFiles, unseqFiles);
+    } finally {
+      readerMap.clear();
+      modificationCache.clear();
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  @Override
+  public void setTargetFiles(List<TsFileResource> targetFiles) {
+    this.targetFiles = targetFiles;
+  }
+
+  private void compactAlignedSeries(
+      String device,
+      MultiTsFileDeviceIterator deviceIterator,
+      AbstractCompactionWriter compactionWriter,
+      QueryContext queryContext,
+      QueryDataSource queryDataSource)
+      throws IOException, MetadataException {
+    MultiTsFileDeviceIterator.AlignedMeasurementIterator alignedMeasurementIterator =
+        deviceIterator.iterateAlignedSeries(device);
+    Set<String> allMeasurements = alignedMeasurementIterator.getAllMeasurements();
+    List<IMeasurementSchema> measurementSchemas =
+        new ArrayList<>(getMeasurementSchema(device, allMeasurements).values());
+    if (measurementSchemas.isEmpty()) {
+      return;
+    }
+    List<String> existedMeasurements =
+        measurementSchemas.stream()
+            .map(IMeasurementSchema::getMeasurementId)
+            .collect(Collectors.toList());
+    IBatchReader dataBatchReader =
+        ReadPointCompactionPerformer.constructReader(
+            device,
+            existedMeasurements,
+            measurementSchemas,
+            allMeasurements,
+            queryContext,
+            queryDataSource,
+            true);
+
+    if (dataBatchReader.hasNextBatch()) {
+      // chunkgroup is serialized only when at least one timeseries under this device has data
+      compactionWriter.startChunkGroup(device, true);
+      compactionWriter.startMeasurement(measurementSchemas, 0);
+      ReadPointCompactionPerformer.writeWithReader(compactionWriter, dataBatchReader, 0);
+      compactionWriter.endMeasurement(0);
+      compactionWriter.endChunkGroup();
+    }
+  }
+
+  private void compactNonAlignedSeries(
+      String device,
+      MultiTsFileDeviceIterator deviceIterator,
+      AbstractCompactionWriter compactionWriter)
+      throws IOException, InterruptedException {
+    Set<String> allMeasurements =
+        deviceIterator.iterateNotAlignedSeries(device, false).getAllMeasurements();
+    int subTaskNums = Math.min(allMeasurements.size(), subTaskNum);
+
+    // assign all measurements to different sub tasks
+    Set<String>[] measurementsForEachSubTask = new HashSet[subTaskNums];
+    int idx = 0;
+    for (String measurement : allMeasurements) {
+      if (measurementsForEachSubTask[idx % subTaskNums] == null) {
+        measurementsForEachSubTask[idx % subTaskNums] = new HashSet<>();
+      }
+      measurementsForEachSubTask[idx++ % subTaskNums].add(measurement);
+    }
+
+    // construct sub tasks and start compacting measurements in parallel
+    List<Future<Void>> futures = new ArrayList<>();
+    compactionWriter.startChunkGroup(device, false);
+    for (int i = 0; i < subTaskNums; i++) {
+      futures.add(
+          CompactionTaskManager.getInstance()
+              .submitSubTask(
+                  new FastCompactionPerformerSubTask(
+                      device,
+                      measurementsForEachSubTask[i],
+                      sortedSourceFiles,
+                      readerMap,
+                      modificationCache,
+                      compactionWriter,
+                      i)));
+    }
+
+    // wait for all sub tasks finish
+    for (int i = 0; i < subTaskNums; i++) {
+      try {
+        futures.get(i).get();
+      } catch (ExecutionException e) {
+        LOGGER.error("[Compaction] SubCompactionTask meet errors ", e);
+        throw new IOException(e);
+      }
+    }
+
+    compactionWriter.endChunkGroup();
+  }
+
+  /** Get the schema of each measurement from the newest source file which contains it. */
+  private Map<String, MeasurementSchema> getMeasurementSchema(
+      String device, Set<String> measurements) throws IllegalPathException, IOException {
+    Map<String, MeasurementSchema> schemaMap = new HashMap<>();
+    for (String measurement : measurements) {
+      for (int i = sortedSourceFiles.size() - 1; i >= 0; i--) {
+        TsFileResource resource = sortedSourceFiles.get(i);
+        if (!resource.mayContainsDevice(device)) {
+          continue;
+        }
+        MeasurementSchema schema =
+            ReadPointCompactionPerformer.getMeasurementSchemaFromReader(
+                resource, readerMap.get(resource), device, measurement);
+        if (schema != null) {
+          schemaMap.put(measurement, schema);
+          break;
+        }
+      }
+    }
+    return schemaMap;
+  }
+
+  /**
+   * Sort the source files from the oldest to the newest. Data in unseq files overwrites data in seq
+   * files, and data in a file with larger version overwrites data in the same space.
+   */
+  private void sortSourceFiles() throws IOException {
+    Comparator<TsFileResource> versionComparator =
+        Comparator.comparingLong(
+            resource -> {
+              try {
+                return TsFileNameGenerator.getTsFileName(resource.getTsFile().getName())
+                    .getVersion();
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    List<TsFileResource> sortedSeqFiles = new ArrayList<>(seqFiles);
+    List<TsFileResource> sortedUnseqFiles = new ArrayList<>(unseqFiles);
+    try {
+      sortedSeqFiles.sort(versionComparator);
+      sortedUnseqFiles.sort(versionComparator);
+    } catch (RuntimeException e) {
+      throw new IOException("Failed to get the version of source files", e);
+    }
+    sortedSourceFiles = new ArrayList<>(sortedSeqFiles);
+    sortedSourceFiles.addAll(sortedUnseqFiles);
+  }
+
+  private AbstractCompactionWriter getCompactionWriter() throws IOException {
+    if (!seqFiles.isEmpty() && !unseqFiles.isEmpty()) {
+      // cross space
+      return new CrossSpaceCompactionWriter(targetFiles, seqFiles);
+    } else {
+      // inner space
+      return new InnerSpaceCompactionWriter(targetFiles.get(0));
+    }
+  }
+
+  private void checkThreadInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException(
+          String.format(
+              "[Compaction] compaction for target file %s abort", targetFiles.toString()));
+    }
+  }
+
+  @Override
+  public void setSourceFiles(List<TsFileResource> seqFiles, List<TsFileResource> unseqFiles) {
+    this.seqFiles = seqFiles;
+    this.unseqFiles = unseqFiles;
+  }
+
+  @Override
+  public void setSourceFiles(List<TsFileResource> seqFiles) {
+    this.seqFiles = seqFiles;
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.iotdb.db.engine.compaction.writer.InnerSpaceCompactionWriter;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileRollup;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
@@ -286,7 +287,7 @@ public class ReadPointCompactionPerformer
     return schemaMap;
   }
 
-  private MeasurementSchema getMeasurementSchemaFromReader(
+  static MeasurementSchema getMeasurementSchemaFromReader(
       TsFileResource resource, TsFileSequenceReader reader, String device, String measurement)
       throws IllegalPathException, IOException {
     List<ChunkMetadata> chunkMetadata =
@@ -307,7 +308,7 @@ public class ReadPointCompactionPerformer
     }
   }
 
-  private static void updateDeviceStartTimeAndEndTime(
+  static void updateDeviceStartTimeAndEndTime(
       List<TsFileResource> targetResources, AbstractCompactionWriter compactionWriter) {
     List<TsFileIOWriter> targetFileWriters = compactionWriter.getFileIOWriter();
     for (int i = 0; i < targetFileWriters.size(); i++) {
@@ -327,6 +328,9 @@ public class ReadPointCompactionPerformer
           fileResource.updateEndTime(device, timeseriesMetadata.getStatistics().getEndTime());
         }
       }
+      fileResource.setRollup(
+          TsFileRollup.of(
+              fileIOWriter.getDeviceTimeseriesMetadataMap(), fileResource.getTsFile().length()));
     }
   }
 
@@ -381,7 +385,7 @@ public class ReadPointCompactionPerformer
     }
   }
 
-  private static void updatePlanIndexes(
+  static void updatePlanIndexes(
       List<TsFileResource> targetResources,
       List<TsFileResource> seqResources,
       List<TsFileResource> unseqResources) {
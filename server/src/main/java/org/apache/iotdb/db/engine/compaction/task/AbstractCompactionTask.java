@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.compaction.task;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.ReadAmplificationTracker;
 import org.apache.iotdb.db.engine.compaction.performer.ICompactionPerformer;
 import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
 
@@ -49,6 +50,9 @@ public abstract class AbstractCompactionTask implements Callable<CompactionTaskS
   protected volatile boolean finished = false;
   protected ICompactionPerformer performer;
   protected int hashCode = -1;
+  // snapshot of the read amplification of the time partition when the task is created, so that
+  // the order of tasks in the waiting queue stays stable
+  protected final double readAmplification;
 
   public AbstractCompactionTask(
       String fullStorageGroupName,
@@ -59,6 +63,9 @@ public abstract class AbstractCompactionTask implements Callable<CompactionTaskS
     this.timePartition = timePartition;
     this.tsFileManager = tsFileManager;
     this.currentTaskNum = currentTaskNum;
+    this.readAmplification =
+        ReadAmplificationTracker.getInstance()
+            .getReadAmplification(fullStorageGroupName, timePartition);
   }
 
   public abstract void setSourceFilesToCompactionCandidate();
@@ -96,6 +103,10 @@ public abstract class AbstractCompactionTask implements Callable<CompactionTaskS
     return timePartition;
   }
 
+  public double getReadAmplification() {
+    return readAmplification;
+  }
+
   public abstract boolean equalsOtherTask(AbstractCompactionTask otherTask);
 
   /**
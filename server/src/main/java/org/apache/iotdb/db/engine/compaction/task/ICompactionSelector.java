@@ -59,6 +59,8 @@ public interface ICompactionSelector {
       CrossCompactionPerformer compactionPerformer, boolean isInnerSpace) {
     switch (compactionPerformer) {
       case READ_POINT:
+        // fast performer decodes no more data than read point performer, so reuse its estimator
+      case FAST:
         if (!isInnerSpace) {
           return new ReadPointCrossCompactionEstimator();
         }
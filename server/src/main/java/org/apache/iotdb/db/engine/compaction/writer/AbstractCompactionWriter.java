@@ -24,7 +24,11 @@ import org.apache.iotdb.db.engine.compaction.constant.CompactionType;
 import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
 import org.apache.iotdb.db.service.metrics.recorder.CompactionMetricsRecorder;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.write.chunk.AlignedChunkWriterImpl;
@@ -34,6 +38,7 @@ import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public abstract class AbstractCompactionWriter implements AutoCloseable {
@@ -75,6 +80,28 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
 
   public abstract void write(long[] timestamps, Object values);
 
+  /**
+   * Append a whole compressed chunk of the current not aligned series to the target file without
+   * deserializing it. Data remaining in the chunk writer is flushed before it.
+   *
+   * @return false if the chunk can not be appended as a whole, e.g. it spans several target files,
+   *     and the caller should write it by page or by point instead
+   */
+  public abstract boolean flushChunk(Chunk chunk, ChunkMetadata chunkMetadata, int subTaskId)
+      throws IOException;
+
+  /**
+   * Append a compressed page of the current not aligned series to the chunk writer without
+   * deserializing it. The caller should guarantee that the page has the same data type, encoding
+   * and compression type as the chunk writer.
+   *
+   * @return false if the page can not be appended as a whole, and the caller should write it by
+   *     point instead
+   */
+  public abstract boolean flushPage(
+      ByteBuffer compressedPageData, PageHeader pageHeader, int subTaskId)
+      throws IOException, PageException;
+
   public abstract void endFile() throws IOException;
 
   public abstract void close() throws IOException;
@@ -148,6 +175,47 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
     }
   }
 
+  protected void flushChunkToFileWriter(
+      TsFileIOWriter targetWriter, Chunk chunk, ChunkMetadata chunkMetadata, int subTaskId)
+      throws IOException {
+    long chunkSize = chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
+    writeRateLimit(chunkWriters[subTaskId].estimateMaxSeriesMemSize() + chunkSize);
+    synchronized (targetWriter) {
+      // flush the earlier data in chunk writer first to keep the chunks in time order
+      chunkWriters[subTaskId].writeToFileWriter(targetWriter);
+      targetWriter.writeChunk(chunk, chunkMetadata);
+    }
+    CompactionMetricsRecorder.recordWriteInfo(
+        this instanceof CrossSpaceCompactionWriter
+            ? CompactionType.CROSS_COMPACTION
+            : CompactionType.INNER_SEQ_COMPACTION,
+        ProcessChunkType.FLUSH_CHUNK,
+        this.isAlign,
+        chunkSize);
+  }
+
+  protected void flushPageToChunkWriter(
+      TsFileIOWriter targetWriter,
+      ByteBuffer compressedPageData,
+      PageHeader pageHeader,
+      int subTaskId)
+      throws IOException, PageException {
+    ChunkWriterImpl chunkWriter = (ChunkWriterImpl) chunkWriters[subTaskId];
+    chunkWriter.sealCurrentPage();
+    chunkWriter.writePageHeaderAndDataIntoBuff(compressedPageData, pageHeader);
+    if (checkChunkSize(subTaskId)) {
+      long chunkSize = chunkWriter.estimateMaxSeriesMemSize();
+      flushChunkToFileWriter(targetWriter, subTaskId);
+      CompactionMetricsRecorder.recordWriteInfo(
+          this instanceof CrossSpaceCompactionWriter
+              ? CompactionType.CROSS_COMPACTION
+              : CompactionType.INNER_SEQ_COMPACTION,
+          ProcessChunkType.MERGE_CHUNK,
+          this.isAlign,
+          chunkSize);
+    }
+  }
+
   protected void checkChunkSizeAndMayOpenANewChunk(TsFileIOWriter fileWriter, int subTaskId)
       throws IOException {
     if (measurementPointCountArray[subTaskId] % 10 == 0 && checkChunkSize(subTaskId)) {
@@ -18,12 +18,18 @@
  */
 package org.apache.iotdb.db.engine.compaction.writer;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -57,8 +63,14 @@ public class CrossSpaceCompactionWriter extends AbstractCompactionWriter {
     currentDeviceEndTime = new long[seqFileResources.size()];
     isEmptyFile = new boolean[seqFileResources.size()];
     isDeviceExistedInTargetFiles = new boolean[targetResources.size()];
+    // the target files share the chunk metadata memory of the task
+    long maxMetadataSize =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionMaxChunkMetadataSize()
+            / Math.max(1, targetResources.size());
     for (int i = 0; i < targetResources.size(); i++) {
-      this.fileWriterList.add(new TsFileIOWriter(targetResources.get(i).getTsFile()));
+      this.fileWriterList.add(
+          new TsFileIOWriter(
+              targetResources.get(i).getTsFile(), maxMetadataSize > 0, maxMetadataSize));
       isEmptyFile[i] = true;
     }
     this.seqTsFileResources = seqFileResources;
@@ -107,6 +119,35 @@ public class CrossSpaceCompactionWriter extends AbstractCompactionWriter {
   @Override
   public void write(long[] timestamps, Object values) {}
 
+  @Override
+  public boolean flushChunk(Chunk chunk, ChunkMetadata chunkMetadata, int subTaskId)
+      throws IOException {
+    checkTimeAndMayFlushChunkToCurrentFile(chunkMetadata.getStartTime(), subTaskId);
+    int fileIndex = seqFileIndexArray[subTaskId];
+    if (!isInCurrentTargetFile(chunkMetadata.getEndTime(), fileIndex)) {
+      return false;
+    }
+    flushChunkToFileWriter(fileWriterList.get(fileIndex), chunk, chunkMetadata, subTaskId);
+    isDeviceExistedInTargetFiles[fileIndex] = true;
+    isEmptyFile[fileIndex] = false;
+    return true;
+  }
+
+  @Override
+  public boolean flushPage(ByteBuffer compressedPageData, PageHeader pageHeader, int subTaskId)
+      throws IOException, PageException {
+    checkTimeAndMayFlushChunkToCurrentFile(pageHeader.getStartTime(), subTaskId);
+    int fileIndex = seqFileIndexArray[subTaskId];
+    if (!isInCurrentTargetFile(pageHeader.getEndTime(), fileIndex)) {
+      return false;
+    }
+    flushPageToChunkWriter(
+        fileWriterList.get(fileIndex), compressedPageData, pageHeader, subTaskId);
+    isDeviceExistedInTargetFiles[fileIndex] = true;
+    isEmptyFile[fileIndex] = false;
+    return true;
+  }
+
   @Override
   public void endFile() throws IOException {
     for (int i = 0; i < isEmptyFile.length; i++) {
@@ -152,6 +193,15 @@ public class CrossSpaceCompactionWriter extends AbstractCompactionWriter {
     }
   }
 
+  /**
+   * Data ending before the device end time of the current source seq file, or any data if the
+   * current one is the last seq file, belongs to the current target file.
+   */
+  private boolean isInCurrentTargetFile(long endTime, int fileIndex) {
+    return endTime <= currentDeviceEndTime[fileIndex]
+        || fileIndex == seqTsFileResources.size() - 1;
+  }
+
   private void checkIsDeviceExistAndGetDeviceEndTime() throws IOException {
     int fileIndex = 0;
     while (fileIndex < seqTsFileResources.size()) {
@@ -18,10 +18,16 @@
  */
 package org.apache.iotdb.db.engine.compaction.writer;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,7 +37,10 @@ public class InnerSpaceCompactionWriter extends AbstractCompactionWriter {
   private boolean isEmptyFile;
 
   public InnerSpaceCompactionWriter(TsFileResource targetFileResource) throws IOException {
-    this.fileWriter = new TsFileIOWriter(targetFileResource.getTsFile());
+    long maxMetadataSize =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionMaxChunkMetadataSize();
+    this.fileWriter =
+        new TsFileIOWriter(targetFileResource.getTsFile(), maxMetadataSize > 0, maxMetadataSize);
     isEmptyFile = true;
   }
 
@@ -62,6 +71,22 @@ public class InnerSpaceCompactionWriter extends AbstractCompactionWriter {
   @Override
   public void write(long[] timestamps, Object values) {}
 
+  @Override
+  public boolean flushChunk(Chunk chunk, ChunkMetadata chunkMetadata, int subTaskId)
+      throws IOException {
+    flushChunkToFileWriter(fileWriter, chunk, chunkMetadata, subTaskId);
+    isEmptyFile = false;
+    return true;
+  }
+
+  @Override
+  public boolean flushPage(ByteBuffer compressedPageData, PageHeader pageHeader, int subTaskId)
+      throws IOException, PageException {
+    flushPageToChunkWriter(fileWriter, compressedPageData, pageHeader, subTaskId);
+    isEmptyFile = false;
+    return true;
+  }
+
   @Override
   public void endFile() throws IOException {
     fileWriter.endFile();
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.engine.flush;
 
+import org.apache.iotdb.commons.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
@@ -39,8 +40,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -55,6 +61,23 @@ public class MemTableFlushTask {
   private static final FlushSubTaskPoolManager SUB_TASK_POOL_MANAGER =
       FlushSubTaskPoolManager.getInstance();
   private static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * Sorting memchunks is CPU bound and independent of each other, so the memchunks of a memtable
+   * are sorted in parallel by this pool, which is shared by all the flush tasks.
+   */
+  private static final ForkJoinPool SORT_TASK_POOL =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          pool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(
+                ThreadName.FLUSH_SORT_TASK_SERVICE.getName() + "-" + thread.getPoolIndex());
+            return thread;
+          },
+          null,
+          false);
   private final Future<?> encodingTaskFuture;
   private final Future<?> ioTaskFuture;
   private RestorableTsFileIOWriter writer;
@@ -108,28 +131,45 @@ public class MemTableFlushTask {
     long start = System.currentTimeMillis();
     long sortTime = 0;
 
+    // sort task (first task of flush pipeline): all the memchunks are submitted to be sorted in
+    // parallel, and then handed to the encoding task in order as soon as each of them is sorted
+    List<Object> encodingTasks = new ArrayList<>();
+    List<ForkJoinTask<?>> sortTasks = new ArrayList<>();
     // for map do not use get(key) to iterate
     for (Map.Entry<IDeviceID, IWritableMemChunkGroup> memTableEntry :
         memTable.getMemTableMap().entrySet()) {
-      encodingTaskQueue.put(new StartFlushGroupIOTask(memTableEntry.getKey().toStringID()));
+      encodingTasks.add(new StartFlushGroupIOTask(memTableEntry.getKey().toStringID()));
+      sortTasks.add(null);
 
       final Map<String, IWritableMemChunk> value = memTableEntry.getValue().getMemChunkMap();
       for (Map.Entry<String, IWritableMemChunk> iWritableMemChunkEntry : value.entrySet()) {
-        long startTime = System.currentTimeMillis();
         IWritableMemChunk series = iWritableMemChunkEntry.getValue();
-        /*
-         * sort task (first task of flush pipeline)
-         */
-        series.sortTvListForFlush();
-        sortTime += System.currentTimeMillis() - startTime;
-        encodingTaskQueue.put(series);
+        encodingTasks.add(series);
+        sortTasks.add(SORT_TASK_POOL.submit(series::sortTvListForFlush));
       }
 
-      encodingTaskQueue.put(new EndChunkGroupIoTask());
+      encodingTasks.add(new EndChunkGroupIoTask());
+      sortTasks.add(null);
+    }
+    for (int i = 0; i < encodingTasks.size(); i++) {
+      ForkJoinTask<?> sortTask = sortTasks.get(i);
+      if (sortTask != null) {
+        long startTime = System.currentTimeMillis();
+        try {
+          sortTask.get();
+        } catch (InterruptedException | ExecutionException e) {
+          cancelSortTasks(sortTasks, i);
+          encodingTaskFuture.cancel(true);
+          ioTaskFuture.cancel(true);
+          throw e;
+        }
+        sortTime += System.currentTimeMillis() - startTime;
+      }
+      encodingTaskQueue.put(encodingTasks.get(i));
     }
     encodingTaskQueue.put(new TaskEnd());
     LOGGER.debug(
-        "Storage group {} memtable flushing into file {}: data sort time cost {} ms.",
+        "Storage group {} memtable flushing into file {}: waiting for data sort cost {} ms.",
         storageGroup,
         writer.getFile().getName(),
         sortTime);
@@ -175,6 +215,14 @@ public class MemTableFlushTask {
         System.currentTimeMillis() - start);
   }
 
+  private static void cancelSortTasks(List<ForkJoinTask<?>> sortTasks, int from) {
+    for (int i = from; i < sortTasks.size(); i++) {
+      if (sortTasks.get(i) != null) {
+        sortTasks.get(i).cancel(false);
+      }
+    }
+  }
+
   /** encoding task (second task of pipeline) */
   private Runnable encodingTask =
       new Runnable() {
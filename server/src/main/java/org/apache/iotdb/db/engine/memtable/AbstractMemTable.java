@@ -75,6 +75,9 @@ public abstract class AbstractMemTable implements IMemTable {
    */
   protected boolean disableMemControl = true;
 
+  /** whether the numeric TVLists of this memtable are stored in off-heap arrays */
+  protected boolean offHeap = false;
+
   private boolean shouldFlush = false;
   private volatile FlushStatus flushStatus = FlushStatus.WORKING;
   private final int avgSeriesPointNumThreshold =
@@ -86,6 +89,8 @@ public abstract class AbstractMemTable implements IMemTable {
    * including TEXT values
    */
   private long tvListRamCost = 0;
+  /** memory usage of the off-heap arrays of TVLists, which is not included in tvListRamCost */
+  private long offHeapRamCost = 0;
 
   private int seriesNumber = 0;
 
@@ -126,7 +131,7 @@ public abstract class AbstractMemTable implements IMemTable {
   private IWritableMemChunkGroup createMemChunkGroupIfNotExistAndGet(
       IDeviceID deviceId, List<IMeasurementSchema> schemaList) {
     IWritableMemChunkGroup memChunkGroup =
-        memTableMap.computeIfAbsent(deviceId, k -> new WritableMemChunkGroup());
+        memTableMap.computeIfAbsent(deviceId, k -> new WritableMemChunkGroup(offHeap));
     for (IMeasurementSchema schema : schemaList) {
       if (!memChunkGroup.contains(schema.getMeasurementId())) {
         seriesNumber++;
@@ -144,7 +149,7 @@ public abstract class AbstractMemTable implements IMemTable {
             k -> {
               seriesNumber += schemaList.size();
               totalPointsNumThreshold += ((long) avgSeriesPointNumThreshold) * schemaList.size();
-              return new AlignedWritableMemChunkGroup(schemaList);
+              return new AlignedWritableMemChunkGroup(schemaList, offHeap);
             });
     for (IMeasurementSchema schema : schemaList) {
       if (!memChunkGroup.contains(schema.getMeasurementId())) {
@@ -636,6 +641,7 @@ public abstract class AbstractMemTable implements IMemTable {
     totalPointsNum = 0;
     totalPointsNumThreshold = 0;
     tvListRamCost = 0;
+    offHeapRamCost = 0;
     maxPlanIndex = 0;
     minPlanIndex = 0;
   }
@@ -679,6 +685,26 @@ public abstract class AbstractMemTable implements IMemTable {
     return tvListRamCost;
   }
 
+  @Override
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  @Override
+  public void addOffHeapRamCost(long cost) {
+    this.offHeapRamCost += cost;
+  }
+
+  @Override
+  public void releaseOffHeapRamCost(long cost) {
+    this.offHeapRamCost -= cost;
+  }
+
+  @Override
+  public long getOffHeapRamCost() {
+    return offHeapRamCost;
+  }
+
   @Override
   public void addTextDataSize(long textDataSize) {
     this.memSize += textDataSize;
@@ -769,7 +795,8 @@ public abstract class AbstractMemTable implements IMemTable {
     }
     buffer.putInt(seriesNumber);
     buffer.putLong(memSize);
-    buffer.putLong(tvListRamCost);
+    // a recovered memtable is on heap, so its off-heap arrays are counted in its TVList ram cost
+    buffer.putLong(tvListRamCost + offHeapRamCost);
     buffer.putLong(totalPointsNum);
     buffer.putLong(totalPointsNumThreshold);
     buffer.putLong(maxPlanIndex);
@@ -54,6 +54,10 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
   private static final Logger LOGGER = LoggerFactory.getLogger(AlignedWritableMemChunk.class);
 
   public AlignedWritableMemChunk(List<IMeasurementSchema> schemaList) {
+    this(schemaList, false);
+  }
+
+  public AlignedWritableMemChunk(List<IMeasurementSchema> schemaList, boolean offHeap) {
     this.measurementIndexMap = new LinkedHashMap<>();
     List<TSDataType> dataTypeList = new ArrayList<>();
     this.schemaList = schemaList;
@@ -61,7 +65,7 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
       measurementIndexMap.put(schemaList.get(i).getMeasurementId(), i);
       dataTypeList.add(schemaList.get(i).getType());
     }
-    this.list = AlignedTVList.newAlignedList(dataTypeList);
+    this.list = AlignedTVList.newAlignedList(dataTypeList, offHeap);
   }
 
   private AlignedWritableMemChunk(List<IMeasurementSchema> schemaList, AlignedTVList list) {
@@ -223,6 +227,10 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
   @Override
   public synchronized TVList getSortedTvListForQuery() {
     sortTVList();
+    if (list.isOffHeap()) {
+      // off-heap arrays are freed right after flushing, so a query works on a heap copy instead
+      return list.clone();
+    }
     // increase reference count
     list.increaseReferenceCount();
     return list;
@@ -231,8 +239,13 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
   @Override
   public synchronized TVList getSortedTvListForQuery(List<IMeasurementSchema> schemaList) {
     sortTVList();
-    // increase reference count
-    list.increaseReferenceCount();
+    AlignedTVList queryList = list;
+    if (list.isOffHeap()) {
+      queryList = list.clone();
+    } else {
+      // increase reference count
+      list.increaseReferenceCount();
+    }
     List<Integer> columnIndexList = new ArrayList<>();
     List<TSDataType> dataTypeList = new ArrayList<>();
     for (IMeasurementSchema measurementSchema : schemaList) {
@@ -240,7 +253,7 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
           measurementIndexMap.getOrDefault(measurementSchema.getMeasurementId(), -1));
       dataTypeList.add(measurementSchema.getType());
     }
-    return list.getTvListByColumnIndex(columnIndexList, dataTypeList);
+    return queryList.getTvListByColumnIndex(columnIndexList, dataTypeList);
   }
 
   private void sortTVList() {
@@ -369,9 +382,8 @@ public class AlignedWritableMemChunk implements IWritableMemChunk {
     if (list.rowCount() == 0) {
       return Long.MIN_VALUE;
     }
-    return getSortedTvListForQuery()
-        .getTimeValuePair(getSortedTvListForQuery().rowCount() - 1)
-        .getTimestamp();
+    TVList sortedList = getSortedTvListForQuery();
+    return sortedList.getTimeValuePair(sortedList.rowCount() - 1).getTimestamp();
   }
 
   @Override
@@ -39,7 +39,11 @@ public class AlignedWritableMemChunkGroup implements IWritableMemChunkGroup {
   private AlignedWritableMemChunk memChunk;
 
   public AlignedWritableMemChunkGroup(List<IMeasurementSchema> schemaList) {
-    memChunk = new AlignedWritableMemChunk(schemaList);
+    this(schemaList, false);
+  }
+
+  public AlignedWritableMemChunkGroup(List<IMeasurementSchema> schemaList, boolean offHeap) {
+    memChunk = new AlignedWritableMemChunk(schemaList, offHeap);
   }
 
   private AlignedWritableMemChunkGroup() {}
@@ -84,6 +84,16 @@ public interface IMemTable extends WALEntryValue {
   /** only used when mem control enabled */
   long getTVListsRamCost();
 
+  /** @return whether the numeric TVLists of this memtable are stored in off-heap arrays */
+  boolean isOffHeap();
+
+  /** add the off-heap arrays, which are not counted in the TVList ram cost */
+  void addOffHeapRamCost(long cost);
+
+  void releaseOffHeapRamCost(long cost);
+
+  long getOffHeapRamCost();
+
   /**
    * only used when mem control enabled
    *
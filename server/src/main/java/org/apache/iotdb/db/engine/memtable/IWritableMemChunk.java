@@ -95,6 +95,9 @@ public interface IWritableMemChunk extends WALEntryValue {
    *
    * <p>the mechanism is just like copy on write
    *
+   * <p>the returned list may be a read view sharing arrays with the tv list, which only covers the
+   * rows written so far and must not be modified
+   *
    * <p>This interface should be synchronized for concurrent with sortTvListForFlush
    *
    * @return sorted tv list
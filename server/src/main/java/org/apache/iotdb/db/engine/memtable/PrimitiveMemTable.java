@@ -32,6 +32,11 @@ public class PrimitiveMemTable extends AbstractMemTable {
     this.disableMemControl = !enableMemControl;
   }
 
+  public PrimitiveMemTable(boolean enableMemControl, boolean offHeap) {
+    this.disableMemControl = !enableMemControl;
+    this.offHeap = offHeap;
+  }
+
   public PrimitiveMemTable(Map<IDeviceID, IWritableMemChunkGroup> memTableMap) {
     super(memTableMap);
   }
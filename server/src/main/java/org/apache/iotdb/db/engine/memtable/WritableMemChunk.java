@@ -41,12 +41,24 @@ public class WritableMemChunk implements IWritableMemChunk {
 
   private IMeasurementSchema schema;
   private TVList list;
+  // increased whenever rows of the list are reordered or removed in place, or the list is replaced
+  private long listVersion;
+  // the read view handed to the latest query, shared by later queries while nothing is written
+  private TVList queryView;
+  private long queryViewVersion;
+  // heap copy of an off-heap list for queries, extended in place while rows arrive in time order
+  private TVList querySnapshot;
+  private long querySnapshotVersion;
   private static final String UNSUPPORTED_TYPE = "Unsupported data type:";
   private static final Logger LOGGER = LoggerFactory.getLogger(WritableMemChunk.class);
 
   public WritableMemChunk(IMeasurementSchema schema) {
+    this(schema, false);
+  }
+
+  public WritableMemChunk(IMeasurementSchema schema, boolean offHeap) {
     this.schema = schema;
-    this.list = TVList.newList(schema.getType());
+    this.list = TVList.newList(schema.getType(), offHeap);
   }
 
   private WritableMemChunk() {}
@@ -198,12 +210,42 @@ public class WritableMemChunk implements IWritableMemChunk {
     throw new UnSupportedDataTypeException(UNSUPPORTED_TYPE + schema.getType());
   }
 
+  /**
+   * Queries get a read view of the sorted list instead of a copy. The view shares the arrays of the
+   * list, so it is cheap to create and is shared by all queries that arrive before the next write.
+   * Writers keep appending to the list meanwhile; a list that is referenced by queries is copied
+   * before its rows are reordered or removed, see {@link #sortTVList()} and {@link #delete(long,
+   * long)}.
+   */
   @Override
   public synchronized TVList getSortedTvListForQuery() {
     sortTVList();
-    // increase reference count
-    list.increaseReferenceCount();
-    return list;
+    if (queryView == null
+        || queryViewVersion != listVersion
+        || queryView.rowCount() != list.rowCount()) {
+      queryView = getQuerySnapshot().getReadView();
+      queryViewVersion = listVersion;
+    }
+    return queryView;
+  }
+
+  private TVList getQuerySnapshot() {
+    if (!list.isOffHeap()) {
+      // increase reference count
+      list.increaseReferenceCount();
+      return list;
+    }
+    // off-heap arrays are freed right after flushing, so queries work on a heap copy instead,
+    // which only needs the newly appended rows while the list is not reordered
+    if (querySnapshot == null
+        || querySnapshotVersion != listVersion
+        || querySnapshot.rowCount() > list.rowCount()) {
+      querySnapshot = list.clone();
+      querySnapshotVersion = listVersion;
+    } else {
+      querySnapshot.putRowsFrom(list, querySnapshot.rowCount(), list.rowCount());
+    }
+    return querySnapshot;
   }
 
   @Override
@@ -212,14 +254,15 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   private void sortTVList() {
+    if (list.isSorted()) {
+      return;
+    }
     // check reference count
-    if ((list.getReferenceCount() > 0 && !list.isSorted())) {
+    if (list.getReferenceCount() > 0) {
       list = list.clone();
     }
-
-    if (!list.isSorted()) {
-      list.sort();
-    }
+    list.sort();
+    listVersion++;
   }
 
   @Override
@@ -260,13 +303,17 @@ public class WritableMemChunk implements IWritableMemChunk {
     if (list.rowCount() == 0) {
       return Long.MIN_VALUE;
     }
-    return getSortedTvListForQuery()
-        .getTimeValuePair(getSortedTvListForQuery().rowCount() - 1)
-        .getTimestamp();
+    TVList sortedList = getSortedTvListForQuery();
+    return sortedList.getTimeValuePair(sortedList.rowCount() - 1).getTimestamp();
   }
 
   @Override
-  public int delete(long lowerBound, long upperBound) {
+  public synchronized int delete(long lowerBound, long upperBound) {
+    // queries may still be reading the rows of a referenced list through their views
+    if (list.getReferenceCount() > 0) {
+      list = list.clone();
+    }
+    listVersion++;
     return list.delete(lowerBound, upperBound);
   }
 
@@ -356,6 +403,8 @@ public class WritableMemChunk implements IWritableMemChunk {
     if (list.getReferenceCount() == 0) {
       list.clear();
     }
+    queryView = null;
+    querySnapshot = null;
   }
 
   @Override
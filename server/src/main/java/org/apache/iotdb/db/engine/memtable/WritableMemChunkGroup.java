@@ -38,8 +38,15 @@ public class WritableMemChunkGroup implements IWritableMemChunkGroup {
 
   private Map<String, IWritableMemChunk> memChunkMap;
 
+  private boolean offHeap;
+
   public WritableMemChunkGroup() {
+    this(false);
+  }
+
+  public WritableMemChunkGroup(boolean offHeap) {
     memChunkMap = new HashMap<>();
+    this.offHeap = offHeap;
   }
 
   @Override
@@ -70,7 +77,7 @@ public class WritableMemChunkGroup implements IWritableMemChunkGroup {
 
   private IWritableMemChunk createMemChunkIfNotExistAndGet(IMeasurementSchema schema) {
     return memChunkMap.computeIfAbsent(
-        schema.getMeasurementId(), k -> new WritableMemChunk(schema));
+        schema.getMeasurementId(), k -> new WritableMemChunk(schema, offHeap));
   }
 
   @Override
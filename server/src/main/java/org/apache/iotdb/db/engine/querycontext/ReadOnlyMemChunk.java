@@ -23,6 +23,7 @@ import org.apache.iotdb.db.query.reader.chunk.MemChunkLoader;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -55,6 +56,15 @@ public class ReadOnlyMemChunk {
 
   protected TsBlock tsBlock;
 
+  // the read view the TsBlock is built from on first use, null once it is built
+  private TVList tvList;
+
+  private int floatPrecision;
+
+  private TSEncoding encoding;
+
+  private List<TimeRange> deletionList;
+
   protected ReadOnlyMemChunk() {}
 
   public ReadOnlyMemChunk(
@@ -84,14 +94,43 @@ public class ReadOnlyMemChunk {
         floatPrecision = TSFileDescriptor.getInstance().getConfig().getFloatPrecision();
       }
     }
-    this.tsBlock = tvList.buildTsBlock(floatPrecision, encoding, deletionList);
+    switch (dataType) {
+      case BOOLEAN:
+      case TEXT:
+      case FLOAT:
+      case INT32:
+      case INT64:
+      case DOUBLE:
+        break;
+      default:
+        throw new QueryProcessException("Unsupported data type:" + dataType);
+    }
+    this.tvList = tvList;
+    this.floatPrecision = floatPrecision;
+    this.encoding = encoding;
+    this.deletionList = deletionList;
+  }
+
+  /**
+   * The rows are copied out of the memtable on first use instead of in the constructor. The
+   * constructor runs while the query holds the locks of the data region, and the given list is a
+   * read view whose rows never change, so the copy can be left until the locks are released and
+   * does not hold up writers.
+   */
+  private synchronized void buildTsBlockIfNecessary() {
+    if (tvList == null) {
+      return;
+    }
+    tsBlock = tvList.buildTsBlock(floatPrecision, encoding, deletionList);
+    tvList = null;
+    deletionList = null;
     initChunkMetaFromTsBlock();
   }
 
-  private void initChunkMetaFromTsBlock() throws IOException, QueryProcessException {
+  private void initChunkMetaFromTsBlock() {
     Statistics statsByType = Statistics.getStatsByType(dataType);
     IChunkMetadata metaData = new ChunkMetadata(measurementUid, dataType, 0, statsByType);
-    if (!isEmpty()) {
+    if (!tsBlock.isEmpty()) {
       switch (dataType) {
         case BOOLEAN:
           for (int i = 0; i < tsBlock.getPositionCount(); i++) {
@@ -124,10 +163,10 @@ public class ReadOnlyMemChunk {
           }
           break;
         default:
-          throw new QueryProcessException("Unsupported data type:" + dataType);
+          throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
       }
     }
-    statsByType.setEmpty(isEmpty());
+    statsByType.setEmpty(tsBlock.isEmpty());
     metaData.setChunkLoader(new MemChunkLoader(this));
     metaData.setVersion(Long.MAX_VALUE);
     cachedMetaData = metaData;
@@ -138,18 +177,22 @@ public class ReadOnlyMemChunk {
   }
 
   public boolean isEmpty() throws IOException {
+    buildTsBlockIfNecessary();
     return tsBlock.isEmpty();
   }
 
   public IChunkMetadata getChunkMetaData() {
+    buildTsBlockIfNecessary();
     return cachedMetaData;
   }
 
   public IPointReader getPointReader() {
+    buildTsBlockIfNecessary();
     return tsBlock.getTsBlockSingleColumnIterator();
   }
 
   public TsBlock getTsBlock() {
+    buildTsBlockIfNecessary();
     return tsBlock;
   }
 }
@@ -37,6 +37,7 @@ import org.apache.iotdb.db.engine.StorageEngineV2;
 import org.apache.iotdb.db.engine.compaction.CompactionRecoverManager;
 import org.apache.iotdb.db.engine.compaction.CompactionScheduler;
 import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.ReadAmplificationTracker;
 import org.apache.iotdb.db.engine.compaction.task.AbstractCompactionTask;
 import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
@@ -1668,6 +1669,8 @@ public class DataRegion {
       lastFlushTimeManager.clearFlushedTime();
       lastFlushTimeManager.clearGlobalFlushedTime();
       lastFlushTimeManager.clearLastTime();
+      ReadAmplificationTracker.getInstance()
+          .removeDataRegion(logicalStorageGroupName + "-" + dataRegionId);
     } finally {
       writeUnlock();
     }
@@ -3311,6 +3314,8 @@ public class DataRegion {
         processor.getTsFileResource().remove();
         tsFileManager.remove(processor.getTsFileResource(), sequence);
         updateLatestFlushTimeToPartition(partitionId, Long.MIN_VALUE);
+        ReadAmplificationTracker.getInstance()
+            .removePartition(logicalStorageGroupName + "-" + dataRegionId, partitionId);
         logger.debug(
             "{} is removed during deleting partitions",
             processor.getTsFileResource().getTsFilePath());
@@ -3327,6 +3332,9 @@ public class DataRegion {
         tsFileResource.remove();
         tsFileManager.remove(tsFileResource, sequence);
         updateLatestFlushTimeToPartition(tsFileResource.getTimePartition(), Long.MIN_VALUE);
+        ReadAmplificationTracker.getInstance()
+            .removePartition(
+                logicalStorageGroupName + "-" + dataRegionId, tsFileResource.getTimePartition());
         logger.debug("{} is removed during deleting partitions", tsFileResource.getTsFilePath());
       }
     }
@@ -527,6 +527,7 @@ public class TsFileProcessor {
       throws WriteProcessException {
     // memory of increased PrimitiveArray and TEXT values, e.g., add a long[128], add 128*8
     long memTableIncrement = 0L;
+    long offHeapIncrement = 0L;
     long textDataIncrement = 0L;
     long chunkMetadataIncrement = 0L;
     // get device id
@@ -546,21 +547,24 @@ public class TsFileProcessor {
         // ChunkMetadataIncrement
         chunkMetadataIncrement += ChunkMetadata.calculateRamSize(measurements[i], dataTypes[i]);
         memTableIncrement += TVList.tvListArrayMemCost(dataTypes[i]);
+        offHeapIncrement += tvListArrayOffHeapMemCost(dataTypes[i]);
       } else {
         // here currentChunkPointNum >= 1
         long currentChunkPointNum = workMemTable.getCurrentTVListSize(deviceID, measurements[i]);
-        memTableIncrement +=
-            (currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE) == 0
-                ? TVList.tvListArrayMemCost(dataTypes[i])
-                : 0;
+        if ((currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE) == 0) {
+          memTableIncrement += TVList.tvListArrayMemCost(dataTypes[i]);
+          offHeapIncrement += tvListArrayOffHeapMemCost(dataTypes[i]);
+        }
       }
       // TEXT data mem size
       if (dataTypes[i] == TSDataType.TEXT) {
         textDataIncrement += MemUtils.getBinarySize((Binary) values[i]);
       }
     }
-    updateMemoryInfo(memTableIncrement, chunkMetadataIncrement, textDataIncrement);
-    return new long[] {memTableIncrement, textDataIncrement, chunkMetadataIncrement};
+    long[] memIncrements =
+        new long[] {memTableIncrement, textDataIncrement, chunkMetadataIncrement, offHeapIncrement};
+    updateMemoryInfo(memIncrements);
+    return memIncrements;
   }
 
   @SuppressWarnings("squid:S3776") // high Cognitive Complexity
@@ -569,6 +573,7 @@ public class TsFileProcessor {
       throws WriteProcessException {
     // memory of increased PrimitiveArray and TEXT values, e.g., add a long[128], add 128*8
     long memTableIncrement = 0L;
+    long offHeapIncrement = 0L;
     long textDataIncrement = 0L;
     long chunkMetadataIncrement = 0L;
     AlignedWritableMemChunk alignedMemChunk = null;
@@ -586,14 +591,15 @@ public class TsFileProcessor {
           ChunkMetadata.calculateRamSize(AlignedPath.VECTOR_PLACEHOLDER, TSDataType.VECTOR)
               * dataTypes.length;
       memTableIncrement += AlignedTVList.alignedTvListArrayMemCost(dataTypes);
+      offHeapIncrement += alignedTvListArrayOffHeapMemCost(dataTypes);
     } else {
       // here currentChunkPointNum >= 1
       long currentChunkPointNum =
           workMemTable.getCurrentTVListSize(deviceID, AlignedPath.VECTOR_PLACEHOLDER);
-      memTableIncrement +=
-          (currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE) == 0
-              ? AlignedTVList.alignedTvListArrayMemCost(dataTypes)
-              : 0;
+      if ((currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE) == 0) {
+        memTableIncrement += AlignedTVList.alignedTvListArrayMemCost(dataTypes);
+        offHeapIncrement += alignedTvListArrayOffHeapMemCost(dataTypes);
+      }
       alignedMemChunk =
           ((AlignedWritableMemChunkGroup) workMemTable.getMemTableMap().get(deviceID))
               .getAlignedMemChunk();
@@ -605,17 +611,23 @@ public class TsFileProcessor {
       }
       // extending the column of aligned mem chunk
       if (alignedMemChunk != null && !alignedMemChunk.containsMeasurement(measurements[i])) {
-        memTableIncrement +=
+        long columnIncrement =
             (alignedMemChunk.alignedListSize() / PrimitiveArrayManager.ARRAY_SIZE + 1)
                 * dataTypes[i].getDataTypeSize();
+        memTableIncrement += columnIncrement;
+        if (isOffHeapArray(dataTypes[i])) {
+          offHeapIncrement += columnIncrement;
+        }
       }
       // TEXT data mem size
       if (dataTypes[i] == TSDataType.TEXT) {
         textDataIncrement += MemUtils.getBinarySize((Binary) values[i]);
       }
     }
-    updateMemoryInfo(memTableIncrement, chunkMetadataIncrement, textDataIncrement);
-    return new long[] {memTableIncrement, textDataIncrement, chunkMetadataIncrement};
+    long[] memIncrements =
+        new long[] {memTableIncrement, textDataIncrement, chunkMetadataIncrement, offHeapIncrement};
+    updateMemoryInfo(memIncrements);
+    return memIncrements;
   }
 
   private long[] checkMemCostAndAddToTspInfo(
@@ -627,9 +639,9 @@ public class TsFileProcessor {
       int end)
       throws WriteProcessException {
     if (start >= end) {
-      return new long[] {0, 0, 0};
+      return new long[] {0, 0, 0, 0};
     }
-    long[] memIncrements = new long[3]; // memTable, text, chunk metadata
+    long[] memIncrements = new long[4]; // memTable, text, chunk metadata, off-heap part of memTable
 
     // get device id
     IDeviceID deviceID;
@@ -646,10 +658,7 @@ public class TsFileProcessor {
       }
       updateMemCost(dataTypes[i], measurements[i], deviceID, start, end, memIncrements, columns[i]);
     }
-    long memTableIncrement = memIncrements[0];
-    long textDataIncrement = memIncrements[1];
-    long chunkMetadataIncrement = memIncrements[2];
-    updateMemoryInfo(memTableIncrement, chunkMetadataIncrement, textDataIncrement);
+    updateMemoryInfo(memIncrements);
     return memIncrements;
   }
 
@@ -662,9 +671,9 @@ public class TsFileProcessor {
       int end)
       throws WriteProcessException {
     if (start >= end) {
-      return new long[] {0, 0, 0};
+      return new long[] {0, 0, 0, 0};
     }
-    long[] memIncrements = new long[3]; // memTable, text, chunk metadata
+    long[] memIncrements = new long[4]; // memTable, text, chunk metadata, off-heap part of memTable
 
     // get device id
     IDeviceID deviceID;
@@ -675,10 +684,7 @@ public class TsFileProcessor {
     }
 
     updateAlignedMemCost(dataTypes, deviceID, measurements, start, end, memIncrements, columns);
-    long memTableIncrement = memIncrements[0];
-    long textDataIncrement = memIncrements[1];
-    long chunkMetadataIncrement = memIncrements[2];
-    updateMemoryInfo(memTableIncrement, chunkMetadataIncrement, textDataIncrement);
+    updateMemoryInfo(memIncrements);
     return memIncrements;
   }
 
@@ -690,28 +696,24 @@ public class TsFileProcessor {
       int end,
       long[] memIncrements,
       Object column) {
-    // memIncrements = [memTable, text, chunk metadata] respectively
-
+    // memIncrements = [memTable, text, chunk metadata, off-heap part of memTable] respectively
+    long acquireArray;
     if (workMemTable.checkIfChunkDoesNotExist(deviceId, measurement)) {
       // ChunkMetadataIncrement
       memIncrements[2] += ChunkMetadata.calculateRamSize(measurement, dataType);
-      memIncrements[0] +=
-          ((end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1)
-              * TVList.tvListArrayMemCost(dataType);
+      acquireArray = (end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1;
     } else {
       long currentChunkPointNum = workMemTable.getCurrentTVListSize(deviceId, measurement);
       if (currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE == 0) {
-        memIncrements[0] +=
-            ((end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1)
-                * TVList.tvListArrayMemCost(dataType);
+        acquireArray = (end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1;
       } else {
-        long acquireArray =
+        acquireArray =
             (end - start - 1 + (currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE))
                 / PrimitiveArrayManager.ARRAY_SIZE;
-        memIncrements[0] +=
-            acquireArray == 0 ? 0 : acquireArray * TVList.tvListArrayMemCost(dataType);
       }
     }
+    memIncrements[0] += acquireArray * TVList.tvListArrayMemCost(dataType);
+    memIncrements[3] += acquireArray * tvListArrayOffHeapMemCost(dataType);
     // TEXT data size
     if (dataType == TSDataType.TEXT) {
       Binary[] binColumn = (Binary[]) column;
@@ -728,35 +730,30 @@ public class TsFileProcessor {
       long[] memIncrements,
       Object[] columns) {
     AlignedWritableMemChunk vectorMemChunk = null;
-    // memIncrements = [memTable, text, chunk metadata] respectively
+    // memIncrements = [memTable, text, chunk metadata, off-heap part of memTable] respectively
+    int acquireArray;
     if (workMemTable.checkIfChunkDoesNotExist(deviceId, AlignedPath.VECTOR_PLACEHOLDER)) {
       // ChunkMetadataIncrement
       memIncrements[2] +=
           dataTypes.length
               * ChunkMetadata.calculateRamSize(AlignedPath.VECTOR_PLACEHOLDER, TSDataType.VECTOR);
-      memIncrements[0] +=
-          ((end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1)
-              * AlignedTVList.alignedTvListArrayMemCost(dataTypes);
+      acquireArray = (end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1;
     } else {
       int currentChunkPointNum =
           (int) workMemTable.getCurrentTVListSize(deviceId, AlignedPath.VECTOR_PLACEHOLDER);
       if (currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE == 0) {
-        memIncrements[0] +=
-            ((end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1)
-                * AlignedTVList.alignedTvListArrayMemCost(dataTypes);
+        acquireArray = (end - start) / PrimitiveArrayManager.ARRAY_SIZE + 1;
       } else {
-        int acquireArray =
+        acquireArray =
             (end - start - 1 + (currentChunkPointNum % PrimitiveArrayManager.ARRAY_SIZE))
                 / PrimitiveArrayManager.ARRAY_SIZE;
-        memIncrements[0] +=
-            acquireArray == 0
-                ? 0
-                : acquireArray * AlignedTVList.alignedTvListArrayMemCost(dataTypes);
       }
       vectorMemChunk =
           ((AlignedWritableMemChunkGroup) workMemTable.getMemTableMap().get(deviceId))
               .getAlignedMemChunk();
     }
+    memIncrements[0] += acquireArray * AlignedTVList.alignedTvListArrayMemCost(dataTypes);
+    memIncrements[3] += acquireArray * alignedTvListArrayOffHeapMemCost(dataTypes);
     for (int i = 0; i < dataTypes.length; i++) {
       TSDataType dataType = dataTypes[i];
       String measurement = measurementIds[i];
@@ -766,9 +763,13 @@ public class TsFileProcessor {
       }
       // extending the column of aligned mem chunk
       if (vectorMemChunk != null && !vectorMemChunk.containsMeasurement(measurementIds[i])) {
-        memIncrements[0] +=
+        long columnIncrement =
             (vectorMemChunk.alignedListSize() / PrimitiveArrayManager.ARRAY_SIZE + 1)
                 * dataType.getDataTypeSize();
+        memIncrements[0] += columnIncrement;
+        if (isOffHeapArray(dataType)) {
+          memIncrements[3] += columnIncrement;
+        }
       }
       // TEXT data size
       if (dataType == TSDataType.TEXT) {
@@ -778,10 +779,37 @@ public class TsFileProcessor {
     }
   }
 
-  private void updateMemoryInfo(
-      long memTableIncrement, long chunkMetadataIncrement, long textDataIncrement)
-      throws WriteProcessException {
-    memTableIncrement += textDataIncrement;
+  /** @return the off-heap part of the array cost, 0 if the working memtable is on heap */
+  private long tvListArrayOffHeapMemCost(TSDataType dataType) {
+    return workMemTable.isOffHeap() ? TVList.tvListArrayOffHeapMemCost(dataType) : 0;
+  }
+
+  /** @return the off-heap part of the aligned array cost, 0 if the working memtable is on heap */
+  private long alignedTvListArrayOffHeapMemCost(TSDataType[] dataTypes) {
+    return workMemTable.isOffHeap() ? AlignedTVList.alignedTvListArrayOffHeapMemCost(dataTypes) : 0;
+  }
+
+  private boolean isOffHeapArray(TSDataType dataType) {
+    return workMemTable.isOffHeap() && PrimitiveArrayManager.isOffHeapSupported(dataType);
+  }
+
+  /**
+   * The off-heap arrays are charged to SystemInfo apart from the memory for writing. If the
+   * off-heap memory is used up, they will be allocated on heap, so they are charged as heap arrays
+   * and memIncrements[3] is reset to 0.
+   *
+   * @param memIncrements memTable, text, chunk metadata and the off-heap part of memTable
+   */
+  private void updateMemoryInfo(long[] memIncrements) throws WriteProcessException {
+    long offHeapIncrement = memIncrements[3];
+    if (offHeapIncrement > 0
+        && !SystemInfo.getInstance().addOffHeapMemTableCost(offHeapIncrement, this)) {
+      offHeapIncrement = 0;
+      memIncrements[3] = 0;
+    }
+    long textDataIncrement = memIncrements[1];
+    long chunkMetadataIncrement = memIncrements[2];
+    long memTableIncrement = memIncrements[0] - offHeapIncrement + textDataIncrement;
     storageGroupInfo.addStorageGroupMemCost(memTableIncrement);
     tsFileProcessorInfo.addTSPMemCost(chunkMetadataIncrement);
     if (storageGroupInfo.needToReportToSystem()) {
@@ -793,23 +821,27 @@ public class TsFileProcessor {
         storageGroupInfo.releaseStorageGroupMemCost(memTableIncrement);
         tsFileProcessorInfo.releaseTSPMemCost(chunkMetadataIncrement);
         SystemInfo.getInstance().resetStorageGroupStatus(storageGroupInfo);
+        SystemInfo.getInstance().releaseOffHeapMemTableCost(offHeapIncrement);
         throw e;
       }
     }
     workMemTable.addTVListRamCost(memTableIncrement);
+    workMemTable.addOffHeapRamCost(offHeapIncrement);
     workMemTable.addTextDataSize(textDataIncrement);
   }
 
   private void rollbackMemoryInfo(long[] memIncrements) {
-    long memTableIncrement = memIncrements[0];
     long textDataIncrement = memIncrements[1];
     long chunkMetadataIncrement = memIncrements[2];
+    long offHeapIncrement = memIncrements[3];
+    long memTableIncrement = memIncrements[0] - offHeapIncrement + textDataIncrement;
 
-    memTableIncrement += textDataIncrement;
     storageGroupInfo.releaseStorageGroupMemCost(memTableIncrement);
     tsFileProcessorInfo.releaseTSPMemCost(chunkMetadataIncrement);
     SystemInfo.getInstance().resetStorageGroupStatus(storageGroupInfo);
+    SystemInfo.getInstance().releaseOffHeapMemTableCost(offHeapIncrement);
     workMemTable.releaseTVListRamCost(memTableIncrement);
+    workMemTable.releaseOffHeapRamCost(offHeapIncrement);
     workMemTable.releaseTextDataSize(textDataIncrement);
   }
 
@@ -1114,6 +1146,10 @@ public class TsFileProcessor {
     if (enableMemControl) {
       SystemInfo.getInstance().addFlushingMemTableCost(tobeFlushed.getTVListsRamCost());
     }
+    if (tobeFlushed.getOffHeapRamCost() > 0) {
+      SystemInfo.getInstance().addFlushingOffHeapMemTableCost(tobeFlushed.getOffHeapRamCost());
+      SystemInfo.getInstance().removeOffHeapTsFileProcessor(this);
+    }
     flushingMemTables.addLast(tobeFlushed);
     if (logger.isDebugEnabled()) {
       logger.debug(
@@ -1172,6 +1208,10 @@ public class TsFileProcessor {
         SystemInfo.getInstance().resetStorageGroupStatus(storageGroupInfo);
         SystemInfo.getInstance().resetFlushingMemTableCost(memTable.getTVListsRamCost());
       }
+      if (memTable.getOffHeapRamCost() > 0) {
+        SystemInfo.getInstance().releaseOffHeapMemTableCost(memTable.getOffHeapRamCost());
+        SystemInfo.getInstance().resetFlushingOffHeapMemTableCost(memTable.getOffHeapRamCost());
+      }
       if (logger.isDebugEnabled()) {
         logger.debug(
             "{}: {} flush finished, remove a memtable from flushing list, "
@@ -1403,6 +1443,8 @@ public class TsFileProcessor {
     logger.info("Start to end file {}", tsFileResource);
     long closeStartTime = System.currentTimeMillis();
     writer.endFile();
+    tsFileResource.setRollup(
+        TsFileRollup.of(writer.getDeviceTimeseriesMetadataMap(), writer.getFile().length()));
     tsFileResource.serialize();
     if (tsFileSyncManager.isEnableSync()) {
       tsFileSyncManager.collectRealTimeResource(tsFileResource.getTsFile());
@@ -1418,6 +1460,7 @@ public class TsFileProcessor {
     if (enableMemControl) {
       tsFileProcessorInfo.clear();
       storageGroupInfo.closeTsFileProcessorAndReportToSystem(this);
+      SystemInfo.getInstance().removeOffHeapTsFileProcessor(this);
     }
     if (logger.isInfoEnabled()) {
       long closeEndTime = System.currentTimeMillis();
@@ -1554,6 +1597,10 @@ public class TsFileProcessor {
   /** release resource of a memtable */
   public void putMemTableBackAndClose() throws TsFileProcessorException {
     if (workMemTable != null) {
+      if (workMemTable.getOffHeapRamCost() > 0) {
+        SystemInfo.getInstance().releaseOffHeapMemTableCost(workMemTable.getOffHeapRamCost());
+        SystemInfo.getInstance().removeOffHeapTsFileProcessor(this);
+      }
       workMemTable.release();
       workMemTable = null;
     }
@@ -1576,6 +1623,10 @@ public class TsFileProcessor {
     return workMemTable != null ? workMemTable.getTVListsRamCost() : 0;
   }
 
+  public long getWorkMemTableOffHeapRamCost() {
+    return workMemTable != null ? workMemTable.getOffHeapRamCost() : 0;
+  }
+
   /** Return Long.MAX_VALUE if workMemTable is null */
   public long getWorkMemTableCreatedTime() {
     return workMemTable != null ? workMemTable.getCreatedTime() : Long.MAX_VALUE;
@@ -34,6 +34,7 @@ import org.apache.iotdb.db.engine.storagegroup.timeindex.TimeIndexLevel;
 import org.apache.iotdb.db.engine.upgrade.UpgradeTask;
 import org.apache.iotdb.db.exception.PartitionViolationException;
 import org.apache.iotdb.db.metadata.utils.ResourceByPathUtils;
+import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
 import org.apache.iotdb.db.service.UpgradeSevice;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
@@ -44,6 +45,7 @@ import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.utils.FilePathUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +54,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.ref.SoftReference;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -154,6 +157,15 @@ public class TsFileResource {
    */
   private TsFileResource originTsFileResource;
 
+  /** rollup of the file being sealed, kept until it is serialized along with this resource */
+  private TsFileRollup rollupToSerialize;
+
+  /** rollup of the sealed file, loaded when it is queried and released under memory pressure */
+  private volatile SoftReference<TsFileRollup> rollupReference;
+
+  /** the rollup file is missing or stale, so there is no need to load it again */
+  private volatile boolean rollupUnavailable = false;
+
   public TsFileResource() {}
 
   public TsFileResource(TsFileResource other) throws IOException {
@@ -250,6 +262,76 @@ public class TsFileResource {
     File dest = fsFactory.getFile(file + RESOURCE_SUFFIX);
     fsFactory.deleteIfExists(dest);
     fsFactory.moveFile(src, dest);
+
+    if (rollupToSerialize != null) {
+      serializeRollup(rollupToSerialize);
+      rollupToSerialize = null;
+    }
+  }
+
+  private void serializeRollup(TsFileRollup rollup) throws IOException {
+    try (OutputStream outputStream =
+        fsFactory.getBufferedOutputStream(file + TsFileRollup.ROLLUP_SUFFIX + TEMP_SUFFIX)) {
+      rollup.serialize(outputStream);
+    }
+    File src = fsFactory.getFile(file + TsFileRollup.ROLLUP_SUFFIX + TEMP_SUFFIX);
+    File dest = fsFactory.getFile(file + TsFileRollup.ROLLUP_SUFFIX);
+    fsFactory.deleteIfExists(dest);
+    fsFactory.moveFile(src, dest);
+  }
+
+  /**
+   * Set the rollup of the file being sealed, it is written to disk by the next {@link
+   * #serialize()}.
+   */
+  public void setRollup(TsFileRollup rollup) {
+    if (!CONFIG.isEnableTsFileStatisticsRollup()) {
+      return;
+    }
+    rollupToSerialize = rollup;
+    rollupReference = new SoftReference<>(rollup);
+    rollupUnavailable = false;
+  }
+
+  /**
+   * Get the statistics rollup of a sealed file, it is loaded from disk at the first call and may be
+   * reloaded after being released under memory pressure.
+   *
+   * @return null if the file is unsealed, or it has no valid rollup
+   */
+  public TsFileRollup getRollup() {
+    if (!isClosed() || rollupUnavailable || !CONFIG.isEnableTsFileStatisticsRollup()) {
+      return null;
+    }
+    SoftReference<TsFileRollup> reference = rollupReference;
+    TsFileRollup rollup = reference == null ? null : reference.get();
+    return rollup != null ? rollup : loadRollup();
+  }
+
+  private synchronized TsFileRollup loadRollup() {
+    TsFileRollup rollup = rollupReference == null ? null : rollupReference.get();
+    if (rollup != null || rollupUnavailable) {
+      return rollup;
+    }
+    File rollupFile = fsFactory.getFile(file + TsFileRollup.ROLLUP_SUFFIX);
+    if (!rollupFile.exists()) {
+      rollupUnavailable = true;
+      return null;
+    }
+    try (InputStream inputStream = fsFactory.getBufferedInputStream(rollupFile.getPath())) {
+      rollup = TsFileRollup.deserialize(inputStream);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot load the rollup of TsFile {}", file, e);
+      rollupUnavailable = true;
+      return null;
+    }
+    if (rollup.getTsFileSize() != file.length()) {
+      LOGGER.warn("The rollup of TsFile {} is stale and ignored", file);
+      rollupUnavailable = true;
+      return null;
+    }
+    rollupReference = new SoftReference<>(rollup);
+    return rollup;
   }
 
   /** deserialize from disk */
@@ -507,6 +589,7 @@ public class TsFileResource {
 
   /** Remove the data file, its resource file, and its modification file physically. */
   public boolean remove() {
+    closeFileReader();
     try {
       fsFactory.deleteIfExists(file);
     } catch (IOException e) {
@@ -529,6 +612,12 @@ public class TsFileResource {
     try {
       fsFactory.deleteIfExists(fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX));
       fsFactory.deleteIfExists(fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX + TEMP_SUFFIX));
+      fsFactory.deleteIfExists(fsFactory.getFile(file.getPath() + TsFileRollup.ROLLUP_SUFFIX));
+      fsFactory.deleteIfExists(
+          fsFactory.getFile(file.getPath() + TsFileRollup.ROLLUP_SUFFIX + TEMP_SUFFIX));
+      // chunk metadata spilled by an unfinished writer, e.g. an interrupted compaction target
+      fsFactory.deleteIfExists(
+          fsFactory.getFile(file.getPath() + TsFileIOWriter.CHUNK_METADATA_TEMP_FILE_SUFFIX));
     } catch (IOException e) {
       LOGGER.error("TsFileResource {} cannot be deleted: {}", file, e.getMessage());
       return false;
@@ -537,10 +626,17 @@ public class TsFileResource {
   }
 
   void moveTo(File targetDir) {
+    closeFileReader();
     fsFactory.moveFile(file, fsFactory.getFile(targetDir, file.getName()));
     fsFactory.moveFile(
         fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX),
         fsFactory.getFile(targetDir, file.getName() + RESOURCE_SUFFIX));
+    File originRollupFile = fsFactory.getFile(file.getPath() + TsFileRollup.ROLLUP_SUFFIX);
+    if (originRollupFile.exists()) {
+      fsFactory.moveFile(
+          originRollupFile,
+          fsFactory.getFile(targetDir, file.getName() + TsFileRollup.ROLLUP_SUFFIX));
+    }
     File originModFile = fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX);
     if (originModFile.exists()) {
       fsFactory.moveFile(
@@ -549,6 +645,15 @@ public class TsFileResource {
     }
   }
 
+  /** idle readers of sealed files are kept open by FileReaderManager after queries end */
+  private void closeFileReader() {
+    try {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(file.getPath());
+    } catch (IOException e) {
+      LOGGER.warn("Cannot close the reader of TsFile {}", file, e);
+    }
+  }
+
   @Override
   public String toString() {
     return String.format("file is %s, status: %s", file.toString(), status);
@@ -861,12 +966,17 @@ public class TsFileResource {
   }
 
   public void delete() throws IOException {
+    closeFileReader();
     if (file.exists()) {
       Files.delete(file.toPath());
       Files.delete(
           FSFactoryProducer.getFSFactory()
               .getFile(file.toPath() + TsFileResource.RESOURCE_SUFFIX)
               .toPath());
+      Files.deleteIfExists(
+          FSFactoryProducer.getFSFactory()
+              .getFile(file.toPath() + TsFileRollup.ROLLUP_SUFFIX)
+              .toPath());
     }
   }
 
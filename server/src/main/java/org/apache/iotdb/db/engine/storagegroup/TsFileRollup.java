@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics of every series in a sealed TsFile, grouped by device. It is persisted as
+ * xxx.tsfile.rollup next to xxx.tsfile.resource, so that an aggregation whose time range covers
+ * the whole file can use the statistics without reading the TimeseriesMetadata of the file.
+ *
+ * <p>Aligned devices are not included, their series are aggregated with the time column.
+ */
+public class TsFileRollup {
+
+  public static final String ROLLUP_SUFFIX = ".rollup";
+
+  private static final byte VERSION_NUMBER = 0;
+
+  /** length of the TsFile that the rollup is built from, to detect a stale rollup file */
+  private final long tsFileSize;
+
+  /** device -> measurement -> statistics of the series */
+  private final Map<String, Map<String, Statistics<? extends Serializable>>> deviceToStatistics;
+
+  private TsFileRollup(
+      long tsFileSize,
+      Map<String, Map<String, Statistics<? extends Serializable>>> deviceToStatistics) {
+    this.tsFileSize = tsFileSize;
+    this.deviceToStatistics = deviceToStatistics;
+  }
+
+  /**
+   * @param deviceTimeseriesMetadataMap the TimeseriesMetadata of the file, which is available from
+   *     the TsFileIOWriter after the file is ended
+   * @param tsFileSize length of the ended file
+   */
+  public static TsFileRollup of(
+      Map<String, List<TimeseriesMetadata>> deviceTimeseriesMetadataMap, long tsFileSize) {
+    Map<String, Map<String, Statistics<? extends Serializable>>> deviceToStatistics =
+        new HashMap<>();
+    for (Map.Entry<String, List<TimeseriesMetadata>> entry :
+        deviceTimeseriesMetadataMap.entrySet()) {
+      Map<String, Statistics<? extends Serializable>> measurementToStatistics = new HashMap<>();
+      boolean aligned = false;
+      for (TimeseriesMetadata timeseriesMetadata : entry.getValue()) {
+        if (timeseriesMetadata.getTSDataType() == TSDataType.VECTOR) {
+          aligned = true;
+          break;
+        }
+        measurementToStatistics.put(
+            timeseriesMetadata.getMeasurementId(), timeseriesMetadata.getStatistics());
+      }
+      if (!aligned) {
+        deviceToStatistics.put(entry.getKey(), measurementToStatistics);
+      }
+    }
+    return new TsFileRollup(tsFileSize, deviceToStatistics);
+  }
+
+  public long getTsFileSize() {
+    return tsFileSize;
+  }
+
+  /** @return false if the device is aligned or not in the file */
+  public boolean containsDevice(String device) {
+    return deviceToStatistics.containsKey(device);
+  }
+
+  /**
+   * @return the statistics of the series, or null if the series has no data in the file. For a
+   *     device that is not contained, null tells nothing.
+   */
+  public Statistics<? extends Serializable> getStatistics(String device, String measurement) {
+    Map<String, Statistics<? extends Serializable>> measurementToStatistics =
+        deviceToStatistics.get(device);
+    return measurementToStatistics == null ? null : measurementToStatistics.get(measurement);
+  }
+
+  public void serialize(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(VERSION_NUMBER, outputStream);
+    ReadWriteIOUtils.write(tsFileSize, outputStream);
+    ReadWriteIOUtils.write(deviceToStatistics.size(), outputStream);
+    for (Map.Entry<String, Map<String, Statistics<? extends Serializable>>> deviceEntry :
+        deviceToStatistics.entrySet()) {
+      ReadWriteIOUtils.write(deviceEntry.getKey(), outputStream);
+      ReadWriteIOUtils.write(deviceEntry.getValue().size(), outputStream);
+      for (Map.Entry<String, Statistics<? extends Serializable>> entry :
+          deviceEntry.getValue().entrySet()) {
+        ReadWriteIOUtils.write(entry.getKey(), outputStream);
+        ReadWriteIOUtils.write(entry.getValue().getType(), outputStream);
+        entry.getValue().serialize(outputStream);
+      }
+    }
+  }
+
+  public static TsFileRollup deserialize(InputStream inputStream) throws IOException {
+    byte version = ReadWriteIOUtils.readByte(inputStream);
+    if (version != VERSION_NUMBER) {
+      throw new IOException("Unknown version of TsFile rollup: " + version);
+    }
+    long tsFileSize = ReadWriteIOUtils.readLong(inputStream);
+    int deviceNum = ReadWriteIOUtils.readInt(inputStream);
+    Map<String, Map<String, Statistics<? extends Serializable>>> deviceToStatistics =
+        new HashMap<>(deviceNum);
+    for (int i = 0; i < deviceNum; i++) {
+      String device = ReadWriteIOUtils.readString(inputStream).intern();
+      int measurementNum = ReadWriteIOUtils.readInt(inputStream);
+      Map<String, Statistics<? extends Serializable>> measurementToStatistics =
+          new HashMap<>(measurementNum);
+      for (int j = 0; j < measurementNum; j++) {
+        String measurement = ReadWriteIOUtils.readString(inputStream);
+        TSDataType dataType = ReadWriteIOUtils.readDataType(inputStream);
+        measurementToStatistics.put(measurement, Statistics.deserialize(inputStream, dataType));
+      }
+      deviceToStatistics.put(device, measurementToStatistics);
+    }
+    return new TsFileRollup(tsFileSize, deviceToStatistics);
+  }
+}
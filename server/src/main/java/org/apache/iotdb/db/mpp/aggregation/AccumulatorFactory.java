@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.mpp.aggregation;
 
 import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
 import java.util.ArrayList;
@@ -27,6 +28,10 @@ import java.util.List;
 
 public class AccumulatorFactory {
 
+  // The data type of a series is known when its accumulators are created, so SUM, AVG, EXTREME,
+  // MAX_VALUE and MIN_VALUE pick the variant specialized for it here once, instead of switching
+  // on the data type for every input block.
+
   // TODO: Are we going to create different seriesScanOperator based on order by sequence?
   public static Accumulator createAccumulator(
       AggregationType aggregationType, TSDataType tsDataType, boolean ascending) {
@@ -34,19 +39,19 @@ public class AccumulatorFactory {
       case COUNT:
         return new CountAccumulator();
       case AVG:
-        return new AvgAccumulator(tsDataType);
+        return createAvgAccumulator(tsDataType);
       case SUM:
-        return new SumAccumulator(tsDataType);
+        return createSumAccumulator(tsDataType);
       case EXTREME:
-        return new ExtremeAccumulator(tsDataType);
+        return createExtremeAccumulator(tsDataType);
       case MAX_TIME:
         return ascending ? new MaxTimeAccumulator() : new MaxTimeDescAccumulator();
       case MIN_TIME:
         return ascending ? new MinTimeAccumulator() : new MinTimeDescAccumulator();
       case MAX_VALUE:
-        return new MaxValueAccumulator(tsDataType);
+        return createMaxValueAccumulator(tsDataType);
       case MIN_VALUE:
-        return new MinValueAccumulator(tsDataType);
+        return createMinValueAccumulator(tsDataType);
       case LAST_VALUE:
         return ascending
             ? new LastValueAccumulator(tsDataType)
@@ -68,4 +73,88 @@ public class AccumulatorFactory {
     }
     return accumulators;
   }
+
+  private static AvgAccumulator createAvgAccumulator(TSDataType tsDataType) {
+    switch (tsDataType) {
+      case INT32:
+        return new AvgAccumulator.IntAvg();
+      case INT64:
+        return new AvgAccumulator.LongAvg();
+      case FLOAT:
+        return new AvgAccumulator.FloatAvg();
+      case DOUBLE:
+        return new AvgAccumulator.DoubleAvg();
+      default:
+        return new AvgAccumulator(tsDataType);
+    }
+  }
+
+  private static SumAccumulator createSumAccumulator(TSDataType tsDataType) {
+    switch (tsDataType) {
+      case INT32:
+        return new SumAccumulator.IntSum();
+      case INT64:
+        return new SumAccumulator.LongSum();
+      case FLOAT:
+        return new SumAccumulator.FloatSum();
+      case DOUBLE:
+        return new SumAccumulator.DoubleSum();
+      default:
+        return new SumAccumulator(tsDataType);
+    }
+  }
+
+  private static ExtremeAccumulator createExtremeAccumulator(TSDataType tsDataType) {
+    switch (tsDataType) {
+      case INT32:
+        return new ExtremeAccumulator.IntExtreme();
+      case INT64:
+        return new ExtremeAccumulator.LongExtreme();
+      case FLOAT:
+        return new ExtremeAccumulator.FloatExtreme();
+      case DOUBLE:
+        return new ExtremeAccumulator.DoubleExtreme();
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in Extreme: %s", tsDataType));
+    }
+  }
+
+  private static MaxValueAccumulator createMaxValueAccumulator(TSDataType tsDataType) {
+    switch (tsDataType) {
+      case INT32:
+        return new MaxValueAccumulator.IntMaxValue();
+      case INT64:
+        return new MaxValueAccumulator.LongMaxValue();
+      case FLOAT:
+        return new MaxValueAccumulator.FloatMaxValue();
+      case DOUBLE:
+        return new MaxValueAccumulator.DoubleMaxValue();
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in MaxValue: %s", tsDataType));
+    }
+  }
+
+  private static MinValueAccumulator createMinValueAccumulator(TSDataType tsDataType) {
+    switch (tsDataType) {
+      case INT32:
+        return new MinValueAccumulator.IntMinValue();
+      case INT64:
+        return new MinValueAccumulator.LongMinValue();
+      case FLOAT:
+        return new MinValueAccumulator.FloatMinValue();
+      case DOUBLE:
+        return new MinValueAccumulator.DoubleMinValue();
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in MinValue: %s", tsDataType));
+    }
+  }
 }
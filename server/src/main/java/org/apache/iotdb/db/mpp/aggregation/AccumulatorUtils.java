@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+class AccumulatorUtils {
+
+  private AccumulatorUtils() {
+    // util class
+  }
+
+  /**
+   * An accumulator consumes the rows of its input until the first one whose time is out of the
+   * current time range, so the selected rows are always a prefix of the input.
+   *
+   * @return the number of rows selected from the time column
+   */
+  static int countSelectedRows(Column timeColumn, TimeRange timeRange) {
+    long[] times = timeColumn.getLongs();
+    int offset = timeColumn.getArrayOffset();
+    int positionCount = timeColumn.getPositionCount();
+    long minTime = timeRange.getMin();
+    long maxTime = timeRange.getMax();
+    for (int i = 0; i < positionCount; i++) {
+      long time = times[offset + i];
+      if (time > maxTime || time < minTime) {
+        return i;
+      }
+    }
+    return positionCount;
+  }
+}
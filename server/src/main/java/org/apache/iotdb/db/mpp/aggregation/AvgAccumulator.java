@@ -26,42 +26,29 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * AVG of a series. {@link AccumulatorFactory} creates the nested variant for the data type of the
+ * series; this class itself only handles the partial results and rejects raw input.
+ */
 public class AvgAccumulator implements Accumulator {
 
-  private TSDataType seriesDataType;
-  private long countValue;
-  private double sumValue;
-  private boolean initResult = false;
+  private final TSDataType seriesDataType;
+  protected long countValue;
+  protected double sumValue;
+  protected boolean initResult = false;
 
-  public AvgAccumulator(TSDataType seriesDataType) {
+  AvgAccumulator(TSDataType seriesDataType) {
     this.seriesDataType = seriesDataType;
   }
 
+  // Column should be like: | Time | Value |
   @Override
   public void addInput(Column[] column, TimeRange timeRange) {
-    switch (seriesDataType) {
-      case INT32:
-        addIntInput(column, timeRange);
-        break;
-      case INT64:
-        addLongInput(column, timeRange);
-        break;
-      case FLOAT:
-        addFloatInput(column, timeRange);
-        break;
-      case DOUBLE:
-        addDoubleInput(column, timeRange);
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in aggregation AVG : %s", seriesDataType));
-    }
+    throw new UnSupportedDataTypeException(
+        String.format("Unsupported data type in aggregation AVG : %s", seriesDataType));
   }
 
   // partialResult should be like: | countValue1 | sumValue1 |
@@ -148,63 +135,119 @@ public class AvgAccumulator implements Accumulator {
     return TSDataType.DOUBLE;
   }
 
-  private void addIntInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+  /** AVG of an INT32 series. */
+  static final class IntAvg extends AvgAccumulator {
+
+    IntAvg() {
+      super(TSDataType.INT32);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      int[] values = column[1].getInts();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      long count = countValue;
+      double sum = sumValue;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          count++;
+          sum += values[i];
+        }
       }
-      if (!column[1].isNull(i)) {
+      if (count > countValue) {
         initResult = true;
-        countValue++;
-        sumValue += column[1].getInt(i);
       }
+      countValue = count;
+      sumValue = sum;
     }
   }
 
-  private void addLongInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+  /** AVG of an INT64 series. */
+  static final class LongAvg extends AvgAccumulator {
+
+    LongAvg() {
+      super(TSDataType.INT64);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      long[] values = column[1].getLongs();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      long count = countValue;
+      double sum = sumValue;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          count++;
+          sum += values[i];
+        }
       }
-      if (!column[1].isNull(i)) {
+      if (count > countValue) {
         initResult = true;
-        countValue++;
-        sumValue += column[1].getLong(i);
       }
+      countValue = count;
+      sumValue = sum;
     }
   }
 
-  private void addFloatInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+  /** AVG of a FLOAT series. */
+  static final class FloatAvg extends AvgAccumulator {
+
+    FloatAvg() {
+      super(TSDataType.FLOAT);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      float[] values = column[1].getFloats();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      long count = countValue;
+      double sum = sumValue;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          count++;
+          sum += values[i];
+        }
       }
-      if (!column[1].isNull(i)) {
+      if (count > countValue) {
         initResult = true;
-        countValue++;
-        sumValue += column[1].getFloat(i);
       }
+      countValue = count;
+      sumValue = sum;
     }
   }
 
-  private void addDoubleInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+  /** AVG of a DOUBLE series. */
+  static final class DoubleAvg extends AvgAccumulator {
+
+    DoubleAvg() {
+      super(TSDataType.DOUBLE);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      double[] values = column[1].getDoubles();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      long count = countValue;
+      double sum = sumValue;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          count++;
+          sum += values[i];
+        }
       }
-      if (!column[1].isNull(i)) {
+      if (count > countValue) {
         initResult = true;
-        countValue++;
-        sumValue += column[1].getDouble(i);
       }
+      countValue = count;
+      sumValue = sum;
     }
   }
 }
@@ -24,7 +24,6 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -37,13 +36,15 @@ public class CountAccumulator implements Accumulator {
   // Column should be like: | Time | Value |
   @Override
   public void addInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
+    int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+    boolean[] isNull = column[1].isNull();
+    if (isNull == null) {
+      countValue += rowCount;
+      return;
+    }
+    int offset = column[1].getArrayOffset();
+    for (int i = offset; i < offset + rowCount; i++) {
+      if (!isNull[i]) {
         countValue++;
       }
     }
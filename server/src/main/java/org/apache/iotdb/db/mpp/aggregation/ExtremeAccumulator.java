@@ -19,49 +19,26 @@
 
 package org.apache.iotdb.db.mpp.aggregation;
 
-import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-public class ExtremeAccumulator implements Accumulator {
+/**
+ * EXTREME of a series, the value with the largest absolute value. {@link AccumulatorFactory}
+ * creates the nested variant for the data type of the series, which keeps the result as a primitive
+ * and scans the value array of the input columns directly.
+ */
+public abstract class ExtremeAccumulator implements Accumulator {
 
   private final TSDataType seriesDataType;
-  private TsPrimitiveType extremeResult;
-  private boolean initResult;
+  protected boolean initResult;
 
-  public ExtremeAccumulator(TSDataType seriesDataType) {
+  ExtremeAccumulator(TSDataType seriesDataType) {
     this.seriesDataType = seriesDataType;
-    this.extremeResult = TsPrimitiveType.getByType(seriesDataType);
-  }
-
-  @Override
-  public void addInput(Column[] column, TimeRange timeRange) {
-    switch (seriesDataType) {
-      case INT32:
-        addIntInput(column, timeRange);
-        break;
-      case INT64:
-        addLongInput(column, timeRange);
-        break;
-      case FLOAT:
-        addFloatInput(column, timeRange);
-        break;
-      case DOUBLE:
-        addDoubleInput(column, timeRange);
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in Extreme: %s", seriesDataType));
-    }
   }
 
   // partialResult should be like: | PartialExtremeValue |
@@ -71,123 +48,38 @@ public class ExtremeAccumulator implements Accumulator {
     if (partialResult[0].isNull(0)) {
       return;
     }
-    switch (seriesDataType) {
-      case INT32:
-        updateIntResult(partialResult[0].getInt(0));
-        break;
-      case INT64:
-        updateLongResult(partialResult[0].getLong(0));
-        break;
-      case FLOAT:
-        updateFloatResult(partialResult[0].getFloat(0));
-        break;
-      case DOUBLE:
-        updateDoubleResult(partialResult[0].getDouble(0));
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in Extreme: %s", seriesDataType));
-    }
-  }
-
-  @Override
-  public void addStatistics(Statistics statistics) {
-    switch (seriesDataType) {
-      case INT32:
-        updateIntResult((int) statistics.getMaxValue());
-        updateIntResult((int) statistics.getMinValue());
-        break;
-      case INT64:
-        updateLongResult((long) statistics.getMaxValue());
-        updateLongResult((long) statistics.getMinValue());
-        break;
-      case FLOAT:
-        updateFloatResult((float) statistics.getMaxValue());
-        updateFloatResult((float) statistics.getMinValue());
-        break;
-      case DOUBLE:
-        updateDoubleResult((double) statistics.getMaxValue());
-        updateDoubleResult((double) statistics.getMinValue());
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in Extreme: %s", seriesDataType));
-    }
+    updateResult(partialResult[0], 0);
   }
 
+  // finalResult should be single column, like: | PartialExtremeValue |
   @Override
   public void setFinal(Column finalResult) {
+    reset();
     if (finalResult.isNull(0)) {
       return;
     }
-    initResult = true;
-    extremeResult.setObject(finalResult.getObject(0));
+    updateResult(finalResult, 0);
   }
 
   // columnBuilder should be single in ExtremeAccumulator
   @Override
   public void outputIntermediate(ColumnBuilder[] columnBuilders) {
     checkArgument(columnBuilders.length == 1, "partialResult of ExtremeValue should be 1");
-    if (!initResult) {
-      columnBuilders[0].appendNull();
-      return;
-    }
-    switch (seriesDataType) {
-      case INT32:
-        columnBuilders[0].writeInt(extremeResult.getInt());
-        break;
-      case INT64:
-        columnBuilders[0].writeLong(extremeResult.getLong());
-        break;
-      case FLOAT:
-        columnBuilders[0].writeFloat(extremeResult.getFloat());
-        break;
-      case DOUBLE:
-        columnBuilders[0].writeDouble(extremeResult.getDouble());
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in Extreme: %s", seriesDataType));
-    }
+    outputFinal(columnBuilders[0]);
   }
 
   @Override
   public void outputFinal(ColumnBuilder columnBuilder) {
     if (!initResult) {
       columnBuilder.appendNull();
-      return;
-    }
-    switch (seriesDataType) {
-      case INT32:
-        columnBuilder.writeInt(extremeResult.getInt());
-        break;
-      case INT64:
-        columnBuilder.writeLong(extremeResult.getLong());
-        break;
-      case FLOAT:
-        columnBuilder.writeFloat(extremeResult.getFloat());
-        break;
-      case DOUBLE:
-        columnBuilder.writeDouble(extremeResult.getDouble());
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in Extreme: %s", seriesDataType));
+    } else {
+      writeResult(columnBuilder);
     }
   }
 
   @Override
   public void reset() {
     initResult = false;
-    extremeResult.reset();
   }
 
   @Override
@@ -197,115 +89,220 @@ public class ExtremeAccumulator implements Accumulator {
 
   @Override
   public TSDataType[] getIntermediateType() {
-    return new TSDataType[] {extremeResult.getDataType()};
+    return new TSDataType[] {seriesDataType};
   }
 
   @Override
   public TSDataType getFinalType() {
-    return extremeResult.getDataType();
+    return seriesDataType;
   }
 
-  private void addIntInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+  /** Merges the value at {@code position} of {@code column} into the result. */
+  protected abstract void updateResult(Column column, int position);
+
+  protected abstract void writeResult(ColumnBuilder columnBuilder);
+
+  /** ExtremeValue of an INT32 series. */
+  static final class IntExtreme extends ExtremeAccumulator {
+
+    private int extremeResult;
+
+    IntExtreme() {
+      super(TSDataType.INT32);
+    }
+
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      int[] values = column[1].getInts();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
-      if (!column[1].isNull(i)) {
-        updateIntResult(column[1].getInt(i));
+    }
+
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((int) statistics.getMaxValue());
+      update((int) statistics.getMinValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getInt(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeInt(extremeResult);
+    }
+
+    private void update(int value) {
+      int absValue = Math.abs(value);
+      int absResult = Math.abs(extremeResult);
+      if (!initResult
+          || absValue > absResult
+          || (absValue == absResult && value > extremeResult)) {
+        initResult = true;
+        extremeResult = value;
       }
     }
   }
 
-  private void updateIntResult(int extVal) {
-    int absExtVal = Math.abs(extVal);
-    int candidateResult = extremeResult.getInt();
-    int absCandidateResult = Math.abs(extremeResult.getInt());
+  /** ExtremeValue of an INT64 series. */
+  static final class LongExtreme extends ExtremeAccumulator {
 
-    if (!initResult
-        || (absExtVal > absCandidateResult)
-        || (absExtVal == absCandidateResult) && extVal > candidateResult) {
-      initResult = true;
-      extremeResult.setInt(extVal);
+    private long extremeResult;
+
+    LongExtreme() {
+      super(TSDataType.INT64);
     }
-  }
 
-  private void addLongInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      long[] values = column[1].getLongs();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
-      if (!column[1].isNull(i)) {
-        updateLongResult(column[1].getLong(i));
+    }
+
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((long) statistics.getMaxValue());
+      update((long) statistics.getMinValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getLong(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeLong(extremeResult);
+    }
+
+    private void update(long value) {
+      long absValue = Math.abs(value);
+      long absResult = Math.abs(extremeResult);
+      if (!initResult
+          || absValue > absResult
+          || (absValue == absResult && value > extremeResult)) {
+        initResult = true;
+        extremeResult = value;
       }
     }
   }
 
-  private void updateLongResult(long extVal) {
-    long absExtVal = Math.abs(extVal);
-    long candidateResult = extremeResult.getLong();
-    long absCandidateResult = Math.abs(extremeResult.getLong());
+  /** ExtremeValue of a FLOAT series. */
+  static final class FloatExtreme extends ExtremeAccumulator {
 
-    if (!initResult
-        || (absExtVal > absCandidateResult)
-        || (absExtVal == absCandidateResult) && extVal > candidateResult) {
-      initResult = true;
-      extremeResult.setLong(extVal);
+    private float extremeResult;
+
+    FloatExtreme() {
+      super(TSDataType.FLOAT);
     }
-  }
 
-  private void addFloatInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      float[] values = column[1].getFloats();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
-      if (!column[1].isNull(i)) {
-        updateFloatResult(column[1].getFloat(i));
+    }
+
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((float) statistics.getMaxValue());
+      update((float) statistics.getMinValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getFloat(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeFloat(extremeResult);
+    }
+
+    private void update(float value) {
+      float absValue = Math.abs(value);
+      float absResult = Math.abs(extremeResult);
+      if (!initResult
+          || absValue > absResult
+          || (absValue == absResult && value > extremeResult)) {
+        initResult = true;
+        extremeResult = value;
       }
     }
   }
 
-  private void updateFloatResult(float extVal) {
-    float absExtVal = Math.abs(extVal);
-    float candidateResult = extremeResult.getFloat();
-    float absCandidateResult = Math.abs(extremeResult.getFloat());
+  /** ExtremeValue of a DOUBLE series. */
+  static final class DoubleExtreme extends ExtremeAccumulator {
+
+    private double extremeResult;
 
-    if (!initResult
-        || (absExtVal > absCandidateResult)
-        || (absExtVal == absCandidateResult) && extVal > candidateResult) {
-      initResult = true;
-      extremeResult.setFloat(extVal);
+    DoubleExtreme() {
+      super(TSDataType.DOUBLE);
     }
-  }
 
-  private void addDoubleInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
-        updateDoubleResult(column[1].getDouble(i));
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      double[] values = column[1].getDoubles();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
     }
-  }
 
-  private void updateDoubleResult(double extVal) {
-    double absExtVal = Math.abs(extVal);
-    double candidateResult = extremeResult.getDouble();
-    double absCandidateResult = Math.abs(extremeResult.getDouble());
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((double) statistics.getMaxValue());
+      update((double) statistics.getMinValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getDouble(position));
+    }
 
-    if (!initResult
-        || (absExtVal > absCandidateResult)
-        || (absExtVal == absCandidateResult) && extVal > candidateResult) {
-      initResult = true;
-      extremeResult.setDouble(extVal);
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeDouble(extremeResult);
+    }
+
+    private void update(double value) {
+      double absValue = Math.abs(value);
+      double absResult = Math.abs(extremeResult);
+      if (!initResult
+          || absValue > absResult
+          || (absValue == absResult && value > extremeResult)) {
+        initResult = true;
+        extremeResult = value;
+      }
     }
   }
 }
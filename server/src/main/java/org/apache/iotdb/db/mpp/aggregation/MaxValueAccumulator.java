@@ -19,50 +19,26 @@
 
 package org.apache.iotdb.db.mpp.aggregation;
 
-import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-public class MaxValueAccumulator implements Accumulator {
+/**
+ * MAX_VALUE of a series. {@link AccumulatorFactory} creates the nested variant for the data type of
+ * the series, which keeps the result as a primitive and scans the value array of the input columns
+ * directly.
+ */
+public abstract class MaxValueAccumulator implements Accumulator {
 
-  private TSDataType seriesDataType;
-  private TsPrimitiveType maxResult;
-  private boolean initResult;
+  private final TSDataType seriesDataType;
+  protected boolean initResult;
 
-  public MaxValueAccumulator(TSDataType seriesDataType) {
+  MaxValueAccumulator(TSDataType seriesDataType) {
     this.seriesDataType = seriesDataType;
-    this.maxResult = TsPrimitiveType.getByType(seriesDataType);
-  }
-
-  // Column should be like: | Time | Value |
-  @Override
-  public void addInput(Column[] column, TimeRange timeRange) {
-    switch (seriesDataType) {
-      case INT32:
-        addIntInput(column, timeRange);
-        break;
-      case INT64:
-        addLongInput(column, timeRange);
-        break;
-      case FLOAT:
-        addFloatInput(column, timeRange);
-        break;
-      case DOUBLE:
-        addDoubleInput(column, timeRange);
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in MaxValue: %s", seriesDataType));
-    }
   }
 
   // partialResult should be like: | partialMaxValue1 |
@@ -72,119 +48,38 @@ public class MaxValueAccumulator implements Accumulator {
     if (partialResult[0].isNull(0)) {
       return;
     }
-    switch (seriesDataType) {
-      case INT32:
-        updateIntResult(partialResult[0].getInt(0));
-        break;
-      case INT64:
-        updateLongResult(partialResult[0].getLong(0));
-        break;
-      case FLOAT:
-        updateFloatResult(partialResult[0].getFloat(0));
-        break;
-      case DOUBLE:
-        updateDoubleResult(partialResult[0].getDouble(0));
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in MaxValue: %s", seriesDataType));
-    }
-  }
-
-  @Override
-  public void addStatistics(Statistics statistics) {
-    switch (seriesDataType) {
-      case INT32:
-        updateIntResult((int) statistics.getMaxValue());
-        break;
-      case INT64:
-        updateLongResult((long) statistics.getMaxValue());
-        break;
-      case FLOAT:
-        updateFloatResult((float) statistics.getMaxValue());
-        break;
-      case DOUBLE:
-        updateDoubleResult((double) statistics.getMaxValue());
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in MaxValue: %s", seriesDataType));
-    }
+    updateResult(partialResult[0], 0);
   }
 
-  // finalResult should be single column, like: | finalCountValue |
+  // finalResult should be single column, like: | partialMaxValue1 |
   @Override
   public void setFinal(Column finalResult) {
+    reset();
     if (finalResult.isNull(0)) {
       return;
     }
-    maxResult.setObject(finalResult.getObject(0));
+    updateResult(finalResult, 0);
   }
 
-  // columnBuilder should be single in countAccumulator
+  // columnBuilder should be single in MaxValueAccumulator
   @Override
   public void outputIntermediate(ColumnBuilder[] columnBuilders) {
     checkArgument(columnBuilders.length == 1, "partialResult of MaxValue should be 1");
-    if (!initResult) {
-      columnBuilders[0].appendNull();
-      return;
-    }
-    switch (seriesDataType) {
-      case INT32:
-        columnBuilders[0].writeInt(maxResult.getInt());
-        break;
-      case INT64:
-        columnBuilders[0].writeLong(maxResult.getLong());
-        break;
-      case FLOAT:
-        columnBuilders[0].writeFloat(maxResult.getFloat());
-        break;
-      case DOUBLE:
-        columnBuilders[0].writeDouble(maxResult.getDouble());
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in MaxValue: %s", seriesDataType));
-    }
+    outputFinal(columnBuilders[0]);
   }
 
   @Override
   public void outputFinal(ColumnBuilder columnBuilder) {
     if (!initResult) {
       columnBuilder.appendNull();
-      return;
-    }
-    switch (seriesDataType) {
-      case INT32:
-        columnBuilder.writeInt(maxResult.getInt());
-        break;
-      case INT64:
-        columnBuilder.writeLong(maxResult.getLong());
-        break;
-      case FLOAT:
-        columnBuilder.writeFloat(maxResult.getFloat());
-        break;
-      case DOUBLE:
-        columnBuilder.writeDouble(maxResult.getDouble());
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in MaxValue: %s", seriesDataType));
+    } else {
+      writeResult(columnBuilder);
     }
   }
 
   @Override
   public void reset() {
     initResult = false;
-    this.maxResult.reset();
   }
 
   @Override
@@ -194,91 +89,200 @@ public class MaxValueAccumulator implements Accumulator {
 
   @Override
   public TSDataType[] getIntermediateType() {
-    return new TSDataType[] {maxResult.getDataType()};
+    return new TSDataType[] {seriesDataType};
   }
 
   @Override
   public TSDataType getFinalType() {
-    return maxResult.getDataType();
+    return seriesDataType;
   }
 
-  private void addIntInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+  /** Merges the value at {@code position} of {@code column} into the result. */
+  protected abstract void updateResult(Column column, int position);
+
+  protected abstract void writeResult(ColumnBuilder columnBuilder);
+
+  /** MaxValue of an INT32 series. */
+  static final class IntMaxValue extends MaxValueAccumulator {
+
+    private int maxResult;
+
+    IntMaxValue() {
+      super(TSDataType.INT32);
+    }
+
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      int[] values = column[1].getInts();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
-      if (!column[1].isNull(i)) {
-        updateIntResult(column[1].getInt(i));
+    }
+
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((int) statistics.getMaxValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getInt(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeInt(maxResult);
+    }
+
+    private void update(int value) {
+      if (!initResult || value > maxResult) {
+        initResult = true;
+        maxResult = value;
       }
     }
   }
 
-  private void updateIntResult(int maxVal) {
-    if (!initResult || maxVal > maxResult.getInt()) {
-      initResult = true;
-      maxResult.setInt(maxVal);
+  /** MaxValue of an INT64 series. */
+  static final class LongMaxValue extends MaxValueAccumulator {
+
+    private long maxResult;
+
+    LongMaxValue() {
+      super(TSDataType.INT64);
     }
-  }
 
-  private void addLongInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      long[] values = column[1].getLongs();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
-      if (!column[1].isNull(i)) {
-        updateLongResult(column[1].getLong(i));
+    }
+
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((long) statistics.getMaxValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getLong(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeLong(maxResult);
+    }
+
+    private void update(long value) {
+      if (!initResult || value > maxResult) {
+        initResult = true;
+        maxResult = value;
       }
     }
   }
 
-  private void updateLongResult(long maxVal) {
-    if (!initResult || maxVal > maxResult.getLong()) {
-      initResult = true;
-      maxResult.setLong(maxVal);
+  /** MaxValue of a FLOAT series. */
+  static final class FloatMaxValue extends MaxValueAccumulator {
+
+    private float maxResult;
+
+    FloatMaxValue() {
+      super(TSDataType.FLOAT);
     }
-  }
 
-  private void addFloatInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      float[] values = column[1].getFloats();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
-      if (!column[1].isNull(i)) {
-        updateFloatResult(column[1].getFloat(i));
+    }
+
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((float) statistics.getMaxValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getFloat(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeFloat(maxResult);
+    }
+
+    private void update(float value) {
+      if (!initResult || value > maxResult) {
+        initResult = true;
+        maxResult = value;
       }
     }
   }
 
-  private void updateFloatResult(float maxVal) {
-    if (!initResult || maxVal > maxResult.getFloat()) {
-      initResult = true;
-      maxResult.setFloat(maxVal);
+  /** MaxValue of a DOUBLE series. */
+  static final class DoubleMaxValue extends MaxValueAccumulator {
+
+    private double maxResult;
+
+    DoubleMaxValue() {
+      super(TSDataType.DOUBLE);
     }
-  }
 
-  private void addDoubleInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
-        updateDoubleResult(column[1].getDouble(i));
+    // Column should be like: | Time | Value |
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      double[] values = column[1].getDoubles();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          update(values[i]);
+        }
       }
     }
-  }
 
-  private void updateDoubleResult(double maxVal) {
-    if (!initResult || maxVal > maxResult.getDouble()) {
-      initResult = true;
-      maxResult.setDouble(maxVal);
+    @Override
+    public void addStatistics(Statistics statistics) {
+      update((double) statistics.getMaxValue());
+    }
+
+    @Override
+    protected void updateResult(Column column, int position) {
+      update(column.getDouble(position));
+    }
+
+    @Override
+    protected void writeResult(ColumnBuilder columnBuilder) {
+      columnBuilder.writeDouble(maxResult);
+    }
+
+    private void update(double value) {
+      if (!initResult || value > maxResult) {
+        initResult = true;
+        maxResult = value;
+      }
     }
   }
 }
@@ -26,42 +26,29 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * SUM of a series. {@link AccumulatorFactory} creates the nested variant for the data type of the
+ * series, which sums the primitive values of the input columns directly; this class itself only
+ * handles the partial results and rejects raw input of other data types.
+ */
 public class SumAccumulator implements Accumulator {
 
-  private TSDataType seriesDataType;
-  private double sumValue = 0;
-  private boolean initResult = false;
+  private final TSDataType seriesDataType;
+  protected double sumValue = 0;
+  protected boolean initResult = false;
 
-  public SumAccumulator(TSDataType seriesDataType) {
+  SumAccumulator(TSDataType seriesDataType) {
     this.seriesDataType = seriesDataType;
   }
 
   // Column should be like: | Time | Value |
   @Override
   public void addInput(Column[] column, TimeRange timeRange) {
-    switch (seriesDataType) {
-      case INT32:
-        addIntInput(column, timeRange);
-        break;
-      case INT64:
-        addLongInput(column, timeRange);
-        break;
-      case FLOAT:
-        addFloatInput(column, timeRange);
-        break;
-      case DOUBLE:
-        addDoubleInput(column, timeRange);
-        break;
-      case TEXT:
-      case BOOLEAN:
-      default:
-        throw new UnSupportedDataTypeException(
-            String.format("Unsupported data type in aggregation AVG : %s", seriesDataType));
-    }
+    throw new UnSupportedDataTypeException(
+        String.format("Unsupported data type in aggregation SUM : %s", seriesDataType));
   }
 
   // partialResult should be like: | partialSumValue1 |
@@ -92,6 +79,7 @@ public class SumAccumulator implements Accumulator {
     if (finalResult.isNull(0)) {
       return;
     }
+    initResult = true;
     sumValue = finalResult.getDouble(0);
   }
 
@@ -136,59 +124,107 @@ public class SumAccumulator implements Accumulator {
     return TSDataType.DOUBLE;
   }
 
-  private void addIntInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
-        initResult = true;
-        sumValue += column[1].getInt(i);
+  /** SUM of an INT32 series. */
+  static final class IntSum extends SumAccumulator {
+
+    IntSum() {
+      super(TSDataType.INT32);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      int[] values = column[1].getInts();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      double sum = sumValue;
+      boolean hasValue = initResult;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          hasValue = true;
+          sum += values[i];
+        }
       }
+      sumValue = sum;
+      initResult = hasValue;
     }
   }
 
-  private void addLongInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
-        initResult = true;
-        sumValue += column[1].getLong(i);
+  /** SUM of an INT64 series. */
+  static final class LongSum extends SumAccumulator {
+
+    LongSum() {
+      super(TSDataType.INT64);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      long[] values = column[1].getLongs();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      double sum = sumValue;
+      boolean hasValue = initResult;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          hasValue = true;
+          sum += values[i];
+        }
       }
+      sumValue = sum;
+      initResult = hasValue;
     }
   }
 
-  private void addFloatInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
-        initResult = true;
-        sumValue += column[1].getFloat(i);
+  /** SUM of a FLOAT series. */
+  static final class FloatSum extends SumAccumulator {
+
+    FloatSum() {
+      super(TSDataType.FLOAT);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      float[] values = column[1].getFloats();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      double sum = sumValue;
+      boolean hasValue = initResult;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          hasValue = true;
+          sum += values[i];
+        }
       }
+      sumValue = sum;
+      initResult = hasValue;
     }
   }
 
-  private void addDoubleInput(Column[] column, TimeRange timeRange) {
-    TimeColumn timeColumn = (TimeColumn) column[0];
-    for (int i = 0; i < timeColumn.getPositionCount(); i++) {
-      long curTime = timeColumn.getLong(i);
-      if (curTime > timeRange.getMax() || curTime < timeRange.getMin()) {
-        break;
-      }
-      if (!column[1].isNull(i)) {
-        initResult = true;
-        sumValue += column[1].getDouble(i);
+  /** SUM of a DOUBLE series. */
+  static final class DoubleSum extends SumAccumulator {
+
+    DoubleSum() {
+      super(TSDataType.DOUBLE);
+    }
+
+    @Override
+    public void addInput(Column[] column, TimeRange timeRange) {
+      int rowCount = AccumulatorUtils.countSelectedRows(column[0], timeRange);
+      double[] values = column[1].getDoubles();
+      boolean[] isNull = column[1].isNull();
+      int offset = column[1].getArrayOffset();
+      double sum = sumValue;
+      boolean hasValue = initResult;
+      for (int i = offset; i < offset + rowCount; i++) {
+        if (isNull == null || !isNull[i]) {
+          hasValue = true;
+          sum += values[i];
+        }
       }
+      sumValue = sum;
+      initResult = hasValue;
     }
   }
 }
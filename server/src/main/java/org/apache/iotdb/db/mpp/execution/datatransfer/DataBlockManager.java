@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -312,6 +313,30 @@ public class DataBlockManager implements IDataBlockManager {
     return dataBlockService;
   }
 
+  public LocalMemoryManager getLocalMemoryManager() {
+    return localMemoryManager;
+  }
+
+  /** Get the bytes buffered by the sink and source handles of each fragment instance. */
+  public Map<String, Long> getFragmentInstanceBufferedBytes() {
+    Map<String, Long> bufferedBytes = new HashMap<>();
+    for (Entry<TFragmentInstanceId, ISinkHandle> entry : sinkHandles.entrySet()) {
+      bufferedBytes.merge(
+          createFullIdFrom(entry.getKey()),
+          entry.getValue().getBufferRetainedSizeInBytes(),
+          Long::sum);
+    }
+    for (Entry<TFragmentInstanceId, Map<String, ISourceHandle>> entry : sourceHandles.entrySet()) {
+      for (ISourceHandle sourceHandle : entry.getValue().values()) {
+        bufferedBytes.merge(
+            createFullIdFrom(entry.getKey()),
+            sourceHandle.getBufferRetainedSizeInBytes(),
+            Long::sum);
+      }
+    }
+    return bufferedBytes;
+  }
+
   @Override
   public synchronized ISinkHandle createLocalSinkHandle(
       TFragmentInstanceId localFragmentInstanceId,
@@ -492,6 +517,11 @@ public class DataBlockManager implements IDataBlockManager {
   }
 
   /** @param suffix should be like [PlanNodeId].SourceHandle/SinHandle */
+  public static String createFullIdFrom(TFragmentInstanceId fragmentInstanceId) {
+    return createFullId(
+        fragmentInstanceId.queryId, fragmentInstanceId.fragmentId, fragmentInstanceId.instanceId);
+  }
+
   public static String createFullIdFrom(TFragmentInstanceId fragmentInstanceId, String suffix) {
     return createFullId(
             fragmentInstanceId.queryId,
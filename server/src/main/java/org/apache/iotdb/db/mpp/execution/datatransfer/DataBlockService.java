@@ -38,6 +38,7 @@ import org.apache.iotdb.mpp.rpc.thrift.DataBlockService.Processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -127,6 +128,26 @@ public class DataBlockService extends ThriftService implements DataBlockServiceM
     executorService.shutdown();
   }
 
+  @Override
+  public long getQueryPoolMaxBytes() {
+    return dataBlockManager.getLocalMemoryManager().getQueryPool().getMaxBytes();
+  }
+
+  @Override
+  public long getQueryPoolReservedBytes() {
+    return dataBlockManager.getLocalMemoryManager().getQueryPool().getReservedBytes();
+  }
+
+  @Override
+  public Map<String, Long> getQueryMemoryReservedBytes() {
+    return dataBlockManager.getLocalMemoryManager().getQueryPool().getQueryMemoryReservations();
+  }
+
+  @Override
+  public Map<String, Long> getFragmentInstanceBufferedBytes() {
+    return dataBlockManager.getFragmentInstanceBufferedBytes();
+  }
+
   public static DataBlockService getInstance() {
     return DataBlockManagerServiceHolder.INSTANCE;
   }
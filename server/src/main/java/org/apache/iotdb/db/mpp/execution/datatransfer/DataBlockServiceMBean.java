@@ -20,6 +20,8 @@ package org.apache.iotdb.db.mpp.execution.datatransfer;
 
 import org.apache.iotdb.commons.exception.StartupException;
 
+import java.util.Map;
+
 public interface DataBlockServiceMBean {
 
   String getRPCServiceStatus();
@@ -31,4 +33,14 @@ public interface DataBlockServiceMBean {
   void restartService() throws StartupException;
 
   void stopService();
+
+  long getQueryPoolMaxBytes();
+
+  long getQueryPoolReservedBytes();
+
+  /** Bytes reserved from the query memory pool by each query. */
+  Map<String, Long> getQueryMemoryReservedBytes();
+
+  /** Bytes buffered by the sink and source handles of each fragment instance. */
+  Map<String, Long> getFragmentInstanceBufferedBytes();
 }
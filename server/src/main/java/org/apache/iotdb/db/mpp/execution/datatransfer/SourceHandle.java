@@ -65,7 +65,13 @@ public class SourceHandle implements ISourceHandle {
   private final TsBlockSerde serde;
   private final SourceHandleListener sourceHandleListener;
 
-  private final Map<Integer, TsBlock> sequenceIdToTsBlock = new HashMap<>();
+  /**
+   * Serialized TsBlocks fetched from the upstream. They are deserialized lazily in {@link
+   * #receive()}, so that the decoding work is done by the consuming driver thread instead of the
+   * few threads of the data block manager shared by all the source handles.
+   */
+  private final Map<Integer, ByteBuffer> sequenceIdToSerializedTsBlock = new HashMap<>();
+
   private final Map<Integer, Long> sequenceIdToDataBlockSize = new HashMap<>();
 
   private final String threadName;
@@ -122,8 +128,7 @@ public class SourceHandle implements ISourceHandle {
         throw new IllegalStateException("Source handle is blocked.");
       }
 
-      TsBlock tsBlock;
-      tsBlock = sequenceIdToTsBlock.remove(currSequenceId);
+      TsBlock tsBlock = serde.deserialize(sequenceIdToSerializedTsBlock.remove(currSequenceId));
       logger.info(
           "Receive {} TsdBlock, size is {}", currSequenceId, tsBlock.getRetainedSizeInBytes());
       currSequenceId += 1;
@@ -132,7 +137,7 @@ public class SourceHandle implements ISourceHandle {
           .getQueryPool()
           .free(localFragmentInstanceId.getQueryId(), tsBlock.getRetainedSizeInBytes());
 
-      if (sequenceIdToTsBlock.isEmpty() && !isFinished()) {
+      if (sequenceIdToSerializedTsBlock.isEmpty() && !isFinished()) {
         logger.info("no buffered TsBlock, blocked");
         blocked = SettableFuture.create();
       }
@@ -340,10 +345,14 @@ public class SourceHandle implements ISourceHandle {
           try (SyncDataNodeDataBlockServiceClient client =
               dataBlockServiceClientManager.borrowClient(remoteEndpoint)) {
             TGetDataBlockResponse resp = client.getDataBlock(req);
-            List<TsBlock> tsBlocks = new ArrayList<>(resp.getTsBlocks().size());
+            List<ByteBuffer> tsBlocks = new ArrayList<>(resp.getTsBlocks().size());
             for (ByteBuffer byteBuffer : resp.getTsBlocks()) {
-              TsBlock tsBlock = serde.deserialize(byteBuffer);
-              tsBlocks.add(tsBlock);
+              // the buffer may share the read buffer of the transport, which will be reused once
+              // the client is returned, so the bytes must be copied before deserialized lazily
+              ByteBuffer copy = ByteBuffer.allocate(byteBuffer.remaining());
+              copy.put(byteBuffer.duplicate());
+              copy.flip();
+              tsBlocks.add(copy);
             }
             logger.info("got data blocks. count: {}", tsBlocks.size());
             executorService.submit(
@@ -353,7 +362,7 @@ public class SourceHandle implements ISourceHandle {
                 return;
               }
               for (int i = startSequenceId; i < endSequenceId; i++) {
-                sequenceIdToTsBlock.put(i, tsBlocks.get(i - startSequenceId));
+                sequenceIdToSerializedTsBlock.put(i, tsBlocks.get(i - startSequenceId));
               }
               if (!blocked.isDone()) {
                 blocked.set(null);
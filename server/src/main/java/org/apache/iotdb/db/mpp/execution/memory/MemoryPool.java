@@ -26,11 +26,16 @@ import org.apache.commons.lang3.Validate;
 
 import javax.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** A thread-safe memory pool. */
 public class MemoryPool {
@@ -67,10 +72,25 @@ public class MemoryPool {
   private final long maxBytes;
   private final long maxBytesPerQuery;
 
-  private long reservedBytes = 0L;
-  private final Map<String, Long> queryMemoryReservations = new HashMap<>();
+  private final AtomicLong reservedBytes = new AtomicLong(0L);
+
+  /**
+   * Bytes reserved by each query. The check and the update of the reservation of a query are done
+   * in {@link ConcurrentHashMap#compute}, which only locks the bin of the query, so reservations of
+   * different queries seldom contend with each other.
+   */
+  private final Map<String, Long> queryMemoryReservations = new ConcurrentHashMap<>();
+
+  /** Guarded by itself. Only accessed when a reservation cannot be satisfied immediately. */
   private final Queue<MemoryReservationFuture<Void>> memoryReservationFutures = new LinkedList<>();
 
+  /**
+   * Number of futures in {@link #memoryReservationFutures}, including the one being added. It is
+   * increased before a blocked reservation retries, and read by {@link #free} after the memory is
+   * released. So either the retry sees the released memory, or the free sees the waiter.
+   */
+  private final AtomicInteger waitingReservationCount = new AtomicInteger(0);
+
   public MemoryPool(String id, long maxBytes, long maxBytesPerQuery) {
     this.id = Validate.notNull(id);
     Validate.isTrue(maxBytes > 0L, "max bytes should be greater than zero.");
@@ -89,26 +109,30 @@ public class MemoryPool {
     return maxBytes;
   }
 
+  public long getMaxBytesPerQuery() {
+    return maxBytesPerQuery;
+  }
+
   public ListenableFuture<Void> reserve(String queryId, long bytes) {
     Validate.notNull(queryId);
     Validate.isTrue(
         bytes > 0L && bytes <= maxBytesPerQuery,
         "bytes should be greater than zero while less than or equal to max bytes per query.");
 
-    ListenableFuture<Void> result;
-    synchronized (this) {
-      if (maxBytes - reservedBytes < bytes
-          || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
-        result = MemoryReservationFuture.create(queryId, bytes);
-        memoryReservationFutures.add((MemoryReservationFuture<Void>) result);
-      } else {
-        reservedBytes += bytes;
-        queryMemoryReservations.merge(queryId, bytes, Long::sum);
-        result = Futures.immediateFuture(null);
+    if (tryReserveInternal(queryId, bytes)) {
+      return Futures.immediateFuture(null);
+    }
+    synchronized (memoryReservationFutures) {
+      waitingReservationCount.incrementAndGet();
+      // Retry after announcing the waiter, memory may have been freed since the first try.
+      if (tryReserveInternal(queryId, bytes)) {
+        waitingReservationCount.decrementAndGet();
+        return Futures.immediateFuture(null);
       }
+      MemoryReservationFuture<Void> result = MemoryReservationFuture.create(queryId, bytes);
+      memoryReservationFutures.add(result);
+      return result;
     }
-
-    return result;
   }
 
   public boolean tryReserve(String queryId, long bytes) {
@@ -117,20 +141,38 @@ public class MemoryPool {
         bytes > 0L && bytes <= maxBytesPerQuery,
         "bytes should be greater than zero while less than or equal to max bytes per query.");
 
-    if (maxBytes - reservedBytes < bytes
+    return tryReserveInternal(queryId, bytes);
+  }
+
+  private boolean tryReserveInternal(String queryId, long bytes) {
+    if (maxBytes - reservedBytes.get() < bytes
         || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
       return false;
     }
-    synchronized (this) {
-      if (maxBytes - reservedBytes < bytes
-          || maxBytesPerQuery - queryMemoryReservations.getOrDefault(queryId, 0L) < bytes) {
+    boolean[] reserved = new boolean[1];
+    queryMemoryReservations.compute(
+        queryId,
+        (k, queryReservedBytes) -> {
+          long current = queryReservedBytes == null ? 0L : queryReservedBytes;
+          if (maxBytesPerQuery - current < bytes || !tryReservePoolBytes(bytes)) {
+            return queryReservedBytes;
+          }
+          reserved[0] = true;
+          return current + bytes;
+        });
+    return reserved[0];
+  }
+
+  private boolean tryReservePoolBytes(long bytes) {
+    while (true) {
+      long current = reservedBytes.get();
+      if (maxBytes - current < bytes) {
         return false;
       }
-      reservedBytes += bytes;
-      queryMemoryReservations.merge(queryId, bytes, Long::sum);
+      if (reservedBytes.compareAndSet(current, current + bytes)) {
+        return true;
+      }
     }
-
-    return true;
   }
 
   /**
@@ -140,7 +182,7 @@ public class MemoryPool {
    * @return If the future has not complete, return the number of bytes being reserved. Otherwise,
    *     return 0.
    */
-  public synchronized long tryCancel(ListenableFuture<Void> future) {
+  public long tryCancel(ListenableFuture<Void> future) {
     Validate.notNull(future);
     // If the future is not a MemoryReservationFuture, it must have been completed.
     if (future.isDone()) {
@@ -149,45 +191,56 @@ public class MemoryPool {
     Validate.isTrue(
         future instanceof MemoryReservationFuture,
         "invalid future type " + future.getClass().getSimpleName());
-    future.cancel(true);
+    // The future may be completed by a concurrent free, and then the memory has been reserved.
+    if (!future.cancel(true)) {
+      return 0L;
+    }
     return ((MemoryReservationFuture<Void>) future).getBytes();
   }
 
-  public synchronized void free(String queryId, long bytes) {
+  public void free(String queryId, long bytes) {
     Validate.notNull(queryId);
     Validate.isTrue(bytes > 0L);
 
-    Long queryReservedBytes = queryMemoryReservations.get(queryId);
-    Validate.notNull(queryReservedBytes);
-    Validate.isTrue(bytes <= queryReservedBytes);
+    queryMemoryReservations.compute(
+        queryId,
+        (k, queryReservedBytes) -> {
+          Validate.notNull(queryReservedBytes);
+          Validate.isTrue(bytes <= queryReservedBytes);
+          long remaining = queryReservedBytes - bytes;
+          return remaining == 0 ? null : remaining;
+        });
+    reservedBytes.addAndGet(-bytes);
 
-    queryReservedBytes -= bytes;
-    if (queryReservedBytes == 0) {
-      queryMemoryReservations.remove(queryId);
-    } else {
-      queryMemoryReservations.put(queryId, queryReservedBytes);
-    }
-    reservedBytes -= bytes;
-
-    if (memoryReservationFutures.isEmpty()) {
+    if (waitingReservationCount.get() == 0) {
       return;
     }
-    Iterator<MemoryReservationFuture<Void>> iterator = memoryReservationFutures.iterator();
-    while (iterator.hasNext()) {
-      MemoryReservationFuture<Void> future = iterator.next();
-      if (future.isCancelled()) {
-        continue;
-      }
-      long bytesToReserve = future.getBytes();
-      if (maxBytes - reservedBytes < bytesToReserve) {
-        return;
+    List<MemoryReservationFuture<Void>> satisfiedFutures = new ArrayList<>();
+    synchronized (memoryReservationFutures) {
+      Iterator<MemoryReservationFuture<Void>> iterator = memoryReservationFutures.iterator();
+      while (iterator.hasNext()) {
+        MemoryReservationFuture<Void> future = iterator.next();
+        if (future.isCancelled()) {
+          iterator.remove();
+          waitingReservationCount.decrementAndGet();
+          continue;
+        }
+        long bytesToReserve = future.getBytes();
+        if (maxBytes - reservedBytes.get() < bytesToReserve) {
+          break;
+        }
+        if (tryReserveInternal(future.getQueryId(), bytesToReserve)) {
+          iterator.remove();
+          waitingReservationCount.decrementAndGet();
+          satisfiedFutures.add(future);
+        }
       }
-      if (maxBytesPerQuery - queryMemoryReservations.getOrDefault(future.getQueryId(), 0L)
-          >= bytesToReserve) {
-        reservedBytes += bytesToReserve;
-        queryMemoryReservations.merge(future.getQueryId(), bytesToReserve, Long::sum);
-        future.set(null);
-        iterator.remove();
+    }
+    // Complete the futures out of the lock, as their listeners may reserve memory again.
+    for (MemoryReservationFuture<Void> future : satisfiedFutures) {
+      if (!future.set(null)) {
+        // Cancelled after the memory was reserved for it.
+        free(future.getQueryId(), future.getBytes());
       }
     }
   }
@@ -196,7 +249,12 @@ public class MemoryPool {
     return queryMemoryReservations.getOrDefault(queryId, 0L);
   }
 
+  /** Get a snapshot of the bytes reserved by each query. */
+  public Map<String, Long> getQueryMemoryReservations() {
+    return new HashMap<>(queryMemoryReservations);
+  }
+
   public long getReservedBytes() {
-    return reservedBytes;
+    return reservedBytes.get();
   }
 }
@@ -18,40 +18,250 @@
  */
 package org.apache.iotdb.db.mpp.execution.operator.process;
 
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.execution.operator.Operator;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.execution.operator.process.sort.RowComparator;
+import org.apache.iotdb.db.mpp.execution.operator.process.sort.SortBuffer;
+import org.apache.iotdb.db.mpp.execution.operator.process.sort.SortRun;
+import org.apache.iotdb.db.mpp.execution.operator.process.sort.SpilledSortRun;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sorts all the rows of its child by the given {@link RowComparator}.
+ *
+ * <p>Input TsBlocks are buffered in memory as long as their size can be reserved from the query
+ * {@link MemoryPool} and does not exceed maxBufferSizeInBytes. Otherwise, the buffered rows are
+ * sorted and spilled to a file under spillDirectory as a sorted run. When the child is exhausted,
+ * the spilled runs and the rows left in memory are k-way merged into the output TsBlocks.
+ */
 public class SortOperator implements ProcessOperator {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
+
+  private final OperatorContext operatorContext;
+  private final Operator child;
+  private final List<TSDataType> dataTypes;
+  private final RowComparator comparator;
+
+  private final MemoryPool memoryPool;
+  private final String queryId;
+  private final long maxBufferSizeInBytes;
+  private final String spillDirectory;
+
+  private final SortBuffer sortBuffer;
+  /** bytes reserved from memoryPool for the TsBlocks kept in memory */
+  private long reservedBytes;
+
+  /** sorted runs to be merged, including spilled runs and at most one in-memory run */
+  private final List<SortRun> sortRuns = new ArrayList<>();
+
+  private int spilledRunCount;
+
+  /** null until all the TsBlocks of child have been consumed */
+  private PriorityQueue<SortRun> mergeQueue;
+
+  private final TsBlockBuilder tsBlockBuilder;
+
+  public SortOperator(
+      OperatorContext operatorContext,
+      Operator child,
+      List<TSDataType> dataTypes,
+      RowComparator comparator,
+      MemoryPool memoryPool,
+      long maxBufferSizeInBytes,
+      String spillDirectory) {
+    checkArgument(maxBufferSizeInBytes > 0, "maxBufferSizeInBytes should be larger than 0");
+    this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+    this.child = requireNonNull(child, "child operator is null");
+    this.dataTypes = dataTypes;
+    this.comparator = comparator;
+    this.memoryPool = memoryPool;
+    this.queryId = operatorContext.getInstanceContext().getId().getQueryId().getId();
+    this.maxBufferSizeInBytes = maxBufferSizeInBytes;
+    this.spillDirectory = spillDirectory;
+    this.sortBuffer = new SortBuffer(comparator);
+    this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
+  }
+
   @Override
   public OperatorContext getOperatorContext() {
-    return null;
+    return operatorContext;
   }
 
   @Override
   public ListenableFuture<Void> isBlocked() {
-    return ProcessOperator.super.isBlocked();
+    return mergeQueue == null ? child.isBlocked() : NOT_BLOCKED;
   }
 
   @Override
   public TsBlock next() {
-    return null;
+    if (mergeQueue == null) {
+      if (child.hasNext()) {
+        TsBlock tsBlock = child.next();
+        if (tsBlock != null && !tsBlock.isEmpty()) {
+          cacheTsBlock(tsBlock);
+        }
+        // nothing can be output until all the input is consumed
+        return null;
+      }
+      prepareMerge();
+    }
+    return mergeSortRuns();
   }
 
   @Override
   public boolean hasNext() {
-    return false;
+    return mergeQueue == null || !mergeQueue.isEmpty();
   }
 
   @Override
   public void close() throws Exception {
-    ProcessOperator.super.close();
+    closeSortRuns();
+    freeReservedMemory();
+    child.close();
   }
 
   @Override
   public boolean isFinished() {
-    return false;
+    return mergeQueue != null && mergeQueue.isEmpty();
+  }
+
+  private void cacheTsBlock(TsBlock tsBlock) {
+    long bytes = tsBlock.getRetainedSizeInBytes();
+    boolean reserved =
+        sortBuffer.getRetainedSizeInBytes() + bytes <= maxBufferSizeInBytes && tryReserve(bytes);
+    if (!reserved) {
+      spillSortBuffer();
+      reserved = bytes <= maxBufferSizeInBytes && tryReserve(bytes);
+    }
+    sortBuffer.add(tsBlock);
+    if (!reserved) {
+      // even a single TsBlock exceeds the buffer or the memory pool, write it out directly
+      spillSortBuffer();
+    }
+  }
+
+  private boolean tryReserve(long bytes) {
+    if (bytes > memoryPool.getMaxBytesPerQuery()) {
+      return false;
+    }
+    if (bytes > 0 && !memoryPool.tryReserve(queryId, bytes)) {
+      return false;
+    }
+    reservedBytes += bytes;
+    return true;
+  }
+
+  private void freeReservedMemory() {
+    if (reservedBytes > 0) {
+      memoryPool.free(queryId, reservedBytes);
+      reservedBytes = 0;
+    }
+  }
+
+  private void spillSortBuffer() {
+    if (sortBuffer.isEmpty()) {
+      return;
+    }
+    File directory = new File(spillDirectory);
+    if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+      throw new RuntimeException("Failed to create spill directory " + spillDirectory);
+    }
+    File file =
+        new File(
+            directory,
+            String.format(
+                "%s-%d-%d.sort",
+                operatorContext.getInstanceContext().getId().getFullId(),
+                operatorContext.getOperatorId(),
+                spilledRunCount++));
+    try (SortRun sortedRun = sortBuffer.sort()) {
+      sortRuns.add(SpilledSortRun.spill(sortedRun, file, dataTypes));
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while spilling sorted rows to " + file, e);
+    }
+    freeReservedMemory();
+    LOGGER.debug("SortOperator of {} spilled sorted run {}", queryId, file);
+  }
+
+  private void prepareMerge() {
+    if (!sortBuffer.isEmpty()) {
+      sortRuns.add(sortBuffer.sort());
+    }
+    mergeQueue =
+        new PriorityQueue<>(
+            Math.max(1, sortRuns.size()),
+            (left, right) ->
+                comparator.compare(
+                    left.currentTsBlock(),
+                    left.currentIndex(),
+                    right.currentTsBlock(),
+                    right.currentIndex()));
+    for (SortRun sortRun : sortRuns) {
+      if (sortRun.hasNext()) {
+        mergeQueue.add(sortRun);
+      }
+    }
+  }
+
+  private TsBlock mergeSortRuns() {
+    tsBlockBuilder.reset();
+    try {
+      if (mergeQueue.size() == 1) {
+        // fast path, only one sorted run left and there is no need to compare
+        SortRun sortRun = mergeQueue.peek();
+        while (sortRun.hasNext() && !tsBlockBuilder.isFull()) {
+          sortRun.appendCurrentRow(tsBlockBuilder);
+          sortRun.next();
+        }
+        if (!sortRun.hasNext()) {
+          mergeQueue.poll();
+        }
+      } else {
+        while (!mergeQueue.isEmpty() && !tsBlockBuilder.isFull()) {
+          SortRun sortRun = mergeQueue.poll();
+          sortRun.appendCurrentRow(tsBlockBuilder);
+          sortRun.next();
+          if (sortRun.hasNext()) {
+            mergeQueue.add(sortRun);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Error happened while reading spilled sorted rows", e);
+    }
+    if (mergeQueue.isEmpty()) {
+      // all the rows have been output, release memory and spill files as early as possible
+      closeSortRuns();
+      freeReservedMemory();
+    }
+    return tsBlockBuilder.build();
+  }
+
+  private void closeSortRuns() {
+    for (SortRun sortRun : sortRuns) {
+      try {
+        sortRun.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close sorted run of SortOperator", e);
+      }
+    }
+    sortRuns.clear();
   }
 }
@@ -21,12 +21,16 @@ package org.apache.iotdb.db.mpp.execution.operator.process;
 import org.apache.iotdb.db.mpp.execution.operator.Operator;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.ColumnMerger;
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.SingleColumnMerger;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeComparator;
+import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
-import org.apache.iotdb.db.utils.datastructure.TimeSelector;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.NullColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 
 import com.google.common.util.concurrent.ListenableFuture;
@@ -59,7 +63,23 @@ public class TimeJoinOperator implements ProcessOperator {
    */
   private final boolean[] noMoreTsBlocks;
 
-  private final TimeSelector timeSelector;
+  /**
+   * end index (exclusive) for each input TsBlocks, rows between inputIndex and inputEndIndex are
+   * not after the end time of current output TsBlock
+   */
+  private final int[] inputEndIndex;
+
+  /** current index of each input TsBlock while merging time columns */
+  private final int[] timeCursor;
+
+  /** min-heap (max-heap if order by time desc) of input indexes ordered by their current time */
+  private final int[] timeHeap;
+
+  /**
+   * Input location of each output column if each of them has only one input column, otherwise
+   * null. It's used to slice input columns directly into the output TsBlock.
+   */
+  private final InputLocation[] singleInputLocations;
 
   private final int outputColumnCount;
 
@@ -94,13 +114,26 @@ public class TimeJoinOperator implements ProcessOperator {
     this.inputIndex = new int[this.inputOperatorsCount];
     this.shadowInputIndex = new int[this.inputOperatorsCount];
     this.noMoreTsBlocks = new boolean[this.inputOperatorsCount];
-    this.timeSelector =
-        new TimeSelector(this.inputOperatorsCount << 1, OrderBy.TIMESTAMP_ASC == mergeOrder);
+    this.inputEndIndex = new int[this.inputOperatorsCount];
+    this.timeCursor = new int[this.inputOperatorsCount];
+    this.timeHeap = new int[this.inputOperatorsCount];
     this.outputColumnCount = dataTypes.size();
     this.dataTypes = dataTypes;
     this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
     this.mergers = mergers;
     this.comparator = comparator;
+    this.singleInputLocations = getSingleInputLocations(mergers);
+  }
+
+  private static InputLocation[] getSingleInputLocations(List<ColumnMerger> mergers) {
+    InputLocation[] locations = new InputLocation[mergers.size()];
+    for (int i = 0; i < locations.length; i++) {
+      if (!(mergers.get(i) instanceof SingleColumnMerger)) {
+        return null;
+      }
+      locations[i] = ((SingleColumnMerger) mergers.get(i)).getLocation();
+    }
+    return locations;
   }
 
   @Override
@@ -129,19 +162,14 @@ public class TimeJoinOperator implements ProcessOperator {
     long currentEndTime = 0;
     boolean init = false;
 
-    // get TsBlock for each input, put their time stamp into TimeSelector and then use the min Time
-    // among all the input TsBlock as the current output TsBlock's endTime.
+    // get TsBlock for each input and use the min Time among all the input TsBlock as the current
+    // output TsBlock's endTime.
     for (int i = 0; i < inputOperatorsCount; i++) {
       if (!noMoreTsBlocks[i] && empty(i)) {
         if (children.get(i).hasNext()) {
           inputIndex[i] = 0;
           inputTsBlocks[i] = children.get(i).next();
-          if (!empty(i)) {
-            int rowSize = inputTsBlocks[i].getPositionCount();
-            for (int row = 0; row < rowSize; row++) {
-              timeSelector.add(inputTsBlocks[i].getTimeByIndex(row));
-            }
-          } else {
+          if (empty(i)) {
             // child operator has next but return an empty TsBlock which means that it may not
             // finish calculation in given time slice.
             // In such case, TimeJoinOperator can't go on calculating, so we just return null.
@@ -166,19 +194,28 @@ public class TimeJoinOperator implements ProcessOperator {
       }
     }
 
-    if (timeSelector.isEmpty()) {
+    if (!init) {
       // return empty TsBlock
       TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(0, dataTypes);
       return tsBlockBuilder.build();
     }
 
-    TimeColumnBuilder timeBuilder = tsBlockBuilder.getTimeColumnBuilder();
-    while (!timeSelector.isEmpty()
-        && comparator.satisfyCurEndTime(timeSelector.first(), currentEndTime)) {
-      timeBuilder.writeLong(timeSelector.pollFirst());
-      tsBlockBuilder.declarePosition();
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      inputEndIndex[i] = empty(i) ? inputIndex[i] : searchEndIndex(i, currentEndTime);
     }
 
+    // fast path: time columns of all the inputs are identical or only one input has rows before
+    // currentEndTime, e.g. aligned series, regular sampling or non-overlapped inputs
+    if (singleInputLocations != null) {
+      int referenceIndex = findIdenticalTimeRange();
+      if (referenceIndex != -1) {
+        return sliceInputColumns(referenceIndex);
+      }
+    }
+
+    TimeColumnBuilder timeBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    mergeTimeColumns(timeBuilder);
+
     for (int i = 0; i < outputColumnCount; i++) {
       ColumnMerger merger = mergers.get(i);
       merger.mergeColumn(
@@ -196,6 +233,160 @@ public class TimeJoinOperator implements ProcessOperator {
     return tsBlockBuilder.build();
   }
 
+  /**
+   * @return the first index from inputIndex[tsBlockIndex] whose time is after currentEndTime, or
+   *     the position count of the input TsBlock if there is no such index
+   */
+  private int searchEndIndex(int tsBlockIndex, long currentEndTime) {
+    TsBlock tsBlock = inputTsBlocks[tsBlockIndex];
+    int low = inputIndex[tsBlockIndex];
+    int high = tsBlock.getPositionCount();
+    // time column is ordered, so the rows satisfying currentEndTime are all in the front
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (comparator.satisfyCurEndTime(tsBlock.getTimeByIndex(mid), currentEndTime)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return index of an input whose rows before currentEndTime have the same time column as all
+   *     the other inputs having rows before currentEndTime, -1 if there is no such input
+   */
+  private int findIdenticalTimeRange() {
+    int referenceIndex = -1;
+    int length = 0;
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      int rowCount = inputEndIndex[i] - inputIndex[i];
+      if (rowCount == 0) {
+        continue;
+      }
+      if (referenceIndex == -1) {
+        referenceIndex = i;
+        length = rowCount;
+        continue;
+      }
+      if (rowCount != length) {
+        return -1;
+      }
+      TimeColumn referenceTimeColumn = inputTsBlocks[referenceIndex].getTimeColumn();
+      TimeColumn timeColumn = inputTsBlocks[i].getTimeColumn();
+      int referenceOffset = inputIndex[referenceIndex];
+      int offset = inputIndex[i];
+      for (int j = 0; j < length; j++) {
+        if (referenceTimeColumn.getLong(referenceOffset + j) != timeColumn.getLong(offset + j)) {
+          return -1;
+        }
+      }
+    }
+    return referenceIndex;
+  }
+
+  /**
+   * Build output TsBlock by slicing the input columns without copying, the time range of all the
+   * inputs having rows before currentEndTime should be identical.
+   */
+  private TsBlock sliceInputColumns(int referenceIndex) {
+    int offset = inputIndex[referenceIndex];
+    int length = inputEndIndex[referenceIndex] - offset;
+    Column[] valueColumns = new Column[outputColumnCount];
+    for (int i = 0; i < outputColumnCount; i++) {
+      int tsBlockIndex = singleInputLocations[i].getTsBlockIndex();
+      if (inputEndIndex[tsBlockIndex] > inputIndex[tsBlockIndex]) {
+        valueColumns[i] =
+            inputTsBlocks[tsBlockIndex]
+                .getColumn(singleInputLocations[i].getValueColumnIndex())
+                .getRegion(inputIndex[tsBlockIndex], length);
+      } else {
+        valueColumns[i] = NullColumn.create(dataTypes.get(i), length);
+      }
+    }
+    TimeColumn timeColumn =
+        (TimeColumn) inputTsBlocks[referenceIndex].getTimeColumn().getRegion(offset, length);
+    System.arraycopy(inputEndIndex, 0, inputIndex, 0, inputOperatorsCount);
+    return new TsBlock(length, timeColumn, valueColumns);
+  }
+
+  /**
+   * Merge the time columns of all the inputs before currentEndTime into timeBuilder. A heap of the
+   * inputs ordered by their current time is used, so each output row costs O(log(inputCount))
+   * instead of scanning all the inputs.
+   */
+  private void mergeTimeColumns(TimeColumnBuilder timeBuilder) {
+    int heapSize = 0;
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      timeCursor[i] = inputIndex[i];
+      if (timeCursor[i] < inputEndIndex[i]) {
+        timeHeap[heapSize] = i;
+        siftUp(heapSize++);
+      }
+    }
+    while (heapSize > 0) {
+      long time = currentTime(timeHeap[0]);
+      timeBuilder.writeLong(time);
+      tsBlockBuilder.declarePosition();
+      // all the inputs positioned at this time are at the top of the heap
+      do {
+        int top = timeHeap[0];
+        timeCursor[top]++;
+        if (timeCursor[top] >= inputEndIndex[top]) {
+          timeHeap[0] = timeHeap[--heapSize];
+        }
+        siftDown(0, heapSize);
+      } while (heapSize > 0 && currentTime(timeHeap[0]) == time);
+    }
+  }
+
+  private long currentTime(int tsBlockIndex) {
+    return inputTsBlocks[tsBlockIndex].getTimeByIndex(timeCursor[tsBlockIndex]);
+  }
+
+  /** @return true if current time of input left should be output before that of input right */
+  private boolean precedes(int left, int right) {
+    long leftTime = currentTime(left);
+    long rightTime = currentTime(right);
+    return leftTime != rightTime && comparator.satisfyCurEndTime(leftTime, rightTime);
+  }
+
+  private void siftUp(int index) {
+    int element = timeHeap[index];
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      if (!precedes(element, timeHeap[parentIndex])) {
+        break;
+      }
+      timeHeap[index] = timeHeap[parentIndex];
+      index = parentIndex;
+    }
+    timeHeap[index] = element;
+  }
+
+  private void siftDown(int index, int heapSize) {
+    if (heapSize == 0) {
+      return;
+    }
+    int element = timeHeap[index];
+    while (true) {
+      int childIndex = (index << 1) + 1;
+      if (childIndex >= heapSize) {
+        break;
+      }
+      if (childIndex + 1 < heapSize && precedes(timeHeap[childIndex + 1], timeHeap[childIndex])) {
+        childIndex++;
+      }
+      if (!precedes(timeHeap[childIndex], element)) {
+        break;
+      }
+      timeHeap[index] = timeHeap[childIndex];
+      index = childIndex;
+    }
+    timeHeap[index] = element;
+  }
+
   @Override
   public boolean hasNext() {
     if (finished) {
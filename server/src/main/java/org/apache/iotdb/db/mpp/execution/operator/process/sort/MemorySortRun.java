@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process.sort;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import java.util.List;
+
+/**
+ * Sorted run over TsBlocks kept in memory. Rows are not copied, the order is represented by an
+ * array of row addresses, see {@link SortBuffer#encodeAddress(int, int)}.
+ */
+public class MemorySortRun implements SortRun {
+
+  private final List<TsBlock> tsBlocks;
+
+  private final long[] sortedAddresses;
+
+  private int position;
+
+  MemorySortRun(List<TsBlock> tsBlocks, long[] sortedAddresses) {
+    this.tsBlocks = tsBlocks;
+    this.sortedAddresses = sortedAddresses;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return position < sortedAddresses.length;
+  }
+
+  @Override
+  public TsBlock currentTsBlock() {
+    return tsBlocks.get(SortBuffer.decodeTsBlockIndex(sortedAddresses[position]));
+  }
+
+  @Override
+  public int currentIndex() {
+    return SortBuffer.decodeRowIndex(sortedAddresses[position]);
+  }
+
+  @Override
+  public void next() {
+    position++;
+  }
+
+  @Override
+  public void close() {
+    position = sortedAddresses.length;
+    tsBlocks.clear();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process.sort;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Compares two rows of TsBlocks by a list of sort keys. Each sort key is either the time column
+ * ({@link #TIME_COLUMN_INDEX}) or the index of a value column. Null values are always placed last.
+ */
+public class RowComparator {
+
+  public static final int TIME_COLUMN_INDEX = -1;
+
+  private final int[] sortColumnIndexes;
+
+  private final TSDataType[] sortColumnTypes;
+
+  private final boolean[] ascending;
+
+  /**
+   * @param sortColumnIndexes index of each sort key, {@link #TIME_COLUMN_INDEX} for time column
+   * @param ascending sort direction of each sort key
+   * @param dataTypes data types of all the value columns of input TsBlocks
+   */
+  public RowComparator(
+      List<Integer> sortColumnIndexes, List<Boolean> ascending, List<TSDataType> dataTypes) {
+    checkArgument(
+        sortColumnIndexes.size() == ascending.size(),
+        "size of sortColumnIndexes and ascending should be equal");
+    checkArgument(!sortColumnIndexes.isEmpty(), "there should be at least one sort key");
+    int keyCount = sortColumnIndexes.size();
+    this.sortColumnIndexes = new int[keyCount];
+    this.sortColumnTypes = new TSDataType[keyCount];
+    this.ascending = new boolean[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      int columnIndex = sortColumnIndexes.get(i);
+      checkArgument(
+          columnIndex >= TIME_COLUMN_INDEX && columnIndex < dataTypes.size(),
+          "sort column index out of bound: " + columnIndex);
+      this.sortColumnIndexes[i] = columnIndex;
+      this.sortColumnTypes[i] =
+          columnIndex == TIME_COLUMN_INDEX ? TSDataType.INT64 : dataTypes.get(columnIndex);
+      this.ascending[i] = ascending.get(i);
+    }
+  }
+
+  public int compare(TsBlock left, int leftIndex, TsBlock right, int rightIndex) {
+    for (int i = 0; i < sortColumnIndexes.length; i++) {
+      int columnIndex = sortColumnIndexes[i];
+      int result;
+      if (columnIndex == TIME_COLUMN_INDEX) {
+        result = Long.compare(left.getTimeByIndex(leftIndex), right.getTimeByIndex(rightIndex));
+      } else {
+        Column leftColumn = left.getColumn(columnIndex);
+        Column rightColumn = right.getColumn(columnIndex);
+        boolean leftNull = leftColumn.mayHaveNull() && leftColumn.isNull(leftIndex);
+        boolean rightNull = rightColumn.mayHaveNull() && rightColumn.isNull(rightIndex);
+        if (leftNull || rightNull) {
+          if (leftNull && rightNull) {
+            continue;
+          }
+          // nulls last, no matter what the sort direction is
+          return leftNull ? 1 : -1;
+        }
+        result = compareValue(sortColumnTypes[i], leftColumn, leftIndex, rightColumn, rightIndex);
+      }
+      if (result != 0) {
+        return ascending[i] ? result : -result;
+      }
+    }
+    return 0;
+  }
+
+  private static int compareValue(
+      TSDataType dataType, Column left, int leftIndex, Column right, int rightIndex) {
+    switch (dataType) {
+      case INT32:
+        return Integer.compare(left.getInt(leftIndex), right.getInt(rightIndex));
+      case INT64:
+        return Long.compare(left.getLong(leftIndex), right.getLong(rightIndex));
+      case FLOAT:
+        return Float.compare(left.getFloat(leftIndex), right.getFloat(rightIndex));
+      case DOUBLE:
+        return Double.compare(left.getDouble(leftIndex), right.getDouble(rightIndex));
+      case BOOLEAN:
+        return Boolean.compare(left.getBoolean(leftIndex), right.getBoolean(rightIndex));
+      case TEXT:
+        return left.getBinary(leftIndex).compareTo(right.getBinary(rightIndex));
+      default:
+        throw new UnsupportedOperationException("Unsupported sort data type: " + dataType);
+    }
+  }
+}
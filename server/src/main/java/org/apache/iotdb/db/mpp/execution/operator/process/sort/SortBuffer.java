@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process.sort;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers input TsBlocks of SortOperator and sorts them without copying any column. A row is
+ * addressed by a long whose high 32 bits are the index of its TsBlock and low 32 bits are its row
+ * index, so sorting only permutes a primitive array and reads the sort columns in place.
+ */
+public class SortBuffer {
+
+  /** Ranges not longer than this are sorted by insertion sort. */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final RowComparator comparator;
+
+  private List<TsBlock> tsBlocks = new ArrayList<>();
+
+  private int rowCount;
+
+  private long retainedSizeInBytes;
+
+  public SortBuffer(RowComparator comparator) {
+    this.comparator = comparator;
+  }
+
+  public void add(TsBlock tsBlock) {
+    tsBlocks.add(tsBlock);
+    rowCount += tsBlock.getPositionCount();
+    retainedSizeInBytes += tsBlock.getRetainedSizeInBytes();
+  }
+
+  public boolean isEmpty() {
+    return rowCount == 0;
+  }
+
+  public long getRetainedSizeInBytes() {
+    return retainedSizeInBytes;
+  }
+
+  /** Sort all the buffered rows and hand them over to the returned run, then clear this buffer. */
+  public MemorySortRun sort() {
+    long[] addresses = new long[rowCount];
+    int position = 0;
+    for (int i = 0; i < tsBlocks.size(); i++) {
+      int positionCount = tsBlocks.get(i).getPositionCount();
+      for (int j = 0; j < positionCount; j++) {
+        addresses[position++] = encodeAddress(i, j);
+      }
+    }
+    mergeSort(addresses.clone(), addresses, 0, addresses.length);
+
+    MemorySortRun sortRun = new MemorySortRun(tsBlocks, addresses);
+    tsBlocks = new ArrayList<>();
+    rowCount = 0;
+    retainedSizeInBytes = 0;
+    return sortRun;
+  }
+
+  /**
+   * Stable merge sort of dest[low, high), src must hold the same elements as dest in that range
+   * and is used as the auxiliary array. Already ordered halves are copied without merging, so
+   * mostly sorted input costs nearly linear time.
+   */
+  private void mergeSort(long[] src, long[] dest, int low, int high) {
+    int length = high - low;
+    if (length <= INSERTION_SORT_THRESHOLD) {
+      insertionSort(dest, low, high);
+      return;
+    }
+
+    int mid = (low + high) >>> 1;
+    mergeSort(dest, src, low, mid);
+    mergeSort(dest, src, mid, high);
+
+    if (compare(src[mid - 1], src[mid]) <= 0) {
+      System.arraycopy(src, low, dest, low, length);
+      return;
+    }
+
+    for (int i = low, p = low, q = mid; i < high; i++) {
+      if (q >= high || (p < mid && compare(src[p], src[q]) <= 0)) {
+        dest[i] = src[p++];
+      } else {
+        dest[i] = src[q++];
+      }
+    }
+  }
+
+  private void insertionSort(long[] addresses, int low, int high) {
+    for (int i = low + 1; i < high; i++) {
+      long current = addresses[i];
+      int j = i - 1;
+      while (j >= low && compare(addresses[j], current) > 0) {
+        addresses[j + 1] = addresses[j];
+        j--;
+      }
+      addresses[j + 1] = current;
+    }
+  }
+
+  private int compare(long leftAddress, long rightAddress) {
+    return comparator.compare(
+        tsBlocks.get(decodeTsBlockIndex(leftAddress)),
+        decodeRowIndex(leftAddress),
+        tsBlocks.get(decodeTsBlockIndex(rightAddress)),
+        decodeRowIndex(rightAddress));
+  }
+
+  static long encodeAddress(int tsBlockIndex, int rowIndex) {
+    return ((long) tsBlockIndex << 32) | rowIndex;
+  }
+
+  static int decodeTsBlockIndex(long address) {
+    return (int) (address >>> 32);
+  }
+
+  static int decodeRowIndex(long address) {
+    return (int) address;
+  }
+}
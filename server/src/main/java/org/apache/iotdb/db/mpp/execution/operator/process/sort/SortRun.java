@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process.sort;
+
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import java.io.IOException;
+
+/** A cursor over rows that are already sorted, either kept in memory or spilled to disk. */
+public interface SortRun extends AutoCloseable {
+
+  /** @return true if the cursor is positioned at a row, otherwise false */
+  boolean hasNext();
+
+  /** @return the TsBlock that contains current row */
+  TsBlock currentTsBlock();
+
+  /** @return the row index of current row in {@link #currentTsBlock()} */
+  int currentIndex();
+
+  /** Move the cursor to the next row. */
+  void next() throws IOException;
+
+  /** Release all the resources held by this run. */
+  @Override
+  void close() throws IOException;
+
+  /** Append current row to the builder, including time column and all the value columns. */
+  default void appendCurrentRow(TsBlockBuilder tsBlockBuilder) {
+    TsBlock tsBlock = currentTsBlock();
+    int index = currentIndex();
+    tsBlockBuilder.getTimeColumnBuilder().writeLong(tsBlock.getTimeByIndex(index));
+    for (int i = 0, size = tsBlock.getValueColumnCount(); i < size; i++) {
+      Column column = tsBlock.getColumn(i);
+      ColumnBuilder columnBuilder = tsBlockBuilder.getColumnBuilder(i);
+      if (column.isNull(index)) {
+        columnBuilder.appendNull();
+      } else {
+        columnBuilder.write(column, index);
+      }
+    }
+    tsBlockBuilder.declarePosition();
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator.process.sort;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Sorted run spilled to a local file. The file is a sequence of serialized TsBlocks, each of them
+ * prefixed by its length. Only one TsBlock is kept in memory while reading the run back.
+ */
+public class SpilledSortRun implements SortRun {
+
+  private static final TsBlockSerde SERDE = new TsBlockSerde();
+
+  private final File file;
+
+  private final DataInputStream inputStream;
+
+  private int remainingTsBlockCount;
+
+  private TsBlock currentTsBlock;
+
+  private int currentIndex;
+
+  private SpilledSortRun(File file, int tsBlockCount) throws IOException {
+    this.file = file;
+    this.remainingTsBlockCount = tsBlockCount;
+    this.inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    readNextTsBlock();
+  }
+
+  /**
+   * Write all the remaining rows of sortedRun into file and return a run reading them back.
+   * sortedRun will not be closed by this method.
+   */
+  public static SpilledSortRun spill(SortRun sortedRun, File file, List<TSDataType> dataTypes)
+      throws IOException {
+    int tsBlockCount = 0;
+    try (DataOutputStream outputStream =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(dataTypes);
+      while (sortedRun.hasNext()) {
+        sortedRun.appendCurrentRow(tsBlockBuilder);
+        sortedRun.next();
+        if (tsBlockBuilder.isFull()) {
+          writeTsBlock(outputStream, tsBlockBuilder.build());
+          tsBlockCount++;
+          tsBlockBuilder.reset();
+        }
+      }
+      if (!tsBlockBuilder.isEmpty()) {
+        writeTsBlock(outputStream, tsBlockBuilder.build());
+        tsBlockCount++;
+      }
+    }
+    return new SpilledSortRun(file, tsBlockCount);
+  }
+
+  private static void writeTsBlock(DataOutputStream outputStream, TsBlock tsBlock)
+      throws IOException {
+    ByteBuffer buffer = SERDE.serialize(tsBlock);
+    outputStream.writeInt(buffer.remaining());
+    outputStream.write(
+        buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+  }
+
+  private void readNextTsBlock() throws IOException {
+    currentIndex = 0;
+    if (remainingTsBlockCount == 0) {
+      currentTsBlock = null;
+      return;
+    }
+    remainingTsBlockCount--;
+    byte[] bytes = new byte[inputStream.readInt()];
+    inputStream.readFully(bytes);
+    currentTsBlock = SERDE.deserialize(ByteBuffer.wrap(bytes));
+  }
+
+  @Override
+  public boolean hasNext() {
+    return currentTsBlock != null;
+  }
+
+  @Override
+  public TsBlock currentTsBlock() {
+    return currentTsBlock;
+  }
+
+  @Override
+  public int currentIndex() {
+    return currentIndex;
+  }
+
+  @Override
+  public void next() throws IOException {
+    currentIndex++;
+    if (currentIndex >= currentTsBlock.getPositionCount()) {
+      readNextTsBlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    currentTsBlock = null;
+    try {
+      inputStream.close();
+    } finally {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
+}
@@ -37,6 +37,11 @@ public class AlignedSeriesScanOperator implements DataSourceOperator {
   private boolean hasCachedTsBlock = false;
   private boolean finished = false;
 
+  // number of rows still to be skipped, pushed down from OffsetNode
+  private long remainingOffset;
+  // number of rows still to be returned, pushed down from LimitNode. -1 means no limit
+  private long remainingLimit;
+
   public AlignedSeriesScanOperator(
       PlanNodeId sourceId,
       AlignedPath seriesPath,
@@ -44,7 +49,28 @@ public class AlignedSeriesScanOperator implements DataSourceOperator {
       Filter timeFilter,
       Filter valueFilter,
       boolean ascending) {
+    this(sourceId, seriesPath, context, timeFilter, valueFilter, ascending, 0, 0);
+  }
+
+  /**
+   * Rows of aligned series can not be counted by statistics, because the rows whose values are
+   * all null are filtered out while reading. So limit and offset are applied to the read TsBlocks.
+   *
+   * @param limit max number of rows to return, 0 means no limit
+   * @param offset number of leading rows to skip
+   */
+  public AlignedSeriesScanOperator(
+      PlanNodeId sourceId,
+      AlignedPath seriesPath,
+      OperatorContext context,
+      Filter timeFilter,
+      Filter valueFilter,
+      boolean ascending,
+      int limit,
+      int offset) {
     this.sourceId = sourceId;
+    this.remainingLimit = limit > 0 ? limit : -1;
+    this.remainingOffset = Math.max(offset, 0);
     this.operatorContext = context;
     this.seriesScanUtil =
         new AlignedSeriesScanUtil(
@@ -77,6 +103,9 @@ public class AlignedSeriesScanOperator implements DataSourceOperator {
       if (hasCachedTsBlock) {
         return true;
       }
+      if (remainingLimit == 0) {
+        return false;
+      }
 
       /*
        * consume page data firstly
@@ -125,7 +154,7 @@ public class AlignedSeriesScanOperator implements DataSourceOperator {
 
   private boolean readPageData() throws IOException {
     while (seriesScanUtil.hasNextPage()) {
-      tsBlock = seriesScanUtil.nextPage();
+      tsBlock = applyOffsetAndLimit(seriesScanUtil.nextPage());
       if (!isEmpty(tsBlock)) {
         return true;
       }
@@ -133,6 +162,31 @@ public class AlignedSeriesScanOperator implements DataSourceOperator {
     return false;
   }
 
+  private TsBlock applyOffsetAndLimit(TsBlock tsBlock) {
+    if (isEmpty(tsBlock)) {
+      return tsBlock;
+    }
+    if (remainingOffset > 0) {
+      int positionCount = tsBlock.getPositionCount();
+      if (remainingOffset >= positionCount) {
+        remainingOffset -= positionCount;
+        return null;
+      }
+      tsBlock = tsBlock.subTsBlock((int) remainingOffset);
+      remainingOffset = 0;
+    }
+    if (remainingLimit >= 0) {
+      int positionCount = tsBlock.getPositionCount();
+      if (remainingLimit < positionCount) {
+        tsBlock = tsBlock.getRegion(0, (int) remainingLimit);
+        remainingLimit = 0;
+      } else {
+        remainingLimit -= positionCount;
+      }
+    }
+    return tsBlock;
+  }
+
   private boolean isEmpty(TsBlock tsBlock) {
     return tsBlock == null || tsBlock.isEmpty();
   }
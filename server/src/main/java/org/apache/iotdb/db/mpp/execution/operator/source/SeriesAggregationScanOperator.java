@@ -178,8 +178,8 @@ public class SeriesAggregationScanOperator implements DataSourceOperator {
         return true;
       }
 
-      // read from file first
-      while (seriesScanUtil.hasNextFile()) {
+      // read from file first, the rollups of sealed files are tried before their metadata
+      while (!calcFromRollupStatistics(curTimeRange) && seriesScanUtil.hasNextFile()) {
         Statistics fileStatistics = seriesScanUtil.currentFileStatistics();
         if (fileStatistics.getStartTime() > curTimeRange.getMax()) {
           if (ascending) {
@@ -372,6 +372,36 @@ public class SeriesAggregationScanOperator implements DataSourceOperator {
     return false;
   }
 
+  /**
+   * Calculate from the rollup statistics of the following sequence files, as long as a whole file
+   * is in the current time range. Their TimeseriesMetadata is never loaded.
+   *
+   * @return if already get the result
+   */
+  private boolean calcFromRollupStatistics(TimeRange curTimeRange) throws IOException {
+    Statistics fileStatistics;
+    while ((fileStatistics = seriesScanUtil.nextFileRollupStatistics()) != null) {
+      if (fileStatistics.getStartTime() > curTimeRange.getMax()) {
+        if (ascending) {
+          return true;
+        } else {
+          seriesScanUtil.skipNextFileByRollup();
+          continue;
+        }
+      }
+      if (!containedByTimeFilter(fileStatistics)
+          || !curTimeRange.contains(fileStatistics.getStartTime(), fileStatistics.getEndTime())) {
+        return false;
+      }
+      calcFromStatistics(fileStatistics);
+      seriesScanUtil.skipNextFileByRollup();
+      if (isEndCalc(aggregators)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void calcFromStatistics(Statistics statistics) {
     for (int i = 0; i < aggregators.size(); i++) {
       Aggregator aggregator = aggregators.get(i);
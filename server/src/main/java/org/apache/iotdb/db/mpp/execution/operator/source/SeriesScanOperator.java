@@ -23,6 +23,7 @@ import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.mpp.execution.operator.OperatorContext;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
@@ -38,6 +39,11 @@ public class SeriesScanOperator implements DataSourceOperator {
   private boolean hasCachedTsBlock = false;
   private boolean finished = false;
 
+  // number of rows still to be skipped, pushed down from OffsetNode
+  private long remainingOffset;
+  // number of rows still to be returned, pushed down from LimitNode. -1 means no limit
+  private long remainingLimit;
+
   public SeriesScanOperator(
       PlanNodeId sourceId,
       PartialPath seriesPath,
@@ -47,7 +53,37 @@ public class SeriesScanOperator implements DataSourceOperator {
       Filter timeFilter,
       Filter valueFilter,
       boolean ascending) {
+    this(
+        sourceId,
+        seriesPath,
+        allSensors,
+        dataType,
+        context,
+        timeFilter,
+        valueFilter,
+        ascending,
+        0,
+        0);
+  }
+
+  /**
+   * @param limit max number of rows to return, 0 means no limit
+   * @param offset number of leading rows to skip
+   */
+  public SeriesScanOperator(
+      PlanNodeId sourceId,
+      PartialPath seriesPath,
+      Set<String> allSensors,
+      TSDataType dataType,
+      OperatorContext context,
+      Filter timeFilter,
+      Filter valueFilter,
+      boolean ascending,
+      int limit,
+      int offset) {
     this.sourceId = sourceId;
+    this.remainingLimit = limit > 0 ? limit : -1;
+    this.remainingOffset = Math.max(offset, 0);
     this.operatorContext = context;
     this.seriesScanUtil =
         new SeriesScanUtil(
@@ -81,6 +117,9 @@ public class SeriesScanOperator implements DataSourceOperator {
       if (hasCachedTsBlock) {
         return true;
       }
+      if (remainingLimit == 0) {
+        return false;
+      }
 
       /*
        * consume page data firstly
@@ -102,6 +141,14 @@ public class SeriesScanOperator implements DataSourceOperator {
        * consume next file finally
        */
       while (seriesScanUtil.hasNextFile()) {
+        if (remainingOffset > 0
+            && canSkipByStatistics(seriesScanUtil.currentFileStatistics())
+            && !seriesScanUtil.isFileOverlapped()
+            && !seriesScanUtil.currentFileModified()) {
+          remainingOffset -= seriesScanUtil.currentFileStatistics().getCount();
+          seriesScanUtil.skipCurrentFile();
+          continue;
+        }
         if (readChunkData()) {
           hasCachedTsBlock = true;
           return true;
@@ -120,6 +167,14 @@ public class SeriesScanOperator implements DataSourceOperator {
 
   private boolean readChunkData() throws IOException {
     while (seriesScanUtil.hasNextChunk()) {
+      if (remainingOffset > 0
+          && canSkipByStatistics(seriesScanUtil.currentChunkStatistics())
+          && !seriesScanUtil.isChunkOverlapped()
+          && !seriesScanUtil.currentChunkModified()) {
+        remainingOffset -= seriesScanUtil.currentChunkStatistics().getCount();
+        seriesScanUtil.skipCurrentChunk();
+        continue;
+      }
       if (readPageData()) {
         return true;
       }
@@ -129,7 +184,16 @@ public class SeriesScanOperator implements DataSourceOperator {
 
   private boolean readPageData() throws IOException {
     while (seriesScanUtil.hasNextPage()) {
-      tsBlock = seriesScanUtil.nextPage();
+      // currentPageStatistics() is null if the page is overlapped
+      if (remainingOffset > 0
+          && canSkipByStatistics(seriesScanUtil.currentPageStatistics())
+          && !seriesScanUtil.isPageOverlapped()
+          && !seriesScanUtil.currentPageModified()) {
+        remainingOffset -= seriesScanUtil.currentPageStatistics().getCount();
+        seriesScanUtil.skipCurrentPage();
+        continue;
+      }
+      tsBlock = applyOffsetAndLimit(seriesScanUtil.nextPage());
       if (!isEmpty(tsBlock)) {
         return true;
       }
@@ -137,6 +201,47 @@ public class SeriesScanOperator implements DataSourceOperator {
     return false;
   }
 
+  /**
+   * Whether all the points described by the statistics are returned by the scan and fall into the
+   * remaining offset, so that they can be skipped without being read. Points can only be counted
+   * by statistics when there is no value filter.
+   */
+  private boolean canSkipByStatistics(Statistics statistics) {
+    if (statistics == null
+        || seriesScanUtil.getValueFilter() != null
+        || statistics.getCount() > remainingOffset) {
+      return false;
+    }
+    Filter timeFilter = seriesScanUtil.getTimeFilter();
+    return timeFilter == null
+        || timeFilter.containStartEndTime(statistics.getStartTime(), statistics.getEndTime());
+  }
+
+  private TsBlock applyOffsetAndLimit(TsBlock tsBlock) {
+    if (isEmpty(tsBlock)) {
+      return tsBlock;
+    }
+    if (remainingOffset > 0) {
+      int positionCount = tsBlock.getPositionCount();
+      if (remainingOffset >= positionCount) {
+        remainingOffset -= positionCount;
+        return null;
+      }
+      tsBlock = tsBlock.subTsBlock((int) remainingOffset);
+      remainingOffset = 0;
+    }
+    if (remainingLimit >= 0) {
+      int positionCount = tsBlock.getPositionCount();
+      if (remainingLimit < positionCount) {
+        tsBlock = tsBlock.getRegion(0, (int) remainingLimit);
+        remainingLimit = 0;
+      } else {
+        remainingLimit -= positionCount;
+      }
+    }
+    return tsBlock;
+  }
+
   private boolean isEmpty(TsBlock tsBlock) {
     return tsBlock == null || tsBlock.isEmpty();
   }
@@ -19,8 +19,11 @@
 package org.apache.iotdb.db.mpp.execution.operator.source;
 
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.ReadAmplificationTracker;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileRollup;
 import org.apache.iotdb.db.metadata.idtable.IDTable;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.query.context.QueryContext;
@@ -50,6 +53,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -120,6 +124,9 @@ public class SeriesScanUtil {
   protected boolean hasCachedNextOverlappedPage;
   protected TsBlock cachedTsBlock;
 
+  // time partitions read by this scan, used to record read amplification for compaction
+  private final Set<String> scannedPartitions = new HashSet<>();
+
   public SeriesScanUtil(
       PartialPath seriesPath,
       Set<String> allSensors,
@@ -251,6 +258,57 @@ public class SeriesScanUtil {
     firstTimeSeriesMetadata = null;
   }
 
+  /**
+   * Get the statistics of the next sequence file from its rollup without loading its
+   * TimeseriesMetadata. It is only possible when nothing of previous files is cached, the file is
+   * sealed and the series in it is not modified, and no unsequence file overlaps it. Files having
+   * no data of the series are skipped on the way.
+   *
+   * @return null if the statistics of the next file can not be got from its rollup
+   */
+  Statistics nextFileRollupStatistics() throws IOException {
+    if (firstTimeSeriesMetadata != null
+        || !seqTimeSeriesMetadata.isEmpty()
+        || !unSeqTimeSeriesMetadata.isEmpty()
+        || firstChunkMetadata != null
+        || !cachedChunkMetadata.isEmpty()
+        || firstPageReader != null
+        || !seqPageReaders.isEmpty()
+        || !unSeqPageReaders.isEmpty()
+        || mergeReader.hasNextTimeValuePair()
+        || valueFilter != null) {
+      return null;
+    }
+    String device = seriesPath.getDevice();
+    while (orderUtils.hasNextSeqResource()) {
+      TsFileResource resource = orderUtils.getNextSeqFileResource(false);
+      TsFileRollup rollup = resource.getRollup();
+      if (rollup == null || !rollup.containsDevice(device)) {
+        return null;
+      }
+      Statistics statistics = rollup.getStatistics(device, seriesPath.getMeasurement());
+      if (statistics == null) {
+        orderUtils.getNextSeqFileResource(true);
+        continue;
+      }
+      if (statistics.getType() != dataType
+          || !context.getPathModifications(resource.getModFile(), seriesPath).isEmpty()
+          || (orderUtils.hasNextUnseqResource()
+              && orderUtils.isOverlapped(
+                  orderUtils.getOverlapCheckTime(statistics),
+                  orderUtils.getNextUnseqFileResource(false)))) {
+        return null;
+      }
+      return statistics;
+    }
+    return null;
+  }
+
+  /** Skip the file whose statistics are just got by {@link #nextFileRollupStatistics()}. */
+  void skipNextFileByRollup() {
+    orderUtils.getNextSeqFileResource(true);
+  }
+
   /**
    * This method should be called after hasNextFile() until no next chunk, make sure that all
    * overlapped chunks are consumed
@@ -1031,9 +1089,11 @@ public class SeriesScanUtil {
   }
 
   private void unpackSeqTsFileResource() throws IOException {
+    TsFileResource resource = orderUtils.getNextSeqFileResource(true);
+    recordFileRead(resource);
     ITimeSeriesMetadata timeseriesMetadata =
         loadTimeSeriesMetadata(
-            orderUtils.getNextSeqFileResource(true),
+            resource,
             seriesPath,
             context,
             getAnyFilter(),
@@ -1045,9 +1105,11 @@ public class SeriesScanUtil {
   }
 
   private void unpackUnseqTsFileResource() throws IOException {
+    TsFileResource resource = orderUtils.getNextUnseqFileResource(true);
+    recordFileRead(resource);
     ITimeSeriesMetadata timeseriesMetadata =
         loadTimeSeriesMetadata(
-            orderUtils.getNextUnseqFileResource(true),
+            resource,
             seriesPath,
             context,
             getAnyFilter(),
@@ -1059,6 +1121,12 @@ public class SeriesScanUtil {
     }
   }
 
+  private void recordFileRead(TsFileResource resource) {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableAdaptiveCompactionSchedule()) {
+      ReadAmplificationTracker.getInstance().recordFileRead(resource, scannedPartitions);
+    }
+  }
+
   protected ITimeSeriesMetadata loadTimeSeriesMetadata(
       TsFileResource resource,
       PartialPath seriesPath,
@@ -1090,6 +1158,10 @@ public class SeriesScanUtil {
     return timeFilter;
   }
 
+  Filter getValueFilter() {
+    return valueFilter;
+  }
+
   public TimeOrderUtils getOrderUtils() {
     return orderUtils;
   }
@@ -53,7 +53,7 @@ public abstract class AbstractDriverThread extends Thread implements Closeable {
     DriverTask next;
     while (!closed && !Thread.currentThread().isInterrupted()) {
       try {
-        next = queue.poll();
+        next = poll();
       } catch (InterruptedException e) {
         logger.error("Executor " + this.getName() + "failed to poll driver task from queue");
         Thread.currentThread().interrupt();
@@ -72,6 +72,11 @@ public abstract class AbstractDriverThread extends Thread implements Closeable {
     }
   }
 
+  /** Get the next task to process, blocked until there is one. */
+  protected DriverTask poll() throws InterruptedException {
+    return queue.poll();
+  }
+
   /** Processing a task. */
   protected abstract void execute(DriverTask task) throws InterruptedException, ExecutionException;
 
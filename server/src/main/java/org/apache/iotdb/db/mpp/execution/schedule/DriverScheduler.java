@@ -22,6 +22,8 @@ import org.apache.iotdb.commons.exception.StartupException;
 import org.apache.iotdb.commons.service.IService;
 import org.apache.iotdb.commons.service.ServiceType;
 import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.common.QueryId;
 import org.apache.iotdb.db.mpp.execution.datatransfer.DataBlockService;
@@ -29,10 +31,16 @@ import org.apache.iotdb.db.mpp.execution.datatransfer.IDataBlockManager;
 import org.apache.iotdb.db.mpp.execution.driver.IDriver;
 import org.apache.iotdb.db.mpp.execution.schedule.queue.IndexedBlockingQueue;
 import org.apache.iotdb.db.mpp.execution.schedule.queue.L1PriorityQueue;
-import org.apache.iotdb.db.mpp.execution.schedule.queue.L2PriorityQueue;
+import org.apache.iotdb.db.mpp.execution.schedule.queue.MultilevelPriorityQueue;
+import org.apache.iotdb.db.mpp.execution.schedule.queue.WorkStealingQueue;
 import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTask;
 import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTaskID;
 import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTaskStatus;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.mpp.rpc.thrift.TFragmentInstanceId;
 
 import io.airlift.concurrent.SetThreadName;
@@ -47,6 +55,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /** the manager of fragment instances scheduling */
@@ -58,26 +67,47 @@ public class DriverScheduler implements IDriverScheduler, IService {
     return InstanceHolder.instance;
   }
 
-  private final IndexedBlockingQueue<DriverTask> readyQueue;
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /** The CPU time share of a level of the ready queue compared to its next level. */
+  private static final double LEVEL_TIME_MULTIPLIER = 2;
+
+  // one shard per worker thread, an idle worker steals the tasks in the shards of others
+  private final WorkStealingQueue<DriverTask, MultilevelPriorityQueue<DriverTask>> readyQueue;
   private final IndexedBlockingQueue<DriverTask> timeoutQueue;
   private final Set<DriverTask> blockedTasks;
   private final Map<QueryId, Set<DriverTask>> queryMap;
+  // the CPU time consumed by the finished driver tasks of each query
+  private final Map<QueryId, Long> queryCpuTimeInNanos;
   private final ITaskScheduler scheduler;
   private IDataBlockManager blockManager; // TODO: init with real IDataBlockManager
 
-  private static final int MAX_CAPACITY = 1000; // TODO: load from config files
-  private static final int WORKER_THREAD_NUM = 4; // TODO: load from config files
-  private static final int QUERY_TIMEOUT_MS = 60_000; // TODO: load from config files or requests
+  private final int maxCapacity;
+  private final int workerThreadNum;
+  private final long queryTimeoutMs;
   private final ThreadGroup workerGroups;
   private final List<AbstractDriverThread> threads;
 
   private DriverScheduler() {
+    this.maxCapacity = config.getMaxAllowedConcurrentDriverTasks();
+    this.workerThreadNum = config.getConcurrentQueryThread();
+    this.queryTimeoutMs = config.getQueryTimeoutThreshold();
+    // The timeout queue holds every task which is not cleared, so it bounds the total number of
+    // tasks in all the shards by maxCapacity as well.
     this.readyQueue =
-        new L2PriorityQueue<>(
-            MAX_CAPACITY, new DriverTask.SchedulePriorityComparator(), new DriverTask());
+        new WorkStealingQueue<>(
+            workerThreadNum,
+            () ->
+                new MultilevelPriorityQueue<>(
+                    maxCapacity,
+                    new DriverTask.SchedulePriorityComparator(),
+                    DriverTask::getCpuWallNano,
+                    LEVEL_TIME_MULTIPLIER,
+                    new DriverTask()));
     this.timeoutQueue =
-        new L1PriorityQueue<>(MAX_CAPACITY, new DriverTask.TimeoutComparator(), new DriverTask());
+        new L1PriorityQueue<>(maxCapacity, new DriverTask.TimeoutComparator(), new DriverTask());
     this.queryMap = new ConcurrentHashMap<>();
+    this.queryCpuTimeInNanos = new ConcurrentHashMap<>();
     this.blockedTasks = Collections.synchronizedSet(new HashSet<>());
     this.scheduler = new Scheduler();
     this.workerGroups = new ThreadGroup("ScheduleThreads");
@@ -87,9 +117,9 @@ public class DriverScheduler implements IDriverScheduler, IService {
 
   @Override
   public void start() throws StartupException {
-    for (int i = 0; i < WORKER_THREAD_NUM; i++) {
+    for (int i = 0; i < workerThreadNum; i++) {
       AbstractDriverThread t =
-          new DriverTaskThread("Worker-Thread-" + i, workerGroups, readyQueue, scheduler);
+          new DriverTaskThread("Worker-Thread-" + i, workerGroups, readyQueue, i, scheduler);
       threads.add(t);
       t.start();
     }
@@ -121,7 +151,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
   public void submitDrivers(QueryId queryId, List<IDriver> instances) {
     List<DriverTask> tasks =
         instances.stream()
-            .map(v -> new DriverTask(v, QUERY_TIMEOUT_MS, DriverTaskStatus.READY))
+            .map(v -> new DriverTask(v, queryTimeoutMs, DriverTaskStatus.READY))
             .collect(Collectors.toList());
     queryMap
         .computeIfAbsent(queryId, v -> Collections.synchronizedSet(new HashSet<>()))
@@ -153,6 +183,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
           task.unlock();
         }
       }
+      recordQueryCpuTime(queryId);
     }
   }
 
@@ -181,6 +212,34 @@ public class DriverScheduler implements IDriverScheduler, IService {
     return task.getSchedulePriority();
   }
 
+  /**
+   * Get the CPU time consumed by the finished driver tasks of a running query.
+   *
+   * @return the CPU time in nanoseconds, 0 if no driver task of the query has finished.
+   */
+  public long getQueryCpuTimeInNanos(QueryId queryId) {
+    return queryCpuTimeInNanos.getOrDefault(queryId, 0L);
+  }
+
+  private void recordQueryCpuTime(QueryId queryId) {
+    Long cpuTimeInNanos = queryCpuTimeInNanos.remove(queryId);
+    if (cpuTimeInNanos == null) {
+      return;
+    }
+    logger.debug("Query {} consumed {}ns CPU time in total", queryId, cpuTimeInNanos);
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .timer(
+              cpuTimeInNanos,
+              TimeUnit.NANOSECONDS,
+              Metric.COST_TASK.toString(),
+              MetricLevel.IMPORTANT,
+              Tag.NAME.toString(),
+              "query_cpu");
+    }
+  }
+
   private void clearDriverTask(DriverTask task) {
     try (SetThreadName fragmentInstanceName =
         new SetThreadName(task.getFragmentInstance().getInfo().getFullId())) {
@@ -190,11 +249,14 @@ public class DriverScheduler implements IDriverScheduler, IService {
       readyQueue.remove(task.getId());
       timeoutQueue.remove(task.getId());
       blockedTasks.remove(task);
-      Set<DriverTask> tasks = queryMap.get(task.getId().getQueryId());
+      QueryId queryId = task.getId().getQueryId();
+      queryCpuTimeInNanos.merge(queryId, task.getCpuWallNano(), Long::sum);
+      Set<DriverTask> tasks = queryMap.get(queryId);
       if (tasks != null) {
         tasks.remove(task);
         if (tasks.isEmpty()) {
-          queryMap.remove(task.getId().getQueryId());
+          queryMap.remove(queryId);
+          recordQueryCpuTime(queryId);
         }
       }
       if (task.getAbortCause() != null) {
@@ -226,7 +288,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
   }
 
   @TestOnly
-  IndexedBlockingQueue<DriverTask> getReadyQueue() {
+  WorkStealingQueue<DriverTask, MultilevelPriorityQueue<DriverTask>> getReadyQueue() {
     return readyQueue;
   }
 
@@ -258,6 +320,16 @@ public class DriverScheduler implements IDriverScheduler, IService {
   }
   /** the default scheduler implementation */
   private class Scheduler implements ITaskScheduler {
+
+    private void updateSchedulePriority(DriverTask task, ExecutionContext context) {
+      long scheduledNanos = task.getCpuWallNano();
+      task.updateSchedulePriority(context);
+      // charged to the shard of the worker which has run the task, where it is pushed back to
+      readyQueue
+          .getCurrentShard()
+          .addScheduledNanos(scheduledNanos, task.getCpuWallNano() - scheduledNanos);
+    }
+
     @Override
     public void blockedToReady(DriverTask task) {
       task.lock();
@@ -294,7 +366,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
         if (task.getStatus() != DriverTaskStatus.RUNNING) {
           return;
         }
-        task.updateSchedulePriority(context);
+        updateSchedulePriority(task, context);
         task.setStatus(DriverTaskStatus.READY);
         readyQueue.push(task);
       } finally {
@@ -309,7 +381,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
         if (task.getStatus() != DriverTaskStatus.RUNNING) {
           return;
         }
-        task.updateSchedulePriority(context);
+        updateSchedulePriority(task, context);
         task.setStatus(DriverTaskStatus.BLOCKED);
         blockedTasks.add(task);
       } finally {
@@ -324,7 +396,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
         if (task.getStatus() != DriverTaskStatus.RUNNING) {
           return;
         }
-        task.updateSchedulePriority(context);
+        updateSchedulePriority(task, context);
         task.setStatus(DriverTaskStatus.FINISHED);
         clearDriverTask(task);
       } finally {
@@ -366,6 +438,7 @@ public class DriverScheduler implements IDriverScheduler, IService {
             }
           }
         }
+        recordQueryCpuTime(queryId);
       }
     }
   }
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.mpp.execution.schedule;
 
 import org.apache.iotdb.db.mpp.execution.driver.IDriver;
 import org.apache.iotdb.db.mpp.execution.schedule.queue.IndexedBlockingQueue;
+import org.apache.iotdb.db.mpp.execution.schedule.queue.WorkStealingQueue;
 import org.apache.iotdb.db.mpp.execution.schedule.task.DriverTask;
 import org.apache.iotdb.db.utils.stats.CpuTimer;
 
@@ -39,12 +40,34 @@ public class DriverTaskThread extends AbstractDriverThread {
   // As the callback is lightweight enough, there's no need to use another one thread to execute.
   private static final Executor listeningExecutor = MoreExecutors.directExecutor();
 
+  // the shared ready queue to steal tasks from, null if the worker only polls its own queue
+  private final WorkStealingQueue<DriverTask, ?> stealingQueue;
+  private final int shard;
+
   public DriverTaskThread(
       String workerId,
       ThreadGroup tg,
       IndexedBlockingQueue<DriverTask> queue,
       ITaskScheduler scheduler) {
     super(workerId, tg, queue, scheduler);
+    this.stealingQueue = null;
+    this.shard = 0;
+  }
+
+  public DriverTaskThread(
+      String workerId,
+      ThreadGroup tg,
+      WorkStealingQueue<DriverTask, ?> queue,
+      int shard,
+      ITaskScheduler scheduler) {
+    super(workerId, tg, queue.getShard(shard), scheduler);
+    this.stealingQueue = queue;
+    this.shard = shard;
+  }
+
+  @Override
+  protected DriverTask poll() throws InterruptedException {
+    return stealingQueue == null ? super.poll() : stealingQueue.poll(shard);
   }
 
   @Override
@@ -70,6 +70,21 @@ public abstract class IndexedBlockingQueue<E extends IDIndexedAccessible> {
     return output;
   }
 
+  /**
+   * Get and remove the first element of the queue. Unlike {@link #poll()}, this call returns null
+   * instead of being blocked when the queue is empty.
+   *
+   * @return the queue head element, null if the queue is empty.
+   */
+  public synchronized E tryPoll() {
+    if (isEmpty()) {
+      return null;
+    }
+    E output = pollFirst();
+    size--;
+    return output;
+  }
+
   /**
    * Push an element to the queue. The new element position is determined by the implementation. If
    * the queue size has been reached the maxCapacity, or the queue has already contained an element
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * A multilevel feedback subclass of {@link IndexedBlockingQueue}. Each element is put into a level
+ * according to the CPU time it has consumed, so that short elements will not be delayed by long
+ * running ones. Elements in the same level are ordered by the specified comparator.
+ *
+ * <p>Levels are not polled by strict priority, otherwise long running elements will be starved to
+ * death. Instead, each level is given a share of the CPU time which is {@code levelTimeMultiplier}
+ * times the share of the next level, and the level consuming the least of its share is polled.
+ *
+ * <p>The time complexity of operations are:
+ *
+ * <ul>
+ *   <li><b>{@link #remove(IDIndexedAccessible)} ()}: </b> O(logN).
+ *   <li><b>{@link #push(IDIndexedAccessible)}: </b> O(logN).
+ *   <li><b>{@link #poll()}: </b> O(logN).
+ *   <li><b>{@link #get(ID)}}: </b> O(1).
+ * </ul>
+ */
+public class MultilevelPriorityQueue<E extends IDIndexedAccessible>
+    extends IndexedBlockingQueue<E> {
+
+  /** The lower bound of consumed CPU time of each level, in seconds. */
+  private static final long[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
+
+  private static final int LEVEL_COUNT = LEVEL_THRESHOLD_SECONDS.length;
+
+  private final List<SortedSet<E>> levelSortedElements;
+  private final Map<ID, E> keyedElements;
+
+  /**
+   * Get the CPU time in nanoseconds an element has consumed. It must not change while the element
+   * is in the queue, as the level of an element is computed by it.
+   */
+  private final ToLongFunction<E> scheduledNanosGetter;
+
+  /** The CPU time in nanoseconds consumed by the elements of each level. */
+  private final long[] levelScheduledNanos = new long[LEVEL_COUNT];
+
+  /** The share of CPU time of each level. */
+  private final double[] levelWeights = new double[LEVEL_COUNT];
+
+  /**
+   * Init the queue with max capacity and specified comparator.
+   *
+   * @see IndexedBlockingQueue
+   * @param maxCapacity the max capacity of the queue.
+   * @param comparator the comparator for comparing the elements in the same level.
+   * @param scheduledNanosGetter the function to get the CPU time consumed by an element.
+   * @param levelTimeMultiplier the ratio of the CPU time share of a level to its next level.
+   * @param queryHolder the query holder instance.
+   * @throws IllegalArgumentException if maxCapacity <= 0.
+   */
+  public MultilevelPriorityQueue(
+      int maxCapacity,
+      Comparator<E> comparator,
+      ToLongFunction<E> scheduledNanosGetter,
+      double levelTimeMultiplier,
+      E queryHolder) {
+    super(maxCapacity, queryHolder);
+    this.levelSortedElements = new ArrayList<>(LEVEL_COUNT);
+    for (int i = 0; i < LEVEL_COUNT; i++) {
+      levelSortedElements.add(new TreeSet<>(comparator));
+      levelWeights[i] = Math.pow(levelTimeMultiplier, LEVEL_COUNT - 1 - i);
+    }
+    this.keyedElements = new HashMap<>();
+    this.scheduledNanosGetter = scheduledNanosGetter;
+  }
+
+  /**
+   * Charge the CPU time consumed by an element in one run to the level it was in.
+   *
+   * @param scheduledNanos the CPU time consumed by the element before the run.
+   * @param quantaNanos the CPU time consumed by the element in the run.
+   */
+  public synchronized void addScheduledNanos(long scheduledNanos, long quantaNanos) {
+    levelScheduledNanos[computeLevel(scheduledNanos)] += quantaNanos;
+  }
+
+  /** Get the CPU time in nanoseconds consumed by the elements of the specified level. */
+  public synchronized long getLevelScheduledNanos(int level) {
+    return levelScheduledNanos[level];
+  }
+
+  public static int computeLevel(long scheduledNanos) {
+    long scheduledSeconds = TimeUnit.NANOSECONDS.toSeconds(scheduledNanos);
+    for (int level = LEVEL_COUNT - 1; level > 0; level--) {
+      if (scheduledSeconds >= LEVEL_THRESHOLD_SECONDS[level]) {
+        return level;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  protected boolean isEmpty() {
+    return keyedElements.isEmpty();
+  }
+
+  @Override
+  protected E pollFirst() {
+    int selectedLevel = -1;
+    double minNormalizedNanos = Double.MAX_VALUE;
+    for (int level = 0; level < LEVEL_COUNT; level++) {
+      if (levelSortedElements.get(level).isEmpty()) {
+        continue;
+      }
+      double normalizedNanos = levelScheduledNanos[level] / levelWeights[level];
+      if (normalizedNanos < minNormalizedNanos) {
+        minNormalizedNanos = normalizedNanos;
+        selectedLevel = level;
+      }
+    }
+    SortedSet<E> sortedElements = levelSortedElements.get(selectedLevel);
+    E element = sortedElements.first();
+    sortedElements.remove(element);
+    keyedElements.remove(element.getId());
+    return element;
+  }
+
+  @Override
+  protected void pushToQueue(E element) {
+    int level = computeLevel(scheduledNanosGetter.applyAsLong(element));
+    SortedSet<E> sortedElements = levelSortedElements.get(level);
+    if (sortedElements.isEmpty()) {
+      // An idle level has not consumed its share for a while. Catch it up with the busy levels,
+      // otherwise it would monopolize the workers until its CPU time caught up with theirs.
+      levelScheduledNanos[level] =
+          Math.max(levelScheduledNanos[level], minBusyLevelScheduledNanos(level));
+    }
+    keyedElements.put(element.getId(), element);
+    sortedElements.add(element);
+  }
+
+  private long minBusyLevelScheduledNanos(int targetLevel) {
+    double minNormalizedNanos = Double.MAX_VALUE;
+    for (int level = 0; level < LEVEL_COUNT; level++) {
+      if (level != targetLevel && !levelSortedElements.get(level).isEmpty()) {
+        minNormalizedNanos =
+            Math.min(minNormalizedNanos, levelScheduledNanos[level] / levelWeights[level]);
+      }
+    }
+    return minNormalizedNanos == Double.MAX_VALUE
+        ? 0
+        : (long) (minNormalizedNanos * levelWeights[targetLevel]);
+  }
+
+  @Override
+  protected E remove(E element) {
+    E e = keyedElements.remove(element.getId());
+    if (e != null) {
+      levelSortedElements.get(computeLevel(scheduledNanosGetter.applyAsLong(e))).remove(e);
+    }
+    return e;
+  }
+
+  @Override
+  protected boolean contains(E element) {
+    return keyedElements.containsKey(element.getId());
+  }
+
+  @Override
+  protected E get(E element) {
+    return keyedElements.get(element.getId());
+  }
+
+  @Override
+  protected void clearAllElements() {
+    for (SortedSet<E> sortedElements : levelSortedElements) {
+      sortedElements.clear();
+    }
+    keyedElements.clear();
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A ready queue split into one {@link IndexedBlockingQueue} shard per worker. A worker polls its
+ * own shard first and steals the head of the other shards when its own is empty, so workers do not
+ * contend on one lock and a task yielding its time slice is likely to run on the same worker again.
+ *
+ * <p>An element pushed by a worker goes to the shard of that worker, and an element pushed by any
+ * other thread goes to the shards in turn. The ordering of the shards only holds inside each shard.
+ *
+ * <p>An element should not be pushed while it is still in any shard, as each shard only checks the
+ * elements of its own.
+ */
+public class WorkStealingQueue<E extends IDIndexedAccessible, Q extends IndexedBlockingQueue<E>> {
+
+  private final List<Q> shards;
+
+  /** The shard of each worker thread, absent for the threads not polling this queue. */
+  private final ThreadLocal<Integer> homeShard = new ThreadLocal<>();
+
+  private final AtomicInteger nextShard = new AtomicInteger();
+
+  // the workers waiting for an element, idle workers are only notified when there are some
+  private final Object idleMonitor = new Object();
+  private final AtomicInteger idleWorkers = new AtomicInteger();
+
+  /**
+   * Init the queue with the specified number of shards.
+   *
+   * @param shardNum the number of shards, which should be the number of workers.
+   * @param shardFactory the factory of each shard.
+   * @throws IllegalArgumentException if shardNum <= 0.
+   */
+  public WorkStealingQueue(int shardNum, Supplier<Q> shardFactory) {
+    Preconditions.checkArgument(shardNum > 0, "The number of shards should be positive");
+    this.shards = new ArrayList<>(shardNum);
+    for (int i = 0; i < shardNum; i++) {
+      shards.add(shardFactory.get());
+    }
+  }
+
+  /**
+   * Get and remove an element for the worker of the specified shard. The head of its own shard is
+   * returned if there is one, otherwise the head of the first non-empty shard after it. If all the
+   * shards are empty, this call will be blocked until an element has been pushed.
+   *
+   * @param shard the shard of the calling worker.
+   * @return the polled element.
+   */
+  public E poll(int shard) throws InterruptedException {
+    homeShard.set(shard);
+    while (true) {
+      E output = pollOrSteal(shard);
+      if (output != null) {
+        return output;
+      }
+      synchronized (idleMonitor) {
+        idleWorkers.incrementAndGet();
+        try {
+          // check again, as an element pushed before the increment has notified nobody
+          output = pollOrSteal(shard);
+          if (output != null) {
+            return output;
+          }
+          idleMonitor.wait();
+        } finally {
+          idleWorkers.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  private E pollOrSteal(int shard) {
+    for (int i = 0; i < shards.size(); i++) {
+      E output = shards.get((shard + i) % shards.size()).tryPoll();
+      if (output != null) {
+        return output;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Push an element to the shard of the calling worker, or to the next shard in turn if the caller
+   * is not a worker.
+   *
+   * @see IndexedBlockingQueue#push(IDIndexedAccessible)
+   * @param element the element to be pushed.
+   */
+  public void push(E element) {
+    Integer shard = homeShard.get();
+    if (shard == null) {
+      shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+    }
+    shards.get(shard).push(element);
+    if (idleWorkers.get() > 0) {
+      synchronized (idleMonitor) {
+        idleMonitor.notify();
+      }
+    }
+  }
+
+  /**
+   * Remove and return the element by id. It returns null if it doesn't exist.
+   *
+   * @param id the id of the element to be removed.
+   * @return the removed element.
+   */
+  public E remove(ID id) {
+    for (Q shard : shards) {
+      E output = shard.remove(id);
+      if (output != null) {
+        return output;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the element by id. It returns null if it doesn't exist.
+   *
+   * @param id the id of the element.
+   * @return the element with the id.
+   */
+  public E get(ID id) {
+    for (Q shard : shards) {
+      E output = shard.get(id);
+      if (output != null) {
+        return output;
+      }
+    }
+    return null;
+  }
+
+  /** Clear all the elements in all the shards. */
+  public void clear() {
+    shards.forEach(IndexedBlockingQueue::clear);
+  }
+
+  /**
+   * Get the total size of all the shards. The result is not a snapshot if the queue is being
+   * modified.
+   *
+   * @return the current queue size.
+   */
+  public int size() {
+    int size = 0;
+    for (Q shard : shards) {
+      size += shard.size();
+    }
+    return size;
+  }
+
+  /**
+   * Get the shard of the calling worker, or the first shard if the caller is not a worker.
+   *
+   * @return the shard of the calling thread.
+   */
+  public Q getCurrentShard() {
+    Integer shard = homeShard.get();
+    return shards.get(shard == null ? 0 : shard);
+  }
+
+  public Q getShard(int shard) {
+    return shards.get(shard);
+  }
+
+  public int getShardNum() {
+    return shards.size();
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FillDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.FilterNullParameter;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.mpp.plan.statement.Statement;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import java.util.List;
@@ -133,6 +134,9 @@ public class Analysis {
   // parameter of `GROUP BY TIME` clause
   private GroupByTimeParameter groupByTimeParameter;
 
+  // sort keys of `ORDER BY` value columns, referring to the output columns by their names
+  private List<SortItem> sortItems;
+
   // header of result dataset
   private DatasetHeader respDatasetHeader;
 
@@ -264,6 +268,14 @@ public class Analysis {
     this.fillDescriptor = fillDescriptor;
   }
 
+  public List<SortItem> getSortItems() {
+    return sortItems;
+  }
+
+  public void setSortItems(List<SortItem> sortItems) {
+    this.sortItems = sortItems;
+  }
+
   public boolean hasValueFilter() {
     return hasValueFilter;
   }
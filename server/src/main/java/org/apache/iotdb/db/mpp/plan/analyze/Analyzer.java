@@ -22,6 +22,7 @@ package org.apache.iotdb.db.mpp.plan.analyze;
 import org.apache.iotdb.common.rpc.thrift.TRegionReplicaSet;
 import org.apache.iotdb.common.rpc.thrift.TSeriesPartitionSlot;
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.partition.DataPartition;
 import org.apache.iotdb.commons.partition.DataPartitionQueryParam;
 import org.apache.iotdb.commons.partition.SchemaNodeManagementPartition;
@@ -50,6 +51,7 @@ import org.apache.iotdb.db.mpp.plan.statement.component.FillComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.FillPolicy;
 import org.apache.iotdb.db.mpp.plan.statement.component.GroupByTimeComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.crud.DeleteDataStatement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.InsertMultiTabletsStatement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.InsertRowStatement;
@@ -412,6 +414,10 @@ public class Analyzer {
               new FillDescriptor(fillComponent.getFillPolicy(), fillComponent.getFillValue()));
         }
 
+        if (queryStatement.hasSortItems()) {
+          analysis.setSortItems(analyzeSortItems(queryStatement, outputExpressions));
+        }
+
         // generate result set header according to output expressions
         DatasetHeader datasetHeader = analyzeOutput(queryStatement, outputExpressions);
         analysis.setRespDatasetHeader(datasetHeader);
@@ -792,6 +798,53 @@ public class Analyzer {
       return new DatasetHeader(columnHeaders, isIgnoreTimestamp);
     }
 
+    /** Resolve each sort key of ORDER BY to the name of the output column it refers to. */
+    private List<SortItem> analyzeSortItems(
+        QueryStatement queryStatement, List<Pair<Expression, String>> outputExpressions) {
+      List<SortItem> sortItems = new ArrayList<>();
+      for (SortItem sortItem : queryStatement.getSortItems()) {
+        String sortKey = sortItem.getSortKey();
+        if (sortKey.contains(IoTDBConstant.ONE_LEVEL_PATH_WILDCARD)) {
+          throw new SemanticException(
+              String.format("sort key %s of ORDER BY can not contain wildcards", sortKey));
+        }
+        PartialPath sortKeyPath;
+        try {
+          sortKeyPath = new PartialPath(sortKey);
+        } catch (IllegalPathException e) {
+          throw new SemanticException(e.getMessage());
+        }
+
+        Set<String> columnNames = new LinkedHashSet<>();
+        if (queryStatement.isAlignByDevice() && HeaderConstant.COLUMN_DEVICE.equals(sortKey)) {
+          columnNames.add(HeaderConstant.COLUMN_DEVICE);
+        }
+        for (Pair<Expression, String> outputExpression : outputExpressions) {
+          String columnName = outputExpression.left.getExpressionString();
+          if (sortKey.equals(outputExpression.right) || sortKey.equals(columnName)) {
+            columnNames.add(columnName);
+          } else if (!queryStatement.isAlignByDevice()
+              && outputExpression.left instanceof TimeSeriesOperand) {
+            // the sort key is a suffix path, like the paths in the select clause
+            PartialPath path = ((TimeSeriesOperand) outputExpression.left).getPath();
+            for (PartialPath prefixPath : queryStatement.getFromComponent().getPrefixPaths()) {
+              if (prefixPath.concatPath(sortKeyPath).matchFullPath(path)) {
+                columnNames.add(columnName);
+              }
+            }
+          }
+        }
+        if (columnNames.size() != 1) {
+          throw new SemanticException(
+              String.format(
+                  "sort key %s of ORDER BY should match exactly one result column, but matches %s",
+                  sortKey, columnNames));
+        }
+        sortItems.add(new SortItem(columnNames.iterator().next(), sortItem.getOrdering()));
+      }
+      return sortItems;
+    }
+
     private Analysis analyzeLast(
         Analysis analysis, List<MeasurementPath> allSelectedPath, SchemaTree schemaTree) {
       Set<Expression> sourceExpressions =
@@ -603,6 +603,67 @@ public class ExpressionAnalyzer {
     }
   }
 
+  /**
+   * Transform a query filter that only references one series into a filter which can be pushed
+   * down to the scan of that series.
+   *
+   * @param predicate query filter
+   * @param seriesPath the only series that the query filter references
+   * @return the equivalent filter, or null if any part of the query filter can not be transformed
+   */
+  public static Filter transformToSeriesFilter(Expression predicate, MeasurementPath seriesPath) {
+    if (predicate instanceof LogicAndExpression || predicate instanceof LogicOrExpression) {
+      Filter leftFilter =
+          transformToSeriesFilter(((BinaryExpression) predicate).getLeftExpression(), seriesPath);
+      if (leftFilter == null) {
+        return null;
+      }
+      Filter rightFilter =
+          transformToSeriesFilter(((BinaryExpression) predicate).getRightExpression(), seriesPath);
+      if (rightFilter == null) {
+        return null;
+      }
+      return predicate instanceof LogicAndExpression
+          ? FilterFactory.and(leftFilter, rightFilter)
+          : FilterFactory.or(leftFilter, rightFilter);
+    } else if (predicate instanceof LogicNotExpression) {
+      Filter childFilter =
+          transformToSeriesFilter(((UnaryExpression) predicate).getExpression(), seriesPath);
+      return childFilter == null ? null : FilterFactory.not(childFilter);
+    } else if (predicate instanceof GreaterEqualExpression
+        || predicate instanceof GreaterThanExpression
+        || predicate instanceof LessEqualExpression
+        || predicate instanceof LessThanExpression
+        || predicate instanceof EqualToExpression
+        || predicate instanceof NonEqualExpression) {
+      ExpressionType expressionType = predicate.getExpressionType();
+      Expression leftExpression = ((BinaryExpression) predicate).getLeftExpression();
+      Expression rightExpression = ((BinaryExpression) predicate).getRightExpression();
+      if (leftExpression instanceof ConstantOperand) {
+        expressionType = ExpressionUtils.reverseComparison(expressionType);
+        Expression temp = leftExpression;
+        leftExpression = rightExpression;
+        rightExpression = temp;
+      }
+      if (!(rightExpression instanceof ConstantOperand)) {
+        return null;
+      }
+      if (leftExpression instanceof TimestampOperand) {
+        return constructTimeFilter(expressionType, leftExpression, rightExpression);
+      }
+      if (leftExpression instanceof TimeSeriesOperand
+          && ((TimeSeriesOperand) leftExpression).getPath().equals(seriesPath)) {
+        return ExpressionUtils.constructValueFilter(
+            expressionType, seriesPath.getSeriesType(), (ConstantOperand) rightExpression);
+      }
+      return null;
+    } else if (predicate instanceof InExpression
+        && ((InExpression) predicate).getExpression() instanceof TimestampOperand) {
+      return transformToGlobalTimeFilter(predicate).left;
+    }
+    return null;
+  }
+
   /**
    * Search for subexpressions that can be queried natively, including time series raw data and
    * built-in aggregate functions.
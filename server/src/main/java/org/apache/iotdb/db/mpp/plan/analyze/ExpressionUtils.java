@@ -47,7 +47,9 @@ import org.apache.iotdb.db.mpp.plan.expression.unary.RegularExpression;
 import org.apache.iotdb.db.mpp.plan.expression.unary.UnaryExpression;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.utils.Binary;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -222,6 +224,91 @@ public class ExpressionUtils {
     return null;
   }
 
+  /**
+   * Construct a value filter of a series from a comparison between the series and a constant.
+   * Returns null if the comparison can not be evaluated by a tsfile filter with exactly the same
+   * semantic as the expression transformer, e.g. comparing a FLOAT series with a literal (the
+   * transformer compares in double precision) or comparing TEXT values by order.
+   */
+  public static Filter constructValueFilter(
+      ExpressionType expressionType, TSDataType seriesType, ConstantOperand constantOperand) {
+    Comparable<?> value;
+    try {
+      value = parseConstantValue(seriesType, constantOperand);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    if (value == null) {
+      return null;
+    }
+    if ((seriesType == TSDataType.BOOLEAN || seriesType == TSDataType.TEXT)
+        && expressionType != ExpressionType.EQUAL_TO
+        && expressionType != ExpressionType.NON_EQUAL) {
+      return null;
+    }
+    return constructValueFilter(expressionType, value);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Filter constructValueFilter(ExpressionType expressionType, Comparable value) {
+    switch (expressionType) {
+      case LESS_THAN:
+        return ValueFilter.lt(value);
+      case LESS_EQUAL:
+        return ValueFilter.ltEq(value);
+      case GREATER_THAN:
+        return ValueFilter.gt(value);
+      case GREATER_EQUAL:
+        return ValueFilter.gtEq(value);
+      case EQUAL_TO:
+        return ValueFilter.eq(value);
+      case NON_EQUAL:
+        return ValueFilter.notEq(value);
+      default:
+        return null;
+    }
+  }
+
+  private static Comparable<?> parseConstantValue(
+      TSDataType seriesType, ConstantOperand constantOperand) {
+    TSDataType constantType = constantOperand.getDataType();
+    String valueString = constantOperand.getValueString();
+    switch (seriesType) {
+      case INT32:
+        return constantType == TSDataType.INT64 ? Integer.parseInt(valueString) : null;
+      case INT64:
+        return constantType == TSDataType.INT64 ? Long.parseLong(valueString) : null;
+      case DOUBLE:
+        return constantType == TSDataType.INT64
+                || constantType == TSDataType.FLOAT
+                || constantType == TSDataType.DOUBLE
+            ? Double.parseDouble(valueString)
+            : null;
+      case BOOLEAN:
+        return constantType == TSDataType.BOOLEAN ? Boolean.parseBoolean(valueString) : null;
+      case TEXT:
+        return constantType == TSDataType.TEXT ? new Binary(valueString) : null;
+      default:
+        return null;
+    }
+  }
+
+  /** Get the comparison type after swapping the left and right operand. */
+  public static ExpressionType reverseComparison(ExpressionType expressionType) {
+    switch (expressionType) {
+      case LESS_THAN:
+        return ExpressionType.GREATER_THAN;
+      case LESS_EQUAL:
+        return ExpressionType.GREATER_EQUAL;
+      case GREATER_THAN:
+        return ExpressionType.LESS_THAN;
+      case GREATER_EQUAL:
+        return ExpressionType.LESS_EQUAL;
+      default:
+        return expressionType;
+    }
+  }
+
   public static Expression constructQueryFilter(List<Expression> expressions) {
     if (expressions.size() == 1) {
       return expressions.get(0);
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedSeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesSourceNode;
+
+/**
+ * Push LIMIT and OFFSET down into raw data scans, so that the scans stop reading once enough rows
+ * are returned, and skip the offset rows by statistics instead of reading them.
+ *
+ * <p>A scan may be split into several scans (one for each data region) by the distribution
+ * planner, and the split scans can not apply the same offset independently. So LimitNode and
+ * OffsetNode are only removed when the scanned series belongs to one data region. Otherwise, the
+ * scan is only limited to (limit + offset) rows, which is also how the first rows of a TimeJoinNode
+ * are bounded: each row of the time join consumes at most one point from each child.
+ */
+public class LimitOffsetPushDown implements Rule {
+
+  private final Analysis analysis;
+
+  public LimitOffsetPushDown(Analysis analysis) {
+    this.analysis = analysis;
+  }
+
+  @Override
+  public PlanNode apply(PlanNode node, MPPQueryContext context) {
+    if (node instanceof LimitNode) {
+      LimitNode limitNode = (LimitNode) node;
+      PlanNode child = limitNode.getChild();
+      if (child instanceof OffsetNode) {
+        OffsetNode offsetNode = (OffsetNode) child;
+        return pushDownLimit(
+            limitNode, limitNode.getLimit(), offsetNode.getOffset(), offsetNode.getChild());
+      }
+      if (isRawDataScan(child) && getLimit(child) == 0 && isInOneDataRegion(child)) {
+        // the offset, if any, has been pushed down into the scan already
+        setLimit(child, limitNode.getLimit());
+        return child;
+      }
+      return pushDownLimit(limitNode, limitNode.getLimit(), 0, child);
+    } else if (node instanceof OffsetNode) {
+      OffsetNode offsetNode = (OffsetNode) node;
+      PlanNode child = offsetNode.getChild();
+      if (isRawDataScan(child)
+          && getLimit(child) == 0
+          && getOffset(child) == 0
+          && isInOneDataRegion(child)) {
+        setOffset(child, offsetNode.getOffset());
+        return child;
+      }
+    }
+    return null;
+  }
+
+  /** Limit the source to (limit + offset) rows and keep the LimitNode and OffsetNode above it. */
+  private PlanNode pushDownLimit(LimitNode limitNode, int limit, int offset, PlanNode source) {
+    long pushedLimit = (long) limit + offset;
+    if (pushedLimit > Integer.MAX_VALUE) {
+      return null;
+    }
+    if (isRawDataScan(source)) {
+      if (getLimit(source) != 0 || getOffset(source) != 0) {
+        return null;
+      }
+      setLimit(source, (int) pushedLimit);
+      return limitNode;
+    }
+    if (source instanceof TimeJoinNode) {
+      for (PlanNode child : source.getChildren()) {
+        if (!isRawDataScan(child) || getLimit(child) != 0 || getOffset(child) != 0) {
+          return null;
+        }
+      }
+      for (PlanNode child : source.getChildren()) {
+        setLimit(child, (int) pushedLimit);
+      }
+      return limitNode;
+    }
+    return null;
+  }
+
+  private boolean isInOneDataRegion(PlanNode scanNode) {
+    if (analysis.getDataPartitionInfo() == null) {
+      return false;
+    }
+    SeriesSourceNode sourceNode = (SeriesSourceNode) scanNode;
+    return analysis
+            .getPartitionInfo(sourceNode.getPartitionPath(), sourceNode.getPartitionTimeFilter())
+            .size()
+        == 1;
+  }
+
+  /** Scans without value filter, whose output rows are exactly the rows of the query result. */
+  private static boolean isRawDataScan(PlanNode node) {
+    if (node instanceof SeriesScanNode) {
+      return ((SeriesScanNode) node).getValueFilter() == null;
+    }
+    if (node instanceof AlignedSeriesScanNode) {
+      return ((AlignedSeriesScanNode) node).getValueFilter() == null;
+    }
+    return false;
+  }
+
+  private static int getLimit(PlanNode scanNode) {
+    return scanNode instanceof SeriesScanNode
+        ? ((SeriesScanNode) scanNode).getLimit()
+        : ((AlignedSeriesScanNode) scanNode).getLimit();
+  }
+
+  private static int getOffset(PlanNode scanNode) {
+    return scanNode instanceof SeriesScanNode
+        ? ((SeriesScanNode) scanNode).getOffset()
+        : ((AlignedSeriesScanNode) scanNode).getOffset();
+  }
+
+  private static void setLimit(PlanNode scanNode, int limit) {
+    if (scanNode instanceof SeriesScanNode) {
+      ((SeriesScanNode) scanNode).setLimit(limit);
+    } else {
+      ((AlignedSeriesScanNode) scanNode).setLimit(limit);
+    }
+  }
+
+  private static void setOffset(PlanNode scanNode, int offset) {
+    if (scanNode instanceof SeriesScanNode) {
+      ((SeriesScanNode) scanNode).setOffset(offset);
+    } else {
+      ((AlignedSeriesScanNode) scanNode).setOffset(offset);
+    }
+  }
+}
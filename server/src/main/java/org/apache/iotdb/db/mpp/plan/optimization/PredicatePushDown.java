@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.analyze.ExpressionAnalyzer;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TransformNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+/**
+ * Push the query filter of a FilterNode down into the SeriesScanNode below it, so that chunks and
+ * pages can be pruned by their statistics and points are filtered while decoding.
+ *
+ * <p>The time part of the query filter has been pushed down into all the scans as the global time
+ * filter during logical planning. The whole query filter, including the value part, can only be
+ * pushed down when the FilterNode reads one non-aligned series: the value of a missing series in a
+ * TimeJoinNode row is null, which a tsfile filter on another series can not express.
+ */
+public class PredicatePushDown implements Rule {
+
+  @Override
+  public PlanNode apply(PlanNode node, MPPQueryContext context) {
+    if (!(node instanceof FilterNode)) {
+      return null;
+    }
+    FilterNode filterNode = (FilterNode) node;
+    PlanNode child = filterNode.getChildren().get(0);
+    if (!(child instanceof SeriesScanNode)) {
+      return null;
+    }
+    SeriesScanNode scanNode = (SeriesScanNode) child;
+    if (scanNode.getValueFilter() != null
+        || scanNode.getLimit() != 0
+        || scanNode.getOffset() != 0) {
+      return null;
+    }
+    Filter seriesFilter =
+        ExpressionAnalyzer.transformToSeriesFilter(
+            filterNode.getPredicate(), scanNode.getSeriesPath());
+    if (seriesFilter == null) {
+      return null;
+    }
+    scanNode.setValueFilter(seriesFilter);
+
+    Expression[] outputExpressions = filterNode.getOutputExpressions();
+    if (outputExpressions.length == 1 && outputExpressions[0] instanceof TimeSeriesOperand) {
+      return scanNode;
+    }
+    return new TransformNode(
+        context.getQueryId().genPlanNodeId(),
+        scanNode,
+        outputExpressions,
+        filterNode.isKeepNull(),
+        filterNode.getZoneId());
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+
+/**
+ * A rewrite rule of the logical query plan. A rule only looks at the node passed in and its
+ * descendants, the {@link RuleBasedOptimizer} takes care of visiting every node of the plan.
+ */
+public interface Rule {
+
+  /**
+   * Try to rewrite the given node.
+   *
+   * @return the rewritten node which replaces the given node in the plan, or null if the rule can
+   *     not be applied to the given node. A rule must return null once it has been applied, or the
+   *     optimizer will never stop.
+   */
+  PlanNode apply(PlanNode node, MPPQueryContext context);
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.WritePlanNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Optimize the logical plan by a list of {@link Rule}s. The plan is traversed bottom-up, and all
+ * the rules are applied to each node repeatedly until none of them can be applied any more, so
+ * that a rule can see the result of the other rules on the same node.
+ */
+public class RuleBasedOptimizer implements PlanOptimizer {
+
+  private final List<Rule> rules;
+
+  public RuleBasedOptimizer(List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  /** Build the optimizer with all the rules shipped with the query engine. */
+  public static RuleBasedOptimizer withDefaultRules(Analysis analysis) {
+    return new RuleBasedOptimizer(
+        Arrays.asList(
+            new PredicatePushDown(), new LimitOffsetPushDown(analysis), new TimeJoinPruning()));
+  }
+
+  @Override
+  public PlanNode optimize(PlanNode plan, MPPQueryContext context) {
+    return optimizeNode(plan, context);
+  }
+
+  private PlanNode optimizeNode(PlanNode node, MPPQueryContext context) {
+    if (node instanceof WritePlanNode) {
+      return node;
+    }
+    List<PlanNode> children = node.getChildren();
+    List<PlanNode> optimizedChildren = new ArrayList<>(children.size());
+    boolean childrenChanged = false;
+    for (PlanNode child : children) {
+      PlanNode optimizedChild = optimizeNode(child, context);
+      optimizedChildren.add(optimizedChild);
+      childrenChanged |= optimizedChild != child;
+    }
+    PlanNode result = childrenChanged ? node.cloneWithChildren(optimizedChildren) : node;
+
+    boolean applied = true;
+    while (applied) {
+      applied = false;
+      for (Rule rule : rules) {
+        PlanNode rewritten = rule.apply(result, context);
+        if (rewritten != null) {
+          result = rewritten;
+          applied = true;
+          break;
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remove the TimeJoinNode children which produce nothing, and the TimeJoinNodes which join nothing:
+ *
+ * <ul>
+ *   <li>a child TimeJoinNode with the same merge order is replaced by its children, so an empty
+ *       one is removed and the output columns are kept in the same order;
+ *   <li>a TimeJoinNode with only one child is replaced by the child.
+ * </ul>
+ *
+ * Children which only have no data in the query time range can not be removed, because their
+ * columns are still a part of the result header.
+ */
+public class TimeJoinPruning implements Rule {
+
+  @Override
+  public PlanNode apply(PlanNode node, MPPQueryContext context) {
+    if (!(node instanceof TimeJoinNode)) {
+      return null;
+    }
+    TimeJoinNode timeJoinNode = (TimeJoinNode) node;
+    List<PlanNode> children = timeJoinNode.getChildren();
+    if (children.size() == 1) {
+      return children.get(0);
+    }
+
+    boolean pruned = false;
+    List<PlanNode> newChildren = new ArrayList<>(children.size());
+    for (PlanNode child : children) {
+      if (child instanceof TimeJoinNode
+          && ((TimeJoinNode) child).getMergeOrder() == timeJoinNode.getMergeOrder()) {
+        newChildren.addAll(child.getChildren());
+        pruned = true;
+      } else {
+        newChildren.add(child);
+      }
+    }
+    return pruned
+        ? new TimeJoinNode(timeJoinNode.getPlanNodeId(), timeJoinNode.getMergeOrder(), newChildren)
+        : null;
+  }
+}
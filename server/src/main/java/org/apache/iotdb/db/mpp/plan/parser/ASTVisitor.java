@@ -64,9 +64,11 @@ import org.apache.iotdb.db.mpp.plan.statement.component.FromComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.GroupByLevelComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.GroupByTimeComponent;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.mpp.plan.statement.component.Ordering;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultSetFormat;
 import org.apache.iotdb.db.mpp.plan.statement.component.SelectComponent;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.component.WhereCondition;
 import org.apache.iotdb.db.mpp.plan.statement.crud.DeleteDataStatement;
 import org.apache.iotdb.db.mpp.plan.statement.crud.InsertStatement;
@@ -1189,6 +1191,33 @@ public class ASTVisitor extends IoTDBSqlParserBaseVisitor<Statement> {
     }
   }
 
+  // ORDER BY Clause
+
+  @Override
+  public Statement visitOrderByStatement(IoTDBSqlParser.OrderByStatementContext ctx) {
+    // parse ORDER BY
+    parseOrderByClause(ctx.orderByClause());
+
+    // parse others
+    if (ctx.specialLimit() != null) {
+      return visit(ctx.specialLimit());
+    }
+    return queryStatement;
+  }
+
+  // parse ORDER BY value columns
+  private void parseOrderByClause(IoTDBSqlParser.OrderByClauseContext ctx) {
+    List<SortItem> sortItems = new ArrayList<>();
+    for (IoTDBSqlParser.OrderByAttributeClauseContext attributeContext :
+        ctx.orderByAttributeClause()) {
+      sortItems.add(
+          new SortItem(
+              parseSuffixPath(attributeContext.suffixPath()).getFullPath(),
+              attributeContext.DESC() != null ? Ordering.DESC : Ordering.ASC));
+    }
+    queryStatement.setSortItems(sortItems);
+  }
+
   // ResultSetFormat Clause
 
   @Override
@@ -20,6 +20,8 @@ package org.apache.iotdb.db.mpp.plan.planner;
 
 import org.apache.iotdb.common.rpc.thrift.TEndPoint;
 import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.cache.DataNodeSchemaCache;
@@ -55,6 +57,7 @@ import org.apache.iotdb.db.mpp.execution.operator.process.OffsetOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.ProcessOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.RawDataAggregationOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.SlidingWindowAggregationOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.SortOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.TimeJoinOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.TransformOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.UpdateLastCacheOperator;
@@ -83,6 +86,7 @@ import org.apache.iotdb.db.mpp.execution.operator.process.merge.MultiColumnMerge
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.NonOverlappedMultiColumnMerger;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.SingleColumnMerger;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeComparator;
+import org.apache.iotdb.db.mpp.execution.operator.process.sort.RowComparator;
 import org.apache.iotdb.db.mpp.execution.operator.schema.CountMergeOperator;
 import org.apache.iotdb.db.mpp.execution.operator.schema.DevicesCountOperator;
 import org.apache.iotdb.db.mpp.execution.operator.schema.DevicesSchemaScanOperator;
@@ -153,6 +157,8 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.OutputColumn;
 import org.apache.iotdb.db.mpp.plan.statement.component.FillPolicy;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.mpp.plan.statement.component.Ordering;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.literal.Literal;
 import org.apache.iotdb.db.utils.datastructure.TimeSelector;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -164,6 +170,7 @@ import org.apache.iotdb.tsfile.read.filter.operator.GtEq;
 
 import org.apache.commons.lang3.Validate;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -264,7 +271,9 @@ public class LocalExecutionPlanner {
               operatorContext,
               node.getTimeFilter(),
               node.getValueFilter(),
-              ascending);
+              ascending,
+              node.getLimit(),
+              node.getOffset());
 
       context.addSourceOperator(seriesScanOperator);
       context.addPath(seriesPath);
@@ -290,7 +299,9 @@ public class LocalExecutionPlanner {
               operatorContext,
               node.getTimeFilter(),
               node.getValueFilter(),
-              ascending);
+              ascending,
+              node.getLimit(),
+              node.getOffset());
 
       context.addSourceOperator(seriesScanOperator);
       context.addPath(seriesPath);
@@ -988,7 +999,49 @@ public class LocalExecutionPlanner {
 
     @Override
     public Operator visitSort(SortNode node, LocalExecutionPlanContext context) {
-      return super.visitSort(node, context);
+      Operator child = node.getChild().accept(this, context);
+      OperatorContext operatorContext =
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(),
+              node.getPlanNodeId(),
+              SortOperator.class.getSimpleName());
+      List<TSDataType> dataTypes = getOutputColumnTypes(node, context.getTypeProvider());
+      List<Integer> sortColumnIndexes = new ArrayList<>();
+      List<Boolean> ascending = new ArrayList<>();
+      // value columns of ORDER BY come first, the order below breaks their ties
+      List<String> outputColumnNames = node.getOutputColumnNames();
+      for (SortItem sortItem : node.getSortItems()) {
+        int columnIndex = outputColumnNames.indexOf(sortItem.getSortKey());
+        checkArgument(
+            columnIndex >= 0, "sort key %s is not an output column", sortItem.getSortKey());
+        sortColumnIndexes.add(columnIndex);
+        ascending.add(sortItem.getOrdering() == Ordering.ASC);
+      }
+      switch (node.getSortOrder()) {
+        case DEVICE_ASC:
+        case DEVICE_DESC:
+          // device is the first value column in the result of align by device
+          sortColumnIndexes.add(0);
+          ascending.add(node.getSortOrder() == OrderBy.DEVICE_ASC);
+          sortColumnIndexes.add(RowComparator.TIME_COLUMN_INDEX);
+          ascending.add(true);
+          break;
+        case TIMESTAMP_ASC:
+        case TIMESTAMP_DESC:
+        default:
+          sortColumnIndexes.add(RowComparator.TIME_COLUMN_INDEX);
+          ascending.add(node.getSortOrder() != OrderBy.TIMESTAMP_DESC);
+          break;
+      }
+      IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+      return new SortOperator(
+          operatorContext,
+          child,
+          dataTypes,
+          new RowComparator(sortColumnIndexes, ascending, dataTypes),
+          DATA_BLOCK_MANAGER.getLocalMemoryManager().getQueryPool(),
+          config.getSortBufferSizeInBytes(),
+          config.getQueryDir() + File.separator + "sort");
     }
 
     @Override
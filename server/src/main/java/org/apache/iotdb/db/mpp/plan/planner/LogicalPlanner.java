@@ -174,6 +174,7 @@ public class LogicalPlanner {
           planBuilder
               .planFilterNull(analysis.getFilterNullParameter())
               .planFill(analysis.getFillDescriptor())
+              .planSort(analysis.getSortItems(), queryStatement.getResultOrder())
               .planOffset(queryStatement.getRowOffset())
               .planLimit(queryStatement.getRowLimit());
 
@@ -220,6 +220,9 @@ public class PlanGraphPrinter extends PlanVisitor<List<String>, PlanGraphPrinter
   public List<String> visitSort(SortNode node, GraphContext context) {
     List<String> boxValue = new ArrayList<>();
     boxValue.add(String.format("Sort-%s", node.getPlanNodeId().getId()));
+    if (!node.getSortItems().isEmpty()) {
+      boxValue.add(String.format("SortItems: %s", node.getSortItems()));
+    }
     boxValue.add(String.format("OrderBy: %s", node.getSortOrder()));
     return render(node, boxValue, context);
   }
@@ -23,6 +23,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeType;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 import com.google.common.collect.ImmutableList;
@@ -30,12 +31,15 @@ import com.google.common.collect.ImmutableList;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 /**
- * In general, the parameter in sortNode should be pushed down to the upstream operators. In our
- * optimized logical query plan, the sortNode should not appear.
+ * Sorts the rows of its child by the value columns of sortItems, then by time in sortOrder. If
+ * there is no sort item, the parameter in sortNode should be pushed down to the upstream operators,
+ * and in our optimized logical query plan, the sortNode should not appear.
  */
 public class SortNode extends ProcessNode {
 
@@ -43,8 +47,16 @@ public class SortNode extends ProcessNode {
 
   private final OrderBy sortOrder;
 
+  // sort keys of value columns, which refer to the output columns of child by name
+  private final List<SortItem> sortItems;
+
   public SortNode(PlanNodeId id, OrderBy sortOrder) {
+    this(id, Collections.emptyList(), sortOrder);
+  }
+
+  public SortNode(PlanNodeId id, List<SortItem> sortItems, OrderBy sortOrder) {
     super(id);
+    this.sortItems = sortItems;
     this.sortOrder = sortOrder;
   }
 
@@ -53,10 +65,23 @@ public class SortNode extends ProcessNode {
     this.child = child;
   }
 
+  public SortNode(PlanNodeId id, PlanNode child, List<SortItem> sortItems, OrderBy sortOrder) {
+    this(id, sortItems, sortOrder);
+    this.child = child;
+  }
+
+  public PlanNode getChild() {
+    return child;
+  }
+
   public OrderBy getSortOrder() {
     return sortOrder;
   }
 
+  public List<SortItem> getSortItems() {
+    return sortItems;
+  }
+
   @Override
   public List<PlanNode> getChildren() {
     return ImmutableList.of(child);
@@ -74,7 +99,7 @@ public class SortNode extends ProcessNode {
 
   @Override
   public PlanNode clone() {
-    return new SortNode(getPlanNodeId(), sortOrder);
+    return new SortNode(getPlanNodeId(), sortItems, sortOrder);
   }
 
   @Override
@@ -91,18 +116,31 @@ public class SortNode extends ProcessNode {
   protected void serializeAttributes(ByteBuffer byteBuffer) {
     PlanNodeType.SORT.serialize(byteBuffer);
     ReadWriteIOUtils.write(sortOrder.ordinal(), byteBuffer);
+    ReadWriteIOUtils.write(sortItems.size(), byteBuffer);
+    for (SortItem sortItem : sortItems) {
+      sortItem.serialize(byteBuffer);
+    }
   }
 
   @Override
   protected void serializeAttributes(DataOutputStream stream) throws IOException {
     PlanNodeType.SORT.serialize(stream);
     ReadWriteIOUtils.write(sortOrder.ordinal(), stream);
+    ReadWriteIOUtils.write(sortItems.size(), stream);
+    for (SortItem sortItem : sortItems) {
+      sortItem.serialize(stream);
+    }
   }
 
   public static SortNode deserialize(ByteBuffer byteBuffer) {
     OrderBy orderBy = OrderBy.values()[ReadWriteIOUtils.readInt(byteBuffer)];
+    int sortItemSize = ReadWriteIOUtils.readInt(byteBuffer);
+    List<SortItem> sortItems = new ArrayList<>(sortItemSize);
+    for (int i = 0; i < sortItemSize; i++) {
+      sortItems.add(SortItem.deserialize(byteBuffer));
+    }
     PlanNodeId planNodeId = PlanNodeId.deserialize(byteBuffer);
-    return new SortNode(planNodeId, orderBy);
+    return new SortNode(planNodeId, sortItems, orderBy);
   }
 
   @Override
@@ -117,11 +155,13 @@ public class SortNode extends ProcessNode {
       return false;
     }
     SortNode sortNode = (SortNode) o;
-    return child.equals(sortNode.child) && sortOrder == sortNode.sortOrder;
+    return child.equals(sortNode.child)
+        && sortOrder == sortNode.sortOrder
+        && sortItems.equals(sortNode.sortItems);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), child, sortOrder);
+    return Objects.hash(super.hashCode(), child, sortOrder, sortItems);
   }
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.statement.component;
+
+import org.apache.iotdb.db.mpp.plan.statement.StatementNode;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A sort key of {@code ORDER BY} clause. In the statement, the sort key is the path or alias
+ * written in the clause. After analysis, it is the name of the result column it refers to.
+ */
+public class SortItem extends StatementNode {
+
+  private final String sortKey;
+  private final Ordering ordering;
+
+  public SortItem(String sortKey, Ordering ordering) {
+    this.sortKey = sortKey;
+    this.ordering = ordering;
+  }
+
+  public String getSortKey() {
+    return sortKey;
+  }
+
+  public Ordering getOrdering() {
+    return ordering;
+  }
+
+  public void serialize(ByteBuffer byteBuffer) {
+    ReadWriteIOUtils.write(sortKey, byteBuffer);
+    ReadWriteIOUtils.write(ordering.ordinal(), byteBuffer);
+  }
+
+  public void serialize(DataOutputStream stream) throws IOException {
+    ReadWriteIOUtils.write(sortKey, stream);
+    ReadWriteIOUtils.write(ordering.ordinal(), stream);
+  }
+
+  public static SortItem deserialize(ByteBuffer byteBuffer) {
+    String sortKey = ReadWriteIOUtils.readString(byteBuffer);
+    Ordering ordering = Ordering.values()[ReadWriteIOUtils.readInt(byteBuffer)];
+    return new SortItem(sortKey, ordering);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SortItem sortItem = (SortItem) o;
+    return sortKey.equals(sortItem.sortKey) && ordering == sortItem.ordering;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(sortKey, ordering);
+  }
+
+  @Override
+  public String toString() {
+    return sortKey + " " + ordering;
+  }
+}
@@ -36,8 +36,10 @@ import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultColumn;
 import org.apache.iotdb.db.mpp.plan.statement.component.ResultSetFormat;
 import org.apache.iotdb.db.mpp.plan.statement.component.SelectComponent;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.mpp.plan.statement.component.WhereCondition;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -56,7 +58,7 @@ import java.util.List;
  *   <li>[LIMIT rowLimit] [OFFSET rowOffset]
  *   <li>[SLIMIT seriesLimit] [SOFFSET seriesOffset]
  *   <li>[WITHOUT NULL {ANY | ALL} [resultColumn [, resultColumn] ...]]
- *   <li>[ORDER BY TIME {ASC | DESC}]
+ *   <li>[ORDER BY TIME {ASC | DESC} | ORDER BY sortKey [ASC | DESC] [, sortKey [ASC | DESC]] ...]
  *   <li>[{ALIGN BY DEVICE | DISABLE ALIGN}]
  * </ul>
  */
@@ -82,6 +84,9 @@ public class QueryStatement extends Statement {
 
   protected OrderBy resultOrder = OrderBy.TIMESTAMP_ASC;
 
+  // sort keys of `ORDER BY` value columns, empty if the result is ordered by time
+  protected List<SortItem> sortItems = new ArrayList<>();
+
   protected ResultSetFormat resultSetFormat = ResultSetFormat.ALIGN_BY_TIME;
 
   // `GROUP BY TIME` clause
@@ -179,6 +184,18 @@ public class QueryStatement extends Statement {
     this.resultOrder = resultOrder;
   }
 
+  public List<SortItem> getSortItems() {
+    return sortItems;
+  }
+
+  public void setSortItems(List<SortItem> sortItems) {
+    this.sortItems = sortItems;
+  }
+
+  public boolean hasSortItems() {
+    return !sortItems.isEmpty();
+  }
+
   public ResultSetFormat getResultSetFormat() {
     return resultSetFormat;
   }
@@ -256,6 +273,10 @@ public class QueryStatement extends Statement {
       }
     }
 
+    if (hasSortItems() && disableAlign()) {
+      throw new SemanticException("Disable align cannot be applied to ORDER BY value columns.");
+    }
+
     if (isLastQuery()) {
       if (isAlignByDevice()) {
         throw new SemanticException("Last query doesn't support align by device.");
@@ -263,6 +284,9 @@ public class QueryStatement extends Statement {
       if (disableAlign()) {
         throw new SemanticException("Disable align cannot be applied to LAST query.");
       }
+      if (hasSortItems()) {
+        throw new SemanticException("Last query doesn't support ORDER BY value columns.");
+      }
       for (ResultColumn resultColumn : selectComponent.getResultColumns()) {
         Expression expression = resultColumn.getExpression();
         if (!(expression instanceof TimeSeriesOperand)) {
@@ -0,0 +1,719 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.protocol.mqtt.TabletPayloadFormatter.RowSink;
+import org.apache.iotdb.db.protocol.mqtt.TabletPayloadFormatter.ValueReader;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.query.control.SessionManager;
+import org.apache.iotdb.db.rescon.SystemInfo;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.CommonUtils;
+import org.apache.iotdb.db.utils.TypeInferenceUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * MessageBatcher coalesces the rows of mqtt messages into {@link InsertTabletPlan}s. Rows of the
+ * same session, device and measurements share a buffer, which is inserted as one tablet once it
+ * holds batch size rows or when the buffers are flushed periodically. The rows come either from
+ * {@link Message}s, or from a {@link TabletPayloadFormatter} through {@link #sink(long)}, which
+ * writes the values straight into the primitive columns of the buffer.
+ *
+ * <p>The data type of a column is the registered one of its series, and it is inferred from the
+ * first value only if the series does not exist yet, which is what inserting the rows one by one
+ * would do. Rows whose values can not be parsed as the column types are inserted as single rows.
+ * If a tablet fails to be inserted, its rows are inserted as single rows, restricted to the failed
+ * measurements if the others have been written by a partial insert.
+ *
+ * <p>A MessageBatcher is not thread-safe, each payload format thread owns one.
+ */
+class MessageBatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MessageBatcher.class);
+
+  private static final int INITIAL_BUFFER_CAPACITY = 16;
+
+  private final int batchSize;
+
+  private final Inserter inserter;
+
+  private final Map<BatchKey, TabletBuffer> buffers = new HashMap<>();
+
+  /** the buffer of the last row, which the following rows of a payload usually share */
+  private TabletBuffer lastBuffer;
+
+  private final StringValueReader stringValueReader = new StringValueReader();
+
+  // the row being written
+  private long rowSessionId;
+  private String rowDevice;
+  private List<String> rowMeasurements;
+  private long rowTime;
+  private TabletBuffer rowBuffer;
+  private int rowValueNum;
+  /** the values as strings if the row has to be inserted as a single row, otherwise null */
+  private List<String> rowFallbackValues;
+
+  MessageBatcher(int batchSize, Inserter inserter) {
+    this.batchSize = Math.max(1, batchSize);
+    this.inserter = inserter;
+  }
+
+  /** Buffer the message and insert its buffer if it is full. */
+  void add(long sessionId, Message message) {
+    if (!canBuffer(message)) {
+      insertRow(sessionId, message);
+      return;
+    }
+    beginRow(sessionId, message.getDevice(), message.getMeasurements(), message.getTimestamp());
+    try {
+      for (String value : message.getValues()) {
+        appendValue(stringValueReader.set(value));
+      }
+    } catch (IOException e) {
+      // never thrown, the values are read from the strings of the message
+      throw new UncheckedIOException(e);
+    }
+    endRow();
+  }
+
+  /** @return a sink buffering the rows of the session, a full buffer is inserted at once */
+  RowSink sink(long sessionId) {
+    return new RowSink() {
+      @Override
+      public void beginRow(String device, List<String> measurements, long time) {
+        MessageBatcher.this.beginRow(sessionId, device, measurements, time);
+      }
+
+      @Override
+      public void value(ValueReader reader) throws IOException {
+        appendValue(reader);
+      }
+
+      @Override
+      public void endRow() {
+        MessageBatcher.this.endRow();
+      }
+    };
+  }
+
+  /** Insert all buffered rows. */
+  void flushAll() {
+    lastBuffer = null;
+    for (TabletBuffer buffer : buffers.values()) {
+      insertTablet(buffer);
+    }
+    buffers.clear();
+  }
+
+  /** Insert the buffered rows of the session. */
+  void flush(long sessionId) {
+    lastBuffer = null;
+    Iterator<TabletBuffer> iterator = buffers.values().iterator();
+    while (iterator.hasNext()) {
+      TabletBuffer buffer = iterator.next();
+      if (buffer.key.sessionId == sessionId) {
+        iterator.remove();
+        insertTablet(buffer);
+      }
+    }
+  }
+
+  private void beginRow(long sessionId, String device, List<String> measurements, long time) {
+    rowSessionId = sessionId;
+    rowDevice = device;
+    rowMeasurements = measurements;
+    rowTime = time;
+    rowValueNum = 0;
+    rowFallbackValues = null;
+    rowBuffer = batchSize == 1 ? null : getBuffer(sessionId, device, measurements);
+    if (rowBuffer == null) {
+      rowFallbackValues = new ArrayList<>();
+    } else {
+      rowBuffer.ensureCapacity(batchSize);
+    }
+  }
+
+  private void appendValue(ValueReader reader) throws IOException {
+    int column = rowValueNum++;
+    if (rowFallbackValues == null) {
+      if (column < rowBuffer.dataTypes.length && rowBuffer.setValue(column, reader)) {
+        return;
+      }
+      rowFallbackValues = rowBuffer.getStrings(column);
+      // the value has been read as a string if it can not be parsed
+      rowFallbackValues.add(
+          column < rowBuffer.dataTypes.length ? rowBuffer.lastString : reader.readString());
+      return;
+    }
+    rowFallbackValues.add(reader.readString());
+  }
+
+  private void endRow() {
+    if (rowFallbackValues == null && rowValueNum < rowBuffer.dataTypes.length) {
+      rowFallbackValues = rowBuffer.getStrings(rowValueNum);
+    }
+    if (rowFallbackValues != null) {
+      Message message = new Message();
+      message.setDevice(rowDevice);
+      message.setTimestamp(rowTime);
+      message.setMeasurements(rowMeasurements);
+      message.setValues(rowFallbackValues);
+      rowFallbackValues = null;
+      insertRow(rowSessionId, message);
+      return;
+    }
+
+    TabletBuffer buffer = rowBuffer;
+    buffer.appendTime(rowTime);
+    if (buffer.rowCount >= batchSize) {
+      buffers.remove(buffer.key);
+      lastBuffer = null;
+      insertTablet(buffer);
+    }
+  }
+
+  /** @return null if the rows can not be buffered, e.g., the schema can not be read */
+  private TabletBuffer getBuffer(long sessionId, String device, List<String> measurements) {
+    if (lastBuffer != null && lastBuffer.key.matches(sessionId, device, measurements)) {
+      return lastBuffer;
+    }
+    if (device == null || measurements == null) {
+      return null;
+    }
+    BatchKey key = new BatchKey(sessionId, device, measurements);
+    TabletBuffer buffer = buffers.get(key);
+    if (buffer == null) {
+      try {
+        buffer = new TabletBuffer(key, getRegisteredDataTypes(key));
+      } catch (MetadataException e) {
+        LOG.debug("fail to get the schema of device {}, insert its rows one by one", device, e);
+        return null;
+      }
+      buffers.put(key, buffer);
+    }
+    lastBuffer = buffer;
+    return buffer;
+  }
+
+  /** @return the registered data types of the series, null for the ones that do not exist */
+  private TSDataType[] getRegisteredDataTypes(BatchKey key) throws MetadataException {
+    PartialPath devicePath = new PartialPath(key.device);
+    TSDataType[] dataTypes = new TSDataType[key.measurements.size()];
+    for (int i = 0; i < dataTypes.length; i++) {
+      dataTypes[i] = inserter.getSeriesType(devicePath.concatNode(key.measurements.get(i)));
+    }
+    return dataTypes;
+  }
+
+  private void insertTablet(TabletBuffer buffer) {
+    if (buffer.rowCount == 0) {
+      return;
+    }
+    waitWhileRejected();
+    BatchKey key = buffer.key;
+    InsertTabletPlan plan;
+    try {
+      buffer.sortAndTrim();
+      plan = new InsertTabletPlan(new PartialPath(key.device), buffer.getMeasurements());
+      plan.setTimes(buffer.times);
+      // the plan nulls the columns of the failed measurements, the buffer keeps them for retries
+      plan.setColumns(buffer.columns.clone());
+      plan.setDataTypes(buffer.dataTypes.clone());
+      plan.setRowCount(buffer.rowCount);
+    } catch (Exception e) {
+      LOG.warn("fail to construct a tablet of device {}, because ", key.device, e);
+      return;
+    }
+
+    TSStatus tsStatus = inserter.checkAuthority(plan, key.sessionId);
+    if (tsStatus != null) {
+      LOG.warn(tsStatus.message);
+      return;
+    }
+    try {
+      if (inserter.executeNonQuery(plan)) {
+        return;
+      }
+    } catch (Exception e) {
+      LOG.debug(
+          "fail to insert {} rows of device {} as a tablet, insert them row by row, because ",
+          buffer.rowCount,
+          key.device,
+          e);
+    }
+    // with partial insert the other measurements have been written, so only retry the failed ones
+    insertRows(buffer, plan.getFailedMeasurements());
+  }
+
+  /**
+   * Insert the rows of the buffer one by one, in the data types of the buffer.
+   *
+   * @param measurements only insert the values of these measurements, or all if it is null
+   */
+  private void insertRows(TabletBuffer buffer, List<String> measurements) {
+    List<Integer> columns = new ArrayList<>();
+    for (int i = 0; i < buffer.dataTypes.length; i++) {
+      if (measurements == null || measurements.contains(buffer.key.measurements.get(i))) {
+        columns.add(i);
+      }
+    }
+    String[] rowMeasurements = new String[columns.size()];
+    TSDataType[] rowDataTypes = new TSDataType[columns.size()];
+    for (int i = 0; i < rowMeasurements.length; i++) {
+      rowMeasurements[i] = buffer.key.measurements.get(columns.get(i));
+      rowDataTypes[i] = buffer.dataTypes[columns.get(i)];
+    }
+
+    for (int row = 0; row < buffer.rowCount; row++) {
+      boolean status = false;
+      try {
+        Object[] values = new Object[rowMeasurements.length];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = buffer.getValue(columns.get(i), row);
+        }
+        InsertRowPlan plan = new InsertRowPlan();
+        plan.setDevicePath(new PartialPath(buffer.key.device));
+        plan.setTime(buffer.times[row]);
+        plan.setMeasurements(rowMeasurements.clone());
+        plan.setDataTypes(rowDataTypes.clone());
+        plan.setValues(values);
+        plan.setNeedInferType(false);
+        TSStatus tsStatus = inserter.checkAuthority(plan, buffer.key.sessionId);
+        if (tsStatus != null) {
+          LOG.warn(tsStatus.message);
+        } else {
+          status = inserter.executeNonQuery(plan);
+        }
+      } catch (Exception e) {
+        LOG.warn(
+            "meet error when inserting device {}, measurements {}, at time {}, because ",
+            buffer.key.device,
+            rowMeasurements,
+            buffer.times[row],
+            e);
+      }
+      LOG.debug("event process result: {}", status);
+    }
+  }
+
+  /** Insert the message as a single row, the data types are inferred by the server. */
+  private void insertRow(long sessionId, Message message) {
+    boolean status = false;
+    try {
+      PartialPath path = new PartialPath(message.getDevice());
+      InsertRowPlan plan =
+          new InsertRowPlan(
+              path,
+              message.getTimestamp(),
+              message.getMeasurements().toArray(new String[0]),
+              message.getValues().toArray(new String[0]));
+      TSStatus tsStatus = inserter.checkAuthority(plan, sessionId);
+      if (tsStatus != null) {
+        LOG.warn(tsStatus.message);
+      } else {
+        status = inserter.executeNonQuery(plan);
+      }
+    } catch (Exception e) {
+      LOG.warn(
+          "meet error when inserting device {}, measurements {}, at time {}, because ",
+          message.getDevice(),
+          message.getMeasurements(),
+          message.getTimestamp(),
+          e);
+    }
+
+    LOG.debug("event process result: {}", status);
+  }
+
+  /**
+   * Block the pipeline instead of failing the insertions while the system rejects writes, so that
+   * the broker stops reading from the clients once the pending messages reach the limit.
+   */
+  private static void waitWhileRejected() {
+    long checkPeriod = IoTDBDescriptor.getInstance().getConfig().getCheckPeriodWhenInsertBlocked();
+    while (SystemInfo.getInstance().isRejected()) {
+      try {
+        Thread.sleep(checkPeriod);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /** @return false if the message can not be buffered, e.g., some values are null */
+  private static boolean canBuffer(Message message) {
+    List<String> measurements = message.getMeasurements();
+    List<String> values = message.getValues();
+    if (message.getTimestamp() == null
+        || measurements == null
+        || values == null
+        || measurements.size() != values.size()) {
+      return false;
+    }
+    for (String value : values) {
+      if (value == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Object createColumn(TSDataType dataType, int capacity) {
+    if (dataType == null) {
+      return null;
+    }
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[capacity];
+      case INT32:
+        return new int[capacity];
+      case INT64:
+        return new long[capacity];
+      case FLOAT:
+        return new float[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      case TEXT:
+        return new Binary[capacity];
+      default:
+        throw new UnsupportedOperationException("Unsupported data type:" + dataType);
+    }
+  }
+
+  /** The rows of one key, kept in primitive columns of the data types of the series. */
+  private static class TabletBuffer {
+
+    private final BatchKey key;
+    /** null for a series that does not exist, until it is inferred from the first value */
+    private final TSDataType[] dataTypes;
+
+    private long[] times;
+    private Object[] columns;
+    private int rowCount;
+    private boolean sorted = true;
+
+    /** the value last read as a string by {@link #setValue}, if it can not be parsed */
+    private String lastString;
+
+    private TabletBuffer(BatchKey key, TSDataType[] dataTypes) {
+      this.key = key;
+      this.dataTypes = dataTypes;
+      this.times = new long[0];
+      this.columns = new Object[dataTypes.length];
+    }
+
+    private void ensureCapacity(int batchSize) {
+      if (rowCount < times.length) {
+        return;
+      }
+      int capacity = Math.min(batchSize, Math.max(INITIAL_BUFFER_CAPACITY, times.length * 2));
+      times = Arrays.copyOf(times, capacity);
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = copyColumn(dataTypes[i], columns[i], rowCount, capacity);
+      }
+    }
+
+    /**
+     * Write the value of the row being appended.
+     *
+     * @return false if the value can not be parsed as the data type of the column
+     */
+    private boolean setValue(int column, ValueReader reader) throws IOException {
+      TSDataType dataType = dataTypes[column];
+      if (dataType == null) {
+        return inferAndSetValue(column, reader);
+      }
+      try {
+        switch (dataType) {
+          case BOOLEAN:
+            ((boolean[]) columns[column])[rowCount] = reader.readBoolean();
+            return true;
+          case INT32:
+            long value = reader.readLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+              lastString = Long.toString(value);
+              return false;
+            }
+            ((int[]) columns[column])[rowCount] = (int) value;
+            return true;
+          case INT64:
+            ((long[]) columns[column])[rowCount] = reader.readLong();
+            return true;
+          case FLOAT:
+            ((float[]) columns[column])[rowCount] = reader.readFloat();
+            return true;
+          case DOUBLE:
+            ((double[]) columns[column])[rowCount] = reader.readDouble();
+            return true;
+          case TEXT:
+            String text = reader.readString();
+            if (text == null) {
+              lastString = null;
+              return false;
+            }
+            ((Binary[]) columns[column])[rowCount] = Binary.valueOf(text);
+            return true;
+          default:
+            lastString = reader.readString();
+            return false;
+        }
+      } catch (NumberFormatException | IllegalStateException e) {
+        // the typed read leaves the value unread, parse it the way a single row does
+        return parseAndSetValue(column, dataType, reader.readString());
+      }
+    }
+
+    private boolean inferAndSetValue(int column, ValueReader reader) throws IOException {
+      String value = reader.readString();
+      TSDataType dataType =
+          value == null ? null : TypeInferenceUtils.getPredictedDataType(value, true);
+      if (dataType == null) {
+        lastString = value;
+        return false;
+      }
+      dataTypes[column] = dataType;
+      columns[column] = createColumn(dataType, times.length);
+      if (parseAndSetValue(column, dataType, value)) {
+        return true;
+      }
+      dataTypes[column] = null;
+      columns[column] = null;
+      return false;
+    }
+
+    private boolean parseAndSetValue(int column, TSDataType dataType, String value) {
+      lastString = value;
+      if (value == null) {
+        return false;
+      }
+      Object parsed;
+      try {
+        parsed = CommonUtils.parseValue(dataType, value);
+      } catch (Exception e) {
+        return false;
+      }
+      switch (dataType) {
+        case BOOLEAN:
+          ((boolean[]) columns[column])[rowCount] = (Boolean) parsed;
+          return true;
+        case INT32:
+          ((int[]) columns[column])[rowCount] = (Integer) parsed;
+          return true;
+        case INT64:
+          ((long[]) columns[column])[rowCount] = (Long) parsed;
+          return true;
+        case FLOAT:
+          ((float[]) columns[column])[rowCount] = (Float) parsed;
+          return true;
+        case DOUBLE:
+          ((double[]) columns[column])[rowCount] = (Double) parsed;
+          return true;
+        case TEXT:
+          ((Binary[]) columns[column])[rowCount] = (Binary) parsed;
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    /** Commit the row being appended. */
+    private void appendTime(long time) {
+      if (rowCount > 0 && time < times[rowCount - 1]) {
+        sorted = false;
+      }
+      times[rowCount++] = time;
+    }
+
+    /** @return the first values of the row being appended as strings */
+    private List<String> getStrings(int valueNum) {
+      List<String> strings = new ArrayList<>(dataTypes.length);
+      for (int i = 0; i < valueNum; i++) {
+        Object value = getValue(i, rowCount);
+        strings.add(
+            value instanceof Binary ? ((Binary) value).getStringValue() : String.valueOf(value));
+      }
+      return strings;
+    }
+
+    private Object getValue(int column, int row) {
+      switch (dataTypes[column]) {
+        case BOOLEAN:
+          return ((boolean[]) columns[column])[row];
+        case INT32:
+          return ((int[]) columns[column])[row];
+        case INT64:
+          return ((long[]) columns[column])[row];
+        case FLOAT:
+          return ((float[]) columns[column])[row];
+        case DOUBLE:
+          return ((double[]) columns[column])[row];
+        default:
+          return ((Binary[]) columns[column])[row];
+      }
+    }
+
+    private String[] getMeasurements() {
+      return key.measurements.toArray(new String[0]);
+    }
+
+    /** Sort the rows by time as a tablet requires, and cut the columns to the row count. */
+    private void sortAndTrim() {
+      if (sorted) {
+        if (rowCount < times.length) {
+          times = Arrays.copyOf(times, rowCount);
+          for (int i = 0; i < columns.length; i++) {
+            columns[i] = copyColumn(dataTypes[i], columns[i], rowCount, rowCount);
+          }
+        }
+        return;
+      }
+      // a stable sort keeps the later one of the rows with the same time behind
+      Integer[] order = new Integer[rowCount];
+      for (int i = 0; i < rowCount; i++) {
+        order[i] = i;
+      }
+      long[] unsortedTimes = times;
+      Arrays.sort(order, Comparator.comparingLong(i -> unsortedTimes[i]));
+      times = new long[rowCount];
+      for (int i = 0; i < rowCount; i++) {
+        times[i] = unsortedTimes[order[i]];
+      }
+      for (int i = 0; i < columns.length; i++) {
+        Object sortedColumn = createColumn(dataTypes[i], rowCount);
+        for (int row = 0; row < rowCount; row++) {
+          System.arraycopy(columns[i], order[row], sortedColumn, row, 1);
+        }
+        columns[i] = sortedColumn;
+      }
+      sorted = true;
+    }
+
+    private static Object copyColumn(
+        TSDataType dataType, Object column, int length, int capacity) {
+      Object copy = createColumn(dataType, capacity);
+      if (copy != null) {
+        System.arraycopy(column, 0, copy, 0, length);
+      }
+      return copy;
+    }
+  }
+
+  /** Rows of the same key can be inserted as one tablet. */
+  private static class BatchKey {
+
+    private final long sessionId;
+    private final String device;
+    private final List<String> measurements;
+    private final int hashCode;
+
+    private BatchKey(long sessionId, String device, List<String> measurements) {
+      this.sessionId = sessionId;
+      this.device = device;
+      this.measurements = measurements;
+      this.hashCode = Objects.hash(sessionId, device, measurements);
+    }
+
+    /** Compare without building a key, the rows of a payload usually share the same objects. */
+    private boolean matches(long sessionId, String device, List<String> measurements) {
+      return this.sessionId == sessionId
+          && (this.device == device || this.device.equals(device))
+          && (this.measurements == measurements || this.measurements.equals(measurements));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      BatchKey that = (BatchKey) o;
+      return matches(that.sessionId, that.device, that.measurements);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** Where the batcher looks up the schema and executes the plans. */
+  interface Inserter {
+
+    /** @return the registered data type of the series, or null if it does not exist */
+    TSDataType getSeriesType(PartialPath path) throws MetadataException;
+
+    /** @return null if the session is allowed to execute the plan, or the status of the failure */
+    TSStatus checkAuthority(InsertPlan plan, long sessionId);
+
+    boolean executeNonQuery(InsertPlan plan)
+        throws QueryProcessException, StorageGroupNotSetException, StorageEngineException;
+  }
+
+  /** Inserts into the local storage engine. */
+  static class LocalInserter implements Inserter {
+
+    private final SessionManager sessionManager = SessionManager.getInstance();
+
+    @Override
+    public TSDataType getSeriesType(PartialPath path) throws MetadataException {
+      return IoTDB.schemaProcessor.isPathExist(path)
+          ? IoTDB.schemaProcessor.getSeriesType(path)
+          : null;
+    }
+
+    @Override
+    public TSStatus checkAuthority(InsertPlan plan, long sessionId) {
+      return sessionManager.checkAuthority(plan, sessionId);
+    }
+
+    @Override
+    public boolean executeNonQuery(InsertPlan plan)
+        throws QueryProcessException, StorageGroupNotSetException, StorageEngineException {
+      return IoTDB.serviceProvider.executeNonQuery(plan);
+    }
+  }
+}
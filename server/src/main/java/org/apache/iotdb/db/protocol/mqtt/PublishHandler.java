@@ -17,12 +17,13 @@
  */
 package org.apache.iotdb.db.protocol.mqtt;
 
-import org.apache.iotdb.common.rpc.thrift.TSStatus;
-import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
+import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
-import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.query.control.SessionManager;
-import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.service.basic.BasicOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 
@@ -38,8 +39,22 @@ import org.slf4j.LoggerFactory;
 
 import java.time.ZoneId;
 import java.util.List;
-
-/** PublishHandler handle the messages from MQTT clients. */
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PublishHandler handle the messages from MQTT clients. The payloads are formatted by format
+ * threads, and the messages of a client are always handled by the same thread to keep their
+ * order. Each format thread coalesces the formatted rows into tablets by its own {@link
+ * MessageBatcher}, which a {@link TabletPayloadFormatter} writes the values to directly. Once the
+ * number of pending messages reaches the limit, the broker threads are blocked until some are
+ * handled.
+ */
 public class PublishHandler extends AbstractInterceptHandler {
 
   private final SessionManager SESSION_MANAGER = SessionManager.getInstance();
@@ -49,12 +64,47 @@ public class PublishHandler extends AbstractInterceptHandler {
 
   private final PayloadFormatter payloadFormat;
 
+  private final ExecutorService[] formatThreads;
+  private final ScheduledExecutorService batchFlushThread;
+  private final Semaphore pendingMessages;
+  /** the batcher of each format thread, only used in its thread */
+  private final MessageBatcher[] batchers;
+
   public PublishHandler(IoTDBConfig config) {
-    this.payloadFormat = PayloadFormatManager.getPayloadFormat(config.getMqttPayloadFormatter());
+    this(PayloadFormatManager.getPayloadFormat(config.getMqttPayloadFormatter()), config);
   }
 
   protected PublishHandler(PayloadFormatter payloadFormat) {
+    this(payloadFormat, IoTDBDescriptor.getInstance().getConfig());
+  }
+
+  private PublishHandler(PayloadFormatter payloadFormat, IoTDBConfig config) {
+    this(payloadFormat, config, new MessageBatcher.LocalInserter());
+  }
+
+  @TestOnly
+  PublishHandler(
+      PayloadFormatter payloadFormat, IoTDBConfig config, MessageBatcher.Inserter inserter) {
     this.payloadFormat = payloadFormat;
+    this.formatThreads = new ExecutorService[Math.max(1, config.getMqttPayloadFormatThreadNum())];
+    this.batchers = new MessageBatcher[formatThreads.length];
+    for (int i = 0; i < formatThreads.length; i++) {
+      formatThreads[i] =
+          IoTDBThreadPoolFactory.newSingleThreadExecutor(
+              ThreadName.MQTT_PAYLOAD_FORMAT.getName() + "-" + i);
+      batchers[i] = new MessageBatcher(config.getMqttInsertBatchSize(), inserter);
+    }
+    this.pendingMessages = new Semaphore(Math.max(1, config.getMqttMaxPendingMessageNum()));
+    this.batchFlushThread =
+        IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+            ThreadName.MQTT_BATCH_FLUSH.getName());
+    long batchInterval = Math.max(1, config.getMqttInsertBatchIntervalInMs());
+    ScheduledExecutorUtil.safelyScheduleAtFixedRate(
+        batchFlushThread,
+        this::flushInFormatThreads,
+        batchInterval,
+        batchInterval,
+        TimeUnit.MILLISECONDS);
   }
 
   @Override
@@ -79,7 +129,17 @@ public class PublishHandler extends AbstractInterceptHandler {
 
   @Override
   public void onDisconnect(InterceptDisconnectMessage msg) {
-    SESSION_MANAGER.closeSession(sessionId);
+    long currentSessionId = sessionId;
+    // insert the rows of the session after its pending messages, in the thread of its batcher
+    int index = getFormatThreadIndex(msg.getClientID());
+    try {
+      formatThreads[index].submit(() -> batchers[index].flush(currentSessionId)).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | RejectedExecutionException e) {
+      LOG.warn("meet error when inserting the buffered rows of the session", e);
+    }
+    SESSION_MANAGER.closeSession(currentSessionId);
   }
 
   @Override
@@ -98,43 +158,97 @@ public class PublishHandler extends AbstractInterceptHandler {
         topic,
         payload);
 
-    List<Message> events = payloadFormat.format(payload);
+    long currentSessionId = sessionId;
+    try {
+      pendingMessages.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOG.warn("interrupted when waiting for pending messages, drop the message of {}", clientId);
+      return;
+    }
+    // the broker releases the payload once this method returns
+    payload.retain();
+    int index = getFormatThreadIndex(clientId);
+    try {
+      formatThreads[index].execute(
+          () -> {
+            try {
+              handlePayload(batchers[index], currentSessionId, payload);
+            } finally {
+              payload.release();
+              pendingMessages.release();
+            }
+          });
+    } catch (RuntimeException e) {
+      payload.release();
+      pendingMessages.release();
+      LOG.warn("fail to handle the message of {}, because ", clientId, e);
+    }
+  }
+
+  private void handlePayload(MessageBatcher batcher, long sessionId, ByteBuf payload) {
+    if (payloadFormat instanceof TabletPayloadFormatter) {
+      try {
+        ((TabletPayloadFormatter) payloadFormat).format(payload, batcher.sink(sessionId));
+      } catch (Exception e) {
+        LOG.warn("meet error when formatting payload {}, because ", payload, e);
+      }
+      return;
+    }
+
+    List<Message> events;
+    try {
+      events = payloadFormat.format(payload);
+    } catch (Exception e) {
+      LOG.warn("meet error when formatting payload {}, because ", payload, e);
+      return;
+    }
     if (events == null) {
       return;
     }
 
-    // since device ids from messages maybe different, so we use the InsertPlan not
-    // InsertTabletPlan.
     for (Message event : events) {
       if (event == null) {
         continue;
       }
+      batcher.add(sessionId, event);
+    }
+  }
+
+  private int getFormatThreadIndex(String clientId) {
+    return Math.floorMod(Objects.hashCode(clientId), formatThreads.length);
+  }
 
-      boolean status = false;
+  /** Insert the buffered rows of each batcher in its own thread, in parallel with the others. */
+  private void flushInFormatThreads() {
+    for (int i = 0; i < formatThreads.length; i++) {
+      MessageBatcher batcher = batchers[i];
       try {
-        PartialPath path = new PartialPath(event.getDevice());
-        InsertRowPlan plan =
-            new InsertRowPlan(
-                path,
-                event.getTimestamp(),
-                event.getMeasurements().toArray(new String[0]),
-                event.getValues().toArray(new String[0]));
-        TSStatus tsStatus = SESSION_MANAGER.checkAuthority(plan, sessionId);
-        if (tsStatus != null) {
-          LOG.warn(tsStatus.message);
-        } else {
-          status = IoTDB.serviceProvider.executeNonQuery(plan);
-        }
-      } catch (Exception e) {
-        LOG.warn(
-            "meet error when inserting device {}, measurements {}, at time {}, because ",
-            event.getDevice(),
-            event.getMeasurements(),
-            event.getTimestamp(),
-            e);
+        formatThreads[i].execute(batcher::flushAll);
+      } catch (RejectedExecutionException e) {
+        // the handler is being stopped, which inserts the rows itself
       }
+    }
+  }
 
-      LOG.debug("event process result: {}", status);
+  /** Insert all buffered rows and stop the threads of the handler. */
+  public void stop() {
+    batchFlushThread.shutdownNow();
+    for (ExecutorService formatThread : formatThreads) {
+      formatThread.shutdown();
+    }
+    for (ExecutorService formatThread : formatThreads) {
+      try {
+        if (!formatThread.awaitTermination(1, TimeUnit.MINUTES)) {
+          LOG.warn("Waiting for the mqtt payload format threads to finish timed out");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    // the format threads have terminated, so the batchers can be used in this thread
+    for (MessageBatcher batcher : batchers) {
+      batcher.flushAll();
     }
   }
 }
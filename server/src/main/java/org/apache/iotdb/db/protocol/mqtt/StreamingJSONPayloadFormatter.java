@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The streaming JSON payload formatter, which accepts the same formats as {@link
+ * JSONPayloadFormatter}. Instead of decoding the payload into a string and building a JSON tree, it
+ * pulls the tokens from the bytes of the payload once. The values are written to the {@link
+ * RowSink} as they are read, in the types the sink asks for, and the device and measurements of an
+ * object are shared by all of its rows. So a row of the batch format needs no allocation besides
+ * its text values and what the JSON reader buffers to parse a fractional number.
+ *
+ * <p>The values of an object are only streamed if its device, measurements and timestamps come
+ * before them, otherwise they are kept as strings until the end of the object.
+ */
+public class StreamingJSONPayloadFormatter implements TabletPayloadFormatter {
+  private static final String JSON_KEY_DEVICE = "device";
+  private static final String JSON_KEY_TIMESTAMP = "timestamp";
+  private static final String JSON_KEY_TIMESTAMPS = "timestamps";
+  private static final String JSON_KEY_MEASUREMENTS = "measurements";
+  private static final String JSON_KEY_VALUES = "values";
+
+  @Override
+  public List<Message> format(ByteBuf payload) {
+    if (payload == null) {
+      return null;
+    }
+    MessageCollector collector = new MessageCollector();
+    format(payload, collector);
+    return collector.messages;
+  }
+
+  @Override
+  public void format(ByteBuf payload, RowSink sink) {
+    if (payload == null) {
+      return;
+    }
+    // read a duplicate so that the reader index of the payload is left untouched
+    ByteBufInputStream in = new ByteBufInputStream(payload.duplicate());
+    try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      // the same as Gson#fromJson used by JSONPayloadFormatter
+      reader.setLenient(true);
+      ObjectReader objectReader = new ObjectReader(reader, sink);
+      if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          objectReader.read(true);
+        }
+        reader.endArray();
+      } else {
+        objectReader.read(false);
+      }
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new JsonParseException("payload is invalidate", e);
+    }
+  }
+
+  /** Reads the json objects of a payload and writes their rows to the sink. */
+  private static class ObjectReader implements ValueReader {
+
+    private final JsonReader reader;
+    private final RowSink sink;
+    private final StringValueReader stringValueReader = new StringValueReader();
+
+    /** whether the sink has read the current value */
+    private boolean valueRead;
+
+    private String device;
+    private boolean hasTimestamp;
+    private long timestamp;
+    private long[] timestamps = new long[16];
+    private int timestampNum;
+    private List<String> measurements;
+
+    private ObjectReader(JsonReader reader, RowSink sink) {
+      this.reader = reader;
+      this.sink = sink;
+    }
+
+    /**
+     * Read one json object and write its rows.
+     *
+     * @param lenient whether an object with neither timestamp nor timestamps is skipped silently
+     */
+    private void read(boolean lenient) throws IOException {
+      device = null;
+      hasTimestamp = false;
+      timestampNum = -1;
+      measurements = null;
+      boolean valuesWritten = false;
+      // values read before the other keys, a list of values for the single format and a list of
+      // lists for the batch format
+      List<Object> values = null;
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case JSON_KEY_DEVICE:
+            device = StreamingJSONPayloadFormatter.readString(reader);
+            break;
+          case JSON_KEY_TIMESTAMP:
+            timestamp = reader.nextLong();
+            hasTimestamp = true;
+            break;
+          case JSON_KEY_TIMESTAMPS:
+            readTimestamps();
+            break;
+          case JSON_KEY_MEASUREMENTS:
+            measurements = readStrings(reader);
+            break;
+          case JSON_KEY_VALUES:
+            if (device != null
+                && measurements != null
+                && (hasTimestamp || timestampNum >= 0)
+                && reader.peek() == JsonToken.BEGIN_ARRAY) {
+              writeValues();
+              valuesWritten = true;
+            } else {
+              values = readValues(reader);
+            }
+            break;
+          default:
+            reader.skipValue();
+            break;
+        }
+      }
+      reader.endObject();
+
+      if (valuesWritten) {
+        return;
+      }
+      if (hasTimestamp) {
+        writeRow(timestamp, castToStrings(values));
+      } else if (timestampNum >= 0) {
+        if (values == null || values.size() < timestampNum) {
+          throw new JsonParseException("the number of values is less than the timestamps");
+        }
+        for (int i = 0; i < timestampNum; i++) {
+          writeRow(timestamps[i], castToStrings(values.get(i)));
+        }
+      } else if (!lenient) {
+        throw new JsonParseException("payload is invalidate");
+      }
+    }
+
+    private void readTimestamps() throws IOException {
+      timestampNum = 0;
+      reader.beginArray();
+      while (reader.hasNext()) {
+        if (timestampNum == timestamps.length) {
+          timestamps = Arrays.copyOf(timestamps, timestamps.length * 2);
+        }
+        timestamps[timestampNum++] = reader.nextLong();
+      }
+      reader.endArray();
+    }
+
+    /** Stream the values to the sink, the timestamp is preferred to the timestamps. */
+    private void writeValues() throws IOException {
+      reader.beginArray();
+      if (hasTimestamp) {
+        sink.beginRow(device, measurements, timestamp);
+        writeRowValues();
+        sink.endRow();
+      } else {
+        int row = 0;
+        while (reader.hasNext()) {
+          if (row == timestampNum) {
+            reader.skipValue();
+            continue;
+          }
+          sink.beginRow(device, measurements, timestamps[row++]);
+          reader.beginArray();
+          writeRowValues();
+          reader.endArray();
+          sink.endRow();
+        }
+        if (row < timestampNum) {
+          throw new JsonParseException("the number of values is less than the timestamps");
+        }
+      }
+      reader.endArray();
+    }
+
+    private void writeRowValues() throws IOException {
+      while (reader.hasNext()) {
+        valueRead = false;
+        sink.value(this);
+        if (!valueRead) {
+          reader.skipValue();
+        }
+      }
+    }
+
+    private void writeRow(long time, List<String> values) throws IOException {
+      sink.beginRow(device, measurements, time);
+      if (values != null) {
+        for (String value : values) {
+          sink.value(stringValueReader.set(value));
+        }
+      }
+      sink.endRow();
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+      boolean value = reader.nextBoolean();
+      valueRead = true;
+      return value;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      long value = reader.nextLong();
+      valueRead = true;
+      return value;
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+      if (reader.peek() != JsonToken.NUMBER) {
+        throw new IllegalStateException("Expected a number but was " + reader.peek());
+      }
+      // parse the literal itself, rounding it through a double may give another float
+      float value = Float.parseFloat(reader.nextString());
+      valueRead = true;
+      return value;
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+      double value = reader.nextDouble();
+      valueRead = true;
+      return value;
+    }
+
+    @Override
+    public String readString() throws IOException {
+      String value = StreamingJSONPayloadFormatter.readString(reader);
+      valueRead = true;
+      return value;
+    }
+  }
+
+  /** Collects the rows as messages, the values are kept as they are written in the payload. */
+  private static class MessageCollector implements RowSink {
+
+    private final List<Message> messages = new ArrayList<>();
+    private Message message;
+
+    @Override
+    public void beginRow(String device, List<String> measurements, long time) {
+      message = new Message();
+      message.setDevice(device);
+      message.setTimestamp(time);
+      message.setMeasurements(measurements);
+      message.setValues(new ArrayList<>());
+    }
+
+    @Override
+    public void value(ValueReader reader) throws IOException {
+      message.getValues().add(reader.readString());
+    }
+
+    @Override
+    public void endRow() {
+      messages.add(message);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> castToStrings(Object values) {
+    if (values != null && !(values instanceof List)) {
+      throw new JsonParseException("values should be an array");
+    }
+    List<Object> list = (List<Object>) values;
+    if (list != null) {
+      for (Object value : list) {
+        if (value instanceof List) {
+          throw new JsonParseException("values should be an array of primitives");
+        }
+      }
+    }
+    return (List<String>) values;
+  }
+
+  private static List<Object> readValues(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    List<Object> values = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+        values.add(readStrings(reader));
+      } else {
+        values.add(readString(reader));
+      }
+    }
+    reader.endArray();
+    return values;
+  }
+
+  private static List<String> readStrings(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    List<String> strings = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      strings.add(readString(reader));
+    }
+    reader.endArray();
+    return strings;
+  }
+
+  /** Read a primitive as a string the way Gson does, numbers keep their literal form. */
+  private static String readString(JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case NULL:
+        reader.nextNull();
+        return null;
+      case BOOLEAN:
+        return Boolean.toString(reader.nextBoolean());
+      default:
+        return reader.nextString();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "json-stream";
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+/** Reads a value kept as a string, e.g., a value of a {@link Message}. */
+class StringValueReader implements TabletPayloadFormatter.ValueReader {
+
+  private String value;
+
+  StringValueReader set(String value) {
+    this.value = value;
+    return this;
+  }
+
+  @Override
+  public boolean readBoolean() {
+    if ("true".equalsIgnoreCase(value)) {
+      return true;
+    }
+    if ("false".equalsIgnoreCase(value)) {
+      return false;
+    }
+    throw new IllegalStateException("Expected a boolean but was " + value);
+  }
+
+  @Override
+  public long readLong() {
+    return Long.parseLong(nonNullValue());
+  }
+
+  @Override
+  public float readFloat() {
+    return Float.parseFloat(nonNullValue());
+  }
+
+  @Override
+  public double readDouble() {
+    return Double.parseDouble(nonNullValue());
+  }
+
+  @Override
+  public String readString() {
+    return value;
+  }
+
+  private String nonNullValue() {
+    if (value == null) {
+      throw new IllegalStateException("Expected a number but was null");
+    }
+    return value;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A PayloadFormatter that can also write the rows of a payload to a {@link RowSink} directly. The
+ * values are read in the types of the columns they are written to, so that no {@link Message} or
+ * string has to be built for each row. The handler uses this path whenever the formatter supports
+ * it.
+ *
+ * <p>This is a SPI interface, implementations are registered as {@link PayloadFormatter}s.
+ *
+ * @see StreamingJSONPayloadFormatter
+ */
+public interface TabletPayloadFormatter extends PayloadFormatter {
+
+  /**
+   * Format a payload and write its rows to the sink. If the payload turns out to be invalid, the
+   * rows already ended are kept and an exception is thrown.
+   */
+  void format(ByteBuf payload, RowSink sink);
+
+  /** Receives the rows of a payload one by one. */
+  interface RowSink {
+
+    /**
+     * Start a row, the device and measurements may be shared by several rows and must not be
+     * modified afterwards.
+     */
+    void beginRow(String device, List<String> measurements, long time);
+
+    /**
+     * Read the value of the next measurement of the row. If the sink reads nothing, the value is
+     * skipped.
+     */
+    void value(ValueReader reader) throws IOException;
+
+    void endRow();
+  }
+
+  /**
+   * Reads one value. A typed read that fails with a {@link NumberFormatException} or an {@link
+   * IllegalStateException} leaves the value unread, so that it can be read as a string instead.
+   */
+  interface ValueReader {
+
+    boolean readBoolean() throws IOException;
+
+    long readLong() throws IOException;
+
+    float readFloat() throws IOException;
+
+    double readDouble() throws IOException;
+
+    /** @return the value as it is written in the payload, or null for a null value */
+    String readString() throws IOException;
+  }
+}
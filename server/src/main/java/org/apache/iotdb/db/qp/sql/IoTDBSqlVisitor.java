@@ -1346,6 +1346,12 @@ public class IoTDBSqlVisitor extends IoTDBSqlParserBaseVisitor<Operator> {
     return queryOp;
   }
 
+  @Override
+  public Operator visitOrderByStatement(IoTDBSqlParser.OrderByStatementContext ctx) {
+    throw new SemanticException(
+        "ORDER BY value columns is only supported by the new query engine");
+  }
+
   @Override
   public Operator visitGroupByTimeStatement(IoTDBSqlParser.GroupByTimeStatementContext ctx) {
     queryOp = new GroupByQueryOperator();
@@ -18,7 +18,13 @@
  */
 package org.apache.iotdb.db.query.control;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.UnClosedTsFileReader;
@@ -29,13 +35,21 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * FileReaderManager is a singleton, which is used to manage all file readers(opened file streams)
  * to ensure that each file is opened at most once.
+ *
+ * <p>There is no global lock. Each file has its own lazily initialized reader, so opening a cold
+ * file only blocks the threads waiting for the same file, and reference counts are updated
+ * atomically per file. When the last reference of a sealed file is released, its reader is kept
+ * open in an LRU pool of idle readers, bounded by max_idle_file_reader_num, instead of being
+ * closed at once. Only idle readers, i.e. those without any reference, are evicted.
  */
 public class FileReaderManager {
 
@@ -54,47 +68,98 @@ public class FileReaderManager {
 
   /**
    * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap is the
-   * corresponding reader.
+   * holder of the corresponding reader.
    */
-  private Map<String, TsFileSequenceReader> closedFileReaderMap;
+  private final Map<String, ReaderHolder> closedFileReaderMap;
   /**
-   * the key of unclosedFileReaderMap is the file path and the value of unclosedFileReaderMap is the
-   * corresponding reader.
+   * the key of unclosedFileReaderMap is the file path and the value of unclosedFileReaderMap is
+   * the holder of the corresponding reader.
    */
-  private Map<String, TsFileSequenceReader> unclosedFileReaderMap;
+  private final Map<String, ReaderHolder> unclosedFileReaderMap;
 
   /**
    * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap is the
-   * file's reference count.
+   * file's reference count. An entry only exists while the count is positive, and it is always
+   * updated by compute() so that it changes atomically with the state of the reader.
    */
-  private Map<String, AtomicInteger> closedReferenceMap;
+  private final Map<String, AtomicInteger> closedReferenceMap;
   /**
    * the key of unclosedFileReaderMap is the file path and the value of unclosedFileReaderMap is the
    * file's reference count.
    */
-  private Map<String, AtomicInteger> unclosedReferenceMap;
+  private final Map<String, AtomicInteger> unclosedReferenceMap;
+
+  /** sealed files whose readers are open without any reference, in LRU order */
+  private final LinkedHashSet<String> idleReaders = new LinkedHashSet<>();
+
+  private final int maxIdleReaderNum;
+
+  private final AtomicLong evictedReaderNum = new AtomicLong(0);
 
   private FileReaderManager() {
     closedFileReaderMap = new ConcurrentHashMap<>();
     unclosedFileReaderMap = new ConcurrentHashMap<>();
     closedReferenceMap = new ConcurrentHashMap<>();
     unclosedReferenceMap = new ConcurrentHashMap<>();
+    maxIdleReaderNum = IoTDBDescriptor.getInstance().getConfig().getMaxIdleFileReaderNum();
+
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.FILE_READER.toString(),
+              MetricLevel.IMPORTANT,
+              closedFileReaderMap,
+              Map::size,
+              Tag.NAME.toString(),
+              "sealed");
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.FILE_READER.toString(),
+              MetricLevel.IMPORTANT,
+              unclosedFileReaderMap,
+              Map::size,
+              Tag.NAME.toString(),
+              "unsealed");
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.FILE_READER.toString(),
+              MetricLevel.IMPORTANT,
+              this,
+              FileReaderManager::getIdleReaderNum,
+              Tag.NAME.toString(),
+              "idle");
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.FILE_READER.toString(),
+              MetricLevel.IMPORTANT,
+              evictedReaderNum,
+              AtomicLong::get,
+              Tag.NAME.toString(),
+              "evicted");
+    }
   }
 
   public static FileReaderManager getInstance() {
     return FileReaderManagerHelper.INSTANCE;
   }
 
-  public synchronized void closeFileAndRemoveReader(String filePath) throws IOException {
+  public void closeFileAndRemoveReader(String filePath) throws IOException {
     closedReferenceMap.remove(filePath);
-    TsFileSequenceReader reader = closedFileReaderMap.remove(filePath);
-    if (reader != null) {
-      reader.close();
+    synchronized (idleReaders) {
+      idleReaders.remove(filePath);
+    }
+    ReaderHolder holder = closedFileReaderMap.remove(filePath);
+    if (holder != null) {
+      holder.close();
     }
     unclosedReferenceMap.remove(filePath);
-    reader = unclosedFileReaderMap.remove(filePath);
-    if (reader != null) {
-      reader.close();
+    holder = unclosedFileReaderMap.remove(filePath);
+    if (holder != null) {
+      holder.close();
     }
   }
 
@@ -108,40 +173,56 @@ public class FileReaderManager {
    * @return the reader of the file specified by filePath.
    * @throws IOException when reader cannot be created.
    */
-  @SuppressWarnings("squid:S2095")
-  public synchronized TsFileSequenceReader get(String filePath, boolean isClosed)
-      throws IOException {
-
-    Map<String, TsFileSequenceReader> readerMap =
+  public TsFileSequenceReader get(String filePath, boolean isClosed) throws IOException {
+    Map<String, ReaderHolder> readerMap =
         !isClosed ? unclosedFileReaderMap : closedFileReaderMap;
-    if (!readerMap.containsKey(filePath)) {
-      int currentOpenedReaderCount = readerMap.size();
-      if (currentOpenedReaderCount >= MAX_CACHED_FILE_SIZE
-          && (currentOpenedReaderCount % PRINT_INTERVAL == 0)) {
-        logger.warn("Query has opened {} files !", readerMap.size());
+    while (true) {
+      ReaderHolder holder = readerMap.get(filePath);
+      if (holder == null) {
+        int currentOpenedReaderCount = readerMap.size();
+        if (currentOpenedReaderCount >= MAX_CACHED_FILE_SIZE
+            && (currentOpenedReaderCount % PRINT_INTERVAL == 0)) {
+          logger.warn("Query has opened {} files !", currentOpenedReaderCount);
+        }
+        holder = readerMap.computeIfAbsent(filePath, ReaderHolder::new);
+      }
+
+      TsFileSequenceReader reader;
+      try {
+        reader = holder.getOrOpen(isClosed);
+      } catch (IOException e) {
+        readerMap.remove(filePath, holder);
+        throw e;
+      }
+      if (reader != null) {
+        return reader;
       }
+      // the holder has been closed by another thread, open the file again
+      readerMap.remove(filePath, holder);
+    }
+  }
 
-      TsFileSequenceReader tsFileReader = null;
-      // check if the file is old version
-      if (!isClosed) {
-        tsFileReader = new UnClosedTsFileReader(filePath);
-      } else {
-        tsFileReader = new TsFileSequenceReader(filePath);
-        if (tsFileReader.readVersionNumber() != TSFileConfig.VERSION_NUMBER) {
+  @SuppressWarnings("squid:S2095")
+  private static TsFileSequenceReader openReader(String filePath, boolean isClosed)
+      throws IOException {
+    TsFileSequenceReader tsFileReader;
+    // check if the file is old version
+    if (!isClosed) {
+      tsFileReader = new UnClosedTsFileReader(filePath);
+    } else {
+      tsFileReader = new TsFileSequenceReader(filePath);
+      if (tsFileReader.readVersionNumber() != TSFileConfig.VERSION_NUMBER) {
+        tsFileReader.close();
+        tsFileReader = new TsFileSequenceReaderForV2(filePath);
+        if (!((TsFileSequenceReaderForV2) tsFileReader)
+            .readVersionNumberV2()
+            .equals(TSFileConfig.VERSION_NUMBER_V2)) {
           tsFileReader.close();
-          tsFileReader = new TsFileSequenceReaderForV2(filePath);
-          if (!((TsFileSequenceReaderForV2) tsFileReader)
-              .readVersionNumberV2()
-              .equals(TSFileConfig.VERSION_NUMBER_V2)) {
-            throw new IOException("The version of this TsFile is not corrent. ");
-          }
+          throw new IOException("The version of this TsFile is not corrent. ");
         }
       }
-      readerMap.put(filePath, tsFileReader);
-      return tsFileReader;
     }
-
-    return readerMap.get(filePath);
+    return tsFileReader;
   }
 
   /**
@@ -150,17 +231,22 @@ public class FileReaderManager {
    */
   public void increaseFileReaderReference(TsFileResource tsFile, boolean isClosed) {
     tsFile.readLock();
-    synchronized (this) {
-      if (!isClosed) {
-        unclosedReferenceMap
-            .computeIfAbsent(tsFile.getTsFilePath(), k -> new AtomicInteger())
-            .getAndIncrement();
-      } else {
-        closedReferenceMap
-            .computeIfAbsent(tsFile.getTsFilePath(), k -> new AtomicInteger())
-            .getAndIncrement();
-      }
-    }
+    Map<String, AtomicInteger> refMap = isClosed ? closedReferenceMap : unclosedReferenceMap;
+    refMap.compute(
+        tsFile.getTsFilePath(),
+        (filePath, ref) -> {
+          if (ref == null) {
+            ref = new AtomicInteger();
+            if (isClosed) {
+              // the reader is in use again, so it can not be evicted
+              synchronized (idleReaders) {
+                idleReaders.remove(filePath);
+              }
+            }
+          }
+          ref.getAndIncrement();
+          return ref;
+        });
   }
 
   /**
@@ -168,55 +254,87 @@ public class FileReaderManager {
    * Only when the reference count of a reader equals zero, the reader can be closed and removed.
    */
   public void decreaseFileReaderReference(TsFileResource tsFile, boolean isClosed) {
-    synchronized (this) {
-      if (!isClosed && unclosedReferenceMap.containsKey(tsFile.getTsFilePath())) {
-        if (unclosedReferenceMap.get(tsFile.getTsFilePath()).decrementAndGet() == 0) {
-          closeUnUsedReaderAndRemoveRef(tsFile.getTsFilePath(), false);
-        }
-      } else if (closedReferenceMap.containsKey(tsFile.getTsFilePath())) {
-        if (closedReferenceMap.get(tsFile.getTsFilePath()).decrementAndGet() == 0) {
-          closeUnUsedReaderAndRemoveRef(tsFile.getTsFilePath(), true);
-        }
-      }
+    String tsFilePath = tsFile.getTsFilePath();
+    if (!isClosed && unclosedReferenceMap.containsKey(tsFilePath)) {
+      unclosedReferenceMap.computeIfPresent(
+          tsFilePath,
+          (filePath, ref) -> {
+            if (ref.decrementAndGet() > 0) {
+              return ref;
+            }
+            closeUnUsedReader(unclosedFileReaderMap, filePath);
+            return null;
+          });
+    } else {
+      closedReferenceMap.computeIfPresent(
+          tsFilePath,
+          (filePath, ref) -> {
+            if (ref.decrementAndGet() > 0) {
+              return ref;
+            }
+            if (maxIdleReaderNum > 0 && closedFileReaderMap.containsKey(filePath)) {
+              synchronized (idleReaders) {
+                idleReaders.add(filePath);
+              }
+            } else {
+              closeUnUsedReader(closedFileReaderMap, filePath);
+            }
+            return null;
+          });
+      evictIdleReadersIfNecessary();
     }
     tsFile.readUnlock();
   }
 
-  private void closeUnUsedReaderAndRemoveRef(String tsFilePath, boolean isClosed) {
-    Map<String, TsFileSequenceReader> readerMap =
-        isClosed ? closedFileReaderMap : unclosedFileReaderMap;
-    Map<String, AtomicInteger> refMap = isClosed ? closedReferenceMap : unclosedReferenceMap;
-    synchronized (this) {
-      // check ref num again
-      if (refMap.get(tsFilePath).get() != 0) {
-        return;
-      }
-
-      TsFileSequenceReader reader = readerMap.get(tsFilePath);
-      if (reader != null) {
-        try {
-          reader.close();
-        } catch (IOException e) {
-          logger.error("Can not close TsFileSequenceReader {} !", reader.getFileName(), e);
+  /** Close the least recently used idle readers until the pool is within its bound. */
+  private void evictIdleReadersIfNecessary() {
+    while (true) {
+      String filePath;
+      synchronized (idleReaders) {
+        if (idleReaders.size() <= maxIdleReaderNum) {
+          return;
         }
+        Iterator<String> iterator = idleReaders.iterator();
+        filePath = iterator.next();
+        iterator.remove();
       }
-      readerMap.remove(tsFilePath);
-      refMap.remove(tsFilePath);
-      if (resourceLogger.isDebugEnabled()) {
-        resourceLogger.debug("{} TsFileReader is closed because of no reference.", tsFilePath);
-      }
+      // close it only if it has not been referenced again in the meantime
+      closedReferenceMap.compute(
+          filePath,
+          (k, ref) -> {
+            if (ref == null && closeUnUsedReader(closedFileReaderMap, k)) {
+              evictedReaderNum.incrementAndGet();
+            }
+            return ref;
+          });
+    }
+  }
+
+  /** @return true if there was a reader and it has been closed */
+  private boolean closeUnUsedReader(Map<String, ReaderHolder> readerMap, String tsFilePath) {
+    ReaderHolder holder = readerMap.remove(tsFilePath);
+    if (holder == null) {
+      return false;
+    }
+    try {
+      holder.close();
+    } catch (IOException e) {
+      logger.error("Can not close TsFileSequenceReader {} !", tsFilePath, e);
     }
+    if (resourceLogger.isDebugEnabled()) {
+      resourceLogger.debug("{} TsFileReader is closed because of no reference.", tsFilePath);
+    }
+    return true;
   }
 
   /**
    * Only for <code>EnvironmentUtils.cleanEnv</code> method. To make sure that unit tests and
    * integration tests will not conflict with each other.
    */
-  public synchronized void closeAndRemoveAllOpenedReaders() throws IOException {
-    Iterator<Map.Entry<String, TsFileSequenceReader>> iterator =
-        closedFileReaderMap.entrySet().iterator();
+  public void closeAndRemoveAllOpenedReaders() throws IOException {
+    Iterator<Map.Entry<String, ReaderHolder>> iterator = closedFileReaderMap.entrySet().iterator();
     while (iterator.hasNext()) {
-      Map.Entry<String, TsFileSequenceReader> entry = iterator.next();
+      Map.Entry<String, ReaderHolder> entry = iterator.next();
       entry.getValue().close();
       if (resourceLogger.isDebugEnabled()) {
         resourceLogger.debug("{} closedTsFileReader is closed.", entry.getKey());
@@ -226,7 +344,7 @@ public class FileReaderManager {
     }
     iterator = unclosedFileReaderMap.entrySet().iterator();
     while (iterator.hasNext()) {
-      Map.Entry<String, TsFileSequenceReader> entry = iterator.next();
+      Map.Entry<String, ReaderHolder> entry = iterator.next();
       entry.getValue().close();
       if (resourceLogger.isDebugEnabled()) {
         resourceLogger.debug("{} unclosedTsFileReader is closed.", entry.getKey());
@@ -234,15 +352,28 @@ public class FileReaderManager {
       unclosedReferenceMap.remove(entry.getKey());
       iterator.remove();
     }
+    synchronized (idleReaders) {
+      idleReaders.clear();
+    }
   }
 
   /** This method is only for unit tests. */
-  public synchronized boolean contains(TsFileResource tsFile, boolean isClosed) {
+  public boolean contains(TsFileResource tsFile, boolean isClosed) {
     return (isClosed && closedFileReaderMap.containsKey(tsFile.getTsFilePath()))
         || (!isClosed && unclosedFileReaderMap.containsKey(tsFile.getTsFilePath()));
   }
 
-  public synchronized void writeFileReferenceInfo() {
+  public long getIdleReaderNum() {
+    synchronized (idleReaders) {
+      return idleReaders.size();
+    }
+  }
+
+  public long getEvictedReaderNum() {
+    return evictedReaderNum.get();
+  }
+
+  public void writeFileReferenceInfo() {
     DEBUG_LOGGER.info("[closedReferenceMap]\n");
     for (Map.Entry<String, AtomicInteger> entry : closedReferenceMap.entrySet()) {
       DEBUG_LOGGER.info(String.format("\t%s: %d\n", entry.getKey(), entry.getValue().get()));
@@ -253,6 +384,45 @@ public class FileReaderManager {
     }
   }
 
+  /**
+   * Lazily opens the reader of one file. Threads asking for the same cold file wait for a single
+   * opening, while threads of other files are not blocked.
+   */
+  private static class ReaderHolder {
+
+    private final String filePath;
+    private volatile TsFileSequenceReader reader;
+    private boolean closed = false;
+
+    private ReaderHolder(String filePath) {
+      this.filePath = filePath;
+    }
+
+    /** @return the reader, or null if this holder has been closed */
+    private TsFileSequenceReader getOrOpen(boolean isClosed) throws IOException {
+      TsFileSequenceReader result = reader;
+      if (result != null) {
+        return result;
+      }
+      synchronized (this) {
+        if (closed) {
+          return null;
+        }
+        if (reader == null) {
+          reader = openReader(filePath, isClosed);
+        }
+        return reader;
+      }
+    }
+
+    private synchronized void close() throws IOException {
+      closed = true;
+      if (reader != null) {
+        reader.close();
+      }
+    }
+  }
+
   private static class FileReaderManagerHelper {
 
     private static final FileReaderManager INSTANCE = new FileReaderManager();
@@ -45,14 +45,15 @@ public class MemTableManager {
 
   public synchronized IMemTable getAvailableMemTable(String storageGroup)
       throws WriteProcessException {
+    boolean offHeap = isOffHeapDataRegion(storageGroup);
     if (CONFIG.isEnableMemControl()) {
       currentMemtableNumber++;
-      return new PrimitiveMemTable(CONFIG.isEnableMemControl());
+      return new PrimitiveMemTable(CONFIG.isEnableMemControl(), offHeap);
     }
 
     if (!reachMaxMemtableNumber()) {
       currentMemtableNumber++;
-      return new PrimitiveMemTable();
+      return new PrimitiveMemTable(false, offHeap);
     }
 
     // wait until the total number of memtable is less than the system capacity
@@ -60,7 +61,7 @@ public class MemTableManager {
     while (true) {
       if (!reachMaxMemtableNumber()) {
         currentMemtableNumber++;
-        return new PrimitiveMemTable();
+        return new PrimitiveMemTable(false, offHeap);
       }
       try {
         wait(WAIT_TIME);
@@ -75,6 +76,27 @@ public class MemTableManager {
     }
   }
 
+  /**
+   * @param storageGroup name of the TsFileProcessor, i.e. "logicalStorageGroup-dataRegionId"
+   * @return true if the data region or its logical storage group is configured in
+   *     off_heap_memtable_data_regions
+   */
+  private boolean isOffHeapDataRegion(String storageGroup) {
+    String[] offHeapDataRegions = CONFIG.getOffHeapMemTableDataRegions();
+    if (offHeapDataRegions.length == 0 || storageGroup == null) {
+      return false;
+    }
+    int separatorIndex = storageGroup.lastIndexOf('-');
+    String logicalStorageGroup =
+        separatorIndex > 0 ? storageGroup.substring(0, separatorIndex) : storageGroup;
+    for (String dataRegion : offHeapDataRegions) {
+      if (dataRegion.equals(storageGroup) || dataRegion.equals(logicalStorageGroup)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public int getCurrentMemtableNumber() {
     return currentMemtableNumber;
   }
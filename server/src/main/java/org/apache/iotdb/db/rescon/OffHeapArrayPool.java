@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayManager.ARRAY_SIZE;
+
+/**
+ * Off-heap primitive arrays of memtables. Direct memory is applied from {@link SystemInfo} in
+ * slabs, and each slab is cut into arrays of {@link PrimitiveArrayManager#ARRAY_SIZE} elements of
+ * one data type. Arrays are released explicitly when their memtable is flushed and kept for reuse.
+ * Once all the arrays of a slab are released and another slab of the same type still has free
+ * arrays, the slab is freed at once and given back to SystemInfo, so the direct memory shrinks
+ * after a burst of writes instead of staying at its peak until the pool is closed.
+ */
+class OffHeapArrayPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapArrayPool.class);
+
+  static final int SLAB_SIZE_IN_BYTE = 4 * 1024 * 1024;
+
+  /** TSDataType#serialize() -> slabs of the type, VECTOR is ignored */
+  private final TypedSlabs[] typedSlabs = new TypedSlabs[TSDataType.values().length - 1];
+
+  private volatile boolean exhaustedLogged = false;
+
+  OffHeapArrayPool() {
+    for (int i = 0; i < typedSlabs.length; i++) {
+      typedSlabs[i] = new TypedSlabs();
+    }
+  }
+
+  /** Only arrays of fixed length types are stored off-heap */
+  static boolean isSupported(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+      case INT64:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Get a free off-heap array of the given type, a new slab is applied if there is none.
+   *
+   * @return an IntBuffer, LongBuffer, FloatBuffer or DoubleBuffer, or null if the direct memory for
+   *     memtables is used up
+   */
+  Buffer allocate(TSDataType dataType) {
+    TypedSlabs slabs = typedSlabs[dataType.serialize()];
+    synchronized (slabs) {
+      if (slabs.slabsWithFreeArrays.isEmpty() && !allocateSlab(dataType, slabs)) {
+        return null;
+      }
+      Slab slab = slabs.slabsWithFreeArrays.peek();
+      Buffer array = slab.freeArrays.poll();
+      if (slab.freeArrays.isEmpty()) {
+        slabs.slabsWithFreeArrays.poll();
+      }
+      return array;
+    }
+  }
+
+  /** Bring back an off-heap array allocated by {@link #allocate(TSDataType)}. */
+  void release(Buffer array, TSDataType dataType) {
+    TypedSlabs slabs = typedSlabs[dataType.serialize()];
+    synchronized (slabs) {
+      // buffers compare by content, so the slab of an array is looked up by identity
+      Slab slab = slabs.arrayToSlab.get(array);
+      if (slab == null) {
+        // allocated before the pool is closed, its slab is freed by GC
+        return;
+      }
+      if (slab.freeArrays.isEmpty()) {
+        slabs.slabsWithFreeArrays.add(slab);
+      }
+      slab.freeArrays.add(array);
+      if (slab.freeArrays.size() == slab.arrayNum && slabs.slabsWithFreeArrays.size() > 1) {
+        // keep the last slab with free arrays, otherwise the next allocation applies a new one
+        slabs.slabsWithFreeArrays.remove(slab);
+        freeSlab(slab, slabs);
+      }
+    }
+  }
+
+  private boolean allocateSlab(TSDataType dataType, TypedSlabs slabs) {
+    int arraySizeInByte = ARRAY_SIZE * dataType.getDataTypeSize();
+    int slabSizeInByte = Math.max(SLAB_SIZE_IN_BYTE / arraySizeInByte, 1) * arraySizeInByte;
+    if (!SystemInfo.getInstance().applyOffHeapMemTableMemory(slabSizeInByte)) {
+      if (!exhaustedLogged) {
+        exhaustedLogged = true;
+        LOGGER.warn(
+            "Off-heap memory for memtables ({} bytes) is used up, allocate arrays on heap.",
+            SystemInfo.getInstance().getOffHeapMemTableSlabsSize());
+      }
+      return false;
+    }
+    ByteBuffer memory;
+    try {
+      memory = ByteBuffer.allocateDirect(slabSizeInByte);
+    } catch (OutOfMemoryError e) {
+      SystemInfo.getInstance().releaseOffHeapMemTableMemory(slabSizeInByte);
+      LOGGER.warn("Fail to allocate off-heap slab of {} bytes for memtables.", slabSizeInByte, e);
+      return false;
+    }
+    Slab slab = new Slab(memory, slabSizeInByte / arraySizeInByte);
+    for (int offset = 0; offset < slabSizeInByte; offset += arraySizeInByte) {
+      memory.limit(offset + arraySizeInByte);
+      memory.position(offset);
+      Buffer array = asTypedBuffer(memory.slice().order(ByteOrder.nativeOrder()), dataType);
+      slab.freeArrays.add(array);
+      slabs.arrayToSlab.put(array, slab);
+    }
+    slabs.allSlabs.add(slab);
+    slabs.slabsWithFreeArrays.add(slab);
+    return true;
+  }
+
+  /** Only called when none of the arrays of the slab is in use. */
+  private void freeSlab(Slab slab, TypedSlabs slabs) {
+    for (Buffer array : slab.freeArrays) {
+      slabs.arrayToSlab.remove(array);
+    }
+    slab.freeArrays.clear();
+    slabs.allSlabs.remove(slab);
+    MmapUtil.clean((MappedByteBuffer) slab.memory);
+    SystemInfo.getInstance().releaseOffHeapMemTableMemory(slab.memory.capacity());
+    exhaustedLogged = false;
+  }
+
+  private static Buffer asTypedBuffer(ByteBuffer buffer, TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+        return buffer.asIntBuffer();
+      case INT64:
+        return buffer.asLongBuffer();
+      case FLOAT:
+        return buffer.asFloatBuffer();
+      case DOUBLE:
+        return buffer.asDoubleBuffer();
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+  }
+
+  /**
+   * Free the idle slabs and give all the slabs back to SystemInfo. The direct memory of a slab
+   * whose arrays are still referred by any memtable is freed by GC once they are dropped.
+   */
+  void close() {
+    for (TypedSlabs slabs : typedSlabs) {
+      synchronized (slabs) {
+        for (Slab slab : new ArrayList<>(slabs.allSlabs)) {
+          if (slab.freeArrays.size() == slab.arrayNum) {
+            freeSlab(slab, slabs);
+          } else {
+            SystemInfo.getInstance().releaseOffHeapMemTableMemory(slab.memory.capacity());
+          }
+        }
+        slabs.allSlabs.clear();
+        slabs.slabsWithFreeArrays.clear();
+        slabs.arrayToSlab.clear();
+      }
+    }
+    exhaustedLogged = false;
+  }
+
+  @TestOnly
+  int getSlabNum(TSDataType dataType) {
+    TypedSlabs slabs = typedSlabs[dataType.serialize()];
+    synchronized (slabs) {
+      return slabs.allSlabs.size();
+    }
+  }
+
+  /** The slabs of one data type, protected by itself */
+  private static class TypedSlabs {
+    private final List<Slab> allSlabs = new ArrayList<>();
+    private final ArrayDeque<Slab> slabsWithFreeArrays = new ArrayDeque<>();
+    private final Map<Buffer, Slab> arrayToSlab = new IdentityHashMap<>();
+  }
+
+  private static class Slab {
+    private final ByteBuffer memory;
+    private final int arrayNum;
+    private final ArrayDeque<Buffer> freeArrays = new ArrayDeque<>();
+
+    private Slab(ByteBuffer memory, int arrayNum) {
+      this.memory = memory;
+      this.arrayNum = arrayNum;
+    }
+  }
+}
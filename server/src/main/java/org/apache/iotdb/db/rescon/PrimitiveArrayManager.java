@@ -27,11 +27,20 @@ import org.apache.iotdb.tsfile.utils.Binary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
-/** Manage all primitive data lists in memory, including get and release operations. */
+/**
+ * Manage all primitive data lists in memory, including get and release operations. Arrays of
+ * INT32, INT64, FLOAT and DOUBLE allocated off-heap are direct IntBuffer, LongBuffer, FloatBuffer
+ * and DoubleBuffer, all other arrays are plain java arrays on heap.
+ */
 public class PrimitiveArrayManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveArrayManager.class);
@@ -74,6 +83,8 @@ public class PrimitiveArrayManager {
 
   private static final AtomicLong TOTAL_ALLOCATION_REQUEST_COUNT = new AtomicLong(0);
 
+  private static final OffHeapArrayPool OFF_HEAP_ARRAY_POOL = new OffHeapArrayPool();
+
   static {
     init();
   }
@@ -118,10 +129,29 @@ public class PrimitiveArrayManager {
    * @return an array
    */
   public static Object allocate(TSDataType dataType) {
+    return allocate(dataType, false);
+  }
+
+  /**
+   * Get or allocate primitive data lists according to type.
+   *
+   * @param offHeap whether to allocate the array off-heap, only INT32, INT64, FLOAT and DOUBLE
+   *     arrays can be off-heap, and an on-heap array is returned when the direct memory allocated
+   *     for memtables is used up
+   * @return an array
+   */
+  public static Object allocate(TSDataType dataType, boolean offHeap) {
     if (dataType.equals(TSDataType.VECTOR)) {
       throw new UnSupportedDataTypeException(TSDataType.VECTOR.name());
     }
 
+    if (offHeap && OffHeapArrayPool.isSupported(dataType)) {
+      Buffer array = OFF_HEAP_ARRAY_POOL.allocate(dataType);
+      if (array != null) {
+        return array;
+      }
+    }
+
     if (TOTAL_ALLOCATION_REQUEST_COUNT.get() > limitUpdateThreshold) {
       synchronized (TOTAL_ALLOCATION_REQUEST_COUNT) {
         if (TOTAL_ALLOCATION_REQUEST_COUNT.get() > limitUpdateThreshold) {
@@ -240,24 +270,31 @@ public class PrimitiveArrayManager {
    * @param array data array to be released
    */
   public static void release(Object array) {
-    int order;
+    TSDataType dataType;
     if (array instanceof boolean[]) {
-      order = TSDataType.BOOLEAN.serialize();
-    } else if (array instanceof int[]) {
-      order = TSDataType.INT32.serialize();
-    } else if (array instanceof long[]) {
-      order = TSDataType.INT64.serialize();
-    } else if (array instanceof float[]) {
-      order = TSDataType.FLOAT.serialize();
-    } else if (array instanceof double[]) {
-      order = TSDataType.DOUBLE.serialize();
+      dataType = TSDataType.BOOLEAN;
+    } else if (array instanceof int[] || array instanceof IntBuffer) {
+      dataType = TSDataType.INT32;
+    } else if (array instanceof long[] || array instanceof LongBuffer) {
+      dataType = TSDataType.INT64;
+    } else if (array instanceof float[] || array instanceof FloatBuffer) {
+      dataType = TSDataType.FLOAT;
+    } else if (array instanceof double[] || array instanceof DoubleBuffer) {
+      dataType = TSDataType.DOUBLE;
     } else if (array instanceof Binary[]) {
       Arrays.fill((Binary[]) array, null);
-      order = TSDataType.TEXT.serialize();
+      dataType = TSDataType.TEXT;
     } else {
       throw new UnSupportedDataTypeException(array.getClass().toString());
     }
 
+    if (array instanceof Buffer) {
+      OFF_HEAP_ARRAY_POOL.release((Buffer) array, dataType);
+      return;
+    }
+
+    int order = dataType.serialize();
+
     synchronized (POOLED_ARRAYS[order]) {
       ArrayDeque<Object> arrays = POOLED_ARRAYS[order];
       if (arrays.size() < LIMITS[order]) {
@@ -266,8 +303,14 @@ public class PrimitiveArrayManager {
     }
   }
 
+  /** @return whether the arrays of the type can be allocated off-heap */
+  public static boolean isOffHeapSupported(TSDataType dataType) {
+    return OffHeapArrayPool.isSupported(dataType);
+  }
+
   public static void close() {
     init();
+    OFF_HEAP_ARRAY_POOL.close();
   }
 
   /**
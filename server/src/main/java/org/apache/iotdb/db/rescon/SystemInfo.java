@@ -31,8 +31,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 public class SystemInfo {
@@ -48,6 +50,20 @@ public class SystemInfo {
 
   private long flushingMemTablesCost = 0L;
 
+  /** direct memory applied for off-heap memtable arrays */
+  private long offHeapMemTableSlabsSize = 0L;
+
+  /**
+   * Off-heap arrays charged by memtables, which are not counted in the memory for writing but
+   * limited by off_heap_memtable_memory_size_in_byte on their own
+   */
+  private long offHeapMemTablesCost = 0L;
+
+  private long flushingOffHeapMemTablesCost = 0L;
+
+  /** TsFileProcessors whose working memtable has charged off-heap arrays */
+  private final Set<TsFileProcessor> offHeapTsFileProcessors = new HashSet<>();
+
   private ExecutorService flushTaskSubmitThreadPool =
       IoTDBThreadPoolFactory.newSingleThreadExecutor("FlushTask-Submit-Pool");
   private static double FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
@@ -170,6 +186,91 @@ public class SystemInfo {
     this.flushingMemTablesCost -= flushingMemTableCost;
   }
 
+  /**
+   * Apply direct memory for off-heap memtable arrays.
+   *
+   * @return false if the direct memory allocated for memtables is used up
+   */
+  public synchronized boolean applyOffHeapMemTableMemory(long size) {
+    if (offHeapMemTableSlabsSize + size > config.getOffHeapMemTableMemorySize()) {
+      return false;
+    }
+    offHeapMemTableSlabsSize += size;
+    return true;
+  }
+
+  public synchronized void releaseOffHeapMemTableMemory(long size) {
+    offHeapMemTableSlabsSize -= size;
+  }
+
+  public synchronized long getOffHeapMemTableSlabsSize() {
+    return offHeapMemTableSlabsSize;
+  }
+
+  /**
+   * Charge the off-heap arrays to be allocated by an insertion into an off-heap memtable. When the
+   * off-heap arrays of working memtables exceed the flush proportion of
+   * off_heap_memtable_memory_size_in_byte, the largest of them are marked to flush.
+   *
+   * @return false if the off-heap memory for memtables is used up, then the arrays will be
+   *     allocated on heap and should be charged to the memory for writing instead
+   */
+  public synchronized boolean addOffHeapMemTableCost(long cost, TsFileProcessor tsFileProcessor) {
+    long offHeapMemorySize = config.getOffHeapMemTableMemorySize();
+    if (offHeapMemTablesCost + cost > offHeapMemorySize) {
+      return false;
+    }
+    offHeapMemTablesCost += cost;
+    offHeapTsFileProcessors.add(tsFileProcessor);
+    if (offHeapMemTablesCost - flushingOffHeapMemTablesCost
+        >= offHeapMemorySize * config.getFlushProportion()) {
+      chooseOffHeapMemTablesToMarkFlush(offHeapMemorySize * config.getFlushProportion());
+    }
+    return true;
+  }
+
+  /** Called when an insertion fails or an off-heap memtable is flushed. */
+  public synchronized void releaseOffHeapMemTableCost(long cost) {
+    offHeapMemTablesCost -= cost;
+  }
+
+  public synchronized void addFlushingOffHeapMemTableCost(long cost) {
+    flushingOffHeapMemTablesCost += cost;
+  }
+
+  public synchronized void resetFlushingOffHeapMemTableCost(long cost) {
+    flushingOffHeapMemTablesCost -= cost;
+  }
+
+  /** Called when the TsFileProcessor is closing, or its working memtable is being flushed. */
+  public synchronized void removeOffHeapTsFileProcessor(TsFileProcessor tsFileProcessor) {
+    offHeapTsFileProcessors.remove(tsFileProcessor);
+  }
+
+  public synchronized long getOffHeapMemTablesCost() {
+    return offHeapMemTablesCost;
+  }
+
+  private void chooseOffHeapMemTablesToMarkFlush(double flushThreshold) {
+    PriorityQueue<TsFileProcessor> allTsFileProcessors =
+        new PriorityQueue<>(
+            (o1, o2) ->
+                Long.compare(
+                    o2.getWorkMemTableOffHeapRamCost(), o1.getWorkMemTableOffHeapRamCost()));
+    allTsFileProcessors.addAll(offHeapTsFileProcessors);
+    long memCost = 0;
+    long activeMemSize = offHeapMemTablesCost - flushingOffHeapMemTablesCost;
+    while (activeMemSize - memCost > flushThreshold
+        && !allTsFileProcessors.isEmpty()
+        && allTsFileProcessors.peek().getWorkMemTableOffHeapRamCost() > 0) {
+      TsFileProcessor selectedTsFileProcessor = allTsFileProcessors.poll();
+      memCost += selectedTsFileProcessor.getWorkMemTableOffHeapRamCost();
+      offHeapTsFileProcessors.remove(selectedTsFileProcessor);
+      selectedTsFileProcessor.setWorkMemTableShouldFlush();
+      flushTaskSubmitThreadPool.submit(selectedTsFileProcessor::submitAFlushTask);
+    }
+  }
+
   private void logCurrentTotalSGMemory() {
     logger.debug("Current Sg cost is {}", totalStorageGroupMemCost);
   }
@@ -229,6 +330,9 @@ public class SystemInfo {
     reportedStorageGroupMemCostMap.clear();
     totalStorageGroupMemCost = 0;
     rejected = false;
+    offHeapTsFileProcessors.clear();
+    offHeapMemTablesCost = 0;
+    flushingOffHeapMemTablesCost = 0;
   }
 
   public static SystemInfo getInstance() {
@@ -28,11 +28,13 @@ public enum Metric {
   MEM,
   CACHE,
   CACHE_HIT,
+  FILE_READER,
   ERROR_LOG,
   QUANTITY,
   DATA_WRITTEN,
   DATA_READ,
   COMPACTION_TASK_COUNT,
+  WAL_BATCH_SIZE,
   CLUSTER_NODE_STATUS,
   CLUSTER_NODE_LEADER_COUNT,
   CLUSTER_ELECT,
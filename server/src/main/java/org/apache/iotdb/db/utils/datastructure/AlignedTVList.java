@@ -60,7 +60,8 @@ public class AlignedTVList extends TVList {
   // list of index array, add 1 when expanded -> data point index array
   // index relation: arrayIndex -> elementIndex
   // used in sort method, sort only changes indices
-  private List<int[]> indices;
+  // an array is an int[], or a direct IntBuffer if the list is off-heap
+  private List<Object> indices;
 
   // data type list -> list of BitMap, add 1 when expanded -> BitMap(maybe null), marked means the
   // value is null
@@ -72,7 +73,11 @@ public class AlignedTVList extends TVList {
   private int pivotIndex;
 
   AlignedTVList(List<TSDataType> types) {
-    super();
+    this(types, false);
+  }
+
+  AlignedTVList(List<TSDataType> types, boolean offHeap) {
+    super(offHeap);
     indices = new ArrayList<>(types.size());
     dataTypes = types;
     values = new ArrayList<>(types.size());
@@ -85,14 +90,22 @@ public class AlignedTVList extends TVList {
     return new AlignedTVList(dataTypes);
   }
 
+  /**
+   * @param offHeap whether to store timestamps, indices and numeric values in off-heap arrays, see
+   *     {@link TVList#newList(TSDataType, boolean)}
+   */
+  public static AlignedTVList newAlignedList(List<TSDataType> dataTypes, boolean offHeap) {
+    return new AlignedTVList(dataTypes, offHeap);
+  }
+
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   @Override
   public void putAlignedValue(long timestamp, Object[] value, int[] columnIndexArray) {
     checkExpansion();
     int arrayIndex = rowCount / ARRAY_SIZE;
     int elementIndex = rowCount % ARRAY_SIZE;
-    minTime = Math.min(minTime, timestamp);
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
+    appendBlock(timestamp, timestamp, true, 1);
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
     for (int i = 0; i < values.size(); i++) {
       Object columnValue = columnIndexArray[i] < 0 ? null : value[columnIndexArray[i]];
       List<Object> columnValues = values.get(i);
@@ -105,20 +118,28 @@ public class AlignedTVList extends TVList {
               columnValue != null ? (Binary) columnValue : Binary.EMPTY_VALUE;
           break;
         case FLOAT:
-          ((float[]) columnValues.get(arrayIndex))[elementIndex] =
-              columnValue != null ? (float) columnValue : Float.MIN_VALUE;
+          setFloatAt(
+              columnValues.get(arrayIndex),
+              elementIndex,
+              columnValue != null ? (float) columnValue : Float.MIN_VALUE);
           break;
         case INT32:
-          ((int[]) columnValues.get(arrayIndex))[elementIndex] =
-              columnValue != null ? (int) columnValue : Integer.MIN_VALUE;
+          setIntAt(
+              columnValues.get(arrayIndex),
+              elementIndex,
+              columnValue != null ? (int) columnValue : Integer.MIN_VALUE);
           break;
         case INT64:
-          ((long[]) columnValues.get(arrayIndex))[elementIndex] =
-              columnValue != null ? (long) columnValue : Long.MIN_VALUE;
+          setLongAt(
+              columnValues.get(arrayIndex),
+              elementIndex,
+              columnValue != null ? (long) columnValue : Long.MIN_VALUE);
           break;
         case DOUBLE:
-          ((double[]) columnValues.get(arrayIndex))[elementIndex] =
-              columnValue != null ? (double) columnValue : Double.MIN_VALUE;
+          setDoubleAt(
+              columnValues.get(arrayIndex),
+              elementIndex,
+              columnValue != null ? (double) columnValue : Double.MIN_VALUE);
           break;
         case BOOLEAN:
           ((boolean[]) columnValues.get(arrayIndex))[elementIndex] =
@@ -128,11 +149,8 @@ public class AlignedTVList extends TVList {
           break;
       }
     }
-    indices.get(arrayIndex)[elementIndex] = rowCount;
+    setIntAt(indices.get(arrayIndex), elementIndex, rowCount);
     rowCount++;
-    if (sorted && rowCount > 1 && timestamp < getTime(rowCount - 2)) {
-      sorted = false;
-    }
   }
 
   @Override
@@ -153,7 +171,7 @@ public class AlignedTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    int valueIndex = indices.get(arrayIndex)[elementIndex];
+    int valueIndex = intAt(indices.get(arrayIndex), elementIndex);
     return getAlignedValueByValueIndex(valueIndex, null, floatPrecision, encodingList);
   }
 
@@ -185,7 +203,7 @@ public class AlignedTVList extends TVList {
           vector[columnIndex] = TsPrimitiveType.getByType(TSDataType.TEXT, valueT);
           break;
         case FLOAT:
-          float valueF = ((float[]) columnValues.get(arrayIndex))[elementIndex];
+          float valueF = floatAt(columnValues.get(arrayIndex), elementIndex);
           if (floatPrecision != null
               && encodingList != null
               && !Float.isNaN(valueF)
@@ -196,15 +214,15 @@ public class AlignedTVList extends TVList {
           vector[columnIndex] = TsPrimitiveType.getByType(TSDataType.FLOAT, valueF);
           break;
         case INT32:
-          int valueI = ((int[]) columnValues.get(arrayIndex))[elementIndex];
+          int valueI = intAt(columnValues.get(arrayIndex), elementIndex);
           vector[columnIndex] = TsPrimitiveType.getByType(TSDataType.INT32, valueI);
           break;
         case INT64:
-          long valueL = ((long[]) columnValues.get(arrayIndex))[elementIndex];
+          long valueL = longAt(columnValues.get(arrayIndex), elementIndex);
           vector[columnIndex] = TsPrimitiveType.getByType(TSDataType.INT64, valueL);
           break;
         case DOUBLE:
-          double valueD = ((double[]) columnValues.get(arrayIndex))[elementIndex];
+          double valueD = doubleAt(columnValues.get(arrayIndex), elementIndex);
           if (floatPrecision != null
               && encodingList != null
               && !Double.isNaN(valueD)
@@ -252,6 +270,7 @@ public class AlignedTVList extends TVList {
     alignedTvList.values = values;
     alignedTvList.bitMaps = bitMaps;
     alignedTvList.rowCount = this.rowCount;
+    alignedTvList.resetBlocks();
     return alignedTvList;
   }
 
@@ -322,7 +341,7 @@ public class AlignedTVList extends TVList {
     int arrayIndex = rowIndex / ARRAY_SIZE;
     int elementIndex = rowIndex % ARRAY_SIZE;
     List<Object> columnValues = values.get(columnIndex);
-    return ((int[]) columnValues.get(arrayIndex))[elementIndex];
+    return intAt(columnValues.get(arrayIndex), elementIndex);
   }
 
   /**
@@ -336,7 +355,7 @@ public class AlignedTVList extends TVList {
     int arrayIndex = rowIndex / ARRAY_SIZE;
     int elementIndex = rowIndex % ARRAY_SIZE;
     List<Object> columnValues = values.get(columnIndex);
-    return ((long[]) columnValues.get(arrayIndex))[elementIndex];
+    return longAt(columnValues.get(arrayIndex), elementIndex);
   }
 
   /**
@@ -350,7 +369,7 @@ public class AlignedTVList extends TVList {
     int arrayIndex = rowIndex / ARRAY_SIZE;
     int elementIndex = rowIndex % ARRAY_SIZE;
     List<Object> columnValues = values.get(columnIndex);
-    return ((float[]) columnValues.get(arrayIndex))[elementIndex];
+    return floatAt(columnValues.get(arrayIndex), elementIndex);
   }
 
   /**
@@ -364,7 +383,7 @@ public class AlignedTVList extends TVList {
     int arrayIndex = rowIndex / ARRAY_SIZE;
     int elementIndex = rowIndex % ARRAY_SIZE;
     List<Object> columnValues = values.get(columnIndex);
-    return ((double[]) columnValues.get(arrayIndex))[elementIndex];
+    return doubleAt(columnValues.get(arrayIndex), elementIndex);
   }
 
   /**
@@ -475,8 +494,8 @@ public class AlignedTVList extends TVList {
   private void set(int index, long timestamp, int value) {
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    indices.get(arrayIndex)[elementIndex] = value;
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setIntAt(indices.get(arrayIndex), elementIndex, value);
   }
 
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
@@ -484,8 +503,8 @@ public class AlignedTVList extends TVList {
   public AlignedTVList clone() {
     AlignedTVList cloneList = new AlignedTVList(dataTypes);
     cloneAs(cloneList);
-    for (int[] indicesArray : indices) {
-      cloneList.indices.add(cloneIndex(indicesArray));
+    for (Object indicesArray : indices) {
+      cloneList.indices.add(cloneInts(indicesArray));
     }
     for (int i = 0; i < values.size(); i++) {
       List<Object> columnValues = values.get(i);
@@ -513,12 +532,6 @@ public class AlignedTVList extends TVList {
     return cloneList;
   }
 
-  private int[] cloneIndex(int[] array) {
-    int[] cloneArray = new int[array.length];
-    System.arraycopy(array, 0, cloneArray, 0, array.length);
-    return cloneArray;
-  }
-
   private Object cloneValue(TSDataType type, Object value) {
     switch (type) {
       case TEXT:
@@ -527,25 +540,13 @@ public class AlignedTVList extends TVList {
         System.arraycopy(valueT, 0, cloneT, 0, valueT.length);
         return cloneT;
       case FLOAT:
-        float[] valueF = (float[]) value;
-        float[] cloneF = new float[valueF.length];
-        System.arraycopy(valueF, 0, cloneF, 0, valueF.length);
-        return cloneF;
+        return cloneFloats(value);
       case INT32:
-        int[] valueI = (int[]) value;
-        int[] cloneI = new int[valueI.length];
-        System.arraycopy(valueI, 0, cloneI, 0, valueI.length);
-        return cloneI;
+        return cloneInts(value);
       case INT64:
-        long[] valueL = (long[]) value;
-        long[] cloneL = new long[valueL.length];
-        System.arraycopy(valueL, 0, cloneL, 0, valueL.length);
-        return cloneL;
+        return cloneLongs(value);
       case DOUBLE:
-        double[] valueD = (double[]) value;
-        double[] cloneD = new double[valueD.length];
-        System.arraycopy(valueD, 0, cloneD, 0, valueD.length);
-        return cloneD;
+        return cloneDoubles(value);
       case BOOLEAN:
         boolean[] valueB = (boolean[]) value;
         boolean[] cloneB = new boolean[valueB.length];
@@ -566,7 +567,7 @@ public class AlignedTVList extends TVList {
       sortedIndices =
           (int[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.INT32, rowCount);
     }
-    sort(0, rowCount);
+    sortBlocks();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -575,7 +576,7 @@ public class AlignedTVList extends TVList {
   @Override
   void clearValue() {
     if (indices != null) {
-      for (int[] dataArray : indices) {
+      for (Object dataArray : indices) {
         PrimitiveArrayManager.release(dataArray);
       }
       indices.clear();
@@ -640,7 +641,7 @@ public class AlignedTVList extends TVList {
 
   @Override
   protected void expandValues() {
-    indices.add((int[]) getPrimitiveArraysByType(TSDataType.INT32));
+    indices.add(getPrimitiveArraysByType(TSDataType.INT32));
     for (int i = 0; i < dataTypes.size(); i++) {
       values.get(i).add(getPrimitiveArraysByType(dataTypes.get(i)));
       if (bitMaps != null && bitMaps.get(i) != null) {
@@ -667,7 +668,7 @@ public class AlignedTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    return indices.get(arrayIndex)[elementIndex];
+    return intAt(indices.get(arrayIndex), elementIndex);
   }
 
   /**
@@ -732,10 +733,10 @@ public class AlignedTVList extends TVList {
       int internalRemaining = ARRAY_SIZE - elementIdx;
       if (internalRemaining >= inputRemaining) {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
-        System.arraycopy(time, idx, timestamps.get(arrayIdx), elementIdx, inputRemaining);
+        copyToArray(time, idx, timestamps.get(arrayIdx), elementIdx, inputRemaining);
         arrayCopy(value, idx, arrayIdx, elementIdx, inputRemaining, columnIndexArray);
         for (int i = 0; i < inputRemaining; i++) {
-          indices.get(arrayIdx)[elementIdx + i] = rowCount;
+          setIntAt(indices.get(arrayIdx), elementIdx + i, rowCount);
           for (int j = 0; j < values.size(); j++) {
             if (columnIndexArray[j] < 0
                 || bitMaps != null
@@ -750,10 +751,10 @@ public class AlignedTVList extends TVList {
       } else {
         // the remaining inputs cannot fit the last array, fill the last array and create a new
         // one and enter the next loop
-        System.arraycopy(time, idx, timestamps.get(arrayIdx), elementIdx, internalRemaining);
+        copyToArray(time, idx, timestamps.get(arrayIdx), elementIdx, internalRemaining);
         arrayCopy(value, idx, arrayIdx, elementIdx, internalRemaining, columnIndexArray);
         for (int i = 0; i < internalRemaining; i++) {
-          indices.get(arrayIdx)[elementIdx + i] = rowCount;
+          setIntAt(indices.get(arrayIdx), elementIdx + i, rowCount);
           for (int j = 0; j < values.size(); j++) {
             if (columnIndexArray[j] < 0
                 || bitMaps != null
@@ -788,20 +789,20 @@ public class AlignedTVList extends TVList {
           System.arraycopy(value[columnIndexArray[i]], idx, arrayT, elementIndex, remaining);
           break;
         case FLOAT:
-          float[] arrayF = ((float[]) columnValues.get(arrayIndex));
-          System.arraycopy(value[columnIndexArray[i]], idx, arrayF, elementIndex, remaining);
+          Object arrayF = columnValues.get(arrayIndex);
+          copyToArray((float[]) value[columnIndexArray[i]], idx, arrayF, elementIndex, remaining);
           break;
         case INT32:
-          int[] arrayI = ((int[]) columnValues.get(arrayIndex));
-          System.arraycopy(value[columnIndexArray[i]], idx, arrayI, elementIndex, remaining);
+          Object arrayI = columnValues.get(arrayIndex);
+          copyToArray((int[]) value[columnIndexArray[i]], idx, arrayI, elementIndex, remaining);
           break;
         case INT64:
-          long[] arrayL = ((long[]) columnValues.get(arrayIndex));
-          System.arraycopy(value[columnIndexArray[i]], idx, arrayL, elementIndex, remaining);
+          Object arrayL = columnValues.get(arrayIndex);
+          copyToArray((long[]) value[columnIndexArray[i]], idx, arrayL, elementIndex, remaining);
           break;
         case DOUBLE:
-          double[] arrayD = ((double[]) columnValues.get(arrayIndex));
-          System.arraycopy(value[columnIndexArray[i]], idx, arrayD, elementIndex, remaining);
+          Object arrayD = columnValues.get(arrayIndex);
+          copyToArray((double[]) value[columnIndexArray[i]], idx, arrayD, elementIndex, remaining);
           break;
         case BOOLEAN:
           boolean[] arrayB = ((boolean[]) columnValues.get(arrayIndex));
@@ -874,10 +875,35 @@ public class AlignedTVList extends TVList {
     return size;
   }
 
+  /**
+   * @return the part of {@link #alignedTvListArrayMemCost(TSDataType[])} stored off-heap for an
+   *     off-heap list, i.e. the time array, the index array and the value arrays of fixed length
+   *     types
+   */
+  public static long alignedTvListArrayOffHeapMemCost(TSDataType[] types) {
+    long size = 0;
+    boolean hasType = false;
+    for (TSDataType type : types) {
+      if (type != null) {
+        hasType = true;
+        if (PrimitiveArrayManager.isOffHeapSupported(type)) {
+          size += (long) PrimitiveArrayManager.ARRAY_SIZE * (long) type.getDataTypeSize();
+        }
+      }
+    }
+    if (!hasType) {
+      return 0;
+    }
+    // time array and index array mem size
+    size += (long) PrimitiveArrayManager.ARRAY_SIZE * (8L + 4L);
+    return size;
+  }
+
   public void clear() {
     rowCount = 0;
     sorted = true;
     minTime = Long.MAX_VALUE;
+    blockCount = 0;
     clearTime();
     clearSortedTime();
 
@@ -1055,19 +1081,19 @@ public class AlignedTVList extends TVList {
             WALWriteUtils.write(valueT, buffer);
             break;
           case FLOAT:
-            float valueF = ((float[]) columnValues.get(arrayIndex))[elementIndex];
+            float valueF = floatAt(columnValues.get(arrayIndex), elementIndex);
             buffer.putFloat(valueF);
             break;
           case INT32:
-            int valueI = ((int[]) columnValues.get(arrayIndex))[elementIndex];
+            int valueI = intAt(columnValues.get(arrayIndex), elementIndex);
             buffer.putInt(valueI);
             break;
           case INT64:
-            long valueL = ((long[]) columnValues.get(arrayIndex))[elementIndex];
+            long valueL = longAt(columnValues.get(arrayIndex), elementIndex);
             buffer.putLong(valueL);
             break;
           case DOUBLE:
-            double valueD = ((double[]) columnValues.get(arrayIndex))[elementIndex];
+            double valueD = doubleAt(columnValues.get(arrayIndex), elementIndex);
             buffer.putDouble(valueD);
             break;
           case BOOLEAN:
@@ -49,7 +49,11 @@ public class BinaryTVList extends TVList {
   private Binary pivotValue;
 
   BinaryTVList() {
-    super();
+    this(false);
+  }
+
+  BinaryTVList(boolean offHeap) {
+    super(offHeap);
     values = new ArrayList<>();
   }
 
@@ -58,13 +62,10 @@ public class BinaryTVList extends TVList {
     checkExpansion();
     int arrayIndex = rowCount / ARRAY_SIZE;
     int elementIndex = rowCount % ARRAY_SIZE;
-    minTime = Math.min(minTime, timestamp);
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
+    appendBlock(timestamp, timestamp, true, 1);
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
     values.get(arrayIndex)[elementIndex] = value;
     rowCount++;
-    if (sorted && rowCount > 1 && timestamp < getTime(rowCount - 2)) {
-      sorted = false;
-    }
   }
 
   @Override
@@ -83,10 +84,18 @@ public class BinaryTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
     values.get(arrayIndex)[elementIndex] = value;
   }
 
+  @Override
+  public BinaryTVList getReadView() {
+    BinaryTVList view = new BinaryTVList();
+    viewAs(view);
+    view.values = new ArrayList<>(values);
+    return view;
+  }
+
   @Override
   public BinaryTVList clone() {
     BinaryTVList cloneList = new BinaryTVList();
@@ -113,7 +122,7 @@ public class BinaryTVList extends TVList {
       sortedValues =
           (Binary[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.TEXT, rowCount);
     }
-    sort(0, rowCount);
+    sortBlocks();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -248,7 +257,7 @@ public class BinaryTVList extends TVList {
       int internalRemaining = ARRAY_SIZE - elementIdx;
       if (internalRemaining >= inputRemaining) {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
         System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
         rowCount += inputRemaining;
@@ -256,7 +265,7 @@ public class BinaryTVList extends TVList {
       } else {
         // the remaining inputs cannot fit the last array, fill the last array and create a new
         // one and enter the next loop
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
         System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
         idx += internalRemaining;
@@ -270,6 +279,7 @@ public class BinaryTVList extends TVList {
   int dropNullValThenUpdateMinTimeAndSorted(
       long[] time, Binary[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
     long inPutMinTime = Long.MAX_VALUE;
+    long inPutMaxTime = Long.MIN_VALUE;
     boolean inputSorted = true;
 
     int nullCnt = 0;
@@ -287,12 +297,12 @@ public class BinaryTVList extends TVList {
       // update minTime and sorted
       tIdx = tIdx - nullCnt;
       inPutMinTime = Math.min(inPutMinTime, time[tIdx]);
+      inPutMaxTime = Math.max(inPutMaxTime, time[tIdx]);
       if (inputSorted && tIdx > 0 && time[tIdx - 1] > time[tIdx]) {
         inputSorted = false;
       }
     }
-    minTime = Math.min(inPutMinTime, minTime);
-    sorted = sorted && inputSorted && (rowCount == 0 || inPutMinTime >= getTime(rowCount - 1));
+    appendBlock(inPutMinTime, inPutMaxTime, inputSorted, end - start - nullCnt);
     return nullCnt;
   }
 
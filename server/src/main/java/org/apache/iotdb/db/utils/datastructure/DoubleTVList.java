@@ -32,6 +32,7 @@ import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,14 +42,19 @@ public class DoubleTVList extends TVList {
 
   // list of primitive array, add 1 when expanded -> double primitive array
   // index relation: arrayIndex -> elementIndex
-  private List<double[]> values;
+  // an array is a double[], or a direct DoubleBuffer if the list is off-heap
+  private List<Object> values;
 
   private double[][] sortedValues;
 
   private double pivotValue;
 
   DoubleTVList() {
-    super();
+    this(false);
+  }
+
+  DoubleTVList(boolean offHeap) {
+    super(offHeap);
     values = new ArrayList<>();
   }
 
@@ -57,13 +63,10 @@ public class DoubleTVList extends TVList {
     checkExpansion();
     int arrayIndex = rowCount / ARRAY_SIZE;
     int elementIndex = rowCount % ARRAY_SIZE;
-    minTime = Math.min(minTime, timestamp);
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    appendBlock(timestamp, timestamp, true, 1);
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setDoubleAt(values.get(arrayIndex), elementIndex, value);
     rowCount++;
-    if (sorted && rowCount > 1 && timestamp < getTime(rowCount - 2)) {
-      sorted = false;
-    }
   }
 
   @Override
@@ -73,7 +76,7 @@ public class DoubleTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    return values.get(arrayIndex)[elementIndex];
+    return doubleAt(values.get(arrayIndex), elementIndex);
   }
 
   protected void set(int index, long timestamp, double value) {
@@ -82,26 +85,28 @@ public class DoubleTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setDoubleAt(values.get(arrayIndex), elementIndex, value);
+  }
+
+  @Override
+  public DoubleTVList getReadView() {
+    DoubleTVList view = new DoubleTVList();
+    viewAs(view);
+    view.values = new ArrayList<>(values);
+    return view;
   }
 
   @Override
   public DoubleTVList clone() {
     DoubleTVList cloneList = new DoubleTVList();
     cloneAs(cloneList);
-    for (double[] valueArray : values) {
-      cloneList.values.add(cloneValue(valueArray));
+    for (Object valueArray : values) {
+      cloneList.values.add(cloneDoubles(valueArray));
     }
     return cloneList;
   }
 
-  private double[] cloneValue(double[] array) {
-    double[] cloneArray = new double[array.length];
-    System.arraycopy(array, 0, cloneArray, 0, array.length);
-    return cloneArray;
-  }
-
   @Override
   public void sort() {
     if (sortedTimestamps == null || sortedTimestamps.length < rowCount) {
@@ -112,7 +117,7 @@ public class DoubleTVList extends TVList {
       sortedValues =
           (double[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.DOUBLE, rowCount);
     }
-    sort(0, rowCount);
+    sortBlocks();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -121,7 +126,7 @@ public class DoubleTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (double[] dataArray : values) {
+      for (Object dataArray : values) {
         PrimitiveArrayManager.release(dataArray);
       }
       values.clear();
@@ -171,7 +176,7 @@ public class DoubleTVList extends TVList {
 
   @Override
   protected void expandValues() {
-    values.add((double[]) getPrimitiveArraysByType(TSDataType.DOUBLE));
+    values.add(getPrimitiveArraysByType(TSDataType.DOUBLE));
   }
 
   @Override
@@ -253,17 +258,17 @@ public class DoubleTVList extends TVList {
       int internalRemaining = ARRAY_SIZE - elementIdx;
       if (internalRemaining >= inputRemaining) {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyToArray(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
         rowCount += inputRemaining;
         break;
       } else {
         // the remaining inputs cannot fit the last array, fill the last array and create a new
         // one and enter the next loop
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyToArray(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
         idx += internalRemaining;
         rowCount += internalRemaining;
         checkExpansion();
@@ -275,6 +280,7 @@ public class DoubleTVList extends TVList {
   int dropNullValThenUpdateMinTimeAndSorted(
       long[] time, double[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
     long inPutMinTime = Long.MAX_VALUE;
+    long inPutMaxTime = Long.MIN_VALUE;
     boolean inputSorted = true;
 
     int nullCnt = 0;
@@ -292,12 +298,12 @@ public class DoubleTVList extends TVList {
       // update minTime and sorted
       tIdx = tIdx - nullCnt;
       inPutMinTime = Math.min(inPutMinTime, time[tIdx]);
+      inPutMaxTime = Math.max(inPutMaxTime, time[tIdx]);
       if (inputSorted && tIdx > 0 && time[tIdx - 1] > time[tIdx]) {
         inputSorted = false;
       }
     }
-    minTime = Math.min(inPutMinTime, minTime);
-    sorted = sorted && inputSorted && (rowCount == 0 || inPutMinTime >= getTime(rowCount - 1));
+    appendBlock(inPutMinTime, inPutMaxTime, inputSorted, end - start - nullCnt);
     return nullCnt;
   }
 
@@ -32,6 +32,7 @@ import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,14 +42,19 @@ public class FloatTVList extends TVList {
 
   // list of primitive array, add 1 when expanded -> float primitive array
   // index relation: arrayIndex -> elementIndex
-  private List<float[]> values;
+  // an array is a float[], or a direct FloatBuffer if the list is off-heap
+  private List<Object> values;
 
   private float[][] sortedValues;
 
   private float pivotValue;
 
   FloatTVList() {
-    super();
+    this(false);
+  }
+
+  FloatTVList(boolean offHeap) {
+    super(offHeap);
     values = new ArrayList<>();
   }
 
@@ -57,13 +63,10 @@ public class FloatTVList extends TVList {
     checkExpansion();
     int arrayIndex = rowCount / ARRAY_SIZE;
     int elementIndex = rowCount % ARRAY_SIZE;
-    minTime = Math.min(minTime, timestamp);
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    appendBlock(timestamp, timestamp, true, 1);
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setFloatAt(values.get(arrayIndex), elementIndex, value);
     rowCount++;
-    if (sorted && rowCount > 1 && timestamp < getTime(rowCount - 2)) {
-      sorted = false;
-    }
   }
 
   @Override
@@ -73,7 +76,7 @@ public class FloatTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    return values.get(arrayIndex)[elementIndex];
+    return floatAt(values.get(arrayIndex), elementIndex);
   }
 
   protected void set(int index, long timestamp, float value) {
@@ -82,26 +85,28 @@ public class FloatTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setFloatAt(values.get(arrayIndex), elementIndex, value);
+  }
+
+  @Override
+  public FloatTVList getReadView() {
+    FloatTVList view = new FloatTVList();
+    viewAs(view);
+    view.values = new ArrayList<>(values);
+    return view;
   }
 
   @Override
   public FloatTVList clone() {
     FloatTVList cloneList = new FloatTVList();
     cloneAs(cloneList);
-    for (float[] valueArray : values) {
-      cloneList.values.add(cloneValue(valueArray));
+    for (Object valueArray : values) {
+      cloneList.values.add(cloneFloats(valueArray));
     }
     return cloneList;
   }
 
-  private float[] cloneValue(float[] array) {
-    float[] cloneArray = new float[array.length];
-    System.arraycopy(array, 0, cloneArray, 0, array.length);
-    return cloneArray;
-  }
-
   @Override
   public void sort() {
     if (sortedTimestamps == null || sortedTimestamps.length < rowCount) {
@@ -112,7 +117,7 @@ public class FloatTVList extends TVList {
       sortedValues =
           (float[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.FLOAT, rowCount);
     }
-    sort(0, rowCount);
+    sortBlocks();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -121,7 +126,7 @@ public class FloatTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (float[] dataArray : values) {
+      for (Object dataArray : values) {
         PrimitiveArrayManager.release(dataArray);
       }
       values.clear();
@@ -171,7 +176,7 @@ public class FloatTVList extends TVList {
 
   @Override
   protected void expandValues() {
-    values.add((float[]) getPrimitiveArraysByType(TSDataType.FLOAT));
+    values.add(getPrimitiveArraysByType(TSDataType.FLOAT));
   }
 
   @Override
@@ -253,17 +258,17 @@ public class FloatTVList extends TVList {
       int internalRemaining = ARRAY_SIZE - elementIdx;
       if (internalRemaining >= inputRemaining) {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyToArray(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
         rowCount += inputRemaining;
         break;
       } else {
         // the remaining inputs cannot fit the last array, fill the last array and create a new
         // one and enter the next loop
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyToArray(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
         idx += internalRemaining;
         rowCount += internalRemaining;
         checkExpansion();
@@ -275,6 +280,7 @@ public class FloatTVList extends TVList {
   int dropNullValThenUpdateMinTimeAndSorted(
       long[] time, float[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
     long inPutMinTime = Long.MAX_VALUE;
+    long inPutMaxTime = Long.MIN_VALUE;
     boolean inputSorted = true;
 
     int nullCnt = 0;
@@ -292,12 +298,12 @@ public class FloatTVList extends TVList {
       // update minTime and sorted
       tIdx = tIdx - nullCnt;
       inPutMinTime = Math.min(inPutMinTime, time[tIdx]);
+      inPutMaxTime = Math.max(inPutMaxTime, time[tIdx]);
       if (inputSorted && tIdx > 0 && time[tIdx - 1] > time[tIdx]) {
         inputSorted = false;
       }
     }
-    minTime = Math.min(inPutMinTime, minTime);
-    sorted = sorted && inputSorted && (rowCount == 0 || inPutMinTime >= getTime(rowCount - 1));
+    appendBlock(inPutMinTime, inPutMaxTime, inputSorted, end - start - nullCnt);
     return nullCnt;
   }
 
@@ -31,6 +31,7 @@ import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,14 +41,19 @@ public class LongTVList extends TVList {
 
   // list of primitive array, add 1 when expanded -> long primitive array
   // index relation: arrayIndex -> elementIndex
-  private List<long[]> values;
+  // an array is a long[], or a direct LongBuffer if the list is off-heap
+  private List<Object> values;
 
   private long[][] sortedValues;
 
   private long pivotValue;
 
   LongTVList() {
-    super();
+    this(false);
+  }
+
+  LongTVList(boolean offHeap) {
+    super(offHeap);
     values = new ArrayList<>();
   }
 
@@ -56,13 +62,10 @@ public class LongTVList extends TVList {
     checkExpansion();
     int arrayIndex = rowCount / ARRAY_SIZE;
     int elementIndex = rowCount % ARRAY_SIZE;
-    minTime = Math.min(minTime, timestamp);
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    appendBlock(timestamp, timestamp, true, 1);
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setLongAt(values.get(arrayIndex), elementIndex, value);
     rowCount++;
-    if (sorted && rowCount > 1 && timestamp < getTime(rowCount - 2)) {
-      sorted = false;
-    }
   }
 
   @Override
@@ -72,7 +75,7 @@ public class LongTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    return values.get(arrayIndex)[elementIndex];
+    return longAt(values.get(arrayIndex), elementIndex);
   }
 
   protected void set(int index, long timestamp, long value) {
@@ -81,26 +84,28 @@ public class LongTVList extends TVList {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    timestamps.get(arrayIndex)[elementIndex] = timestamp;
-    values.get(arrayIndex)[elementIndex] = value;
+    setLongAt(timestamps.get(arrayIndex), elementIndex, timestamp);
+    setLongAt(values.get(arrayIndex), elementIndex, value);
+  }
+
+  @Override
+  public LongTVList getReadView() {
+    LongTVList view = new LongTVList();
+    viewAs(view);
+    view.values = new ArrayList<>(values);
+    return view;
   }
 
   @Override
   public LongTVList clone() {
     LongTVList cloneList = new LongTVList();
     cloneAs(cloneList);
-    for (long[] valueArray : values) {
-      cloneList.values.add(cloneValue(valueArray));
+    for (Object valueArray : values) {
+      cloneList.values.add(cloneLongs(valueArray));
     }
     return cloneList;
   }
 
-  private long[] cloneValue(long[] array) {
-    long[] cloneArray = new long[array.length];
-    System.arraycopy(array, 0, cloneArray, 0, array.length);
-    return cloneArray;
-  }
-
   @Override
   public void sort() {
     if (sortedTimestamps == null || sortedTimestamps.length < rowCount) {
@@ -111,7 +116,7 @@ public class LongTVList extends TVList {
       sortedValues =
           (long[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.INT64, rowCount);
     }
-    sort(0, rowCount);
+    sortBlocks();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -120,7 +125,7 @@ public class LongTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (long[] dataArray : values) {
+      for (Object dataArray : values) {
         PrimitiveArrayManager.release(dataArray);
       }
       values.clear();
@@ -170,7 +175,7 @@ public class LongTVList extends TVList {
 
   @Override
   protected void expandValues() {
-    values.add((long[]) getPrimitiveArraysByType(TSDataType.INT64));
+    values.add(getPrimitiveArraysByType(TSDataType.INT64));
   }
 
   @Override
@@ -246,17 +251,17 @@ public class LongTVList extends TVList {
       int internalRemaining = ARRAY_SIZE - elementIdx;
       if (internalRemaining >= inputRemaining) {
         // the remaining inputs can fit the last array, copy all remaining inputs into last array
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, inputRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
+        copyToArray(value, idx, values.get(arrayIdx), elementIdx, inputRemaining);
         rowCount += inputRemaining;
         break;
       } else {
         // the remaining inputs cannot fit the last array, fill the last array and create a new
         // one and enter the next loop
-        System.arraycopy(
+        copyToArray(
             time, idx - timeIdxOffset, timestamps.get(arrayIdx), elementIdx, internalRemaining);
-        System.arraycopy(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
+        copyToArray(value, idx, values.get(arrayIdx), elementIdx, internalRemaining);
         idx += internalRemaining;
         rowCount += internalRemaining;
         checkExpansion();
@@ -268,6 +273,7 @@ public class LongTVList extends TVList {
   int dropNullValThenUpdateMinTimeAndSorted(
       long[] time, long[] values, BitMap bitMap, int start, int end, int tIdxOffset) {
     long inPutMinTime = Long.MAX_VALUE;
+    long inPutMaxTime = Long.MIN_VALUE;
     boolean inputSorted = true;
 
     int nullCnt = 0;
@@ -285,12 +291,12 @@ public class LongTVList extends TVList {
       // update minTime and sorted
       tIdx = tIdx - nullCnt;
       inPutMinTime = Math.min(inPutMinTime, time[tIdx]);
+      inPutMaxTime = Math.max(inPutMaxTime, time[tIdx]);
       if (inputSorted && tIdx > 0 && time[tIdx - 1] > time[tIdx]) {
         inputSorted = false;
       }
     }
-    minTime = Math.min(inPutMinTime, minTime);
-    sorted = sorted && inputSorted && (rowCount == 0 || inPutMinTime >= getTime(rowCount - 1));
+    appendBlock(inPutMinTime, inPutMaxTime, inputSorted, end - start - nullCnt);
     return nullCnt;
   }
 
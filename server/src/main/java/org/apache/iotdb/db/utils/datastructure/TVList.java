@@ -35,7 +35,12 @@ import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,8 +55,11 @@ public abstract class TVList implements WALEntryValue {
   protected static final String ERR_DATATYPE_NOT_CONSISTENT = "DataType not consistent";
   // list of timestamp array, add 1 when expanded -> data point timestamp array
   // index relation: arrayIndex -> elementIndex
-  protected List<long[]> timestamps;
+  // an array is a long[], or a direct LongBuffer if the list is off-heap
+  protected List<Object> timestamps;
   protected int rowCount;
+  // whether timestamps and INT32, INT64, FLOAT, DOUBLE values are stored in off-heap arrays
+  protected final boolean offHeap;
 
   protected long[][] sortedTimestamps;
   protected boolean sorted = true;
@@ -61,29 +69,51 @@ public abstract class TVList implements WALEntryValue {
   protected long pivotTime;
   protected long minTime;
 
+  // rows are kept as consecutive blocks in insertion order: block i holds the rows in
+  // [blockEnds[i - 1], blockEnds[i]) with times in [blockMinTimes[i], blockMaxTimes[i]], and
+  // blockSorted[i] tells whether these rows are known to be in time order
+  protected int blockCount;
+  protected int[] blockEnds;
+  protected long[] blockMinTimes;
+  protected long[] blockMaxTimes;
+  protected boolean[] blockSorted;
+
   private long version;
 
   public TVList() {
+    this(false);
+  }
+
+  protected TVList(boolean offHeap) {
     timestamps = new ArrayList<>();
     rowCount = 0;
     minTime = Long.MAX_VALUE;
     referenceCount = new AtomicInteger();
+    this.offHeap = offHeap;
   }
 
   public static TVList newList(TSDataType dataType) {
+    return newList(dataType, false);
+  }
+
+  /**
+   * @param offHeap whether to store timestamps and values in off-heap arrays, which must be
+   *     released by {@link #clear()} and should not be shared with queries
+   */
+  public static TVList newList(TSDataType dataType, boolean offHeap) {
     switch (dataType) {
       case TEXT:
-        return new BinaryTVList();
+        return new BinaryTVList(offHeap);
       case FLOAT:
-        return new FloatTVList();
+        return new FloatTVList(offHeap);
       case INT32:
-        return new IntTVList();
+        return new IntTVList(offHeap);
       case INT64:
-        return new LongTVList();
+        return new LongTVList(offHeap);
       case DOUBLE:
-        return new DoubleTVList();
+        return new DoubleTVList(offHeap);
       case BOOLEAN:
-        return new BooleanTVList();
+        return new BooleanTVList(offHeap);
       default:
         break;
     }
@@ -103,10 +133,26 @@ public abstract class TVList implements WALEntryValue {
     return size;
   }
 
+  /**
+   * @return the part of {@link #tvListArrayMemCost(TSDataType)} stored off-heap for an off-heap
+   *     list, i.e. the time array and the value array of a fixed length type
+   */
+  public static long tvListArrayOffHeapMemCost(TSDataType type) {
+    long size = (long) PrimitiveArrayManager.ARRAY_SIZE * 8L;
+    if (PrimitiveArrayManager.isOffHeapSupported(type)) {
+      size += (long) PrimitiveArrayManager.ARRAY_SIZE * (long) type.getDataTypeSize();
+    }
+    return size;
+  }
+
   public boolean isSorted() {
     return sorted;
   }
 
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
   public void increaseReferenceCount() {
     referenceCount.incrementAndGet();
   }
@@ -125,7 +171,7 @@ public abstract class TVList implements WALEntryValue {
     }
     int arrayIndex = index / ARRAY_SIZE;
     int elementIndex = index % ARRAY_SIZE;
-    return timestamps.get(arrayIndex)[elementIndex];
+    return longAt(timestamps.get(arrayIndex), elementIndex);
   }
 
   public void putLong(long time, long value) {
@@ -259,13 +305,33 @@ public abstract class TVList implements WALEntryValue {
   public int delete(long lowerBound, long upperBound) {
     int newSize = 0;
     minTime = Long.MAX_VALUE;
-    for (int i = 0; i < rowCount; i++) {
-      long time = getTime(i);
-      if (time < lowerBound || time > upperBound) {
-        set(i, newSize++);
-        minTime = Math.min(time, minTime);
+    // the remaining rows keep their order, so each block just shrinks or disappears
+    int newBlockCount = 0;
+    int blockStart = 0;
+    for (int block = 0; block < blockCount; block++) {
+      int newBlockStart = newSize;
+      long blockMinTime = Long.MAX_VALUE;
+      long blockMaxTime = Long.MIN_VALUE;
+      for (int i = blockStart; i < blockEnds[block]; i++) {
+        long time = getTime(i);
+        if (time < lowerBound || time > upperBound) {
+          set(i, newSize++);
+          blockMinTime = Math.min(time, blockMinTime);
+          blockMaxTime = Math.max(time, blockMaxTime);
+        }
+      }
+      blockStart = blockEnds[block];
+      if (newSize > newBlockStart) {
+        blockEnds[newBlockCount] = newSize;
+        blockMinTimes[newBlockCount] = blockMinTime;
+        blockMaxTimes[newBlockCount] = blockMaxTime;
+        blockSorted[newBlockCount] = blockSorted[block];
+        newBlockCount++;
+        minTime = Math.min(blockMinTime, minTime);
       }
     }
+    blockCount = newBlockCount;
+    sorted = blockCount == 0 || (blockCount == 1 && blockSorted[0]);
     int deletedNumber = rowCount - newSize;
     rowCount = newSize;
     // release primitive arrays that are empty
@@ -282,18 +348,75 @@ public abstract class TVList implements WALEntryValue {
   }
 
   protected void cloneAs(TVList cloneList) {
-    for (long[] timestampArray : timestamps) {
+    for (Object timestampArray : timestamps) {
       cloneList.timestamps.add(cloneTime(timestampArray));
     }
-    cloneList.rowCount = rowCount;
-    cloneList.sorted = sorted;
-    cloneList.minTime = minTime;
+    copyStateTo(cloneList);
+  }
+
+  /**
+   * Get a read-only view of the rows currently in this list. The view shares the primitive arrays
+   * of this list instead of copying them and keeps its own row count, so rows appended afterwards
+   * are not visible through it. It stays valid as long as the existing rows are neither reordered
+   * nor removed in place, and must not be written to or cleared.
+   */
+  public TVList getReadView() {
+    throw new UnsupportedOperationException(
+        "Read view is not supported by " + getClass().getSimpleName());
+  }
+
+  protected void viewAs(TVList view) {
+    view.timestamps = new ArrayList<>(timestamps);
+    copyStateTo(view);
+  }
+
+  private void copyStateTo(TVList other) {
+    other.rowCount = rowCount;
+    other.sorted = sorted;
+    other.minTime = minTime;
+    other.blockCount = blockCount;
+    if (blockCount > 0) {
+      other.blockEnds = Arrays.copyOf(blockEnds, blockCount);
+      other.blockMinTimes = Arrays.copyOf(blockMinTimes, blockCount);
+      other.blockMaxTimes = Arrays.copyOf(blockMaxTimes, blockCount);
+      other.blockSorted = Arrays.copyOf(blockSorted, blockCount);
+    }
+  }
+
+  /** Append the rows in [from, to) of another list of the same data type to this list. */
+  public void putRowsFrom(TVList src, int from, int to) {
+    for (int i = from; i < to; i++) {
+      long time = src.getTime(i);
+      switch (getDataType()) {
+        case BOOLEAN:
+          putBoolean(time, src.getBoolean(i));
+          break;
+        case INT32:
+          putInt(time, src.getInt(i));
+          break;
+        case INT64:
+          putLong(time, src.getLong(i));
+          break;
+        case FLOAT:
+          putFloat(time, src.getFloat(i));
+          break;
+        case DOUBLE:
+          putDouble(time, src.getDouble(i));
+          break;
+        case TEXT:
+          putBinary(time, src.getBinary(i));
+          break;
+        default:
+          throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+      }
+    }
   }
 
   public void clear() {
     rowCount = 0;
     sorted = true;
     minTime = Long.MAX_VALUE;
+    blockCount = 0;
     clearTime();
     clearSortedTime();
 
@@ -303,7 +426,7 @@ public abstract class TVList implements WALEntryValue {
 
   protected void clearTime() {
     if (timestamps != null) {
-      for (long[] dataArray : timestamps) {
+      for (Object dataArray : timestamps) {
         PrimitiveArrayManager.release(dataArray);
       }
       timestamps.clear();
@@ -327,37 +450,362 @@ public abstract class TVList implements WALEntryValue {
   protected void checkExpansion() {
     if ((rowCount % ARRAY_SIZE) == 0) {
       expandValues();
-      timestamps.add((long[]) getPrimitiveArraysByType(TSDataType.INT64));
+      timestamps.add(getPrimitiveArraysByType(TSDataType.INT64));
     }
   }
 
   protected Object getPrimitiveArraysByType(TSDataType dataType) {
-    return PrimitiveArrayManager.allocate(dataType);
+    return PrimitiveArrayManager.allocate(dataType, offHeap);
+  }
+
+  /** Clones are always on heap, so they can be handed to queries. */
+  protected long[] cloneTime(Object array) {
+    return cloneLongs(array);
+  }
+
+  /*
+   * Accessors of the primitive arrays of INT64 timestamps and INT32, INT64, FLOAT, DOUBLE values.
+   * An array is a plain java array, or a direct nio buffer if the list is off-heap. The plain array
+   * is checked first, so lists on heap, which is the default, access their arrays directly.
+   */
+
+  protected static long longAt(Object array, int index) {
+    if (array instanceof long[]) {
+      return ((long[]) array)[index];
+    }
+    return ((LongBuffer) array).get(index);
+  }
+
+  protected static int intAt(Object array, int index) {
+    if (array instanceof int[]) {
+      return ((int[]) array)[index];
+    }
+    return ((IntBuffer) array).get(index);
+  }
+
+  protected static float floatAt(Object array, int index) {
+    if (array instanceof float[]) {
+      return ((float[]) array)[index];
+    }
+    return ((FloatBuffer) array).get(index);
+  }
+
+  protected static double doubleAt(Object array, int index) {
+    if (array instanceof double[]) {
+      return ((double[]) array)[index];
+    }
+    return ((DoubleBuffer) array).get(index);
+  }
+
+  protected static void setLongAt(Object array, int index, long value) {
+    if (array instanceof long[]) {
+      ((long[]) array)[index] = value;
+    } else {
+      ((LongBuffer) array).put(index, value);
+    }
+  }
+
+  protected static void setIntAt(Object array, int index, int value) {
+    if (array instanceof int[]) {
+      ((int[]) array)[index] = value;
+    } else {
+      ((IntBuffer) array).put(index, value);
+    }
+  }
+
+  protected static void setFloatAt(Object array, int index, float value) {
+    if (array instanceof float[]) {
+      ((float[]) array)[index] = value;
+    } else {
+      ((FloatBuffer) array).put(index, value);
+    }
+  }
+
+  protected static void setDoubleAt(Object array, int index, double value) {
+    if (array instanceof double[]) {
+      ((double[]) array)[index] = value;
+    } else {
+      ((DoubleBuffer) array).put(index, value);
+    }
+  }
+
+  protected static void copyToArray(long[] src, int srcPos, Object dest, int destPos, int length) {
+    if (dest instanceof long[]) {
+      System.arraycopy(src, srcPos, dest, destPos, length);
+      return;
+    }
+    LongBuffer destBuffer = ((LongBuffer) dest).duplicate();
+    destBuffer.position(destPos);
+    destBuffer.put(src, srcPos, length);
+  }
+
+  protected static void copyToArray(int[] src, int srcPos, Object dest, int destPos, int length) {
+    if (dest instanceof int[]) {
+      System.arraycopy(src, srcPos, dest, destPos, length);
+      return;
+    }
+    IntBuffer destBuffer = ((IntBuffer) dest).duplicate();
+    destBuffer.position(destPos);
+    destBuffer.put(src, srcPos, length);
   }
 
-  protected long[] cloneTime(long[] array) {
-    long[] cloneArray = new long[array.length];
-    System.arraycopy(array, 0, cloneArray, 0, array.length);
+  protected static void copyToArray(
+      float[] src, int srcPos, Object dest, int destPos, int length) {
+    if (dest instanceof float[]) {
+      System.arraycopy(src, srcPos, dest, destPos, length);
+      return;
+    }
+    FloatBuffer destBuffer = ((FloatBuffer) dest).duplicate();
+    destBuffer.position(destPos);
+    destBuffer.put(src, srcPos, length);
+  }
+
+  protected static void copyToArray(
+      double[] src, int srcPos, Object dest, int destPos, int length) {
+    if (dest instanceof double[]) {
+      System.arraycopy(src, srcPos, dest, destPos, length);
+      return;
+    }
+    DoubleBuffer destBuffer = ((DoubleBuffer) dest).duplicate();
+    destBuffer.position(destPos);
+    destBuffer.put(src, srcPos, length);
+  }
+
+  /** @return an on-heap copy of the array */
+  protected static long[] cloneLongs(Object array) {
+    if (array instanceof long[]) {
+      return ((long[]) array).clone();
+    }
+    LongBuffer buffer = (LongBuffer) array;
+    long[] cloneArray = new long[buffer.capacity()];
+    buffer.duplicate().get(cloneArray);
     return cloneArray;
   }
 
+  /** @return an on-heap copy of the array */
+  protected static int[] cloneInts(Object array) {
+    if (array instanceof int[]) {
+      return ((int[]) array).clone();
+    }
+    IntBuffer buffer = (IntBuffer) array;
+    int[] cloneArray = new int[buffer.capacity()];
+    buffer.duplicate().get(cloneArray);
+    return cloneArray;
+  }
+
+  /** @return an on-heap copy of the array */
+  protected static float[] cloneFloats(Object array) {
+    if (array instanceof float[]) {
+      return ((float[]) array).clone();
+    }
+    FloatBuffer buffer = (FloatBuffer) array;
+    float[] cloneArray = new float[buffer.capacity()];
+    buffer.duplicate().get(cloneArray);
+    return cloneArray;
+  }
+
+  /** @return an on-heap copy of the array */
+  protected static double[] cloneDoubles(Object array) {
+    if (array instanceof double[]) {
+      return ((double[]) array).clone();
+    }
+    DoubleBuffer buffer = (DoubleBuffer) array;
+    double[] cloneArray = new double[buffer.capacity()];
+    buffer.duplicate().get(cloneArray);
+    return cloneArray;
+  }
+
+  /**
+   * Sort [lo, hi) by time. IoT data mostly arrives in order, so the range usually consists of a few
+   * long ascending runs. Instead of recursively halving the range, the natural runs are detected
+   * first (short ones are extended to {@link #SMALL_ARRAY_LENGTH} by binary insertion sort), then
+   * adjacent runs are merged pairwise until only one run is left. Runs that are already in order
+   * relative to each other are never merged, so an almost sorted range costs nearly linear time.
+   */
   protected void sort(int lo, int hi) {
     if (sorted) {
       return;
     }
+    if (hi - lo < 2) {
+      return;
+    }
+
+    // runBase[i] is the start of the i-th run, runBase[runCount] is hi
+    int[] runBase = new int[8];
+    int runCount = 0;
+    int runLo = lo;
+    while (runLo < hi) {
+      int runLen = countRunAndMakeAscending(runLo, hi);
+      if (runLen < SMALL_ARRAY_LENGTH) {
+        int forcedLen = Math.min(SMALL_ARRAY_LENGTH, hi - runLo);
+        binarySort(runLo, runLo + forcedLen, runLo + runLen);
+        runLen = forcedLen;
+      }
+      if (runCount + 1 >= runBase.length) {
+        runBase = Arrays.copyOf(runBase, runBase.length * 2);
+      }
+      runBase[runCount++] = runLo;
+      runLo += runLen;
+    }
+    runBase[runCount] = hi;
+
+    while (runCount > 1) {
+      int mergedCount = 0;
+      for (int i = 0; i < runCount; i += 2) {
+        if (i + 1 < runCount) {
+          mergeRuns(runBase[i], runBase[i + 1], runBase[i + 2]);
+        }
+        runBase[mergedCount++] = runBase[i];
+      }
+      runBase[mergedCount] = hi;
+      runCount = mergedCount;
+    }
+  }
+
+  /**
+   * Sort the whole list by merging its blocks. Blocks that are not known to be in time order are
+   * sorted on their own first, then adjacent blocks are merged pairwise until one is left. A pair
+   * whose time ranges do not overlap is skipped without touching its rows, so a list built from a
+   * few out-of-order tablets only moves the rows that really interleave.
+   */
+  protected void sortBlocks() {
+    if (blockCount == 0) {
+      sort(0, rowCount);
+      return;
+    }
+    int[] runBase = new int[blockCount + 1];
+    long[] runMinTimes = Arrays.copyOf(blockMinTimes, blockCount);
+    long[] runMaxTimes = Arrays.copyOf(blockMaxTimes, blockCount);
+    for (int i = 0; i < blockCount; i++) {
+      runBase[i] = i == 0 ? 0 : blockEnds[i - 1];
+      if (!blockSorted[i]) {
+        sort(runBase[i], blockEnds[i]);
+      }
+    }
+    int runCount = blockCount;
+    runBase[runCount] = rowCount;
+
+    while (runCount > 1) {
+      int mergedCount = 0;
+      for (int i = 0; i < runCount; i += 2) {
+        long mergedMinTime = runMinTimes[i];
+        long mergedMaxTime = runMaxTimes[i];
+        if (i + 1 < runCount) {
+          if (runMaxTimes[i] > runMinTimes[i + 1]) {
+            mergeRuns(runBase[i], runBase[i + 1], runBase[i + 2]);
+          }
+          mergedMinTime = Math.min(mergedMinTime, runMinTimes[i + 1]);
+          mergedMaxTime = Math.max(mergedMaxTime, runMaxTimes[i + 1]);
+        }
+        runBase[mergedCount] = runBase[i];
+        runMinTimes[mergedCount] = mergedMinTime;
+        runMaxTimes[mergedCount] = mergedMaxTime;
+        mergedCount++;
+      }
+      runBase[mergedCount] = rowCount;
+      runCount = mergedCount;
+    }
+    resetBlocks();
+  }
 
-    if (lo == hi) {
+  /** Mark the list, which must be in time order now, as a single sorted block. */
+  protected void resetBlocks() {
+    blockCount = 0;
+    if (rowCount > 0) {
+      ensureBlockCapacity();
+      blockEnds[0] = rowCount;
+      blockMinTimes[0] = getTime(0);
+      blockMaxTimes[0] = getTime(rowCount - 1);
+      blockSorted[0] = true;
+      blockCount = 1;
+    }
+  }
+
+  /**
+   * Record that {@code length} rows with times in [inputMinTime, inputMaxTime] are about to be
+   * appended at {@link #rowCount}. An input in time order that starts no earlier than the last
+   * block ends just extends that block, so a list fed with in-order tablets stays one sorted
+   * block and never needs sorting. Otherwise a new block is started, unless the last block is too
+   * short to be worth tracking on its own, in which case the input joins it as an unsorted block.
+   */
+  protected void appendBlock(
+      long inputMinTime, long inputMaxTime, boolean inputSorted, int length) {
+    if (length <= 0) {
       return;
     }
-    if (hi - lo <= SMALL_ARRAY_LENGTH) {
-      int initRunLen = countRunAndMakeAscending(lo, hi);
-      binarySort(lo, hi, lo + initRunLen);
+    minTime = Math.min(minTime, inputMinTime);
+    int last = blockCount - 1;
+    boolean inOrder =
+        last >= 0 && blockSorted[last] && inputSorted && inputMinTime >= blockMaxTimes[last];
+    if (inOrder
+        || (last >= 0 && rowCount - (last == 0 ? 0 : blockEnds[last - 1]) < SMALL_ARRAY_LENGTH)) {
+      blockSorted[last] = inOrder;
+      blockEnds[last] = rowCount + length;
+      blockMinTimes[last] = Math.min(blockMinTimes[last], inputMinTime);
+      blockMaxTimes[last] = Math.max(blockMaxTimes[last], inputMaxTime);
+    } else {
+      ensureBlockCapacity();
+      blockEnds[blockCount] = rowCount + length;
+      blockMinTimes[blockCount] = inputMinTime;
+      blockMaxTimes[blockCount] = inputMaxTime;
+      blockSorted[blockCount] = inputSorted;
+      blockCount++;
+    }
+    sorted = blockCount == 1 && blockSorted[0];
+  }
+
+  private void ensureBlockCapacity() {
+    if (blockEnds == null) {
+      blockEnds = new int[4];
+      blockMinTimes = new long[4];
+      blockMaxTimes = new long[4];
+      blockSorted = new boolean[4];
+    } else if (blockCount == blockEnds.length) {
+      int newLength = blockCount * 2;
+      blockEnds = Arrays.copyOf(blockEnds, newLength);
+      blockMinTimes = Arrays.copyOf(blockMinTimes, newLength);
+      blockMaxTimes = Arrays.copyOf(blockMaxTimes, newLength);
+      blockSorted = Arrays.copyOf(blockSorted, newLength);
+    }
+  }
+
+  /**
+   * Merge the two adjacent sorted runs [lo, mid) and [mid, hi). The prefix of the left run which is
+   * not greater than the first element of the right run and the suffix of the right run which is
+   * not less than the last element of the left run are already in place, so only the rest is
+   * merged.
+   */
+  private void mergeRuns(int lo, int mid, int hi) {
+    long rightFirstTime = getTime(mid);
+    long leftLastTime = getTime(mid - 1);
+    if (leftLastTime <= rightFirstTime) {
       return;
     }
-    int mid = (lo + hi) >>> 1;
-    sort(lo, mid);
-    sort(mid, hi);
-    merge(lo, mid, hi);
+    // first element of the left run greater than the first element of the right run
+    int left = lo;
+    int right = mid - 1;
+    while (left < right) {
+      int m = (left + right) >>> 1;
+      if (getTime(m) <= rightFirstTime) {
+        left = m + 1;
+      } else {
+        right = m;
+      }
+    }
+    int mergeLo = left;
+    // first element of the right run not less than the last element of the left run
+    left = mid;
+    right = hi;
+    while (left < right) {
+      int m = (left + right) >>> 1;
+      if (getTime(m) < leftLastTime) {
+        left = m + 1;
+      } else {
+        right = m;
+      }
+    }
+    int mergeHi = left;
+    merge(mergeLo, mid, mergeHi);
   }
 
   protected int countRunAndMakeAscending(int lo, int hi) {
@@ -490,17 +938,25 @@ public abstract class TVList implements WALEntryValue {
   }
 
   void updateMinTimeAndSorted(long[] time, int start, int end) {
-    int length = time.length;
-    long inPutMinTime = Long.MAX_VALUE;
+    if (start >= end) {
+      return;
+    }
     boolean inputSorted = true;
-    for (int i = start; i < end; i++) {
-      inPutMinTime = Math.min(inPutMinTime, time[i]);
-      if (inputSorted && i < length - 1 && time[i] > time[i + 1]) {
+    for (int i = start + 1; i < end; i++) {
+      if (time[i] < time[i - 1]) {
         inputSorted = false;
+        break;
+      }
+    }
+    long inputMinTime = time[start];
+    long inputMaxTime = time[end - 1];
+    if (!inputSorted) {
+      for (int i = start; i < end; i++) {
+        inputMinTime = Math.min(inputMinTime, time[i]);
+        inputMaxTime = Math.max(inputMaxTime, time[i]);
       }
     }
-    minTime = Math.min(inPutMinTime, minTime);
-    sorted = sorted && inputSorted && (rowCount == 0 || inPutMinTime >= getTime(rowCount - 1));
+    appendBlock(inputMinTime, inputMaxTime, inputSorted, end - start);
   }
 
   /** for log */
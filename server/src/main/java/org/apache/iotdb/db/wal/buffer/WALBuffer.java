@@ -23,9 +23,14 @@ import org.apache.iotdb.commons.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.write.InsertNode;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.enums.Metric;
+import org.apache.iotdb.db.service.metrics.enums.Tag;
 import org.apache.iotdb.db.utils.MmapUtil;
 import org.apache.iotdb.db.wal.exception.WALNodeClosedException;
 import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,44 +39,57 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * This buffer guarantees the concurrent safety and uses double buffers mechanism to accelerate
- * writes and avoid waiting for buffer syncing to disk.
+ * This buffer guarantees the concurrent safety and uses multiple buffers mechanism to accelerate
+ * writes and avoid waiting for buffer syncing to disk. WALEntries are fsynced in groups, the time
+ * spent waiting for a larger group adapts to the queue depth and the measured fsync latency.
  */
 public class WALBuffer extends AbstractWALBuffer {
   private static final Logger logger = LoggerFactory.getLogger(WALBuffer.class);
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static final int WAL_BUFFER_SIZE = config.getWalBufferSize();
+  private static final int WAL_BUFFER_NUM = config.getWalBufferNum();
   private static final int QUEUE_CAPACITY = config.getWalBufferQueueCapacity();
+  /** max number of WALEntries fsynced together */
+  private static final int MAX_BATCH_SIZE = QUEUE_CAPACITY * WAL_BUFFER_NUM;
+  /** weight of the latest sample in the moving average of fsync latency */
+  private static final double FSYNC_LATENCY_SMOOTHING_FACTOR = 0.2;
 
   /** whether close method is called */
   private volatile boolean isClosed = false;
   /** WALEntries */
-  private final BlockingQueue<WALEntry> walEntries = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
-  /** lock to provide synchronization for double buffers mechanism, protecting buffers status */
+  private final BlockingQueue<WALEntry> walEntries = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+  /** lock to provide synchronization for multiple buffers mechanism, protecting buffers status */
   private final Lock buffersLock = new ReentrantLock();
   /** condition to guarantee correctness of switching buffers */
   private final Condition idleBufferReadyCondition = buffersLock.newCondition();
   // region these variables should be protected by buffersLock
-  /** two buffers switch between three statuses (there is always 1 buffer working) */
-  // buffer in working status, only updated by serializeThread
-  private volatile ByteBuffer workingBuffer;
-  // buffer in idle status
-  private volatile ByteBuffer idleBuffer;
-  // buffer in syncing status, serializeThread makes sure no more writes to syncingBuffer
-  private volatile ByteBuffer syncingBuffer;
+  /** buffers in idle status, serializeThread takes its next working buffer from here */
+  private final Deque<ByteBuffer> idleBuffers = new ArrayDeque<>();
   // endregion
+  /** all buffers, each one is working, idle or held by a SyncBufferTask */
+  private final List<ByteBuffer> allBuffers = new ArrayList<>();
+  /** buffer in working status, only updated by serializeThread */
+  private volatile ByteBuffer workingBuffer;
+  /** number of fsync requests submitted to syncBufferThread but not finished */
+  private final AtomicInteger pendingFsyncNum = new AtomicInteger();
+  /** moving average of fsync latency, only updated by syncBufferThread. Unit: nanosecond */
+  private volatile long avgFsyncLatencyInNs = 0;
   /** single thread to serialize WALEntry to workingBuffer */
   private final ExecutorService serializeThread;
   /** single thread to sync syncingBuffer to disk */
@@ -98,8 +116,11 @@ public class WALBuffer extends AbstractWALBuffer {
 
   private void allocateBuffers() {
     try {
-      workingBuffer = ByteBuffer.allocateDirect(WAL_BUFFER_SIZE / 2);
-      idleBuffer = ByteBuffer.allocateDirect(WAL_BUFFER_SIZE / 2);
+      for (int i = 0; i < WAL_BUFFER_NUM; ++i) {
+        allBuffers.add(ByteBuffer.allocateDirect(WAL_BUFFER_SIZE / WAL_BUFFER_NUM));
+      }
+      workingBuffer = allBuffers.get(0);
+      idleBuffers.addAll(allBuffers.subList(1, WAL_BUFFER_NUM));
     } catch (OutOfMemoryError e) {
       logger.error("Fail to allocate wal node-{}'s buffer because out of memory.", identifier, e);
       close();
@@ -145,8 +166,10 @@ public class WALBuffer extends AbstractWALBuffer {
     /** In order to control memory usage of blocking queue, get 1 and then serialize 1 */
     private void serialize() {
       // try to get first WALEntry with blocking interface
+      int queueDepth = 0;
       try {
         WALEntry firstWALEntry = walEntries.take();
+        queueDepth = walEntries.size();
         boolean returnFlag = handleWALEntry(firstWALEntry);
         if (returnFlag) {
           return;
@@ -157,20 +180,26 @@ public class WALBuffer extends AbstractWALBuffer {
         Thread.currentThread().interrupt();
       }
 
-      // for better fsync performance, sleep a while to enlarge write batch
-      long fsyncDelay = config.getFsyncWalDelayInMs();
-      if (fsyncDelay > 0) {
-        try {
-          Thread.sleep(fsyncDelay);
-        } catch (InterruptedException e) {
-          logger.warn("Interrupted when sleeping a while to enlarge wal write batch.");
-          Thread.currentThread().interrupt();
-        }
-      }
-
-      // try to get more WALEntries with non-blocking interface to enlarge write batch
-      while (walEntries.peek() != null && batchSize < QUEUE_CAPACITY) {
+      // try to get more WALEntries to enlarge write batch, waiting is only worth it when other
+      // writers are active or the disk is still busy with previous fsync
+      long deadline = System.nanoTime() + getBatchWaitTimeInNs(queueDepth);
+      while (batchSize < MAX_BATCH_SIZE) {
         WALEntry walEntry = walEntries.poll();
+        if (walEntry == null) {
+          long waitTime = deadline - System.nanoTime();
+          if (waitTime <= 0) {
+            break;
+          }
+          try {
+            walEntry = walEntries.poll(waitTime, TimeUnit.NANOSECONDS);
+          } catch (InterruptedException e) {
+            logger.warn("Interrupted when waiting a while to enlarge wal write batch.");
+            Thread.currentThread().interrupt();
+          }
+          if (walEntry == null) {
+            break;
+          }
+        }
         boolean returnFlag = handleWALEntry(walEntry);
         if (returnFlag) {
           return;
@@ -183,6 +212,24 @@ public class WALBuffer extends AbstractWALBuffer {
       }
     }
 
+    /**
+     * When previous fsync is still running, entries arriving before it finishes can share the next
+     * fsync. Otherwise, the wait time grows with the number of entries queued behind the first one,
+     * so an idle wal node fsyncs at once. Both are bounded by fsyncWalDelayInMs.
+     */
+    private long getBatchWaitTimeInNs(int queueDepth) {
+      long maxWaitTime = TimeUnit.MILLISECONDS.toNanos(config.getFsyncWalDelayInMs());
+      if (maxWaitTime <= 0) {
+        return 0;
+      }
+      long fsyncLatency = avgFsyncLatencyInNs;
+      if (pendingFsyncNum.get() > 0) {
+        return Math.min(maxWaitTime, fsyncLatency);
+      }
+      return Math.min(
+          maxWaitTime, fsyncLatency * Math.min(queueDepth, QUEUE_CAPACITY) / QUEUE_CAPACITY);
+    }
+
     /**
      * @return true if fsyncWorkingBuffer has been called, which means this serialization task
      *     should be ended.
@@ -324,8 +371,8 @@ public class WALBuffer extends AbstractWALBuffer {
 
   /** Notice: this method only called when buffer is exhausted by SerializeTask. */
   private void syncWorkingBuffer(long searchIndex) {
-    switchWorkingBufferToFlushing();
-    syncBufferThread.submit(new SyncBufferTask(searchIndex, false));
+    ByteBuffer syncingBuffer = switchWorkingBufferToFlushing();
+    syncBufferThread.submit(new SyncBufferTask(syncingBuffer, searchIndex, false));
   }
 
   /** Notice: this method only called at the last of SerializeTask. */
@@ -333,50 +380,70 @@ public class WALBuffer extends AbstractWALBuffer {
       long searchIndex,
       List<WALFlushListener> fsyncListeners,
       WALFlushListener rollWALFileWriterListener) {
-    switchWorkingBufferToFlushing();
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .histogram(
+              fsyncListeners.size(),
+              Metric.WAL_BATCH_SIZE.toString(),
+              MetricLevel.IMPORTANT,
+              Tag.NAME.toString(),
+              "wal_node_" + identifier);
+    }
+    ByteBuffer syncingBuffer = switchWorkingBufferToFlushing();
+    pendingFsyncNum.incrementAndGet();
     syncBufferThread.submit(
-        new SyncBufferTask(searchIndex, true, fsyncListeners, rollWALFileWriterListener));
+        new SyncBufferTask(
+            syncingBuffer, searchIndex, true, fsyncListeners, rollWALFileWriterListener));
   }
 
-  // only called by serializeThread
-  private void switchWorkingBufferToFlushing() {
+  /**
+   * Takes an idle buffer as the new workingBuffer, only called by serializeThread.
+   *
+   * @return old workingBuffer, which should be synced to disk
+   */
+  private ByteBuffer switchWorkingBufferToFlushing() {
+    ByteBuffer syncingBuffer = workingBuffer;
     buffersLock.lock();
     try {
-      while (idleBuffer == null) {
+      while (idleBuffers.isEmpty()) {
         idleBufferReadyCondition.await();
       }
-      syncingBuffer = workingBuffer;
-      workingBuffer = idleBuffer;
+      workingBuffer = idleBuffers.poll();
       workingBuffer.clear();
-      idleBuffer = null;
     } catch (InterruptedException e) {
       logger.warn("Interrupted When waiting for available working buffer.");
       Thread.currentThread().interrupt();
     } finally {
       buffersLock.unlock();
     }
+    return syncingBuffer;
   }
   // endregion
 
   // region Task of syncBufferThread
   /**
    * This task syncs syncingBuffer to disk. The precondition is that syncingBuffer cannot be null.
+   * Tasks are executed one by one, so buffers reach the disk in the order they are submitted.
    */
   private class SyncBufferTask implements Runnable {
+    private final ByteBuffer syncingBuffer;
     private final long searchIndex;
     private final boolean forceFlag;
     private final List<WALFlushListener> fsyncListeners;
     private final WALFlushListener rollWALFileWriterListener;
 
-    public SyncBufferTask(long searchIndex, boolean forceFlag) {
-      this(searchIndex, forceFlag, null, null);
+    public SyncBufferTask(ByteBuffer syncingBuffer, long searchIndex, boolean forceFlag) {
+      this(syncingBuffer, searchIndex, forceFlag, null, null);
     }
 
     public SyncBufferTask(
+        ByteBuffer syncingBuffer,
         long searchIndex,
         boolean forceFlag,
         List<WALFlushListener> fsyncListeners,
         WALFlushListener rollWALFileWriterListener) {
+      this.syncingBuffer = syncingBuffer;
       this.searchIndex = searchIndex;
       this.forceFlag = forceFlag;
       this.fsyncListeners = fsyncListeners == null ? Collections.emptyList() : fsyncListeners;
@@ -393,13 +460,19 @@ public class WALBuffer extends AbstractWALBuffer {
             "Fail to sync wal node-{}'s buffer, change system mode to read-only.", identifier, e);
         config.setReadOnly(true);
       } finally {
-        switchSyncingBufferToIdle();
+        switchSyncingBufferToIdle(syncingBuffer);
       }
 
       // force os cache to the storage device
       if (forceFlag) {
         try {
+          long startTime = System.nanoTime();
           currentWALFileWriter.force();
+          recordFsyncLatency(System.nanoTime() - startTime);
+          // notify all waiting listeners
+          for (WALFlushListener fsyncListener : fsyncListeners) {
+            fsyncListener.succeed();
+          }
         } catch (IOException e) {
           logger.error(
               "Fail to fsync wal node-{}'s log writer, change system mode to read-only.",
@@ -409,10 +482,8 @@ public class WALBuffer extends AbstractWALBuffer {
             fsyncListener.fail(e);
           }
           config.setReadOnly(true);
-        }
-        // notify all waiting listeners
-        for (WALFlushListener fsyncListener : fsyncListeners) {
-          fsyncListener.succeed();
+        } finally {
+          pendingFsyncNum.decrementAndGet();
         }
       }
 
@@ -440,13 +511,32 @@ public class WALBuffer extends AbstractWALBuffer {
   }
 
   // only called by syncBufferThread
-  private void switchSyncingBufferToIdle() {
+  private void recordFsyncLatency(long latencyInNs) {
+    long avgLatency = avgFsyncLatencyInNs;
+    avgFsyncLatencyInNs =
+        avgLatency == 0
+            ? latencyInNs
+            : (long)
+                (FSYNC_LATENCY_SMOOTHING_FACTOR * latencyInNs
+                    + (1 - FSYNC_LATENCY_SMOOTHING_FACTOR) * avgLatency);
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .timer(
+              latencyInNs,
+              TimeUnit.NANOSECONDS,
+              Metric.COST_TASK.toString(),
+              MetricLevel.IMPORTANT,
+              Tag.NAME.toString(),
+              "wal_fsync");
+    }
+  }
+
+  // only called by syncBufferThread
+  private void switchSyncingBufferToIdle(ByteBuffer syncingBuffer) {
     buffersLock.lock();
     try {
-      // No need to judge whether idleBuffer is null because syncingBuffer is not null
-      // and there is only one buffer can be null between syncingBuffer and idleBuffer
-      idleBuffer = syncingBuffer;
-      syncingBuffer = null;
+      idleBuffers.add(syncingBuffer);
       idleBufferReadyCondition.signalAll();
     } finally {
       buffersLock.unlock();
@@ -499,14 +589,8 @@ public class WALBuffer extends AbstractWALBuffer {
       }
     }
 
-    if (workingBuffer != null) {
-      MmapUtil.clean((MappedByteBuffer) workingBuffer);
-    }
-    if (idleBuffer != null) {
-      MmapUtil.clean((MappedByteBuffer) workingBuffer);
-    }
-    if (syncingBuffer != null) {
-      MmapUtil.clean((MappedByteBuffer) syncingBuffer);
+    for (ByteBuffer buffer : allBuffers) {
+      MmapUtil.clean((MappedByteBuffer) buffer);
     }
   }
 
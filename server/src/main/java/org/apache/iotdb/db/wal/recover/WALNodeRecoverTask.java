@@ -37,9 +37,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /** This task is responsible for the recovery of one wal node. */
@@ -47,6 +54,10 @@ public class WALNodeRecoverTask implements Runnable {
   private static final Logger logger = LoggerFactory.getLogger(WALNodeRecoverTask.class);
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static final WALRecoverManager walRecoverManger = WALRecoverManager.getInstance();
+  /** max number of wal entries in one redo batch of a TsFile */
+  private static final int REDO_BATCH_SIZE = 256;
+  /** max number of submitted but not redone batches per redo thread, to limit read ahead */
+  private static final int MAX_PENDING_BATCHES_PER_THREAD = 4;
 
   /** this directory store one wal node's .wal and .checkpoint files */
   private final File logDirectory;
@@ -57,6 +68,8 @@ public class WALNodeRecoverTask implements Runnable {
 
   private Map<Integer, MemTableInfo> memTableId2Info;
   private Map<Integer, UnsealedTsFileRecoverPerformer> memTableId2RecoverPerformer;
+  /** total size of .wal files reported to WALRecoverManager */
+  private long reportedWALFilesSize = 0;
 
   public WALNodeRecoverTask(File logDirectory, CountDownLatch allNodesRecoveredLatch) {
     this.logDirectory = logDirectory;
@@ -70,10 +83,14 @@ public class WALNodeRecoverTask implements Runnable {
       recoverInfoFromCheckpoints();
       recoverTsFiles();
     } catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
       for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
         recoverPerformer.getRecoverListener().fail(e);
       }
     } finally {
+      reportSkippedWALFiles();
       allNodesRecoveredLatch.countDown();
       for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
         try {
@@ -171,7 +188,7 @@ public class WALNodeRecoverTask implements Runnable {
     }
   }
 
-  private void recoverTsFiles() {
+  private void recoverTsFiles() throws InterruptedException {
     if (memTableId2RecoverPerformer.isEmpty()) {
       return;
     }
@@ -195,27 +212,7 @@ public class WALNodeRecoverTask implements Runnable {
     // asc sort by version id
     WALFileUtils.ascSortByVersionId(walFiles);
     // read .wal files and redo logs
-    for (File walFile : walFiles) {
-      try (WALReader walReader = new WALReader(walFile)) {
-        while (walReader.hasNext()) {
-          WALEntry walEntry = walReader.next();
-          if (!memTableId2Info.containsKey(walEntry.getMemTableId())) {
-            continue;
-          }
-
-          UnsealedTsFileRecoverPerformer recoverPerformer =
-              memTableId2RecoverPerformer.get(walEntry.getMemTableId());
-          if (recoverPerformer != null) {
-            recoverPerformer.redoLog(walEntry);
-          } else {
-            logger.warn(
-                "Fail to find TsFile recover performer for wal entry in TsFile {}", walFile);
-          }
-        }
-      } catch (Exception e) {
-        logger.warn("Fail to read wal logs from {}, skip them", walFile, e);
-      }
-    }
+    redoLogs(walFiles);
     // end recovering all recover performers
     for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
       try {
@@ -226,4 +223,122 @@ public class WALNodeRecoverTask implements Runnable {
       }
     }
   }
+
+  /**
+   * Read .wal files in this thread and redo the entries in the redo threads of {@link
+   * WALRecoverManager}. The entries are grouped into batches by TsFile, batches of the same TsFile
+   * are chained so that they are redone in order, while batches of different TsFiles are redone
+   * concurrently. Reading ahead is limited by the number of pending batches.
+   */
+  private void redoLogs(File[] walFiles) throws InterruptedException {
+    Executor redoThreadPool = walRecoverManger.getRedoThreadPool();
+    if (redoThreadPool == null) {
+      redoThreadPool = Runnable::run;
+    }
+    Semaphore pendingBatches =
+        new Semaphore(MAX_PENDING_BATCHES_PER_THREAD * config.getWalRecoverRedoThreadNum());
+    Map<UnsealedTsFileRecoverPerformer, List<WALEntry>> recoverPerformer2Batch =
+        new IdentityHashMap<>();
+    Map<UnsealedTsFileRecoverPerformer, CompletableFuture<Void>> recoverPerformer2LastRedo =
+        new IdentityHashMap<>();
+    try {
+      for (File walFile : walFiles) {
+        try (WALReader walReader = new WALReader(walFile)) {
+          while (walReader.hasNext()) {
+            WALEntry walEntry = walReader.next();
+            if (!memTableId2Info.containsKey(walEntry.getMemTableId())) {
+              continue;
+            }
+
+            UnsealedTsFileRecoverPerformer recoverPerformer =
+                memTableId2RecoverPerformer.get(walEntry.getMemTableId());
+            if (recoverPerformer != null) {
+              List<WALEntry> batch =
+                  recoverPerformer2Batch.computeIfAbsent(recoverPerformer, k -> new ArrayList<>());
+              batch.add(walEntry);
+              if (batch.size() >= REDO_BATCH_SIZE) {
+                recoverPerformer2Batch.remove(recoverPerformer);
+                submitRedoBatch(
+                    recoverPerformer,
+                    batch,
+                    redoThreadPool,
+                    pendingBatches,
+                    recoverPerformer2LastRedo);
+              }
+            } else {
+              logger.warn(
+                  "Fail to find TsFile recover performer for wal entry in TsFile {}", walFile);
+            }
+          }
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Exception e) {
+          logger.warn("Fail to read wal logs from {}, skip them", walFile, e);
+        }
+        reportedWALFilesSize += walFile.length();
+        walRecoverManger.addRecoveredWALFilesSize(walFile.length());
+      }
+      for (Map.Entry<UnsealedTsFileRecoverPerformer, List<WALEntry>> entry :
+          recoverPerformer2Batch.entrySet()) {
+        submitRedoBatch(
+            entry.getKey(),
+            entry.getValue(),
+            redoThreadPool,
+            pendingBatches,
+            recoverPerformer2LastRedo);
+      }
+    } finally {
+      // wait until all submitted batches are redone before ending the recovery
+      try {
+        CompletableFuture.allOf(
+                recoverPerformer2LastRedo.values().toArray(new CompletableFuture[0]))
+            .join();
+      } catch (CompletionException e) {
+        logger.warn("Meet error when redoing wal logs in {}", logDirectory, e.getCause());
+      }
+    }
+  }
+
+  private void submitRedoBatch(
+      UnsealedTsFileRecoverPerformer recoverPerformer,
+      List<WALEntry> batch,
+      Executor redoThreadPool,
+      Semaphore pendingBatches,
+      Map<UnsealedTsFileRecoverPerformer, CompletableFuture<Void>> recoverPerformer2LastRedo)
+      throws InterruptedException {
+    pendingBatches.acquire();
+    CompletableFuture<Void> lastRedo =
+        recoverPerformer2LastRedo.getOrDefault(
+            recoverPerformer, CompletableFuture.completedFuture(null));
+    // handle instead of then, so that one failed batch doesn't skip the following batches
+    recoverPerformer2LastRedo.put(
+        recoverPerformer,
+        lastRedo.handleAsync(
+            (v, t) -> {
+              try {
+                for (WALEntry walEntry : batch) {
+                  recoverPerformer.redoLog(walEntry);
+                }
+                walRecoverManger.addRedoneWALEntriesNum(batch.size());
+              } finally {
+                pendingBatches.release();
+              }
+              return null;
+            },
+            redoThreadPool));
+  }
+
+  /** report the size of .wal files skipped by this node, e.g., files before the first valid one */
+  private void reportSkippedWALFiles() {
+    File[] walFiles = WALFileUtils.listAllWALFiles(logDirectory);
+    if (walFiles == null) {
+      return;
+    }
+    long totalSize = 0;
+    for (File walFile : walFiles) {
+      totalSize += walFile.length();
+    }
+    walRecoverManger.addRecoveredWALFilesSize(totalSize - reportedWALFilesSize);
+    reportedWALFilesSize = totalSize;
+  }
 }
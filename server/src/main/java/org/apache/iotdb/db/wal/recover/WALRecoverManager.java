@@ -20,6 +20,7 @@ package org.apache.iotdb.db.wal.recover;
 
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.commons.concurrent.threadpool.ScheduledExecutorUtil;
 import org.apache.iotdb.commons.file.SystemFileFactory;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -27,6 +28,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.DataRegionException;
 import org.apache.iotdb.db.wal.exception.WALRecoverException;
 import org.apache.iotdb.db.wal.recover.file.UnsealedTsFileRecoverPerformer;
+import org.apache.iotdb.db.wal.utils.WALFileUtils;
 import org.apache.iotdb.db.wal.utils.listener.WALRecoverListener;
 
 import org.slf4j.Logger;
@@ -40,16 +42,33 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** First set allVsgScannedLatch, then call recover method. */
 public class WALRecoverManager {
   private static final Logger logger = LoggerFactory.getLogger(WALRecoverManager.class);
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  /** interval of logging the progress of recovery */
+  private static final long PROGRESS_REPORT_INTERVAL_IN_MS = 10_000L;
 
   /** start recovery after all virtual storage groups have submitted unsealed zero-level TsFiles */
   private volatile CountDownLatch allDataRegionScannedLatch;
   /** threads to recover wal nodes */
   private ExecutorService recoverThreadPool;
+  /** threads to redo wal entries, shared by all wal nodes */
+  private ExecutorService redoThreadPool;
+  /** thread to log the progress of recovery */
+  private ScheduledExecutorService progressReportThread;
+  /** total size of .wal files in all wal nodes */
+  private long totalWALFilesSize;
+  /** size of .wal files that have been read */
+  private final AtomicLong recoveredWALFilesSize = new AtomicLong();
+  /** number of wal entries that have been redone */
+  private final AtomicLong redoneWALEntriesNum = new AtomicLong();
+  /** number of redone wal entries at the last progress report */
+  private long lastReportedWALEntriesNum;
   /** stores all UnsealedTsFileRecoverPerformer submitted by virtual storage group processors */
   private final Map<String, UnsealedTsFileRecoverPerformer> absolutePath2RecoverPerformer =
       new ConcurrentHashMap<>();
@@ -58,6 +77,7 @@ public class WALRecoverManager {
 
   public void recover() throws WALRecoverException {
     logger.info("Start recovering wal.");
+    long recoverStartTime = System.currentTimeMillis();
     try {
       // collect wal nodes' information
       List<File> walNodeDirs = new ArrayList<>();
@@ -85,8 +105,12 @@ public class WALRecoverManager {
           "Data regions have submitted all unsealed TsFiles, start recovering TsFiles in each wal node.");
       // recover each wal node's TsFiles
       if (!walNodeDirs.isEmpty()) {
+        startProgressReport(walNodeDirs);
         recoverThreadPool =
             IoTDBThreadPoolFactory.newCachedThreadPool(ThreadName.WAL_RECOVER.getName());
+        redoThreadPool =
+            IoTDBThreadPoolFactory.newFixedThreadPool(
+                config.getWalRecoverRedoThreadNum(), ThreadName.WAL_RECOVER_REDO.getName());
         CountDownLatch allNodesRecoveredLatch = new CountDownLatch(walNodeDirs.size());
         for (File walNodeDir : walNodeDirs) {
           recoverThreadPool.submit(new WALNodeRecoverTask(walNodeDir, allNodesRecoveredLatch));
@@ -98,6 +122,11 @@ public class WALRecoverManager {
           Thread.currentThread().interrupt();
           throw new WALRecoverException("Fail to recover wal.", e);
         }
+        logger.info(
+            "Finish redoing {} wal entries of {} MB wal files in {} ms.",
+            redoneWALEntriesNum.get(),
+            totalWALFilesSize / 1024 / 1024,
+            System.currentTimeMillis() - recoverStartTime);
       }
       // deal with remaining TsFiles which don't have wal
       for (UnsealedTsFileRecoverPerformer recoverPerformer :
@@ -136,6 +165,57 @@ public class WALRecoverManager {
     logger.info("Successfully recover all wal nodes.");
   }
 
+  private void startProgressReport(List<File> walNodeDirs) {
+    totalWALFilesSize = 0;
+    for (File walNodeDir : walNodeDirs) {
+      File[] walFiles = WALFileUtils.listAllWALFiles(walNodeDir);
+      if (walFiles != null) {
+        for (File walFile : walFiles) {
+          totalWALFilesSize += walFile.length();
+        }
+      }
+    }
+    recoveredWALFilesSize.set(0);
+    redoneWALEntriesNum.set(0);
+    lastReportedWALEntriesNum = 0;
+    progressReportThread =
+        IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+            ThreadName.WAL_RECOVER_PROGRESS.getName());
+    ScheduledExecutorUtil.safelyScheduleAtFixedRate(
+        progressReportThread,
+        this::reportProgress,
+        PROGRESS_REPORT_INTERVAL_IN_MS,
+        PROGRESS_REPORT_INTERVAL_IN_MS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void reportProgress() {
+    long recoveredSize = recoveredWALFilesSize.get();
+    long redoneNum = redoneWALEntriesNum.get();
+    logger.info(
+        "WAL recovery progress: {}/{} MB wal files read ({}%), "
+            + "{} wal entries redone, {} entries/s.",
+        recoveredSize / 1024 / 1024,
+        totalWALFilesSize / 1024 / 1024,
+        totalWALFilesSize == 0 ? 100 : recoveredSize * 100 / totalWALFilesSize,
+        redoneNum,
+        (redoneNum - lastReportedWALEntriesNum) * 1000 / PROGRESS_REPORT_INTERVAL_IN_MS);
+    lastReportedWALEntriesNum = redoneNum;
+  }
+
+  void addRecoveredWALFilesSize(long size) {
+    recoveredWALFilesSize.addAndGet(size);
+  }
+
+  void addRedoneWALEntriesNum(long num) {
+    redoneWALEntriesNum.addAndGet(num);
+  }
+
+  /** @return threads to redo wal entries, null when not recovering */
+  ExecutorService getRedoThreadPool() {
+    return redoThreadPool;
+  }
+
   public WALRecoverListener addRecoverPerformer(UnsealedTsFileRecoverPerformer recoverPerformer) {
     absolutePath2RecoverPerformer.put(recoverPerformer.getTsFileAbsolutePath(), recoverPerformer);
     return recoverPerformer.getRecoverListener();
@@ -160,6 +240,14 @@ public class WALRecoverManager {
       recoverThreadPool.shutdown();
       recoverThreadPool = null;
     }
+    if (redoThreadPool != null) {
+      redoThreadPool.shutdown();
+      redoThreadPool = null;
+    }
+    if (progressReportThread != null) {
+      progressReportThread.shutdownNow();
+      progressReportThread = null;
+    }
   }
 
   public static WALRecoverManager getInstance() {
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.DoubleStatistics;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.apache.iotdb.db.engine.cache.OffHeapChunkCache.BLOCK_SIZE_IN_BYTE;
+
+public class OffHeapChunkCacheTest {
+
+  private static final String FILE_PATH = "root.sg1/0/0/1-1-0-0.tsfile";
+
+  private final ChunkMetadata chunkMetadata =
+      new ChunkMetadata("sensor0", TSDataType.DOUBLE, 25, new DoubleStatistics());
+
+  @Test
+  public void testPutAndGet() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(64L * BLOCK_SIZE_IN_BYTE);
+    OffHeapChunkCache.ChunkKey key = new OffHeapChunkCache.ChunkKey(FILE_PATH, 25);
+    Assert.assertNull(cache.getIfPresent(key, chunkMetadata));
+
+    // spans three blocks, the last one partially
+    ByteBuffer data = prepareData(2 * BLOCK_SIZE_IN_BYTE + 100);
+    ChunkHeader header = prepareHeader(data.remaining());
+    cache.put(key, header, data);
+    Assert.assertEquals(0, data.position());
+    Assert.assertEquals(3L * BLOCK_SIZE_IN_BYTE, cache.getUsedMemory());
+
+    Chunk chunk = cache.getIfPresent(new OffHeapChunkCache.ChunkKey(FILE_PATH, 25), chunkMetadata);
+    Assert.assertNotNull(chunk);
+    Assert.assertEquals(header, chunk.getHeader());
+    Assert.assertEquals(data, chunk.getData());
+    Assert.assertTrue(chunk.getData().hasArray());
+    Assert.assertEquals(0.5, cache.calculateHitRatio(), 0.0001);
+
+    cache.clear();
+    Assert.assertTrue(cache.isEmpty());
+    Assert.assertEquals(0, cache.getUsedMemory());
+    Assert.assertNull(cache.getIfPresent(key, chunkMetadata));
+  }
+
+  @Test
+  public void testEviction() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(16L * BLOCK_SIZE_IN_BYTE);
+    ByteBuffer data = prepareData(BLOCK_SIZE_IN_BYTE * 2);
+    ChunkHeader header = prepareHeader(data.remaining());
+    for (int i = 0; i < 8; i++) {
+      cache.put(new OffHeapChunkCache.ChunkKey(FILE_PATH, i), header, data);
+    }
+    // touch the first chunk, so the second one is the least recently used
+    Assert.assertNotNull(
+        cache.getIfPresent(new OffHeapChunkCache.ChunkKey(FILE_PATH, 0), chunkMetadata));
+    cache.put(new OffHeapChunkCache.ChunkKey(FILE_PATH, 8), header, data);
+
+    Assert.assertEquals(1, cache.getEvictionCount());
+    Assert.assertNull(
+        cache.getIfPresent(new OffHeapChunkCache.ChunkKey(FILE_PATH, 1), chunkMetadata));
+    for (int i : new int[] {0, 2, 8}) {
+      Chunk chunk = cache.getIfPresent(new OffHeapChunkCache.ChunkKey(FILE_PATH, i), chunkMetadata);
+      Assert.assertNotNull(chunk);
+      Assert.assertEquals(data, chunk.getData());
+    }
+
+    // chunks too large for the cache are not kept
+    cache.put(
+        new OffHeapChunkCache.ChunkKey(FILE_PATH, 9), header, prepareData(BLOCK_SIZE_IN_BYTE * 3));
+    Assert.assertNull(
+        cache.getIfPresent(new OffHeapChunkCache.ChunkKey(FILE_PATH, 9), chunkMetadata));
+    Assert.assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testDisabled() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(0);
+    Assert.assertFalse(cache.isEnabled());
+    ByteBuffer data = prepareData(100);
+    cache.put(new OffHeapChunkCache.ChunkKey(FILE_PATH, 0), prepareHeader(100), data);
+    Assert.assertTrue(cache.isEmpty());
+  }
+
+  private ByteBuffer prepareData(int size) {
+    ByteBuffer data = ByteBuffer.allocate(size);
+    for (int i = 0; i < size; i++) {
+      data.put((byte) i);
+    }
+    data.flip();
+    return data;
+  }
+
+  private ChunkHeader prepareHeader(int dataSize) {
+    return new ChunkHeader(
+        "sensor0",
+        dataSize,
+        TSDataType.DOUBLE,
+        CompressionType.UNCOMPRESSED,
+        TSEncoding.PLAIN,
+        1);
+  }
+}
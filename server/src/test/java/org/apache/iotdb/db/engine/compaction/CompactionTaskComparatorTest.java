@@ -40,7 +40,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertTrue;
@@ -60,6 +62,7 @@ public class CompactionTaskComparatorTest {
   @After
   public void tearDown() {
     new CompactionConfigRestorer().restoreCompactionConfig();
+    ReadAmplificationTracker.getInstance().clear();
   }
 
   /** Test comparation of tasks with different file num */
@@ -174,6 +177,43 @@ public class CompactionTaskComparatorTest {
     }
   }
 
+  /** Test that tasks in the time partition with higher read amplification are preferred */
+  @Test
+  public void testReadAmplificationCompare() throws InterruptedException {
+    // a scan reads 8 files in partition 1 of fakeSg-0, 7 of them are redundant
+    Set<String> scannedPartitions = new HashSet<>();
+    for (int i = 0; i < 8; ++i) {
+      ReadAmplificationTracker.getInstance()
+          .recordFileRead(
+              new TsFileResource(
+                  new File(
+                      "fakeSg"
+                          + File.separator
+                          + "0"
+                          + File.separator
+                          + "1"
+                          + File.separator
+                          + String.format("%d-%d-0-0.tsfile", i, i))),
+              scannedPartitions);
+    }
+
+    List<TsFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      resources.add(new FakedTsFileResource(new File(String.format("%d-%d-0-0.tsfile", i, i)), 1));
+    }
+    // without read amplification, the task with more files would be preferred
+    AbstractCompactionTask taskWithMoreFiles =
+        new FakedInnerSpaceCompactionTask("fakeSg", 0, tsFileManager, taskNum, true, resources);
+    AbstractCompactionTask taskWithReadAmplification =
+        new FakedInnerSpaceCompactionTask(
+            "fakeSg", 1, tsFileManager, taskNum, true, resources.subList(0, 5));
+    compactionTaskQueue.put(taskWithMoreFiles);
+    compactionTaskQueue.put(taskWithReadAmplification);
+
+    assertTrue(compactionTaskQueue.take() == taskWithReadAmplification);
+    assertTrue(compactionTaskQueue.take() == taskWithMoreFiles);
+  }
+
   /** Test the comparation of different type of compaction task */
   @Test
   public void testComparationOfDifferentTaskType() throws InterruptedException {
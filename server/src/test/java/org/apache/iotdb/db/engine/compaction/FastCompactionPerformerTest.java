@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.performer.impl.FastCompactionPerformer;
+import org.apache.iotdb.db.engine.compaction.utils.CompactionFileGeneratorUtils;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.series.SeriesRawDataBatchReader;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_SEPARATOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastCompactionPerformerTest extends AbstractCompactionTest {
+  private final String oldThreadName = Thread.currentThread().getName();
+  private final int oldMaxNumberOfPointsInPage =
+      TSFileDescriptor.getInstance().getConfig().getMaxNumberOfPointsInPage();
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException {
+    super.setUp();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(1024);
+    Thread.currentThread().setName("pool-1-IoTDB-Compaction-1");
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    super.tearDown();
+    Thread.currentThread().setName(oldThreadName);
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setMaxNumberOfPointsInPage(oldMaxNumberOfPointsInPage);
+    for (TsFileResource tsFileResource : seqResources) {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(tsFileResource.getTsFilePath());
+    }
+    for (TsFileResource tsFileResource : unseqResources) {
+      FileReaderManager.getInstance().closeFileAndRemoveReader(tsFileResource.getTsFilePath());
+    }
+  }
+
+  /* Total 5 seq files, each file has the same 6 nonAligned timeseries with 100 data points. */
+  @Test
+  public void testSeqInnerSpaceCompaction()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(5, 2, 3, 100, 0, 0, 50, 50, false, true);
+
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getInnerCompactionTargetTsFileResources(seqResources, true);
+    new FastCompactionPerformer(seqResources, Collections.emptyList(), targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, true, COMPACTION_TEST_SG);
+
+    for (int i = 0; i < 2; i++) {
+      for (int j = 0; j < 3; j++) {
+        List<Pair<Long, Object>> points = readSeries(targetResources, "d" + i, "s" + j);
+        assertEquals(500, points.size());
+        for (Pair<Long, Object> point : points) {
+          assertEquals(point.left, point.right);
+        }
+      }
+    }
+  }
+
+  /**
+   * Total 5 seq files and 5 unseq files, each file has the same nonAligned timeseries.
+   *
+   * <p>Seq files has d0 ~ d1 and s0 ~ s2, time range is 0 ~ 99, 100 ~ 199, 200 ~ 299, 300 ~ 399 and
+   * 400 ~ 499, value range is 0 ~ 99, 100 ~ 199, 200 ~ 299, 300 ~ 399 and 400 ~ 499.
+   *
+   * <p>UnSeq files has d0 ~ d1 and s0 ~ s2, time range is 0 ~ 49, 100 ~ 149, 200 ~ 249, 300 ~ 349
+   * and 400 ~ 449, value range is 10000 ~ 10049, 10100 ~ 10149, 10200 ~ 10249, 10300 ~ 10349 and
+   * 10400 ~ 10449.
+   */
+  @Test
+  public void testCrossSpaceCompactionWithOverlappedData()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(30);
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(5, 2, 3, 100, 0, 0, 0, 0, false, true);
+    createFiles(5, 2, 3, 50, 0, 10000, 50, 50, false, false);
+
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    new FastCompactionPerformer(seqResources, unseqResources, targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, false, COMPACTION_TEST_SG);
+
+    assertEquals(5, targetResources.size());
+    for (int i = 0; i < 2; i++) {
+      for (int j = 0; j < 3; j++) {
+        List<Pair<Long, Object>> points = readSeries(targetResources, "d" + i, "s" + j);
+        assertEquals(500, points.size());
+        for (Pair<Long, Object> point : points) {
+          if (point.left % 100 < 50) {
+            assertEquals(point.left + 10000, point.right);
+          } else {
+            assertEquals(point.left, point.right);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Total 2 seq files and 1 unseq file. Seq files has time range 0 ~ 299 and 300 ~ 599, unseq file
+   * has time range 250 ~ 349 with value range 10250 ~ 10349. Data of d0.s0 in 100 ~ 149 and 320 ~
+   * 339 is deleted before compaction.
+   */
+  @Test
+  public void testCrossSpaceCompactionWithDeletion()
+      throws IOException, WriteProcessException, MetadataException, StorageEngineException,
+          InterruptedException {
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(30);
+    registerTimeseriesInMManger(1, 2, false);
+    createFiles(2, 1, 2, 300, 0, 0, 0, 0, false, true);
+    createFiles(1, 1, 2, 100, 250, 10250, 0, 0, false, false);
+    List<String> seriesPaths =
+        Collections.singletonList(
+            COMPACTION_TEST_SG + PATH_SEPARATOR + "d0" + PATH_SEPARATOR + "s0");
+    generateModsFile(seriesPaths, seqResources, 100, 149);
+    generateModsFile(seriesPaths, unseqResources, 320, 339);
+
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    new FastCompactionPerformer(seqResources, unseqResources, targetResources).perform();
+    CompactionUtils.moveTargetFile(targetResources, false, COMPACTION_TEST_SG);
+
+    List<Pair<Long, Object>> points = readSeries(targetResources, "d0", "s0");
+    // 600 points with 50 deleted in seq files, and the 20 deleted in unseq file are replaced by seq
+    assertEquals(550, points.size());
+    long lastTime = Long.MIN_VALUE;
+    for (Pair<Long, Object> point : points) {
+      assertTrue(point.left > lastTime);
+      assertTrue(point.left < 100 || point.left >= 150);
+      if (point.left >= 250 && point.left < 350 && (point.left < 320 || point.left >= 340)) {
+        assertEquals(point.left + 10000, point.right);
+      } else {
+        assertEquals(point.left, point.right);
+      }
+      lastTime = point.left;
+    }
+
+    points = readSeries(targetResources, "d0", "s1");
+    assertEquals(600, points.size());
+    for (Pair<Long, Object> point : points) {
+      if (point.left >= 250 && point.left < 350) {
+        assertEquals(point.left + 10000, point.right);
+      } else {
+        assertEquals(point.left, point.right);
+      }
+    }
+  }
+
+  private List<Pair<Long, Object>> readSeries(
+      List<TsFileResource> resources, String device, String measurement) throws IOException {
+    PartialPath path =
+        new MeasurementPath(
+            COMPACTION_TEST_SG + PATH_SEPARATOR + device,
+            measurement,
+            new MeasurementSchema(measurement, TSDataType.INT64));
+    IBatchReader tsFilesReader =
+        new SeriesRawDataBatchReader(
+            path,
+            TSDataType.INT64,
+            EnvironmentUtils.TEST_QUERY_CONTEXT,
+            resources,
+            new ArrayList<>(),
+            null,
+            null,
+            true);
+    List<Pair<Long, Object>> points = new ArrayList<>();
+    while (tsFilesReader.hasNextBatch()) {
+      BatchData batchData = tsFilesReader.nextBatch();
+      while (batchData.hasCurrent()) {
+        points.add(new Pair<>(batchData.currentTime(), batchData.currentValue()));
+        batchData.next();
+      }
+    }
+    tsFilesReader.close();
+    return points;
+  }
+
+  private void generateModsFile(
+      List<String> seriesPaths, List<TsFileResource> resources, long startValue, long endValue)
+      throws IllegalPathException, IOException {
+    for (TsFileResource resource : resources) {
+      Map<String, Pair<Long, Long>> deleteMap = new HashMap<>();
+      for (String path : seriesPaths) {
+        deleteMap.put(path, new Pair<>(startValue, endValue));
+      }
+      CompactionFileGeneratorUtils.generateMods(deleteMap, resource, false);
+    }
+  }
+}
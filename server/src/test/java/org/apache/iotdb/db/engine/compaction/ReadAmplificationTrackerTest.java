@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReadAmplificationTrackerTest {
+  private final ReadAmplificationTracker tracker = ReadAmplificationTracker.getInstance();
+
+  @Before
+  public void setUp() {
+    tracker.clear();
+  }
+
+  @After
+  public void tearDown() {
+    tracker.clear();
+  }
+
+  @Test
+  public void testRedundantFileReads() {
+    // the first file of a partition in each scan is not redundant
+    readFiles("root.sg", "0", 1, 5);
+    readFiles("root.sg", "0", 1, 3);
+    readFiles("root.sg", "0", 2, 1);
+    assertEquals(6, tracker.getReadAmplification("root.sg-0", 1), 0.01);
+    assertEquals(0, tracker.getReadAmplification("root.sg-0", 2), 0.01);
+    assertEquals(0, tracker.getReadAmplification("root.sg-0", 3), 0.01);
+    assertEquals(2, tracker.getTrackedPartitionNum());
+  }
+
+  @Test
+  public void testFileOutsidePartitionFolder() {
+    long totalFileReadNum = tracker.getTotalFileReadNum();
+    Set<String> scannedPartitions = new HashSet<>();
+    tracker.recordFileRead(new TsFileResource(new File("1-1-0-0.tsfile")), scannedPartitions);
+    tracker.recordFileRead(
+        new TsFileResource(
+            new File("root.sg" + File.separator + "0" + File.separator + "1-1-0-0.tsfile")),
+        scannedPartitions);
+    // the reads still count as query load but no partition is tracked
+    assertEquals(totalFileReadNum + 2, tracker.getTotalFileReadNum());
+    assertEquals(0, tracker.getTrackedPartitionNum());
+  }
+
+  @Test
+  public void testRemovePartition() {
+    readFiles("root.sg", "0", 1, 3);
+    readFiles("root.sg", "0", 2, 3);
+    tracker.removePartition("root.sg-0", 1);
+    assertEquals(0, tracker.getReadAmplification("root.sg-0", 1), 0.01);
+    assertEquals(2, tracker.getReadAmplification("root.sg-0", 2), 0.01);
+    assertEquals(1, tracker.getTrackedPartitionNum());
+  }
+
+  @Test
+  public void testRemoveDataRegion() {
+    readFiles("root.sg", "1", 1, 3);
+    readFiles("root.sg", "1", 2, 3);
+    readFiles("root.sg", "10", 1, 3);
+    readFiles("root.sg-1", "0", 1, 3);
+    tracker.removeDataRegion("root.sg-1");
+    assertEquals(0, tracker.getReadAmplification("root.sg-1", 1), 0.01);
+    assertEquals(0, tracker.getReadAmplification("root.sg-1", 2), 0.01);
+    // regions whose names share the prefix are kept
+    assertEquals(2, tracker.getReadAmplification("root.sg-10", 1), 0.01);
+    assertEquals(2, tracker.getReadAmplification("root.sg-1-0", 1), 0.01);
+    assertEquals(2, tracker.getTrackedPartitionNum());
+  }
+
+  /** Simulate a scan reading fileNum files of the time partition */
+  private void readFiles(
+      String storageGroup, String dataRegionId, long timePartition, int fileNum) {
+    Set<String> scannedPartitions = new HashSet<>();
+    for (int i = 0; i < fileNum; ++i) {
+      tracker.recordFileRead(
+          new TsFileResource(
+              new File(
+                  storageGroup
+                      + File.separator
+                      + dataRegionId
+                      + File.separator
+                      + timePartition
+                      + File.separator
+                      + String.format("%d-%d-0-0.tsfile", i, i))),
+          scannedPartitions);
+    }
+  }
+}
@@ -43,6 +43,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
@@ -304,6 +305,60 @@ public class SizeTieredCompactionRecoverTest {
     Assert.assertFalse(targetResource.getTsFile().exists());
   }
 
+  /**
+   * Test a compaction task interrupted before its target file is moved, leaving the chunk metadata
+   * spill file of the target writer. Recovery should delete the spill file with the target file.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRecoverDeletesChunkMetadataTempFileOfTarget() throws Exception {
+    List<TsFileResource> sourceFiles = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Set<String> fullPath = new HashSet<>(Arrays.asList(fullPaths));
+      List<List<Long>> chunkPagePointsNum = new ArrayList<>();
+      List<Long> pagePointsNum = new ArrayList<>();
+      pagePointsNum.add(100L);
+      chunkPagePointsNum.add(pagePointsNum);
+      TsFileResource tsFileResource =
+          new TsFileResource(
+              new File(
+                  SEQ_FILE_DIR
+                      + File.separator.concat(
+                          i
+                              + IoTDBConstant.FILE_NAME_SEPARATOR
+                              + i
+                              + IoTDBConstant.FILE_NAME_SEPARATOR
+                              + 0
+                              + IoTDBConstant.FILE_NAME_SEPARATOR
+                              + 0
+                              + ".tsfile")));
+      CompactionFileGeneratorUtils.writeTsFile(
+          fullPath, chunkPagePointsNum, 100 * i + 100, tsFileResource);
+      sourceFiles.add(tsFileResource);
+    }
+    TsFileResource targetResource =
+        TsFileNameGenerator.getInnerCompactionTargetFileResource(sourceFiles, true);
+    CompactionLogger compactionLogger = new CompactionLogger(new File(logFilePath));
+    compactionLogger.logFiles(sourceFiles, STR_SOURCE_FILES);
+    compactionLogger.logFiles(Collections.singletonList(targetResource), STR_TARGET_FILES);
+    compactionLogger.close();
+    new ReadChunkCompactionPerformer(sourceFiles, targetResource).perform();
+    File chunkMetadataTempFile =
+        new File(
+            targetResource.getTsFile().getPath() + TsFileIOWriter.CHUNK_METADATA_TEMP_FILE_SUFFIX);
+    Assert.assertTrue(chunkMetadataTempFile.createNewFile());
+    CompactionRecoverTask recoverTask =
+        new CompactionRecoverTask(
+            COMPACTION_TEST_SG, "0", tsFileManager, new File(logFilePath), true);
+    recoverTask.doCompaction();
+    for (TsFileResource resource : sourceFiles) {
+      Assert.assertTrue(resource.getTsFile().exists());
+    }
+    Assert.assertFalse(targetResource.getTsFile().exists());
+    Assert.assertFalse(chunkMetadataTempFile.exists());
+  }
+
   /**
    * Test a compaction task in finished. The compaction log use file path to record files. All the
    * sources file is still existed.
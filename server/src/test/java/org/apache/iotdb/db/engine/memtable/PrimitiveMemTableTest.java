@@ -32,6 +32,7 @@ import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.utils.MathUtils;
+import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.db.wal.utils.WALByteBufferForTest;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
@@ -88,6 +89,38 @@ public class PrimitiveMemTableTest {
     Assert.assertEquals(count, i);
   }
 
+  @Test
+  public void memSeriesQueryViewTest() {
+    WritableMemChunk series =
+        new WritableMemChunk(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+    for (int i = 100; i < 200; i++) {
+      series.write(i, (long) i);
+    }
+    TVList view = series.getSortedTvListForQuery();
+    // queries arriving before the next write share the same view
+    Assert.assertSame(view, series.getSortedTvListForQuery());
+
+    // writes, even out of order, and deletions do not change what the view covers
+    for (int i = 0; i < 100; i++) {
+      series.write(i, (long) i);
+    }
+    series.delete(150, 159);
+    Assert.assertEquals(100, view.rowCount());
+    for (int i = 0; i < view.rowCount(); i++) {
+      Assert.assertEquals(100 + i, view.getTime(i));
+      Assert.assertEquals(100 + i, view.getLong(i));
+    }
+
+    TVList newView = series.getSortedTvListForQuery();
+    Assert.assertNotSame(view, newView);
+    Assert.assertEquals(190, newView.rowCount());
+    for (int i = 0; i < newView.rowCount(); i++) {
+      long expected = i < 150 ? i : i + 10;
+      Assert.assertEquals(expected, newView.getTime(i));
+      Assert.assertEquals(expected, newView.getLong(i));
+    }
+  }
+
   @Test
   public void memSeriesToStringTest() throws IOException {
     TSDataType dataType = TSDataType.INT32;
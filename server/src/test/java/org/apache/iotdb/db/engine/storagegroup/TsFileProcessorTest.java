@@ -41,6 +41,7 @@ import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
 import org.apache.iotdb.tsfile.read.reader.IPointReader;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
@@ -57,7 +58,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -66,6 +69,7 @@ import java.util.Map;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class TsFileProcessorTest {
 
@@ -414,6 +418,20 @@ public class TsFileProcessorTest {
     }
 
     assertTrue(processor.getTsFileResource().isClosed());
+
+    // the statistics of the sealed file are persisted in its rollup
+    TsFileRollup rollup;
+    try (InputStream inputStream = new FileInputStream(filePath + TsFileRollup.ROLLUP_SUFFIX)) {
+      rollup = TsFileRollup.deserialize(inputStream);
+    }
+    assertEquals(new File(filePath).length(), rollup.getTsFileSize());
+    assertTrue(rollup.containsDevice(deviceId));
+    Statistics statistics = rollup.getStatistics(deviceId, measurementId);
+    assertEquals(100, statistics.getCount());
+    assertEquals(1, statistics.getStartTime());
+    assertEquals(100, statistics.getEndTime());
+    assertEquals(5050L, statistics.getSumLongValue());
+    assertNull(rollup.getStatistics(deviceId, "s1"));
   }
 
   private void closeTsFileProcessor(TsFileProcessor unsealedTsFileProcessor)
@@ -28,6 +28,7 @@ import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.LongColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 
@@ -36,6 +37,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class AccumulatorTest {
@@ -422,4 +424,58 @@ public class AccumulatorTest {
     sumAccumulator.outputFinal(finalResult);
     Assert.assertEquals(100d, finalResult.build().getDouble(0), 0.001);
   }
+
+  @Test
+  public void typedAccumulatorSelectionTest() {
+    TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(Collections.singletonList(TSDataType.INT32));
+    TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    ColumnBuilder valueColumnBuilder = tsBlockBuilder.getValueColumnBuilders()[0];
+    for (int i = 0; i < 100; i++) {
+      timeColumnBuilder.writeLong(i);
+      if (i % 10 == 0) {
+        valueColumnBuilder.appendNull();
+      } else {
+        valueColumnBuilder.writeInt(i);
+      }
+      tsBlockBuilder.declarePosition();
+    }
+    // rows [20, 70) share the arrays of the block, and only rows [20, 50) are in the time range
+    Column[] input = tsBlockBuilder.build().getRegion(20, 50).getTimeAndValueColumn(0);
+    TimeRange timeRange = new TimeRange(0, 49);
+
+    Accumulator countAccumulator =
+        AccumulatorFactory.createAccumulator(AggregationType.COUNT, TSDataType.INT32, true);
+    countAccumulator.addInput(input, timeRange);
+    ColumnBuilder longResult = new LongColumnBuilder(null, 1);
+    countAccumulator.outputFinal(longResult);
+    Assert.assertEquals(27, longResult.build().getLong(0));
+
+    Accumulator sumAccumulator =
+        AccumulatorFactory.createAccumulator(AggregationType.SUM, TSDataType.INT32, true);
+    sumAccumulator.addInput(input, timeRange);
+    ColumnBuilder doubleResult = new DoubleColumnBuilder(null, 1);
+    sumAccumulator.outputFinal(doubleResult);
+    Assert.assertEquals(945d, doubleResult.build().getDouble(0), 0.001);
+
+    Accumulator maxValueAccumulator =
+        AccumulatorFactory.createAccumulator(AggregationType.MAX_VALUE, TSDataType.INT32, true);
+    maxValueAccumulator.addInput(input, timeRange);
+    ColumnBuilder intResult = new IntColumnBuilder(null, 1);
+    maxValueAccumulator.outputFinal(intResult);
+    Assert.assertEquals(49, intResult.build().getInt(0));
+
+    // setFinal keeps the final result of MIN_VALUE for the output
+    Accumulator minValueAccumulator =
+        AccumulatorFactory.createAccumulator(AggregationType.MIN_VALUE, TSDataType.INT32, true);
+    minValueAccumulator.addInput(input, timeRange);
+    intResult = new IntColumnBuilder(null, 1);
+    minValueAccumulator.outputFinal(intResult);
+    Column minValue = intResult.build();
+    Assert.assertEquals(21, minValue.getInt(0));
+    minValueAccumulator.reset();
+    minValueAccumulator.setFinal(minValue);
+    intResult = new IntColumnBuilder(null, 1);
+    minValueAccumulator.outputFinal(intResult);
+    Assert.assertEquals(21, intResult.build().getInt(0));
+  }
 }
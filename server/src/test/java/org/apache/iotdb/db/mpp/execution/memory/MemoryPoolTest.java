@@ -24,6 +24,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class MemoryPoolTest {
 
   MemoryPool pool;
@@ -272,4 +278,64 @@ public class MemoryPoolTest {
     Assert.assertTrue(f.isDone());
     Assert.assertFalse(f.isCancelled());
   }
+
+  @Test
+  public void testCancelledReservationIsSkipped() {
+    String queryId = "q0";
+    Assert.assertTrue(pool.tryReserve(queryId, 512L));
+    ListenableFuture<Void> cancelled = pool.reserve(queryId, 256L);
+    ListenableFuture<Void> waiting = pool.reserve(queryId, 256L);
+    Assert.assertEquals(256L, pool.tryCancel(cancelled));
+
+    pool.free(queryId, 256L);
+    Assert.assertTrue(waiting.isDone());
+    Assert.assertFalse(waiting.isCancelled());
+    Assert.assertEquals(512L, pool.getQueryMemoryReservedBytes(queryId));
+    Assert.assertEquals(512L, pool.getReservedBytes());
+  }
+
+  @Test
+  public void testGetQueryMemoryReservations() {
+    Assert.assertTrue(pool.tryReserve("q0", 256L));
+    Assert.assertTrue(pool.tryReserve("q1", 128L));
+    Map<String, Long> reservations = pool.getQueryMemoryReservations();
+    Assert.assertEquals(2, reservations.size());
+    Assert.assertEquals(256L, (long) reservations.get("q0"));
+    Assert.assertEquals(128L, (long) reservations.get("q1"));
+
+    pool.free("q1", 128L);
+    Assert.assertFalse(pool.getQueryMemoryReservations().containsKey("q1"));
+  }
+
+  @Test
+  public void testConcurrentReserveAndFree() throws InterruptedException {
+    final int threadCount = 8;
+    final int loopCount = 10000;
+    CountDownLatch finished = new CountDownLatch(threadCount);
+    List<Throwable> errors = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      String queryId = "q" + (i % 4);
+      new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < loopCount; j++) {
+                    // every reservation must be completed eventually, otherwise the test hangs
+                    pool.reserve(queryId, 64L).get();
+                    pool.free(queryId, 64L);
+                  }
+                } catch (Throwable t) {
+                  synchronized (errors) {
+                    errors.add(t);
+                  }
+                } finally {
+                  finished.countDown();
+                }
+              })
+          .start();
+    }
+    Assert.assertTrue(finished.await(1, TimeUnit.MINUTES));
+    Assert.assertTrue(errors.isEmpty());
+    Assert.assertEquals(0L, pool.getReservedBytes());
+    Assert.assertTrue(pool.getQueryMemoryReservations().isEmpty());
+  }
 }
@@ -21,8 +21,17 @@ package org.apache.iotdb.db.mpp.execution.operator;
 import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.commons.exception.IllegalPathException;
 import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.BloomFilterCache;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileRollup;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
 import org.apache.iotdb.db.mpp.aggregation.Aggregator;
@@ -36,10 +45,16 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.reader.series.SeriesReaderTestUtil;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.DoubleStatistics;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.read.filter.TimeFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
@@ -50,10 +65,16 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
@@ -63,6 +84,21 @@ import static org.junit.Assert.assertEquals;
 public class SeriesAggregationScanOperatorTest {
 
   private static final String SERIES_SCAN_OPERATOR_TEST_SG = "root.SeriesScanOperatorTest";
+  private static final String DEVICE0 = SERIES_SCAN_OPERATOR_TEST_SG + ".device0";
+  private static final String SENSOR0 = "sensor0";
+  private static final List<AggregationType> ROLLUP_AGGREGATION_TYPES =
+      Arrays.asList(
+          AggregationType.COUNT,
+          AggregationType.SUM,
+          AggregationType.FIRST_VALUE,
+          AggregationType.LAST_VALUE,
+          AggregationType.MIN_TIME,
+          AggregationType.MAX_TIME,
+          AggregationType.MAX_VALUE,
+          AggregationType.MIN_VALUE);
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final boolean enableTsFileStatisticsRollup = config.isEnableTsFileStatisticsRollup();
   private final List<String> deviceIds = new ArrayList<>();
   private final List<MeasurementSchema> measurementSchemas = new ArrayList<>();
 
@@ -82,6 +118,7 @@ public class SeriesAggregationScanOperatorTest {
   public void tearDown() throws IOException {
     SeriesReaderTestUtil.tearDown(seqResources, unSeqResources);
     instanceNotificationExecutor.shutdown();
+    config.setEnableTsFileStatisticsRollup(enableTsFileStatisticsRollup);
   }
 
   @Test
@@ -460,12 +497,203 @@ public class SeriesAggregationScanOperatorTest {
     assertEquals(timeColumn.length, count);
   }
 
+  /** Sequence files answered by their rollups must give the same results as their metadata. */
+  @Test
+  public void testAggregationFromRollupStatistics() throws IllegalPathException, IOException {
+    writeRollups(seqResources);
+    List<TsFileResource> noUnSeqResources = Collections.emptyList();
+
+    List<List<Object>> result = aggregateWithAndWithoutRollup(noUnSeqResources, true, null);
+    assertEquals(1, result.size());
+    assertEquals(500L, result.get(0).get(1));
+    assertEquals(124750.0, (double) result.get(0).get(2), 0.0001);
+    assertEquals(0, result.get(0).get(3));
+    assertEquals(499, result.get(0).get(4));
+    assertEquals(aggregateWithAndWithoutRollup(noUnSeqResources, false, null), result);
+
+    // windows covering whole files are answered by rollups, others fall back to the metadata
+    GroupByTimeParameter fileWindows = new GroupByTimeParameter(0, 500, 100, 100, true);
+    List<List<Object>> fileWindowResult =
+        aggregateWithAndWithoutRollup(noUnSeqResources, true, fileWindows);
+    assertEquals(5, fileWindowResult.size());
+    aggregateWithAndWithoutRollup(noUnSeqResources, false, fileWindows);
+    GroupByTimeParameter partialWindows = new GroupByTimeParameter(0, 500, 150, 150, true);
+    assertEquals(4, aggregateWithAndWithoutRollup(noUnSeqResources, true, partialWindows).size());
+    aggregateWithAndWithoutRollup(noUnSeqResources, false, partialWindows);
+
+    // the TsFiles are never read when the rollups are used, so their content does not matter
+    clearCachesAndReaders();
+    for (TsFileResource resource : seqResources) {
+      try (RandomAccessFile file = new RandomAccessFile(resource.getTsFile(), "rw")) {
+        file.write(new byte[(int) file.length()]);
+      }
+    }
+    config.setEnableTsFileStatisticsRollup(true);
+    assertEquals(result, aggregate(noUnSeqResources, true, null));
+    assertEquals(fileWindowResult, aggregate(noUnSeqResources, true, fileWindows));
+  }
+
+  @Test
+  public void testRollupIgnoredWithModification()
+      throws IllegalPathException, IOException, MetadataException {
+    writeRollups(seqResources);
+    ModificationFile modFile = seqResources.get(2).getModFile();
+    modFile.write(
+        new Deletion(new PartialPath(DEVICE0 + "." + SENSOR0), Long.MAX_VALUE, 200, 249));
+    modFile.close();
+    List<TsFileResource> noUnSeqResources = Collections.emptyList();
+
+    List<List<Object>> result = aggregateWithAndWithoutRollup(noUnSeqResources, true, null);
+    assertEquals(450L, result.get(0).get(1));
+    aggregateWithAndWithoutRollup(noUnSeqResources, false, null);
+    aggregateWithAndWithoutRollup(
+        noUnSeqResources, true, new GroupByTimeParameter(0, 500, 100, 100, true));
+  }
+
+  @Test
+  public void testRollupIgnoredWithOverlappedUnSeqFile() throws IllegalPathException, IOException {
+    writeRollups(seqResources);
+
+    List<List<Object>> result = aggregateWithAndWithoutRollup(unSeqResources, true, null);
+    assertEquals(500L, result.get(0).get(1));
+    assertEquals(6524750.0, (double) result.get(0).get(2), 0.0001);
+    aggregateWithAndWithoutRollup(unSeqResources, false, null);
+    aggregateWithAndWithoutRollup(
+        unSeqResources, true, new GroupByTimeParameter(0, 500, 100, 100, true));
+  }
+
+  @Test
+  public void testRollupIgnoredWithTypeMismatch() throws IllegalPathException, IOException {
+    // the series is recorded as DOUBLE in the rollups, e.g. it was deleted and recreated
+    for (TsFileResource resource : seqResources) {
+      Map<String, List<TimeseriesMetadata>> timeseriesMetadataMap =
+          readTimeseriesMetadata(resource);
+      for (TimeseriesMetadata timeseriesMetadata : timeseriesMetadataMap.get(DEVICE0)) {
+        if (SENSOR0.equals(timeseriesMetadata.getMeasurementId())) {
+          Statistics<? extends Serializable> intStatistics = timeseriesMetadata.getStatistics();
+          DoubleStatistics doubleStatistics = new DoubleStatistics();
+          doubleStatistics.update(intStatistics.getStartTime(), 0.5);
+          doubleStatistics.update(intStatistics.getEndTime(), 1.5);
+          timeseriesMetadata.setTSDataType(TSDataType.DOUBLE);
+          timeseriesMetadata.setStatistics(doubleStatistics);
+        }
+      }
+      writeRollup(resource, timeseriesMetadataMap, resource.getTsFile().length());
+    }
+    List<TsFileResource> noUnSeqResources = Collections.emptyList();
+
+    List<List<Object>> result = aggregateWithAndWithoutRollup(noUnSeqResources, true, null);
+    assertEquals(500L, result.get(0).get(1));
+    assertEquals(124750.0, (double) result.get(0).get(2), 0.0001);
+  }
+
+  @Test
+  public void testStaleRollupIgnored() throws IllegalPathException, IOException {
+    // rollups whose recorded length does not match the TsFile, e.g. left by an older version
+    Map<String, List<TimeseriesMetadata>> timeseriesMetadataOfFirstFile =
+        readTimeseriesMetadata(seqResources.get(0));
+    for (TsFileResource resource : seqResources) {
+      writeRollup(resource, timeseriesMetadataOfFirstFile, resource.getTsFile().length() + 1);
+    }
+    List<TsFileResource> noUnSeqResources = Collections.emptyList();
+
+    List<List<Object>> result = aggregateWithAndWithoutRollup(noUnSeqResources, true, null);
+    assertEquals(500L, result.get(0).get(1));
+    assertEquals(124750.0, (double) result.get(0).get(2), 0.0001);
+    aggregateWithAndWithoutRollup(
+        noUnSeqResources, true, new GroupByTimeParameter(0, 500, 100, 100, true));
+  }
+
+  /** Aggregate with rollups disabled and enabled, and check that both give the same results. */
+  private List<List<Object>> aggregateWithAndWithoutRollup(
+      List<TsFileResource> unSeqResources,
+      boolean ascending,
+      GroupByTimeParameter groupByTimeParameter)
+      throws IllegalPathException {
+    config.setEnableTsFileStatisticsRollup(false);
+    List<List<Object>> expected = aggregate(unSeqResources, ascending, groupByTimeParameter);
+    config.setEnableTsFileStatisticsRollup(true);
+    List<List<Object>> actual = aggregate(unSeqResources, ascending, groupByTimeParameter);
+    assertEquals(expected, actual);
+    return actual;
+  }
+
+  /** @return rows of the result, each one is the time followed by the aggregation values */
+  private List<List<Object>> aggregate(
+      List<TsFileResource> unSeqResources,
+      boolean ascending,
+      GroupByTimeParameter groupByTimeParameter)
+      throws IllegalPathException {
+    List<Aggregator> aggregators = new ArrayList<>();
+    AccumulatorFactory.createAccumulators(ROLLUP_AGGREGATION_TYPES, TSDataType.INT32, ascending)
+        .forEach(o -> aggregators.add(new Aggregator(o, AggregationStep.SINGLE)));
+    SeriesAggregationScanOperator seriesAggregationScanOperator =
+        initSeriesAggregationScanOperator(
+            aggregators, null, ascending, groupByTimeParameter, unSeqResources);
+    List<List<Object>> rows = new ArrayList<>();
+    while (seriesAggregationScanOperator.hasNext()) {
+      TsBlock resultTsBlock = seriesAggregationScanOperator.next();
+      for (int i = 0; i < resultTsBlock.getPositionCount(); i++) {
+        List<Object> row = new ArrayList<>();
+        row.add(resultTsBlock.getTimeColumn().getLong(i));
+        for (int j = 0; j < resultTsBlock.getValueColumnCount(); j++) {
+          Column column = resultTsBlock.getColumn(j);
+          row.add(column.isNull(i) ? null : column.getObject(i));
+        }
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+
+  private void writeRollups(List<TsFileResource> resources) throws IOException {
+    for (TsFileResource resource : resources) {
+      writeRollup(resource, readTimeseriesMetadata(resource), resource.getTsFile().length());
+    }
+  }
+
+  private void writeRollup(
+      TsFileResource resource,
+      Map<String, List<TimeseriesMetadata>> timeseriesMetadataMap,
+      long tsFileSize)
+      throws IOException {
+    try (OutputStream outputStream =
+        new FileOutputStream(resource.getTsFilePath() + TsFileRollup.ROLLUP_SUFFIX)) {
+      TsFileRollup.of(timeseriesMetadataMap, tsFileSize).serialize(outputStream);
+    }
+  }
+
+  private Map<String, List<TimeseriesMetadata>> readTimeseriesMetadata(TsFileResource resource)
+      throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(resource.getTsFilePath())) {
+      return reader.getAllTimeseriesMetadata(false);
+    }
+  }
+
+  private void clearCachesAndReaders() throws IOException {
+    ChunkCache.getInstance().clear();
+    TimeSeriesMetadataCache.getInstance().clear();
+    BloomFilterCache.getInstance().clear();
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+  }
+
   public SeriesAggregationScanOperator initSeriesAggregationScanOperator(
       List<Aggregator> aggregators,
       Filter timeFilter,
       boolean ascending,
       GroupByTimeParameter groupByTimeParameter)
       throws IllegalPathException {
+    return initSeriesAggregationScanOperator(
+        aggregators, timeFilter, ascending, groupByTimeParameter, unSeqResources);
+  }
+
+  public SeriesAggregationScanOperator initSeriesAggregationScanOperator(
+      List<Aggregator> aggregators,
+      Filter timeFilter,
+      boolean ascending,
+      GroupByTimeParameter groupByTimeParameter,
+      List<TsFileResource> unSeqResources)
+      throws IllegalPathException {
     MeasurementPath measurementPath =
         new MeasurementPath(SERIES_SCAN_OPERATOR_TEST_SG + ".device0.sensor0", TSDataType.INT32);
     Set<String> allSensors = Sets.newHashSet("sensor0");
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.execution.memory.MemoryPool;
+import org.apache.iotdb.db.mpp.execution.operator.process.SortOperator;
+import org.apache.iotdb.db.mpp.execution.operator.process.sort.RowComparator;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortOperatorTest {
+
+  private static final int TS_BLOCK_COUNT = 10;
+  private static final int ROWS_PER_TS_BLOCK = 100;
+  private static final int VALUE_RANGE = 37;
+
+  private final List<TSDataType> dataTypes = Arrays.asList(TSDataType.INT32, TSDataType.DOUBLE);
+
+  private ExecutorService instanceNotificationExecutor;
+  private File spillDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+    spillDirectory = Files.createTempDirectory("sort-operator-test").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    instanceNotificationExecutor.shutdown();
+    FileUtils.deleteDirectory(spillDirectory);
+  }
+
+  @Test
+  public void sortInMemoryTest() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024L, 1024 * 1024 * 1024L);
+    checkSortResult(memoryPool, Long.MAX_VALUE);
+    assertEquals(0, memoryPool.getReservedBytes());
+  }
+
+  @Test
+  public void sortWithSpillTest() throws Exception {
+    MemoryPool memoryPool = new MemoryPool("test", 1024 * 1024 * 1024L, 1024 * 1024 * 1024L);
+    // every TsBlock exceeds the buffer size, so each of them is spilled as a sorted run
+    checkSortResult(memoryPool, 1);
+    assertEquals(0, memoryPool.getReservedBytes());
+    String[] remainingFiles = spillDirectory.list();
+    assertTrue(remainingFiles == null || remainingFiles.length == 0);
+  }
+
+  private void checkSortResult(MemoryPool memoryPool, long maxBufferSizeInBytes)
+      throws Exception {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    FragmentInstanceContext fragmentInstanceContext =
+        createFragmentInstanceContext(instanceId, stateMachine);
+    fragmentInstanceContext.addOperatorContext(
+        1, new PlanNodeId("1"), SortOperator.class.getSimpleName());
+
+    // order by s1 asc, time desc
+    RowComparator comparator =
+        new RowComparator(
+            Arrays.asList(0, RowComparator.TIME_COLUMN_INDEX),
+            Arrays.asList(true, false),
+            dataTypes);
+    SortOperator sortOperator =
+        new SortOperator(
+            fragmentInstanceContext.getOperatorContexts().get(0),
+            new Operator() {
+              private int index = 0;
+
+              @Override
+              public OperatorContext getOperatorContext() {
+                return null;
+              }
+
+              @Override
+              public TsBlock next() {
+                TsBlockBuilder builder = new TsBlockBuilder(dataTypes);
+                for (int i = 0; i < ROWS_PER_TS_BLOCK; i++) {
+                  long time = (long) index * ROWS_PER_TS_BLOCK + i;
+                  builder.getTimeColumnBuilder().writeLong(time);
+                  if (time % 10 == 0) {
+                    builder.getColumnBuilder(0).appendNull();
+                  } else {
+                    builder.getColumnBuilder(0).writeInt((int) (time * 7 % VALUE_RANGE));
+                  }
+                  builder.getColumnBuilder(1).writeDouble(time);
+                  builder.declarePosition();
+                }
+                index++;
+                return builder.build();
+              }
+
+              @Override
+              public boolean hasNext() {
+                return index < TS_BLOCK_COUNT;
+              }
+
+              @Override
+              public boolean isFinished() {
+                return index >= TS_BLOCK_COUNT;
+              }
+            },
+            dataTypes,
+            comparator,
+            memoryPool,
+            maxBufferSizeInBytes,
+            spillDirectory.getPath());
+
+    int count = 0;
+    boolean hasLast = false;
+    boolean lastIsNull = false;
+    int lastValue = 0;
+    long lastTime = 0;
+    while (sortOperator.hasNext()) {
+      TsBlock tsBlock = sortOperator.next();
+      // a TsBlock larger than the buffer is spilled instead of being kept in memory
+      assertTrue(memoryPool.getReservedBytes() <= maxBufferSizeInBytes);
+      if (tsBlock == null) {
+        continue;
+      }
+      for (int i = 0; i < tsBlock.getPositionCount(); i++) {
+        long time = tsBlock.getTimeByIndex(i);
+        // value columns are copied along with the row
+        assertEquals(time, tsBlock.getColumn(1).getDouble(i), 0.00001);
+        boolean isNull = tsBlock.getColumn(0).isNull(i);
+        int value = isNull ? 0 : tsBlock.getColumn(0).getInt(i);
+        if (hasLast) {
+          if (lastIsNull) {
+            // nulls are placed last
+            assertTrue(isNull);
+            assertTrue(time < lastTime);
+          } else if (!isNull) {
+            assertTrue(value >= lastValue);
+            if (value == lastValue) {
+              assertTrue(time < lastTime);
+            }
+          }
+        }
+        hasLast = true;
+        lastIsNull = isNull;
+        lastValue = value;
+        lastTime = time;
+        count++;
+      }
+    }
+    assertTrue(sortOperator.isFinished());
+    assertFalse(sortOperator.hasNext());
+    assertEquals(TS_BLOCK_COUNT * ROWS_PER_TS_BLOCK, count);
+    sortOperator.close();
+  }
+}
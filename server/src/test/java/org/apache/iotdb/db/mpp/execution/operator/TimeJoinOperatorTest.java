@@ -31,8 +31,10 @@ import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext;
 import org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceStateMachine;
 import org.apache.iotdb.db.mpp.execution.operator.process.TimeJoinOperator;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.AscTimeComparator;
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.ColumnMerger;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.DescTimeComparator;
 import org.apache.iotdb.db.mpp.execution.operator.process.merge.SingleColumnMerger;
+import org.apache.iotdb.db.mpp.execution.operator.process.merge.TimeComparator;
 import org.apache.iotdb.db.mpp.execution.operator.source.SeriesScanOperator;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.InputLocation;
@@ -41,6 +43,7 @@ import org.apache.iotdb.db.query.reader.series.SeriesReaderTestUtil;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
 import org.apache.iotdb.tsfile.read.common.block.column.RunLengthEncodedColumn;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
@@ -52,13 +55,19 @@ import org.junit.Test;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 
 import static org.apache.iotdb.db.mpp.execution.fragment.FragmentInstanceContext.createFragmentInstanceContext;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -411,4 +420,173 @@ public class TimeJoinOperatorTest {
       instanceNotificationExecutor.shutdown();
     }
   }
+
+  /** time columns of the children are identical, so they are sliced into the output */
+  @Test
+  public void identicalTimeColumnsTest() {
+    List<TsBlock> tsBlocks =
+        joinAndCheck(
+            true,
+            new long[][] {{0, 1, 2, 3, 4}, {5, 6, 7, 8, 9}},
+            new long[][] {{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}},
+            new long[][] {{0, 1, 2, 3, 4, 5, 6}, {7, 8, 9}});
+    assertEquals(3, tsBlocks.size());
+    assertEquals(5, tsBlocks.get(0).getPositionCount());
+    assertEquals(2, tsBlocks.get(1).getPositionCount());
+    assertEquals(3, tsBlocks.get(2).getPositionCount());
+
+    tsBlocks =
+        joinAndCheck(
+            false, new long[][] {{9, 8, 7}, {6, 5}}, new long[][] {{9, 8}, {7, 6, 5}});
+    assertEquals(3, tsBlocks.size());
+  }
+
+  @Test
+  public void singleChildTest() {
+    List<TsBlock> tsBlocks = joinAndCheck(true, new long[][] {{1, 3, 5}, {7, 9}});
+    assertEquals(2, tsBlocks.size());
+    tsBlocks = joinAndCheck(false, new long[][] {{9, 7}, {5, 3, 1}});
+    assertEquals(2, tsBlocks.size());
+  }
+
+  /** children without rows before the end time of the output get null columns */
+  @Test
+  public void childrenWithoutRowsInRangeTest() {
+    List<TsBlock> tsBlocks =
+        joinAndCheck(
+            true, new long[][] {{0, 1, 2}}, new long[][] {{10, 11}, {12}}, new long[][] {});
+    assertEquals(3, tsBlocks.size());
+    for (TsBlock tsBlock : tsBlocks) {
+      assertTrue(tsBlock.getColumn(2) instanceof RunLengthEncodedColumn);
+    }
+    assertTrue(tsBlocks.get(0).getColumn(1) instanceof RunLengthEncodedColumn);
+    assertTrue(tsBlocks.get(1).getColumn(0) instanceof RunLengthEncodedColumn);
+    assertTrue(tsBlocks.get(2).getColumn(0) instanceof RunLengthEncodedColumn);
+
+    tsBlocks = joinAndCheck(false, new long[][] {{12, 11}}, new long[][] {{2, 1, 0}});
+    assertEquals(2, tsBlocks.size());
+    assertTrue(tsBlocks.get(0).getColumn(1) instanceof RunLengthEncodedColumn);
+    assertTrue(tsBlocks.get(1).getColumn(0) instanceof RunLengthEncodedColumn);
+  }
+
+  /** time columns of the children partly overlap, so they are merged */
+  @Test
+  public void partlyOverlappedChildrenTest() {
+    joinAndCheck(
+        true,
+        new long[][] {{0, 2, 4, 6, 8}},
+        new long[][] {{1, 2, 3}, {8, 9}},
+        new long[][] {{5}, {6, 7, 8, 10}},
+        new long[][] {{2, 3, 4, 5, 6}});
+    joinAndCheck(
+        false,
+        new long[][] {{8, 6, 4, 2, 0}},
+        new long[][] {{9, 8}, {3, 2, 1}},
+        new long[][] {{10, 8, 7, 6}, {5}},
+        new long[][] {{6, 5, 4, 3, 2}});
+  }
+
+  /**
+   * Join children returning the given TsBlocks and check that each time of the children is output
+   * once in order, with the value of each child at that time or null.
+   *
+   * @param childrenTimes times of each TsBlock of each child, the value of child i at time t is t *
+   *     10 + i
+   * @return output TsBlocks
+   */
+  private List<TsBlock> joinAndCheck(boolean ascending, long[][]... childrenTimes) {
+    TimeComparator comparator = ascending ? new AscTimeComparator() : new DescTimeComparator();
+    List<Operator> children = new ArrayList<>();
+    List<TSDataType> dataTypes = new ArrayList<>();
+    List<ColumnMerger> mergers = new ArrayList<>();
+    Map<Long, Integer[]> expectedRows =
+        ascending ? new TreeMap<>() : new TreeMap<>(Comparator.reverseOrder());
+    for (int i = 0; i < childrenTimes.length; i++) {
+      children.add(new TsBlocksOperator(childrenTimes[i], i));
+      dataTypes.add(TSDataType.INT32);
+      mergers.add(new SingleColumnMerger(new InputLocation(i, 0), comparator));
+      for (long[] times : childrenTimes[i]) {
+        for (long time : times) {
+          expectedRows.computeIfAbsent(time, t -> new Integer[childrenTimes.length])[i] =
+              (int) time * 10 + i;
+        }
+      }
+    }
+    TimeJoinOperator timeJoinOperator =
+        new TimeJoinOperator(
+            new OperatorContext(
+                1, new PlanNodeId("1"), TimeJoinOperator.class.getSimpleName(), null),
+            children,
+            ascending ? OrderBy.TIMESTAMP_ASC : OrderBy.TIMESTAMP_DESC,
+            dataTypes,
+            mergers,
+            comparator);
+
+    List<TsBlock> tsBlocks = new ArrayList<>();
+    Iterator<Map.Entry<Long, Integer[]>> expectedIterator = expectedRows.entrySet().iterator();
+    while (timeJoinOperator.hasNext()) {
+      TsBlock tsBlock = timeJoinOperator.next();
+      if (tsBlock == null || tsBlock.isEmpty()) {
+        continue;
+      }
+      tsBlocks.add(tsBlock);
+      assertEquals(childrenTimes.length, tsBlock.getValueColumnCount());
+      for (int row = 0; row < tsBlock.getPositionCount(); row++) {
+        assertTrue(expectedIterator.hasNext());
+        Map.Entry<Long, Integer[]> expectedRow = expectedIterator.next();
+        assertEquals((long) expectedRow.getKey(), tsBlock.getTimeByIndex(row));
+        for (int i = 0; i < childrenTimes.length; i++) {
+          Integer expectedValue = expectedRow.getValue()[i];
+          if (expectedValue == null) {
+            assertTrue(tsBlock.getColumn(i).isNull(row));
+          } else {
+            assertFalse(tsBlock.getColumn(i).isNull(row));
+            assertEquals((int) expectedValue, tsBlock.getColumn(i).getInt(row));
+          }
+        }
+      }
+    }
+    assertFalse(expectedIterator.hasNext());
+    return tsBlocks;
+  }
+
+  /** Returns TsBlocks of the given times, with an INT32 column of time * 10 + valueOffset. */
+  private static class TsBlocksOperator implements Operator {
+
+    private final long[][] blockTimes;
+    private final int valueOffset;
+    private int index = 0;
+
+    private TsBlocksOperator(long[][] blockTimes, int valueOffset) {
+      this.blockTimes = blockTimes;
+      this.valueOffset = valueOffset;
+    }
+
+    @Override
+    public OperatorContext getOperatorContext() {
+      return null;
+    }
+
+    @Override
+    public TsBlock next() {
+      TsBlockBuilder builder = new TsBlockBuilder(Collections.singletonList(TSDataType.INT32));
+      for (long time : blockTimes[index]) {
+        builder.getTimeColumnBuilder().writeLong(time);
+        builder.getColumnBuilder(0).writeInt((int) time * 10 + valueOffset);
+        builder.declarePosition();
+      }
+      index++;
+      return builder.build();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < blockTimes.length;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return index >= blockTimes.length;
+    }
+  }
 }
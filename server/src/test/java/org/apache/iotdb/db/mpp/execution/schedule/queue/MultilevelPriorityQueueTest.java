@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MultilevelPriorityQueueTest {
+
+  private static MultilevelPriorityQueue<QueueElement> createQueue(int maxCapacity) {
+    // the value of an element is the CPU time in seconds it has consumed
+    return new MultilevelPriorityQueue<>(
+        maxCapacity,
+        (o1, o2) -> {
+          if (o1.equals(o2)) {
+            return 0;
+          }
+          return Integer.compare(o1.getId().hashCode(), o2.getId().hashCode());
+        },
+        e -> TimeUnit.SECONDS.toNanos(e.getValue()),
+        2,
+        new QueueElement(new QueueElement.QueueElementID(0), 0));
+  }
+
+  @Test
+  public void testComputeLevel() {
+    Assert.assertEquals(0, MultilevelPriorityQueue.computeLevel(0));
+    Assert.assertEquals(
+        0, MultilevelPriorityQueue.computeLevel(TimeUnit.MILLISECONDS.toNanos(999)));
+    Assert.assertEquals(1, MultilevelPriorityQueue.computeLevel(TimeUnit.SECONDS.toNanos(1)));
+    Assert.assertEquals(2, MultilevelPriorityQueue.computeLevel(TimeUnit.SECONDS.toNanos(30)));
+    Assert.assertEquals(3, MultilevelPriorityQueue.computeLevel(TimeUnit.SECONDS.toNanos(60)));
+    Assert.assertEquals(4, MultilevelPriorityQueue.computeLevel(TimeUnit.HOURS.toNanos(1)));
+  }
+
+  @Test
+  public void testPushExceedCapacity() {
+    MultilevelPriorityQueue<QueueElement> queue = createQueue(1);
+    queue.push(new QueueElement(new QueueElement.QueueElementID(1), 1));
+    try {
+      queue.push(new QueueElement(new QueueElement.QueueElementID(2), 2));
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // ignore;
+    }
+  }
+
+  @Test
+  public void testPollByLevelShare() throws InterruptedException {
+    MultilevelPriorityQueue<QueueElement> queue = createQueue(10);
+    QueueElement shortElement = new QueueElement(new QueueElement.QueueElementID(1), 0);
+    QueueElement longElement = new QueueElement(new QueueElement.QueueElementID(2), 100);
+    queue.push(longElement);
+    queue.push(shortElement);
+    // no level has consumed any CPU time, the first level goes first
+    Assert.assertEquals(shortElement.getId(), queue.poll().getId());
+    queue.addScheduledNanos(0, TimeUnit.SECONDS.toNanos(1));
+    queue.push(shortElement);
+
+    // the first level has consumed 1s while level 3 has consumed nothing
+    Assert.assertEquals(longElement.getId(), queue.poll().getId());
+    queue.addScheduledNanos(TimeUnit.SECONDS.toNanos(100), TimeUnit.SECONDS.toNanos(1));
+    queue.push(longElement);
+
+    // the first level has 16 times the share of level 3, so 1s vs 1s goes to the first level
+    Assert.assertEquals(shortElement.getId(), queue.poll().getId());
+    Assert.assertEquals(longElement.getId(), queue.poll().getId());
+    Assert.assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testIdleLevelCatchUp() throws InterruptedException {
+    MultilevelPriorityQueue<QueueElement> queue = createQueue(10);
+    QueueElement longElement = new QueueElement(new QueueElement.QueueElementID(1), 100);
+    queue.push(longElement);
+    queue.poll();
+    queue.addScheduledNanos(TimeUnit.SECONDS.toNanos(100), TimeUnit.SECONDS.toNanos(10));
+    queue.push(longElement);
+
+    // level 0 has been idle, it should not be credited for the time it was idle. Level 3 has
+    // consumed 10s of its share 2, so level 0 catches up to 80s of its share 16.
+    queue.push(new QueueElement(new QueueElement.QueueElementID(2), 0));
+    Assert.assertEquals(TimeUnit.SECONDS.toNanos(80), queue.getLevelScheduledNanos(0));
+  }
+
+  @Test
+  public void testRemove() throws InterruptedException {
+    MultilevelPriorityQueue<QueueElement> queue = createQueue(10);
+    QueueElement e1 = new QueueElement(new QueueElement.QueueElementID(1), 0);
+    QueueElement e2 = new QueueElement(new QueueElement.QueueElementID(2), 100);
+    queue.push(e1);
+    queue.push(e2);
+    Assert.assertEquals(e2, queue.remove(e2.getId()));
+    Assert.assertNull(queue.get(e2.getId()));
+    Assert.assertEquals(1, queue.size());
+    Assert.assertEquals(e1.getId(), queue.poll().getId());
+    Assert.assertEquals(0, queue.size());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.execution.schedule.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class WorkStealingQueueTest {
+
+  private static WorkStealingQueue<QueueElement, L1PriorityQueue<QueueElement>> createQueue(
+      int shardNum) {
+    return new WorkStealingQueue<>(
+        shardNum,
+        () ->
+            new L1PriorityQueue<>(
+                10,
+                (o1, o2) -> {
+                  if (o1.equals(o2)) {
+                    return 0;
+                  }
+                  return Integer.compare(o1.getValue(), o2.getValue());
+                },
+                new QueueElement(new QueueElement.QueueElementID(0), 0)));
+  }
+
+  private static QueueElement createElement(int id) {
+    return new QueueElement(new QueueElement.QueueElementID(id), id);
+  }
+
+  @Test
+  public void testPushInTurn() {
+    WorkStealingQueue<QueueElement, L1PriorityQueue<QueueElement>> queue = createQueue(2);
+    queue.push(createElement(1));
+    queue.push(createElement(2));
+    queue.push(createElement(3));
+    Assert.assertEquals(2, queue.getShard(0).size());
+    Assert.assertEquals(1, queue.getShard(1).size());
+    Assert.assertEquals(3, queue.size());
+    Assert.assertEquals(2, queue.get(new QueueElement.QueueElementID(2)).getValue());
+    Assert.assertEquals(2, queue.remove(new QueueElement.QueueElementID(2)).getValue());
+    Assert.assertNull(queue.get(new QueueElement.QueueElementID(2)));
+    queue.clear();
+    Assert.assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testPollOwnShardFirst() throws InterruptedException {
+    WorkStealingQueue<QueueElement, L1PriorityQueue<QueueElement>> queue = createQueue(2);
+    queue.getShard(0).push(createElement(1));
+    queue.getShard(1).push(createElement(2));
+    Assert.assertEquals(2, queue.poll(1).getValue());
+    // the shard of the worker is empty, steal from the other one
+    Assert.assertEquals(1, queue.poll(1).getValue());
+    Assert.assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testPushToCurrentShard() throws InterruptedException {
+    WorkStealingQueue<QueueElement, L1PriorityQueue<QueueElement>> queue = createQueue(2);
+    queue.getShard(1).push(createElement(1));
+    // the calling thread becomes the worker of shard 1
+    Assert.assertEquals(1, queue.poll(1).getValue());
+    queue.push(createElement(1));
+    queue.push(createElement(2));
+    Assert.assertEquals(0, queue.getShard(0).size());
+    Assert.assertEquals(2, queue.getShard(1).size());
+    Assert.assertSame(queue.getShard(1), queue.getCurrentShard());
+  }
+
+  @Test(timeout = 10000)
+  public void testPollBlockedUntilPush() throws InterruptedException {
+    WorkStealingQueue<QueueElement, L1PriorityQueue<QueueElement>> queue = createQueue(2);
+    AtomicReference<QueueElement> polled = new AtomicReference<>();
+    Thread worker =
+        new Thread(
+            () -> {
+              try {
+                polled.set(queue.poll(0));
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    worker.start();
+    Thread.sleep(100);
+    Assert.assertTrue(worker.isAlive());
+    // pushed to the shard of the other worker, which is stolen by the waiting one
+    queue.getShard(1).push(createElement(1));
+    queue.push(createElement(2));
+    worker.join();
+    Assert.assertNotNull(polled.get());
+    Assert.assertEquals(1, queue.size());
+  }
+
+  @Test
+  public void testInvalidShardNum() {
+    try {
+      createQueue(0);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // ignore
+    }
+  }
+}
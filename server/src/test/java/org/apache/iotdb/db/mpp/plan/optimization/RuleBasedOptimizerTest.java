@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.plan.optimization;
+
+import org.apache.iotdb.commons.exception.IllegalPathException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.plan.analyze.Analysis;
+import org.apache.iotdb.db.mpp.plan.expression.Expression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.GreaterThanExpression;
+import org.apache.iotdb.db.mpp.plan.expression.binary.LogicAndExpression;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.ConstantOperand;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimeSeriesOperand;
+import org.apache.iotdb.db.mpp.plan.expression.leaf.TimestampOperand;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class RuleBasedOptimizerTest {
+
+  private QueryId queryId;
+  private MPPQueryContext context;
+  private RuleBasedOptimizer optimizer;
+
+  private MeasurementPath s1;
+  private MeasurementPath s2;
+
+  @Before
+  public void setUp() throws IllegalPathException {
+    queryId = new QueryId("test_query");
+    context = new MPPQueryContext(queryId);
+    // no data partition is fetched, so every series is regarded as in several data regions
+    optimizer = RuleBasedOptimizer.withDefaultRules(new Analysis());
+    s1 = new MeasurementPath("root.sg.d1.s1", TSDataType.INT32);
+    s2 = new MeasurementPath("root.sg.d1.s2", TSDataType.DOUBLE);
+  }
+
+  @Test
+  public void testPushDownLimitIntoTimeJoinChildren() {
+    SeriesScanNode scan1 = new SeriesScanNode(queryId.genPlanNodeId(), s1, OrderBy.TIMESTAMP_ASC);
+    SeriesScanNode scan2 = new SeriesScanNode(queryId.genPlanNodeId(), s2, OrderBy.TIMESTAMP_ASC);
+    TimeJoinNode timeJoinNode =
+        new TimeJoinNode(
+            queryId.genPlanNodeId(), OrderBy.TIMESTAMP_ASC, Arrays.asList(scan1, scan2));
+    PlanNode root =
+        new LimitNode(
+            queryId.genPlanNodeId(),
+            new OffsetNode(queryId.genPlanNodeId(), timeJoinNode, 5),
+            10);
+
+    PlanNode optimized = optimizer.optimize(root, context);
+
+    // LimitNode and OffsetNode are kept, each series only needs the first (limit + offset) rows
+    Assert.assertTrue(optimized instanceof LimitNode);
+    Assert.assertTrue(((LimitNode) optimized).getChild() instanceof OffsetNode);
+    Assert.assertEquals(15, scan1.getLimit());
+    Assert.assertEquals(0, scan1.getOffset());
+    Assert.assertEquals(15, scan2.getLimit());
+    Assert.assertEquals(0, scan2.getOffset());
+  }
+
+  @Test
+  public void testPushDownPredicateIntoSeriesScan() {
+    SeriesScanNode scan = new SeriesScanNode(queryId.genPlanNodeId(), s1, OrderBy.TIMESTAMP_ASC);
+    Expression predicate =
+        new LogicAndExpression(
+            new GreaterThanExpression(
+                new TimeSeriesOperand(s1), new ConstantOperand(TSDataType.INT64, "10")),
+            new GreaterThanExpression(
+                new TimestampOperand(), new ConstantOperand(TSDataType.INT64, "100")));
+    PlanNode root =
+        new FilterNode(
+            queryId.genPlanNodeId(),
+            scan,
+            new Expression[] {new TimeSeriesOperand(s1)},
+            predicate,
+            false,
+            ZoneId.systemDefault());
+
+    PlanNode optimized = optimizer.optimize(root, context);
+
+    Assert.assertSame(scan, optimized);
+    Assert.assertEquals(
+        FilterFactory.and(ValueFilter.gt(10), TimeFilter.gt(100L)), scan.getValueFilter());
+  }
+
+  @Test
+  public void testKeepPredicateOfMultipleSeries() {
+    SeriesScanNode scan1 = new SeriesScanNode(queryId.genPlanNodeId(), s1, OrderBy.TIMESTAMP_ASC);
+    SeriesScanNode scan2 = new SeriesScanNode(queryId.genPlanNodeId(), s2, OrderBy.TIMESTAMP_ASC);
+    TimeJoinNode timeJoinNode =
+        new TimeJoinNode(
+            queryId.genPlanNodeId(), OrderBy.TIMESTAMP_ASC, Arrays.asList(scan1, scan2));
+    PlanNode root =
+        new FilterNode(
+            queryId.genPlanNodeId(),
+            timeJoinNode,
+            new Expression[] {new TimeSeriesOperand(s1), new TimeSeriesOperand(s2)},
+            new GreaterThanExpression(
+                new TimeSeriesOperand(s1), new ConstantOperand(TSDataType.INT64, "10")),
+            false,
+            ZoneId.systemDefault());
+
+    PlanNode optimized = optimizer.optimize(root, context);
+
+    Assert.assertSame(root, optimized);
+    Assert.assertNull(scan1.getValueFilter());
+    Assert.assertNull(scan2.getValueFilter());
+  }
+
+  @Test
+  public void testPruneTimeJoin() {
+    SeriesScanNode scan1 = new SeriesScanNode(queryId.genPlanNodeId(), s1, OrderBy.TIMESTAMP_ASC);
+    SeriesScanNode scan2 = new SeriesScanNode(queryId.genPlanNodeId(), s2, OrderBy.TIMESTAMP_ASC);
+    TimeJoinNode innerTimeJoinNode =
+        new TimeJoinNode(
+            queryId.genPlanNodeId(), OrderBy.TIMESTAMP_ASC, Collections.singletonList(scan2));
+    TimeJoinNode emptyTimeJoinNode =
+        new TimeJoinNode(queryId.genPlanNodeId(), OrderBy.TIMESTAMP_ASC);
+    PlanNode root =
+        new TimeJoinNode(
+            queryId.genPlanNodeId(),
+            OrderBy.TIMESTAMP_ASC,
+            Arrays.asList(scan1, innerTimeJoinNode, emptyTimeJoinNode));
+
+    PlanNode optimized = optimizer.optimize(root, context);
+
+    Assert.assertTrue(optimized instanceof TimeJoinNode);
+    Assert.assertEquals(Arrays.asList(scan1, scan2), optimized.getChildren());
+    Assert.assertEquals(root.getOutputColumnNames(), optimized.getOutputColumnNames());
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.GroupByLevelNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LastQueryMergeNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.LimitNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.TimeJoinNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedLastQueryScanNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.AlignedSeriesAggregationScanNode;
@@ -52,6 +53,8 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.AggregationStep;
 import org.apache.iotdb.db.mpp.plan.planner.plan.parameter.GroupByLevelDescriptor;
 import org.apache.iotdb.db.mpp.plan.statement.component.FilterNullPolicy;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.mpp.plan.statement.component.Ordering;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.filter.TimeFilter;
@@ -181,6 +184,28 @@ public class QueryLogicalPlanUtil {
     sqlToPlanMap.put(sql, limitNode);
   }
 
+  /* Order By Value Query */
+  static {
+    String sql = "SELECT s1 FROM root.sg.d2 ORDER BY s1 DESC LIMIT 10";
+
+    QueryId queryId = new QueryId("test");
+    SeriesScanNode seriesScanNode =
+        new SeriesScanNode(
+            queryId.genPlanNodeId(),
+            (MeasurementPath) schemaMap.get("root.sg.d2.s1"),
+            OrderBy.TIMESTAMP_ASC);
+    SortNode sortNode =
+        new SortNode(
+            queryId.genPlanNodeId(),
+            seriesScanNode,
+            Collections.singletonList(new SortItem("root.sg.d2.s1", Ordering.DESC)),
+            OrderBy.TIMESTAMP_ASC);
+    LimitNode limitNode = new LimitNode(queryId.genPlanNodeId(), sortNode, 10);
+
+    querySQLs.add(sql);
+    sqlToPlanMap.put(sql, limitNode);
+  }
+
   /* Raw Data Query */
   static {
     String sql =
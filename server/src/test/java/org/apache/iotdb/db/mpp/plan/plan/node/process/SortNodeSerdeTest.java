@@ -25,12 +25,15 @@ import org.apache.iotdb.db.mpp.plan.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.process.SortNode;
 import org.apache.iotdb.db.mpp.plan.planner.plan.node.source.SeriesScanNode;
 import org.apache.iotdb.db.mpp.plan.statement.component.OrderBy;
+import org.apache.iotdb.db.mpp.plan.statement.component.Ordering;
+import org.apache.iotdb.db.mpp.plan.statement.component.SortItem;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
 
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 
@@ -55,5 +58,18 @@ public class SortNodeSerdeTest {
     sortNode.serialize(byteBuffer);
     byteBuffer.flip();
     assertEquals(PlanNodeDeserializeHelper.deserialize(byteBuffer), sortNode);
+
+    sortNode =
+        new SortNode(
+            new PlanNodeId("TestSortNode"),
+            seriesScanNode,
+            Arrays.asList(
+                new SortItem("root.sg.d1.s1", Ordering.DESC),
+                new SortItem("root.sg.d1.s2", Ordering.ASC)),
+            OrderBy.TIMESTAMP_DESC);
+    byteBuffer.clear();
+    sortNode.serialize(byteBuffer);
+    byteBuffer.flip();
+    assertEquals(PlanNodeDeserializeHelper.deserialize(byteBuffer), sortNode);
   }
 }
@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.common.rpc.thrift.TSStatus;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import io.moquette.interception.messages.InterceptDisconnectMessage;
+import io.moquette.interception.messages.InterceptPublishMessage;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.mqtt.MqttFixedHeader;
+import io.netty.handler.codec.mqtt.MqttMessageType;
+import io.netty.handler.codec.mqtt.MqttPublishMessage;
+import io.netty.handler.codec.mqtt.MqttPublishVariableHeader;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageBatcherTest {
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevBatchSize;
+  private long prevBatchInterval;
+
+  private RecordingInserter inserter;
+
+  @Before
+  public void setUp() {
+    prevBatchSize = config.getMqttInsertBatchSize();
+    prevBatchInterval = config.getMqttInsertBatchIntervalInMs();
+    inserter = new RecordingInserter();
+  }
+
+  @After
+  public void tearDown() {
+    config.setMqttInsertBatchSize(prevBatchSize);
+    config.setMqttInsertBatchIntervalInMs(prevBatchInterval);
+  }
+
+  @Test
+  public void testCoalesceByKey() {
+    MessageBatcher batcher = new MessageBatcher(3, inserter);
+    batcher.add(1, message("root.sg.d1", 3, "s1", "3", "s2", "true"));
+    batcher.add(1, message("root.sg.d2", 1, "s1", "1", "s2", "true"));
+    batcher.add(1, message("root.sg.d1", 1, "s1", "1"));
+    batcher.add(2, message("root.sg.d1", 1, "s1", "1", "s2", "true"));
+    batcher.add(1, message("root.sg.d1", 1, "s1", "1", "s2", "false"));
+    assertTrue(inserter.plans.isEmpty());
+
+    batcher.add(1, message("root.sg.d1", 2, "s1", "2", "s2", "true"));
+    assertEquals(1, inserter.plans.size());
+    InsertTabletPlan plan = (InsertTabletPlan) inserter.plans.get(0);
+    assertEquals("root.sg.d1", plan.getDevicePath().getFullPath());
+    assertArrayEquals(new String[] {"s1", "s2"}, plan.getMeasurements());
+    assertEquals(3, plan.getRowCount());
+    assertArrayEquals(new long[] {1, 2, 3}, plan.getTimes());
+    assertArrayEquals(new boolean[] {false, true, true}, (boolean[]) plan.getColumns()[1]);
+
+    // the other keys are still buffered, until the buffers of their sessions are flushed
+    batcher.flush(1);
+    assertEquals(3, inserter.plans.size());
+    batcher.flushAll();
+    assertEquals(4, inserter.plans.size());
+    for (InsertPlan insertPlan : inserter.plans.subList(1, 4)) {
+      assertEquals(1, ((InsertTabletPlan) insertPlan).getRowCount());
+    }
+  }
+
+  @Test
+  public void testFlushOnBatchSize() {
+    MessageBatcher batcher = new MessageBatcher(2, inserter);
+    for (int i = 0; i < 5; i++) {
+      batcher.add(1, message("root.sg.d1", i, "s1", String.valueOf(i)));
+    }
+    assertEquals(2, inserter.plans.size());
+    assertArrayEquals(new long[] {0, 1}, ((InsertTabletPlan) inserter.plans.get(0)).getTimes());
+    assertArrayEquals(new long[] {2, 3}, ((InsertTabletPlan) inserter.plans.get(1)).getTimes());
+
+    batcher.flushAll();
+    assertEquals(3, inserter.plans.size());
+    assertArrayEquals(new long[] {4}, ((InsertTabletPlan) inserter.plans.get(2)).getTimes());
+  }
+
+  @Test
+  public void testFlushOnInterval() throws InterruptedException {
+    config.setMqttInsertBatchSize(1000);
+    config.setMqttInsertBatchIntervalInMs(10);
+    PublishHandler handler =
+        new PublishHandler(
+            PayloadFormatManager.getPayloadFormat("json"),
+            config,
+            inserter);
+    try {
+      handler.onPublish(publishMessage("root.sg.d1", 1L, 2L));
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (inserter.plans.isEmpty() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, inserter.plans.size());
+      assertEquals(2, ((InsertTabletPlan) inserter.plans.get(0)).getRowCount());
+    } finally {
+      handler.stop();
+    }
+  }
+
+  @Test
+  public void testDrainOnDisconnect() {
+    config.setMqttInsertBatchSize(1000);
+    config.setMqttInsertBatchIntervalInMs(3_600_000);
+    PublishHandler handler =
+        new PublishHandler(
+            PayloadFormatManager.getPayloadFormat("json"),
+            config,
+            inserter);
+    try {
+      handler.onPublish(publishMessage("root.sg.d1", 1L, 2L));
+      handler.onPublish(publishMessage("root.sg.d1", 3L));
+      handler.onDisconnect(new InterceptDisconnectMessage(null, null));
+      assertEquals(1, inserter.plans.size());
+      assertArrayEquals(
+          new long[] {1, 2, 3}, ((InsertTabletPlan) inserter.plans.get(0)).getTimes());
+    } finally {
+      handler.stop();
+    }
+  }
+
+  @Test
+  public void testRegisteredDataTypes() {
+    inserter.seriesTypes.put("root.sg.d1.s1", TSDataType.DOUBLE);
+    MessageBatcher batcher = new MessageBatcher(2, inserter);
+    batcher.add(1, message("root.sg.d1", 1, "s1", "1", "s2", "a"));
+    batcher.add(1, message("root.sg.d1", 2, "s1", "2", "s2", "b"));
+
+    assertEquals(1, inserter.plans.size());
+    InsertTabletPlan plan = (InsertTabletPlan) inserter.plans.get(0);
+    // s1 is registered as DOUBLE although its values look like integers, s2 is inferred
+    assertArrayEquals(new TSDataType[] {TSDataType.DOUBLE, TSDataType.TEXT}, plan.getDataTypes());
+    assertArrayEquals(new double[] {1, 2}, (double[]) plan.getColumns()[0], 0);
+  }
+
+  @Test
+  public void testUnparsedRowsInsertedAsRows() {
+    inserter.seriesTypes.put("root.sg.d1.s1", TSDataType.BOOLEAN);
+    MessageBatcher batcher = new MessageBatcher(3, inserter);
+    batcher.add(1, message("root.sg.d1", 1, "s1", "true"));
+    batcher.add(1, message("root.sg.d1", 2, "s1", "1.5"));
+    batcher.add(1, message("root.sg.d1", 3, "s1", "false"));
+
+    assertEquals(2, inserter.plans.size());
+    InsertRowPlan rowPlan = (InsertRowPlan) inserter.plans.get(0);
+    assertEquals(2, rowPlan.getTime());
+    InsertTabletPlan tabletPlan = (InsertTabletPlan) inserter.plans.get(1);
+    assertEquals(2, tabletPlan.getRowCount());
+    assertArrayEquals(new long[] {1, 3}, tabletPlan.getTimes());
+    assertArrayEquals(new boolean[] {true, false}, (boolean[]) tabletPlan.getColumns()[0]);
+  }
+
+  @Test
+  public void testFallbackToRows() {
+    inserter.failTablets = true;
+    MessageBatcher batcher = new MessageBatcher(2, inserter);
+    batcher.add(1, message("root.sg.d1", 1, "s1", "1", "s2", "true"));
+    batcher.add(1, message("root.sg.d1", 2, "s1", "2", "s2", "false"));
+
+    assertEquals(3, inserter.plans.size());
+    for (int i = 1; i < 3; i++) {
+      InsertRowPlan plan = (InsertRowPlan) inserter.plans.get(i);
+      assertEquals(i, plan.getTime());
+      assertArrayEquals(new String[] {"s1", "s2"}, plan.getMeasurements());
+    }
+  }
+
+  @Test
+  public void testFallbackToRowsOfFailedMeasurements() {
+    inserter.failedMeasurement = "s2";
+    MessageBatcher batcher = new MessageBatcher(2, inserter);
+    batcher.add(1, message("root.sg.d1", 1, "s1", "1", "s2", "true"));
+    batcher.add(1, message("root.sg.d1", 2, "s1", "2", "s2", "false"));
+
+    // s1 has been written by the partial insert of the tablet, so only s2 is inserted again
+    assertEquals(3, inserter.plans.size());
+    for (int i = 1; i < 3; i++) {
+      InsertRowPlan plan = (InsertRowPlan) inserter.plans.get(i);
+      assertEquals(i, plan.getTime());
+      assertArrayEquals(new String[] {"s2"}, plan.getMeasurements());
+    }
+  }
+
+  @Test
+  public void testTabletPayloadFormatter() {
+    inserter.seriesTypes.put("root.sg.d1.s1", TSDataType.INT32);
+    inserter.seriesTypes.put("root.sg.d1.s2", TSDataType.TEXT);
+    MessageBatcher batcher = new MessageBatcher(3, inserter);
+    String payload =
+        "{\"device\":\"root.sg.d1\",\"timestamps\":[3,1,2,4],\"measurements\":[\"s1\",\"s2\"],"
+            + "\"values\":[[3,\"c\"],[1,\"a\"],[\"x\",\"b\"],[2,4]]}";
+    new StreamingJSONPayloadFormatter()
+        .format(Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8), batcher.sink(1));
+
+    // the value of s1 at 2 is not an INT32, so the row is inserted as a single row
+    assertEquals(2, inserter.plans.size());
+    InsertRowPlan rowPlan = (InsertRowPlan) inserter.plans.get(0);
+    assertEquals(2, rowPlan.getTime());
+    assertArrayEquals(new Object[] {"x", "b"}, rowPlan.getValues());
+    InsertTabletPlan tabletPlan = (InsertTabletPlan) inserter.plans.get(1);
+    assertArrayEquals(new long[] {1, 3, 4}, tabletPlan.getTimes());
+    assertArrayEquals(new int[] {1, 3, 2}, (int[]) tabletPlan.getColumns()[0]);
+    assertArrayEquals(
+        new Object[] {Binary.valueOf("a"), Binary.valueOf("c"), Binary.valueOf("4")},
+        (Binary[]) tabletPlan.getColumns()[1]);
+  }
+
+  @Test
+  public void testTabletPayloadFormatterFloat() {
+    inserter.seriesTypes.put("root.sg.d1.s1", TSDataType.FLOAT);
+    // rounded to a double first, the literal is halfway between two floats and rounds up
+    String payload =
+        "{\"device\":\"root.sg.d1\",\"timestamp\":1,\"measurements\":[\"s1\"],"
+            + "\"values\":[1.00000017881393432617187499]}";
+    MessageBatcher batcher = new MessageBatcher(2, inserter);
+    new StreamingJSONPayloadFormatter()
+        .format(Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8), batcher.sink(1));
+    batcher.flushAll();
+
+    assertEquals(1, inserter.plans.size());
+    float[] column = (float[]) ((InsertTabletPlan) inserter.plans.get(0)).getColumns()[0];
+    assertEquals(Float.parseFloat("1.00000017881393432617187499"), column[0], 0);
+  }
+
+  @Test
+  public void testRowPathWithoutBatching() {
+    MessageBatcher batcher = new MessageBatcher(1, inserter);
+    batcher.add(1, message("root.sg.d1", 1, "s1", "1"));
+    MessageBatcher nullValueBatcher = new MessageBatcher(100, inserter);
+    nullValueBatcher.add(1, message("root.sg.d1", 2, "s1", null));
+
+    assertEquals(2, inserter.plans.size());
+    assertTrue(inserter.plans.get(0) instanceof InsertRowPlan);
+    assertTrue(inserter.plans.get(1) instanceof InsertRowPlan);
+  }
+
+  /** @param measurementsAndValues measurement, value, measurement, value... */
+  private static Message message(String device, long time, String... measurementsAndValues) {
+    Message message = new Message();
+    message.setDevice(device);
+    message.setTimestamp(time);
+    List<String> measurements = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < measurementsAndValues.length; i += 2) {
+      measurements.add(measurementsAndValues[i]);
+      values.add(measurementsAndValues[i + 1]);
+    }
+    message.setMeasurements(measurements);
+    message.setValues(values);
+    return message;
+  }
+
+  private static InterceptPublishMessage publishMessage(String device, Long... times) {
+    StringBuilder payload = new StringBuilder("[");
+    for (Long time : times) {
+      if (payload.length() > 1) {
+        payload.append(',');
+      }
+      payload
+          .append("{\"device\":\"")
+          .append(device)
+          .append("\",\"timestamp\":")
+          .append(time)
+          .append(",\"measurements\":[\"s1\"],\"values\":[")
+          .append(time)
+          .append("]}");
+    }
+    payload.append(']');
+    MqttPublishVariableHeader variableHeader = new MqttPublishVariableHeader(device, 1);
+    MqttFixedHeader fixedHeader =
+        new MqttFixedHeader(MqttMessageType.PUBLISH, false, MqttQoS.AT_LEAST_ONCE, false, 1);
+    MqttPublishMessage publishMessage =
+        new MqttPublishMessage(
+            fixedHeader,
+            variableHeader,
+            Unpooled.copiedBuffer(payload.toString(), StandardCharsets.UTF_8));
+    return new InterceptPublishMessage(publishMessage, null, null);
+  }
+
+  /** Records the executed plans instead of inserting them. */
+  private static class RecordingInserter implements MessageBatcher.Inserter {
+
+    private final Map<String, TSDataType> seriesTypes = new ConcurrentHashMap<>();
+    private final List<InsertPlan> plans = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean failTablets = false;
+    private volatile String failedMeasurement;
+
+    @Override
+    public TSDataType getSeriesType(PartialPath path) {
+      return seriesTypes.get(path.getFullPath());
+    }
+
+    @Override
+    public TSStatus checkAuthority(InsertPlan plan, long sessionId) {
+      return null;
+    }
+
+    @Override
+    public boolean executeNonQuery(InsertPlan plan) throws QueryProcessException {
+      plans.add(plan);
+      if (plan instanceof InsertTabletPlan) {
+        if (failTablets) {
+          throw new QueryProcessException("mock failure of the tablet");
+        }
+        if (failedMeasurement != null) {
+          int index = Arrays.asList(plan.getMeasurements()).indexOf(failedMeasurement);
+          plan.markFailedMeasurementInsertion(index, new QueryProcessException("mock failure"));
+          throw new QueryProcessException("mock failure of " + failedMeasurement);
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -23,6 +23,14 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -52,6 +60,44 @@ public class FileReaderManagerTest {
     dbConfig.setCacheFileReaderClearPeriod(cacheFileReaderClearPeriod);
   }
 
+  @Test
+  public void testIdleSealedReader() throws Exception {
+    File file = SystemFileFactory.INSTANCE.getFile(TestConstant.BASE_OUTPUT_PATH, "idle.tsfile");
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      writer.registerTimeseries(
+          new Path("root.sg.d1"), new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+      TSRecord record = new TSRecord(1, "root.sg.d1");
+      record.addTuple(new LongDataPoint("s1", 1));
+      writer.write(record);
+    }
+    TsFileResource tsFile = new TsFileResource(file);
+    FileReaderManager manager = FileReaderManager.getInstance();
+    long idleReaderNum = manager.getIdleReaderNum();
+    try {
+      manager.increaseFileReaderReference(tsFile, true);
+      TsFileSequenceReader reader = manager.get(tsFile.getTsFilePath(), true);
+      manager.decreaseFileReaderReference(tsFile, true);
+
+      // the reader is kept open for later queries
+      Assert.assertTrue(manager.contains(tsFile, true));
+      Assert.assertEquals(idleReaderNum + 1, manager.getIdleReaderNum());
+      manager.increaseFileReaderReference(tsFile, true);
+      Assert.assertEquals(idleReaderNum, manager.getIdleReaderNum());
+      Assert.assertSame(reader, manager.get(tsFile.getTsFilePath(), true));
+      manager.decreaseFileReaderReference(tsFile, true);
+
+      // removing the file closes its idle reader
+      Assert.assertTrue(tsFile.remove());
+      Assert.assertFalse(manager.contains(tsFile, true));
+      Assert.assertEquals(idleReaderNum, manager.getIdleReaderNum());
+    } finally {
+      manager.closeAndRemoveAllOpenedReaders();
+      if (file.exists()) {
+        Assert.assertTrue(file.delete());
+      }
+    }
+  }
+
   @Test
   public void test() throws IOException, InterruptedException {
 
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OffHeapArrayPoolTest {
+
+  private static final int ARRAY_NUM_PER_SLAB =
+      OffHeapArrayPool.SLAB_SIZE_IN_BYTE
+          / (PrimitiveArrayManager.ARRAY_SIZE * TSDataType.INT32.getDataTypeSize());
+
+  private OffHeapArrayPool pool;
+  private long prevSlabsSize;
+
+  @Before
+  public void setUp() {
+    pool = new OffHeapArrayPool();
+    prevSlabsSize = SystemInfo.getInstance().getOffHeapMemTableSlabsSize();
+  }
+
+  @After
+  public void tearDown() {
+    pool.close();
+  }
+
+  @Test
+  public void testFreeIdleSlab() {
+    List<Buffer> firstSlabArrays = new ArrayList<>();
+    for (int i = 0; i < ARRAY_NUM_PER_SLAB; i++) {
+      firstSlabArrays.add(pool.allocate(TSDataType.INT32));
+    }
+    Assert.assertEquals(1, pool.getSlabNum(TSDataType.INT32));
+    Buffer secondSlabArray = pool.allocate(TSDataType.INT32);
+    Assert.assertEquals(2, pool.getSlabNum(TSDataType.INT32));
+    Assert.assertEquals(
+        prevSlabsSize + 2L * OffHeapArrayPool.SLAB_SIZE_IN_BYTE,
+        SystemInfo.getInstance().getOffHeapMemTableSlabsSize());
+
+    // the first slab is freed once all its arrays are back, as the second one has free arrays
+    for (Buffer array : firstSlabArrays) {
+      pool.release(array, TSDataType.INT32);
+    }
+    Assert.assertEquals(1, pool.getSlabNum(TSDataType.INT32));
+    Assert.assertEquals(
+        prevSlabsSize + OffHeapArrayPool.SLAB_SIZE_IN_BYTE,
+        SystemInfo.getInstance().getOffHeapMemTableSlabsSize());
+
+    // the last slab is kept for the next allocation
+    pool.release(secondSlabArray, TSDataType.INT32);
+    Assert.assertEquals(1, pool.getSlabNum(TSDataType.INT32));
+
+    pool.close();
+    Assert.assertEquals(0, pool.getSlabNum(TSDataType.INT32));
+    Assert.assertEquals(prevSlabsSize, SystemInfo.getInstance().getOffHeapMemTableSlabsSize());
+  }
+
+  @Test
+  public void testReleaseAfterClose() {
+    Buffer array = pool.allocate(TSDataType.DOUBLE);
+    pool.close();
+    Assert.assertEquals(prevSlabsSize, SystemInfo.getInstance().getOffHeapMemTableSlabsSize());
+    // the array in use when closing is dropped instead of being pooled
+    pool.release(array, TSDataType.DOUBLE);
+    Assert.assertEquals(0, pool.getSlabNum(TSDataType.DOUBLE));
+  }
+}
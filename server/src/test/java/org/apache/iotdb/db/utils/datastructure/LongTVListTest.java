@@ -77,6 +77,26 @@ public class LongTVListTest {
     }
   }
 
+  @Test
+  public void testSortMostlySorted() {
+    Random random = new Random(7);
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    for (long i = 0; i < 20000; i++) {
+      // in order arrivals with some late points and duplicated timestamps
+      long time = random.nextInt(10) == 0 ? i - random.nextInt(500) : i / 2;
+      tvList.putLong(time, i);
+      inputs.add(new TimeValuePair(time, new TsLong(i)));
+    }
+    tvList.sort();
+    // the sort should be stable, so that the last inserted value of a timestamp wins in flush
+    inputs.sort(TimeValuePair::compareTo);
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+    }
+  }
+
   @Test
   public void testPutLongsWithoutBitMap() {
     LongTVList tvList = new LongTVList();
@@ -155,4 +175,114 @@ public class LongTVListTest {
       Assert.assertEquals(tvList.getTime((int) i), clonedTvList.getTime((int) i));
     }
   }
+
+  @Test
+  public void testOffHeap() {
+    LongTVList tvList = new LongTVList(true);
+    Assert.assertTrue(tvList.isOffHeap());
+    List<Long> timeList = new ArrayList<>();
+    for (long i = 2000; i > 1000; i--) {
+      timeList.add(i);
+    }
+    long[] times = ArrayUtils.toPrimitive(timeList.toArray(new Long[0]));
+    tvList.putLongs(times, times, null, 0, times.length);
+    for (long i = 1000; i >= 0; i--) {
+      tvList.putLong(i, i);
+    }
+    tvList.sort();
+    LongTVList clonedTvList = tvList.clone();
+    Assert.assertFalse(clonedTvList.isOffHeap());
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(i, tvList.getTime(i));
+      Assert.assertEquals(i, tvList.getLong(i));
+      Assert.assertEquals(i, clonedTvList.getTime(i));
+      Assert.assertEquals(i, clonedTvList.getLong(i));
+    }
+    tvList.clear();
+    Assert.assertEquals(0, tvList.rowCount());
+    Assert.assertEquals(2000, clonedTvList.getTime(clonedTvList.rowCount() - 1));
+  }
+
+  @Test
+  public void testInOrderTabletsKeepOneBlock() {
+    LongTVList tvList = new LongTVList();
+    long[] times = new long[10000];
+    for (int tablet = 0; tablet < 3; tablet++) {
+      for (int i = 0; i < times.length; i++) {
+        times[i] = (long) tablet * times.length + i;
+      }
+      tvList.putLongs(times, times, null, 0, times.length);
+    }
+    Assert.assertTrue(tvList.isSorted());
+    Assert.assertEquals(1, tvList.blockCount);
+    Assert.assertEquals(30000, tvList.blockEnds[0]);
+    Assert.assertEquals(0, tvList.blockMinTimes[0]);
+    Assert.assertEquals(29999, tvList.blockMaxTimes[0]);
+  }
+
+  @Test
+  public void testSortOverlappingBlocks() {
+    Random random = new Random();
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    long[][] tablets = new long[4][1000];
+    for (int i = 0; i < 1000; i++) {
+      // in order, overlapping the first tablet, disjoint from the others, random
+      tablets[0][i] = 1000 + i;
+      tablets[1][i] = 1500 + i;
+      tablets[2][i] = i;
+      tablets[3][i] = random.nextInt(3000);
+    }
+    for (long[] tablet : tablets) {
+      long[] values = new long[tablet.length];
+      for (int i = 0; i < tablet.length; i++) {
+        values[i] = random.nextLong();
+        inputs.add(new TimeValuePair(tablet[i], new TsLong(values[i])));
+      }
+      tvList.putLongs(tablet, values, null, 0, tablet.length);
+    }
+    Assert.assertFalse(tvList.isSorted());
+    Assert.assertEquals(4, tvList.blockCount);
+    Assert.assertFalse(tvList.blockSorted[3]);
+
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    Assert.assertTrue(tvList.isSorted());
+    Assert.assertEquals(1, tvList.blockCount);
+    // both sorts are stable, so points with the same time keep their insertion order
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+    }
+  }
+
+  @Test
+  public void testDeleteKeepsBlocks() {
+    LongTVList tvList = new LongTVList();
+    long[] first = new long[100];
+    long[] second = new long[100];
+    for (int i = 0; i < 100; i++) {
+      first[i] = 100 + i;
+      second[i] = i;
+    }
+    tvList.putLongs(first, first, null, 0, first.length);
+    tvList.putLongs(second, second, null, 0, second.length);
+    Assert.assertEquals(2, tvList.blockCount);
+
+    // removing the whole second block leaves a sorted list
+    Assert.assertEquals(100, tvList.delete(0, 99));
+    Assert.assertEquals(1, tvList.blockCount);
+    Assert.assertTrue(tvList.isSorted());
+    Assert.assertEquals(100, tvList.getMinTime());
+
+    tvList.putLongs(second, second, null, 0, second.length);
+    Assert.assertEquals(20, tvList.delete(90, 109));
+    Assert.assertFalse(tvList.isSorted());
+    tvList.sort();
+    for (int i = 0; i < tvList.rowCount; i++) {
+      long expected = i < 90 ? i : i + 20;
+      Assert.assertEquals(expected, tvList.getTime(i));
+      Assert.assertEquals(expected, tvList.getLong(i));
+    }
+  }
 }
@@ -205,4 +205,39 @@ public class VectorTVListTest {
       }
     }
   }
+
+  @Test
+  public void testOffHeapVectorTVList() {
+    List<TSDataType> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.INT32);
+    dataTypes.add(TSDataType.INT64);
+    dataTypes.add(TSDataType.FLOAT);
+    dataTypes.add(TSDataType.DOUBLE);
+    dataTypes.add(TSDataType.BOOLEAN);
+    dataTypes.add(TSDataType.TEXT);
+    AlignedTVList tvList = AlignedTVList.newAlignedList(dataTypes, true);
+    int[] columnOrder = new int[] {0, 1, 2, 3, 4, 5};
+    for (int i = 1000; i >= 0; i--) {
+      Object[] value = new Object[6];
+      value[0] = i;
+      value[1] = (long) i;
+      value[2] = (float) i;
+      value[3] = (double) i;
+      value[4] = i % 2 == 0;
+      value[5] = new Binary(String.valueOf(i));
+      tvList.putAlignedValue(i, value, columnOrder);
+    }
+    tvList.sort();
+    AlignedTVList clonedTvList = tvList.clone();
+    Assert.assertFalse(clonedTvList.isOffHeap());
+    for (int i = 0; i < tvList.rowCount; i++) {
+      String expected =
+          String.format("[%d, %d, %s, %s, %s, %d]", i, i, (float) i, (double) i, i % 2 == 0, i);
+      Assert.assertEquals(i, tvList.getTime(i));
+      Assert.assertEquals(expected, tvList.getAlignedValue(i).toString());
+      Assert.assertEquals(expected, clonedTvList.getAlignedValue(i).toString());
+    }
+    tvList.clear();
+    Assert.assertEquals(0, tvList.rowCount());
+  }
 }
@@ -24,8 +24,11 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.wal.io.ILogWriter;
 import org.apache.iotdb.db.wal.io.WALReader;
 import org.apache.iotdb.db.wal.utils.WALFileUtils;
+import org.apache.iotdb.db.wal.utils.listener.AbstractResultListener;
+import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
 import org.junit.After;
@@ -33,6 +36,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -42,8 +47,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public abstract class WALBufferCommonTest {
@@ -157,4 +166,179 @@ public abstract class WALBufferCommonTest {
       config.setWalBufferSize(prevWalBufferSize);
     }
   }
+
+  @Test
+  public void testFsyncAtOnceWhenIdle() throws Exception {
+    long prevFsyncWalDelayInMs = config.getFsyncWalDelayInMs();
+    config.setFsyncWalDelayInMs(10_000);
+    try {
+      WALEntry walEntry = new WALEntry(0, getInsertRowPlan(devicePath, 0), true);
+      long startTime = System.nanoTime();
+      walBuffer.write(walEntry);
+      assertEquals(
+          AbstractResultListener.Status.SUCCESS,
+          walEntry.getWalFlushListener().waitForResult());
+      // no other writer and no fsync in progress, so no need to wait for a larger group
+      assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(5));
+    } finally {
+      config.setFsyncWalDelayInMs(prevFsyncWalDelayInMs);
+    }
+  }
+
+  @Test
+  public void testFsyncInGroupsUnderLoad() throws Exception {
+    long prevFsyncWalDelayInMs = config.getFsyncWalDelayInMs();
+    config.setFsyncWalDelayInMs(1_000);
+    MockLogWriter logWriter = installMockLogWriter();
+    logWriter.forceDelayInMs = 20;
+    int threadsNum = 8;
+    int entriesNum = 25;
+    ExecutorService executorService = Executors.newFixedThreadPool(threadsNum);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threadsNum; ++i) {
+        int memTableId = i;
+        futures.add(
+            executorService.submit(
+                () -> {
+                  // each writer waits for the fsync of its last entry, like a sync mode client
+                  for (int j = 0; j < entriesNum; ++j) {
+                    InsertRowPlan insertRowPlan = getInsertRowPlan(devicePath + memTableId, j);
+                    WALEntry walEntry = new WALEntry(memTableId, insertRowPlan, true);
+                    walBuffer.write(walEntry);
+                    assertEquals(
+                        AbstractResultListener.Status.SUCCESS,
+                        walEntry.getWalFlushListener().waitForResult());
+                  }
+                  return null;
+                }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      // entries arriving during a slow fsync share the next one
+      assertTrue(logWriter.forceCount.get() < threadsNum * entriesNum / 2);
+    } finally {
+      executorService.shutdown();
+      config.setFsyncWalDelayInMs(prevFsyncWalDelayInMs);
+    }
+  }
+
+  @Test
+  public void testBuffersSyncedInOrder() throws Exception {
+    MockLogWriter logWriter = installMockLogWriter();
+    // slow down the sync thread, so the serialize thread fills several buffers ahead of it
+    logWriter.writeDelayInMs = 1;
+    int entriesNum = 1000;
+    List<WALFlushListener> listeners = new ArrayList<>();
+    for (int i = 0; i < entriesNum; ++i) {
+      WALEntry walEntry = new WALEntry(0, getInsertRowPlan(devicePath, i), true);
+      listeners.add(walEntry.getWalFlushListener());
+      walBuffer.write(walEntry);
+    }
+    for (WALFlushListener listener : listeners) {
+      assertEquals(AbstractResultListener.Status.SUCCESS, listener.waitForResult());
+    }
+    assertTrue(logWriter.writeCount.get() > config.getWalBufferNum());
+    // check the entries are in the order of writing
+    File[] walFiles = WALFileUtils.listAllWALFiles(new File(logDirectory));
+    WALFileUtils.ascSortByVersionId(walFiles);
+    long expectedTime = 0;
+    for (File walFile : walFiles) {
+      try (WALReader walReader = new WALReader(walFile)) {
+        while (walReader.hasNext()) {
+          assertEquals(expectedTime++, ((InsertRowPlan) walReader.next().getValue()).getTime());
+        }
+      }
+    }
+    assertEquals(entriesNum, expectedTime);
+  }
+
+  @Test
+  public void testFailListenersWhenFsyncFails() throws Exception {
+    MockLogWriter logWriter = installMockLogWriter();
+    IOException fsyncException = new IOException("mock fsync failure");
+    logWriter.forceException = fsyncException;
+    try {
+      List<WALFlushListener> listeners = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) {
+        WALEntry walEntry = new WALEntry(0, getInsertRowPlan(devicePath, i), true);
+        listeners.add(walEntry.getWalFlushListener());
+        walBuffer.write(walEntry);
+      }
+      for (WALFlushListener listener : listeners) {
+        assertEquals(AbstractResultListener.Status.FAILURE, listener.waitForResult());
+        assertSame(fsyncException, listener.getCause());
+      }
+      assertTrue(config.isReadOnly());
+    } finally {
+      config.setReadOnly(false);
+    }
+  }
+
+  /** Replace the log writer of the wal buffer, should be called before any write. */
+  private MockLogWriter installMockLogWriter() {
+    WALBuffer buffer = (WALBuffer) walBuffer;
+    MockLogWriter logWriter = new MockLogWriter(buffer.currentWALFileWriter);
+    buffer.currentWALFileWriter = logWriter;
+    return logWriter;
+  }
+
+  /** A log writer which counts and delays the calls, or fails the fsync. */
+  private static class MockLogWriter implements ILogWriter {
+    private final ILogWriter logWriter;
+    private final AtomicInteger writeCount = new AtomicInteger();
+    private final AtomicInteger forceCount = new AtomicInteger();
+    private volatile long writeDelayInMs = 0;
+    private volatile long forceDelayInMs = 0;
+    private volatile IOException forceException = null;
+
+    private MockLogWriter(ILogWriter logWriter) {
+      this.logWriter = logWriter;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) throws IOException {
+      writeCount.incrementAndGet();
+      sleep(writeDelayInMs);
+      logWriter.write(buffer);
+    }
+
+    @Override
+    public void force() throws IOException {
+      force(true);
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+      forceCount.incrementAndGet();
+      sleep(forceDelayInMs);
+      if (forceException != null) {
+        throw forceException;
+      }
+      logWriter.force(metaData);
+    }
+
+    private void sleep(long timeInMs) throws IOException {
+      if (timeInMs <= 0) {
+        return;
+      }
+      try {
+        Thread.sleep(timeInMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public long size() throws IOException {
+      return logWriter.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+      logWriter.close();
+    }
+  }
 }
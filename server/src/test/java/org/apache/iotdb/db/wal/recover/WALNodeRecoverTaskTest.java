@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.wal.recover;
+
+import org.apache.iotdb.commons.exception.MetadataException;
+import org.apache.iotdb.commons.path.PartialPath;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.wal.buffer.IWALBuffer;
+import org.apache.iotdb.db.wal.buffer.WALBuffer;
+import org.apache.iotdb.db.wal.buffer.WALEntry;
+import org.apache.iotdb.db.wal.checkpoint.CheckpointManager;
+import org.apache.iotdb.db.wal.checkpoint.MemTableInfo;
+import org.apache.iotdb.db.wal.recover.file.UnsealedTsFileRecoverPerformer;
+import org.apache.iotdb.db.wal.utils.TsFileUtilsForRecoverTest;
+import org.apache.iotdb.db.wal.utils.WALMode;
+import org.apache.iotdb.db.wal.utils.listener.WALRecoverListener;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests how {@link WALNodeRecoverTask} redoes the entries of several TsFiles in batches. */
+public class WALNodeRecoverTaskTest {
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final String SG_NAME = "root.recover_sg";
+  private static final String DEVICE_NAME = SG_NAME.concat(".d1");
+  private static final String WAL_NODE_IDENTIFIER = String.valueOf(Integer.MAX_VALUE);
+  private static final String WAL_NODE_FOLDER =
+      config.getWalDirs()[0].concat(File.separator + WAL_NODE_IDENTIFIER);
+  private static final WALRecoverManager recoverManager = WALRecoverManager.getInstance();
+  /** number of unsealed TsFiles in the wal node */
+  private static final int TS_FILE_NUM = 3;
+  /** more than twice the size of a redo batch, so each TsFile has several batches */
+  private static final int ENTRY_NUM_PER_FILE = 600;
+
+  private WALMode prevMode;
+  private IWALBuffer walBuffer;
+  private CheckpointManager checkpointManager;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.cleanDir(new File(getTsFilePath(0)).getParent());
+    EnvironmentUtils.envSetUp();
+    prevMode = config.getWalMode();
+    config.setWalMode(WALMode.SYNC);
+    walBuffer = new WALBuffer(WAL_NODE_IDENTIFIER, WAL_NODE_FOLDER);
+    checkpointManager = new CheckpointManager(WAL_NODE_IDENTIFIER, WAL_NODE_FOLDER);
+    IoTDB.schemaProcessor.setStorageGroup(new PartialPath(SG_NAME));
+    IoTDB.schemaProcessor.createTimeseries(
+        new PartialPath(DEVICE_NAME.concat(".s1")),
+        TSDataType.INT64,
+        TSEncoding.RLE,
+        TSFileDescriptor.getInstance().getConfig().getCompressor(),
+        Collections.emptyMap());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    recoverManager.clear();
+    checkpointManager.close();
+    walBuffer.close();
+    config.setWalMode(prevMode);
+    EnvironmentUtils.cleanDir(new File(getTsFilePath(0)).getParent());
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testRedoBatchesOfSeveralTsFiles() throws Exception {
+    // the first TsFile fails to redo the entry at 300, which is in its second batch
+    long failedTime = 300;
+    List<RecordingRecoverPerformer> recoverPerformers = new ArrayList<>();
+    for (int i = 0; i < TS_FILE_NUM; i++) {
+      RecordingRecoverPerformer recoverPerformer =
+          new RecordingRecoverPerformer(getTsFilePath(i), i == 0 ? failedTime : -1);
+      recoverManager.addRecoverPerformer(recoverPerformer);
+      recoverPerformers.add(recoverPerformer);
+    }
+    writeInterleavedWALEntries();
+
+    recoverManager.setAllDataRegionScannedLatch(new CountDownLatch(0));
+    recoverManager.recover();
+
+    for (int i = 0; i < TS_FILE_NUM; i++) {
+      RecordingRecoverPerformer recoverPerformer = recoverPerformers.get(i);
+      assertEquals(
+          WALRecoverListener.Status.SUCCESS,
+          recoverPerformer.getRecoverListener().waitForResult());
+      List<Long> redoneTimes = recoverPerformer.redoneTimes;
+      // the entries of each TsFile are redone in the order they were written
+      for (int j = 1; j < redoneTimes.size(); j++) {
+        assertTrue(redoneTimes.get(j - 1) < redoneTimes.get(j));
+      }
+      if (i == 0) {
+        // the entries before the failed one are redone, and so are the batches after its batch
+        assertEquals(failedTime, redoneTimes.indexOf(failedTime - 1) + 1);
+        assertFalse(redoneTimes.contains(failedTime));
+        assertEquals(ENTRY_NUM_PER_FILE - 1, (long) redoneTimes.get(redoneTimes.size() - 1));
+      } else {
+        assertEquals(ENTRY_NUM_PER_FILE, redoneTimes.size());
+        for (int j = 0; j < ENTRY_NUM_PER_FILE; j++) {
+          assertEquals(j, (long) redoneTimes.get(j));
+        }
+      }
+    }
+  }
+
+  /** Write the entries of all TsFiles in turn, so that their batches are filled at once. */
+  private void writeInterleavedWALEntries() throws Exception {
+    int firstValidVersionId = walBuffer.getCurrentWALFileVersion();
+    IMemTable[] memTables = new IMemTable[TS_FILE_NUM];
+    for (int i = 0; i < TS_FILE_NUM; i++) {
+      memTables[i] = new PrimitiveMemTable();
+      checkpointManager.makeCreateMemTableCP(
+          new MemTableInfo(memTables[i], getTsFilePath(i), firstValidVersionId));
+    }
+    WALEntry walEntry = null;
+    for (long time = 0; time < ENTRY_NUM_PER_FILE; time++) {
+      for (IMemTable memTable : memTables) {
+        boolean last = time == ENTRY_NUM_PER_FILE - 1 && memTable == memTables[TS_FILE_NUM - 1];
+        walEntry = new WALEntry(memTable.getMemTableId(), getInsertRowPlan(time), last);
+        walBuffer.write(walEntry);
+      }
+    }
+    // the entries are flushed in order, so all of them are on disk once the last one is
+    walEntry.getWalFlushListener().waitForResult();
+  }
+
+  private InsertRowPlan getInsertRowPlan(long time) throws MetadataException {
+    PartialPath path = new PartialPath(DEVICE_NAME);
+    InsertRowPlan insertRowPlan =
+        new InsertRowPlan(
+            path,
+            time,
+            new String[] {"s1"},
+            new TSDataType[] {TSDataType.INT64},
+            new String[] {String.valueOf(time)});
+    insertRowPlan.setMeasurementMNodes(
+        new IMeasurementMNode[] {IoTDB.schemaProcessor.getMeasurementMNode(path.concatNode("s1"))});
+    return insertRowPlan;
+  }
+
+  private static String getTsFilePath(int index) {
+    return TsFileUtilsForRecoverTest.getTestTsFilePath(SG_NAME, 0, index, 1);
+  }
+
+  /** Records the times of the redone entries instead of writing a TsFile. */
+  private static class RecordingRecoverPerformer extends UnsealedTsFileRecoverPerformer {
+
+    /** only appended by the batches of this TsFile, which are redone one after another */
+    private final List<Long> redoneTimes = Collections.synchronizedList(new ArrayList<>());
+    /** the time of the entry that fails to be redone, or -1 */
+    private final long failedTime;
+
+    private RecordingRecoverPerformer(String tsFilePath, long failedTime) {
+      super(new TsFileResource(new File(tsFilePath)), true, null, performer -> {});
+      this.failedTime = failedTime;
+    }
+
+    @Override
+    public void startRecovery() {
+      // nothing to recover from the TsFile itself
+    }
+
+    @Override
+    public void redoLog(WALEntry walEntry) {
+      long time = ((InsertRowPlan) walEntry.getValue()).getTime();
+      if (time == failedTime) {
+        throw new IllegalStateException("mock failure of redoing the entry at " + time);
+      }
+      redoneTimes.add(time);
+    }
+
+    @Override
+    public void endRecovery() {
+      // nothing has been written to the TsFile
+    }
+  }
+}
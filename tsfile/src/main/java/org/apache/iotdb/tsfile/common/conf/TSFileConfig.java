@@ -119,6 +119,8 @@ public class TSFileConfig implements Serializable {
   private String endian = "BIG_ENDIAN";
   /** Default storage is in local file system */
   private FSType TSFileStorageFs = FSType.LOCAL;
+  /** Whether to read sealed TsFiles on the local file system through memory mapping */
+  private boolean useMmapForSealedTsFile = false;
   /** Default core-site.xml file path is /etc/hadoop/conf/core-site.xml */
   private String coreSitePath = "/etc/hadoop/conf/core-site.xml";
   /** Default hdfs-site.xml file path is /etc/hadoop/conf/hdfs-site.xml */
@@ -336,6 +338,14 @@ public class TSFileConfig implements Serializable {
     this.bloomFilterErrorRate = bloomFilterErrorRate;
   }
 
+  public boolean isUseMmapForSealedTsFile() {
+    return useMmapForSealedTsFile;
+  }
+
+  public void setUseMmapForSealedTsFile(boolean useMmapForSealedTsFile) {
+    this.useMmapForSealedTsFile = useMmapForSealedTsFile;
+  }
+
   public FSType getTSFileStorageFs() {
     return this.TSFileStorageFs;
   }
@@ -83,6 +83,7 @@ public class TSFileDescriptor {
     writer.setInt(conf::setBatchSize, "batch_size");
     writer.setInt(conf::setFreqEncodingBlockSize, "freq_block_size");
     writer.setDouble(conf::setFreqEncodingSNR, "freq_snr");
+    writer.setBoolean(conf::setUseMmapForSealedTsFile, "use_mmap_for_sealed_tsfile");
   }
 
   private class PropertiesOverWriter {
@@ -100,6 +101,10 @@ public class TSFileDescriptor {
       set(setter, propertyKey, Integer::parseInt);
     }
 
+    public void setBoolean(Consumer<Boolean> setter, String propertyKey) {
+      set(setter, propertyKey, Boolean::parseBoolean);
+    }
+
     public void setDouble(Consumer<Double> setter, String propertyKey) {
       set(setter, propertyKey, Double::parseDouble);
     }
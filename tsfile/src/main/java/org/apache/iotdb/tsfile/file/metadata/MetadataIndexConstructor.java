@@ -26,6 +26,7 @@ import org.apache.iotdb.tsfile.write.writer.TsFileOutput;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,7 +47,6 @@ public class MetadataIndexConstructor {
    * @param deviceTimeseriesMetadataMap device => TimeseriesMetadata list
    * @param out tsfile output
    */
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public static MetadataIndexNode constructMetadataIndex(
       Map<String, List<TimeseriesMetadata>> deviceTimeseriesMetadataMap, TsFileOutput out)
       throws IOException {
@@ -58,28 +58,56 @@ public class MetadataIndexConstructor {
       if (entry.getValue().isEmpty()) {
         continue;
       }
-      Queue<MetadataIndexNode> measurementMetadataIndexQueue = new ArrayDeque<>();
-      TimeseriesMetadata timeseriesMetadata;
-      MetadataIndexNode currentIndexNode =
-          new MetadataIndexNode(MetadataIndexNodeType.LEAF_MEASUREMENT);
-      for (int i = 0; i < entry.getValue().size(); i++) {
-        timeseriesMetadata = entry.getValue().get(i);
-        if (i % config.getMaxDegreeOfIndexNode() == 0) {
-          if (currentIndexNode.isFull()) {
-            addCurrentIndexNodeToQueue(currentIndexNode, measurementMetadataIndexQueue, out);
-            currentIndexNode = new MetadataIndexNode(MetadataIndexNodeType.LEAF_MEASUREMENT);
-          }
-          currentIndexNode.addEntry(
-              new MetadataIndexEntry(timeseriesMetadata.getMeasurementId(), out.getPosition()));
+      deviceMetadataIndexMap.put(
+          entry.getKey(), constructMeasurementIndex(entry.getValue().iterator(), out));
+    }
+    return constructDeviceIndex(deviceMetadataIndexMap, out);
+  }
+
+  /**
+   * Serialize the TimeseriesMetadata of one device and construct the measurement index tree of the
+   * device. The TimeseriesMetadata is consumed one by one, so the caller does not need to hold all
+   * of them.
+   *
+   * @param timeseriesMetadataIterator non-empty TimeseriesMetadata of the device, sorted by
+   *     measurement
+   * @param out tsfile output
+   * @return root of the measurement index tree, which is not serialized yet
+   */
+  public static MetadataIndexNode constructMeasurementIndex(
+      Iterator<TimeseriesMetadata> timeseriesMetadataIterator, TsFileOutput out)
+      throws IOException {
+    Queue<MetadataIndexNode> measurementMetadataIndexQueue = new ArrayDeque<>();
+    TimeseriesMetadata timeseriesMetadata;
+    MetadataIndexNode currentIndexNode =
+        new MetadataIndexNode(MetadataIndexNodeType.LEAF_MEASUREMENT);
+    for (int i = 0; timeseriesMetadataIterator.hasNext(); i++) {
+      timeseriesMetadata = timeseriesMetadataIterator.next();
+      if (i % config.getMaxDegreeOfIndexNode() == 0) {
+        if (currentIndexNode.isFull()) {
+          addCurrentIndexNodeToQueue(currentIndexNode, measurementMetadataIndexQueue, out);
+          currentIndexNode = new MetadataIndexNode(MetadataIndexNodeType.LEAF_MEASUREMENT);
         }
-        timeseriesMetadata.serializeTo(out.wrapAsStream());
+        currentIndexNode.addEntry(
+            new MetadataIndexEntry(timeseriesMetadata.getMeasurementId(), out.getPosition()));
       }
-      addCurrentIndexNodeToQueue(currentIndexNode, measurementMetadataIndexQueue, out);
-      deviceMetadataIndexMap.put(
-          entry.getKey(),
-          generateRootNode(
-              measurementMetadataIndexQueue, out, MetadataIndexNodeType.INTERNAL_MEASUREMENT));
+      timeseriesMetadata.serializeTo(out.wrapAsStream());
     }
+    addCurrentIndexNodeToQueue(currentIndexNode, measurementMetadataIndexQueue, out);
+    return generateRootNode(
+        measurementMetadataIndexQueue, out, MetadataIndexNodeType.INTERNAL_MEASUREMENT);
+  }
+
+  /**
+   * Construct the device level of the metadata index tree and serialize it with the measurement
+   * index trees.
+   *
+   * @param deviceMetadataIndexMap device => root of its measurement index tree, sorted by device
+   * @param out tsfile output
+   */
+  public static MetadataIndexNode constructDeviceIndex(
+      Map<String, MetadataIndexNode> deviceMetadataIndexMap, TsFileOutput out)
+      throws IOException {
 
     // if not exceed the max child nodes num, ignore the device index and directly point to the
     // measurement
@@ -106,9 +106,16 @@ public class TsFileMetadata {
    * @return -byte length
    */
   public int serializeBloomFilter(OutputStream outputStream, Set<Path> paths) throws IOException {
-    int byteLen = 0;
-    BloomFilter filter = buildBloomFilter(paths);
+    return serializeBloomFilter(outputStream, buildBloomFilter(paths));
+  }
 
+  /**
+   * use the given bloom filter, which is built by the caller when the paths are too many to be held
+   * in a set
+   */
+  public int serializeBloomFilter(OutputStream outputStream, BloomFilter filter)
+      throws IOException {
+    int byteLen = 0;
     byte[] bytes = filter.serialize();
     byteLen += ReadWriteForEncodingUtils.writeUnsignedVarInt(bytes.length, outputStream);
     outputStream.write(bytes);
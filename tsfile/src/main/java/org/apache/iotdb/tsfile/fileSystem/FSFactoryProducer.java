@@ -23,6 +23,7 @@ import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.fileSystem.fileInputFactory.FileInputFactory;
 import org.apache.iotdb.tsfile.fileSystem.fileInputFactory.HDFSInputFactory;
 import org.apache.iotdb.tsfile.fileSystem.fileInputFactory.LocalFSInputFactory;
+import org.apache.iotdb.tsfile.fileSystem.fileInputFactory.MappedFSInputFactory;
 import org.apache.iotdb.tsfile.fileSystem.fileOutputFactory.FileOutputFactory;
 import org.apache.iotdb.tsfile.fileSystem.fileOutputFactory.HDFSOutputFactory;
 import org.apache.iotdb.tsfile.fileSystem.fileOutputFactory.LocalFSOutputFactory;
@@ -36,6 +37,7 @@ public class FSFactoryProducer {
 
   private static FSFactory fsFactory;
   private static FileInputFactory fileInputFactory;
+  private static FileInputFactory mappedFileInputFactory = new MappedFSInputFactory();
   private static FileOutputFactory fileOutputFactory;
 
   static {
@@ -58,6 +60,18 @@ public class FSFactoryProducer {
     return fileInputFactory;
   }
 
+  /**
+   * @return the factory of inputs of sealed TsFiles, which are memory-mapped if
+   *     use_mmap_for_sealed_tsfile is enabled on the local file system
+   */
+  public static FileInputFactory getSealedFileInputFactory() {
+    if (!fSType.equals(FSType.HDFS)
+        && TSFileDescriptor.getInstance().getConfig().isUseMmapForSealedTsFile()) {
+      return mappedFileInputFactory;
+    }
+    return fileInputFactory;
+  }
+
   public static FileOutputFactory getFileOutputFactory() {
     return fileOutputFactory;
   }
@@ -133,7 +133,11 @@ public class TsFileSequenceReader implements AutoCloseable {
       resourceLogger.debug("{} reader is opened. {}", file, getClass().getName());
     }
     this.file = file;
-    tsFileInput = FSFactoryProducer.getFileInputFactory().getTsFileInput(file);
+    // only a complete file has its metadata size at the tail, such a file never changes
+    tsFileInput =
+        loadMetadataSize
+            ? FSFactoryProducer.getSealedFileInputFactory().getTsFileInput(file)
+            : FSFactoryProducer.getFileInputFactory().getTsFileInput(file);
     try {
       if (loadMetadataSize) {
         loadMetadataSize();
@@ -1200,6 +1204,13 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @return data that been read.
    */
   protected ByteBuffer readData(long position, int totalSize) throws IOException {
+    if (position >= 0) {
+      // a memory-mapped input returns its content without copying
+      ByteBuffer slice = tsFileInput.slice(position, totalSize);
+      if (slice != null) {
+        return slice;
+      }
+    }
     int allocateSize = Math.min(MAX_READ_BUFFER_SIZE, totalSize);
     int allocateNum = (int) Math.ceil((double) totalSize / allocateSize);
     ByteBuffer buffer = ByteBuffer.allocate(totalSize);
@@ -68,6 +68,9 @@ public class Chunk {
   }
 
   public void mergeChunkByAppendPage(Chunk chunk) throws IOException {
+    // the data are accessed as arrays below
+    chunkData = toArrayBackedBuffer(chunkData);
+    chunk.chunkData = toArrayBackedBuffer(chunk.chunkData);
     int dataSize = 0;
     // from where the page data of the merged chunk starts, if -1, it means the merged chunk has
     // more than one page
@@ -147,6 +150,19 @@ public class Chunk {
     chunkData = newChunkData;
   }
 
+  /** buffers from memory-mapped files are not array-backed, copy their whole content to heap */
+  private static ByteBuffer toArrayBackedBuffer(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      return buffer;
+    }
+    ByteBuffer source = buffer.duplicate();
+    source.clear();
+    ByteBuffer copy = ByteBuffer.allocate(source.capacity());
+    copy.put(source);
+    copy.flip();
+    return copy;
+  }
+
   public Statistics getChunkStatistic() {
     return chunkStatistic;
   }
@@ -101,6 +101,16 @@ public class BinaryColumn implements Column {
     return valueIsNull != null;
   }
 
+  @Override
+  public boolean[] isNull() {
+    return valueIsNull;
+  }
+
+  @Override
+  public int getArrayOffset() {
+    return arrayOffset;
+  }
+
   @Override
   public boolean isNull(int position) {
     checkReadablePosition(position);
@@ -100,6 +100,16 @@ public class BooleanColumn implements Column {
     return valueIsNull != null;
   }
 
+  @Override
+  public boolean[] isNull() {
+    return valueIsNull;
+  }
+
+  @Override
+  public int getArrayOffset() {
+    return arrayOffset;
+  }
+
   @Override
   public boolean isNull(int position) {
     checkReadablePosition(position);
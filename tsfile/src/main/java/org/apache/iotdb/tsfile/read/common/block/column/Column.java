@@ -70,6 +70,43 @@ public interface Column {
     throw new UnsupportedOperationException(getClass().getName());
   }
 
+  /**
+   * Gets the int array holding the values of this column, position {@code i} is at index {@link
+   * #getArrayOffset()} + {@code i}. The array may be shared with other columns and must not be
+   * modified.
+   */
+  default int[] getInts() {
+    throw new UnsupportedOperationException(getClass().getName());
+  }
+
+  /** Gets the long array holding the values of this column, indexed like {@link #getInts()}. */
+  default long[] getLongs() {
+    throw new UnsupportedOperationException(getClass().getName());
+  }
+
+  /** Gets the float array holding the values of this column, indexed like {@link #getInts()}. */
+  default float[] getFloats() {
+    throw new UnsupportedOperationException(getClass().getName());
+  }
+
+  /** Gets the double array holding the values of this column, indexed like {@link #getInts()}. */
+  default double[] getDoubles() {
+    throw new UnsupportedOperationException(getClass().getName());
+  }
+
+  /**
+   * Gets the null flags of this column indexed like {@link #getInts()}, or null if the column has
+   * no null value.
+   */
+  default boolean[] isNull() {
+    throw new UnsupportedOperationException(getClass().getName());
+  }
+
+  /** Gets the index of the first position in the arrays returned by {@link #getInts()} etc. */
+  default int getArrayOffset() {
+    return 0;
+  }
+
   /**
    * Is it possible the column may have a null value? If false, the column cannot contain a null,
    * but if true, the column may or may not have a null.
@@ -84,6 +84,11 @@ public class DoubleColumn implements Column {
     return values[position + arrayOffset];
   }
 
+  @Override
+  public double[] getDoubles() {
+    return values;
+  }
+
   @Override
   public Object getObject(int position) {
     return getDouble(position);
@@ -100,6 +105,16 @@ public class DoubleColumn implements Column {
     return valueIsNull != null;
   }
 
+  @Override
+  public boolean[] isNull() {
+    return valueIsNull;
+  }
+
+  @Override
+  public int getArrayOffset() {
+    return arrayOffset;
+  }
+
   @Override
   public boolean isNull(int position) {
     checkReadablePosition(position);
@@ -83,6 +83,11 @@ public class FloatColumn implements Column {
     return values[position + arrayOffset];
   }
 
+  @Override
+  public float[] getFloats() {
+    return values;
+  }
+
   @Override
   public Object getObject(int position) {
     return getFloat(position);
@@ -99,6 +104,16 @@ public class FloatColumn implements Column {
     return valueIsNull != null;
   }
 
+  @Override
+  public boolean[] isNull() {
+    return valueIsNull;
+  }
+
+  @Override
+  public int getArrayOffset() {
+    return arrayOffset;
+  }
+
   @Override
   public boolean isNull(int position) {
     checkReadablePosition(position);
@@ -24,6 +24,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Optional;
 
 public class Int32ArrayColumnEncoder implements ColumnEncoder {
 
@@ -39,30 +40,35 @@ public class Int32ArrayColumnEncoder implements ColumnEncoder {
 
     boolean[] nullIndicators = ColumnEncoder.deserializeNullIndicators(input, positionCount);
 
-    ColumnBuilder columnBuilder;
     if (TSDataType.INT32.equals(dataType)) {
-      columnBuilder = new IntColumnBuilder(null, positionCount);
-      for (int i = 0; i < positionCount; i++) {
-        if (nullIndicators == null || !nullIndicators[i]) {
-          columnBuilder.writeInt(input.getInt());
-        } else {
-          columnBuilder.appendNull();
+      int[] values = new int[positionCount];
+      if (nullIndicators == null) {
+        input.asIntBuffer().get(values);
+        input.position(input.position() + positionCount * Integer.BYTES);
+      } else {
+        for (int i = 0; i < positionCount; i++) {
+          if (!nullIndicators[i]) {
+            values[i] = input.getInt();
+          }
         }
       }
+      return new IntColumn(positionCount, Optional.ofNullable(nullIndicators), values);
     } else if (TSDataType.FLOAT.equals(dataType)) {
-      columnBuilder = new FloatColumnBuilder(null, positionCount);
-      for (int i = 0; i < positionCount; i++) {
-        if (nullIndicators == null || !nullIndicators[i]) {
-          columnBuilder.writeFloat(Float.intBitsToFloat(input.getInt()));
-        } else {
-          columnBuilder.appendNull();
+      float[] values = new float[positionCount];
+      if (nullIndicators == null) {
+        input.asFloatBuffer().get(values);
+        input.position(input.position() + positionCount * Float.BYTES);
+      } else {
+        for (int i = 0; i < positionCount; i++) {
+          if (!nullIndicators[i]) {
+            values[i] = Float.intBitsToFloat(input.getInt());
+          }
         }
       }
+      return new FloatColumn(positionCount, Optional.ofNullable(nullIndicators), values);
     } else {
       throw new IllegalArgumentException("Invalid data type: " + dataType);
     }
-
-    return columnBuilder.build();
   }
 
   @Override
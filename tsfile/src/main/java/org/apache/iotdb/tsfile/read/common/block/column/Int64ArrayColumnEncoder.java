@@ -24,28 +24,23 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Optional;
 
 public class Int64ArrayColumnEncoder implements ColumnEncoder {
 
   @Override
   public TimeColumn readTimeColumn(ByteBuffer input, int positionCount) {
-    return (TimeColumn)
-        readColumnInternal(new TimeColumnBuilder(null, positionCount), input, positionCount);
+    boolean[] nullIndicators = ColumnEncoder.deserializeNullIndicators(input, positionCount);
+    if (nullIndicators != null) {
+      throw new IllegalArgumentException("Time column should not contain null values");
+    }
+    long[] values = new long[positionCount];
+    readLongs(input, nullIndicators, values, positionCount);
+    return new TimeColumn(positionCount, values);
   }
 
   @Override
   public Column readColumn(ByteBuffer input, TSDataType dataType, int positionCount) {
-    if (TSDataType.INT64.equals(dataType)) {
-      return readColumnInternal(new LongColumnBuilder(null, positionCount), input, positionCount);
-    } else if (TSDataType.DOUBLE.equals(dataType)) {
-      return readColumnInternal(new DoubleColumnBuilder(null, positionCount), input, positionCount);
-    } else {
-      throw new IllegalArgumentException("Invalid data type: " + dataType);
-    }
-  }
-
-  private Column readColumnInternal(
-      ColumnBuilder columnBuilder, ByteBuffer input, int positionCount) {
 
     // Serialized data layout:
     //    +---------------+-----------------+-------------+
@@ -55,27 +50,44 @@ public class Int64ArrayColumnEncoder implements ColumnEncoder {
     //    +---------------+-----------------+-------------+
 
     boolean[] nullIndicators = ColumnEncoder.deserializeNullIndicators(input, positionCount);
-    TSDataType dataType = columnBuilder.getDataType();
     if (TSDataType.INT64.equals(dataType)) {
-      for (int i = 0; i < positionCount; i++) {
-        if (nullIndicators == null || !nullIndicators[i]) {
-          columnBuilder.writeLong(input.getLong());
-        } else {
-          columnBuilder.appendNull();
-        }
-      }
+      long[] values = new long[positionCount];
+      readLongs(input, nullIndicators, values, positionCount);
+      return new LongColumn(positionCount, Optional.ofNullable(nullIndicators), values);
     } else if (TSDataType.DOUBLE.equals(dataType)) {
-      for (int i = 0; i < positionCount; i++) {
-        if (nullIndicators == null || !nullIndicators[i]) {
-          columnBuilder.writeDouble(Double.longBitsToDouble(input.getLong()));
-        } else {
-          columnBuilder.appendNull();
+      double[] values = new double[positionCount];
+      if (nullIndicators == null) {
+        input.asDoubleBuffer().get(values);
+        input.position(input.position() + positionCount * Double.BYTES);
+      } else {
+        for (int i = 0; i < positionCount; i++) {
+          if (!nullIndicators[i]) {
+            values[i] = Double.longBitsToDouble(input.getLong());
+          }
         }
       }
+      return new DoubleColumn(positionCount, Optional.ofNullable(nullIndicators), values);
     } else {
       throw new IllegalArgumentException("Invalid data type: " + dataType);
     }
-    return columnBuilder.build();
+  }
+
+  /**
+   * Values without nulls are stored contiguously, so they are copied in bulk instead of being read
+   * one by one through a column builder.
+   */
+  private static void readLongs(
+      ByteBuffer input, boolean[] nullIndicators, long[] values, int positionCount) {
+    if (nullIndicators == null) {
+      input.asLongBuffer().get(values);
+      input.position(input.position() + positionCount * Long.BYTES);
+      return;
+    }
+    for (int i = 0; i < positionCount; i++) {
+      if (!nullIndicators[i]) {
+        values[i] = input.getLong();
+      }
+    }
   }
 
   @Override
@@ -83,6 +83,11 @@ public class IntColumn implements Column {
     return values[position + arrayOffset];
   }
 
+  @Override
+  public int[] getInts() {
+    return values;
+  }
+
   @Override
   public Object getObject(int position) {
     return getInt(position);
@@ -99,6 +104,16 @@ public class IntColumn implements Column {
     return valueIsNull != null;
   }
 
+  @Override
+  public boolean[] isNull() {
+    return valueIsNull;
+  }
+
+  @Override
+  public int getArrayOffset() {
+    return arrayOffset;
+  }
+
   @Override
   public boolean isNull(int position) {
     checkReadablePosition(position);
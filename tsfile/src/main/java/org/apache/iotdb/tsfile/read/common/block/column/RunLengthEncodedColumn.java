@@ -24,6 +24,8 @@ import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 import org.openjdk.jol.info.ClassLayout;
 
+import java.util.Arrays;
+
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static org.apache.iotdb.tsfile.read.common.block.column.ColumnUtil.checkValidRegion;
@@ -120,6 +122,54 @@ public class RunLengthEncodedColumn implements Column {
     return value.getTsPrimitiveType(0);
   }
 
+  // the array accessors below expand the single value, which is rare in raw series data
+
+  @Override
+  public int[] getInts() {
+    int[] values = new int[positionCount];
+    if (!value.isNull(0)) {
+      Arrays.fill(values, value.getInt(0));
+    }
+    return values;
+  }
+
+  @Override
+  public long[] getLongs() {
+    long[] values = new long[positionCount];
+    if (!value.isNull(0)) {
+      Arrays.fill(values, value.getLong(0));
+    }
+    return values;
+  }
+
+  @Override
+  public float[] getFloats() {
+    float[] values = new float[positionCount];
+    if (!value.isNull(0)) {
+      Arrays.fill(values, value.getFloat(0));
+    }
+    return values;
+  }
+
+  @Override
+  public double[] getDoubles() {
+    double[] values = new double[positionCount];
+    if (!value.isNull(0)) {
+      Arrays.fill(values, value.getDouble(0));
+    }
+    return values;
+  }
+
+  @Override
+  public boolean[] isNull() {
+    if (!value.isNull(0)) {
+      return null;
+    }
+    boolean[] isNull = new boolean[positionCount];
+    Arrays.fill(isNull, true);
+    return isNull;
+  }
+
   @Override
   public boolean mayHaveNull() {
     return value.mayHaveNull();
@@ -74,6 +74,11 @@ public class TimeColumn implements Column {
     return values[position + arrayOffset];
   }
 
+  @Override
+  public long[] getLongs() {
+    return values;
+  }
+
   @Override
   public Object getObject(int position) {
     return getLong(position);
@@ -83,6 +88,16 @@ public class TimeColumn implements Column {
     return false;
   }
 
+  @Override
+  public boolean[] isNull() {
+    return null;
+  }
+
+  @Override
+  public int getArrayOffset() {
+    return arrayOffset;
+  }
+
   @Override
   public boolean isNull(int position) {
     return false;
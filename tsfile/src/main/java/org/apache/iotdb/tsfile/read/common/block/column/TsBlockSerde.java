@@ -21,8 +21,12 @@ package org.apache.iotdb.tsfile.read.common.block.column;
 
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
 
-import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -31,6 +35,40 @@ import java.util.List;
 
 public class TsBlockSerde {
 
+  /** Serialized tsblock whose body is stored as it is. */
+  private static final byte UNCOMPRESSED = 0;
+
+  /** Serialized tsblock whose body is compressed by LZ4. */
+  private static final byte LZ4_COMPRESSED = 1;
+
+  private static final int HEADER_SIZE_IN_BYTES = Byte.BYTES + Integer.BYTES;
+
+  /**
+   * Buffers larger than this are not kept by the thread after serialization, so that a single huge
+   * tsblock does not pin its memory for the lifetime of the thread.
+   */
+  private static final int MAX_POOLED_BUFFER_SIZE_IN_BYTES = 4 * 1024 * 1024;
+
+  private static final ThreadLocal<PublicBAOS> SERIALIZE_BUFFER =
+      ThreadLocal.withInitial(PublicBAOS::new);
+
+  private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+
+  /** Tsblocks whose serialized size is no less than this are compressed, disabled if negative. */
+  private final int compressionThresholdInBytes;
+
+  public TsBlockSerde() {
+    this(-1);
+  }
+
+  /**
+   * @param compressionThresholdInBytes tsblocks whose serialized size is no less than this value
+   *     are compressed by LZ4, a negative value disables compression
+   */
+  public TsBlockSerde(int compressionThresholdInBytes) {
+    this.compressionThresholdInBytes = compressionThresholdInBytes;
+  }
+
   /**
    * Deserialize a tsblock.
    *
@@ -40,12 +78,40 @@ public class TsBlockSerde {
   public TsBlock deserialize(ByteBuffer byteBuffer) {
 
     // Serialized tsblock:
+    //    +-------------+------------------+------------------------------------+
+    //    | compressed  | uncompressed len | body (compressed if flag is set)   |
+    //    +-------------+------------------+------------------------------------+
+    //    | byte        | int32            | bytes                              |
+    //    +-------------+------------------+------------------------------------+
+    //
+    // Body:
     //    +-------------+---------------+---------+------------+-----------+----------+
     //    | val col cnt | val col types | pos cnt | encodings  | time col  | val col  |
     //    +-------------+---------------+---------+------------+-----------+----------+
     //    | int32       | list[byte]    | int32   | list[byte] |  bytes    | byte     |
     //    +-------------+---------------+---------+------------+-----------+----------+
 
+    byte compressed = byteBuffer.get();
+    int uncompressedLength = byteBuffer.getInt();
+    if (compressed == LZ4_COMPRESSED) {
+      byte[] uncompressed = new byte[uncompressedLength];
+      LZ4FastDecompressor decompressor = LZ4_FACTORY.fastDecompressor();
+      int compressedLength =
+          decompressor.decompress(
+              byteBuffer,
+              byteBuffer.position(),
+              ByteBuffer.wrap(uncompressed),
+              0,
+              uncompressedLength);
+      byteBuffer.position(byteBuffer.position() + compressedLength);
+      return deserializeBody(ByteBuffer.wrap(uncompressed));
+    } else if (compressed != UNCOMPRESSED) {
+      throw new IllegalArgumentException("Unknown tsblock compression flag: " + compressed);
+    }
+    return deserializeBody(byteBuffer);
+  }
+
+  private TsBlock deserializeBody(ByteBuffer byteBuffer) {
     // Value column count.
     int valueColumnCount = byteBuffer.getInt();
 
@@ -81,15 +147,55 @@ public class TsBlockSerde {
   }
 
   /**
-   * Serialize a tsblock.
+   * Serialize a tsblock. The body is written into a buffer reused by the calling thread, then
+   * copied once into an exactly sized array, compressed if it is large enough.
    *
    * @param tsBlock The tsblock to serialize.
    * @return Serialized tsblock.
    */
   public ByteBuffer serialize(TsBlock tsBlock) throws IOException {
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    PublicBAOS buffer = SERIALIZE_BUFFER.get();
+    buffer.reset();
+    try {
+      DataOutputStream dataOutputStream = new DataOutputStream(buffer);
+      serializeBody(tsBlock, dataOutputStream);
+      dataOutputStream.flush();
+      return compressionThresholdInBytes >= 0 && buffer.size() >= compressionThresholdInBytes
+          ? toCompressedByteBuffer(buffer.getBuf(), buffer.size())
+          : toUncompressedByteBuffer(buffer.getBuf(), buffer.size());
+    } finally {
+      if (buffer.getBuf().length > MAX_POOLED_BUFFER_SIZE_IN_BYTES) {
+        SERIALIZE_BUFFER.remove();
+      }
+    }
+  }
 
+  private static ByteBuffer toUncompressedByteBuffer(byte[] body, int length) {
+    ByteBuffer byteBuffer = ByteBuffer.allocate(HEADER_SIZE_IN_BYTES + length);
+    byteBuffer.put(UNCOMPRESSED);
+    byteBuffer.putInt(length);
+    byteBuffer.put(body, 0, length);
+    byteBuffer.flip();
+    return byteBuffer;
+  }
+
+  private static ByteBuffer toCompressedByteBuffer(byte[] body, int length) {
+    LZ4Compressor compressor = LZ4_FACTORY.fastCompressor();
+    byte[] compressed = new byte[HEADER_SIZE_IN_BYTES + compressor.maxCompressedLength(length)];
+    int compressedLength = compressor.compress(body, 0, length, compressed, HEADER_SIZE_IN_BYTES);
+    if (compressedLength >= length) {
+      // incompressible data, e.g. random doubles, is not worth decompressing on the receiver
+      return toUncompressedByteBuffer(body, length);
+    }
+    ByteBuffer byteBuffer = ByteBuffer.wrap(compressed, 0, HEADER_SIZE_IN_BYTES + compressedLength);
+    byteBuffer.put(LZ4_COMPRESSED);
+    byteBuffer.putInt(length);
+    byteBuffer.position(0);
+    return byteBuffer;
+  }
+
+  private void serializeBody(TsBlock tsBlock, DataOutputStream dataOutputStream)
+      throws IOException {
     // Value column count.
     dataOutputStream.writeInt(tsBlock.getValueColumnCount());
 
@@ -116,7 +222,5 @@ public class TsBlockSerde {
       columnEncoder = ColumnEncoderFactory.get(tsBlock.getColumn(i).getEncoding());
       columnEncoder.writeColumn(dataOutputStream, tsBlock.getColumn(i));
     }
-
-    return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
   }
 }
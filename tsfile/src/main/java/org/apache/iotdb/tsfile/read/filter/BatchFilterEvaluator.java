@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.filter;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterSerializeId;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * Evaluates a {@link Filter} over a batch of decoded points instead of one point at a time.
+ *
+ * <p>Points are given as a time array and a primitive value array (boolean[], int[], long[],
+ * float[], double[] or Binary[] according to the data type). The result is written into a
+ * selection bitmap: a point stays selected only if it was selected before and satisfies the
+ * filter. Comparisons of time filters and of value filters on numeric columns run as tight loops
+ * over primitive arrays, the other filters fall back to {@link Filter#satisfy(long, Object)}.
+ */
+public class BatchFilterEvaluator {
+
+  private BatchFilterEvaluator() {}
+
+  public static void evaluate(
+      Filter filter,
+      TSDataType dataType,
+      long[] times,
+      Object values,
+      int count,
+      boolean[] selected) {
+    if (filter == null) {
+      return;
+    }
+    FilterSerializeId serializeId = filter.getSerializeId();
+    switch (serializeId) {
+      case AND:
+        evaluate(((BinaryFilter) filter).getLeft(), dataType, times, values, count, selected);
+        evaluate(((BinaryFilter) filter).getRight(), dataType, times, values, count, selected);
+        return;
+      case OR:
+        boolean[] leftSelected = selected.clone();
+        evaluate(((BinaryFilter) filter).getLeft(), dataType, times, values, count, leftSelected);
+        evaluate(((BinaryFilter) filter).getRight(), dataType, times, values, count, selected);
+        for (int i = 0; i < count; i++) {
+          selected[i] |= leftSelected[i];
+        }
+        return;
+      case NOT:
+        boolean[] innerSelected = selected.clone();
+        evaluate(((NotFilter) filter).getFilter(), dataType, times, values, count, innerSelected);
+        for (int i = 0; i < count; i++) {
+          selected[i] &= !innerSelected[i];
+        }
+        return;
+      case EQ:
+      case NEQ:
+      case GT:
+      case GTEQ:
+      case LT:
+      case LTEQ:
+        if (evaluateComparison(
+            (UnaryFilter<?>) filter, serializeId, dataType, times, values, count, selected)) {
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    evaluatePointByPoint(filter, dataType, times, values, count, selected);
+  }
+
+  /** @return false if the comparison can't be vectorized and should be evaluated point by point */
+  private static boolean evaluateComparison(
+      UnaryFilter<?> filter,
+      FilterSerializeId operator,
+      TSDataType dataType,
+      long[] times,
+      Object values,
+      int count,
+      boolean[] selected) {
+    Object target = filter.getValue();
+    if (filter.getFilterType() == FilterType.TIME_FILTER) {
+      if (!(target instanceof Long)) {
+        return false;
+      }
+      compareLongs(operator, times, (Long) target, count, selected);
+      return true;
+    }
+    switch (dataType) {
+      case INT32:
+        if (!(target instanceof Integer)) {
+          return false;
+        }
+        compareInts(operator, (int[]) values, (Integer) target, count, selected);
+        return true;
+      case INT64:
+        if (!(target instanceof Long)) {
+          return false;
+        }
+        compareLongs(operator, (long[]) values, (Long) target, count, selected);
+        return true;
+      case FLOAT:
+        if (!(target instanceof Float)) {
+          return false;
+        }
+        compareFloats(operator, (float[]) values, (Float) target, count, selected);
+        return true;
+      case DOUBLE:
+        if (!(target instanceof Double)) {
+          return false;
+        }
+        compareDoubles(operator, (double[]) values, (Double) target, count, selected);
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean satisfy(FilterSerializeId operator, int compareResult) {
+    switch (operator) {
+      case EQ:
+        return compareResult == 0;
+      case NEQ:
+        return compareResult != 0;
+      case GT:
+        return compareResult > 0;
+      case GTEQ:
+        return compareResult >= 0;
+      case LT:
+        return compareResult < 0;
+      case LTEQ:
+        return compareResult <= 0;
+      default:
+        throw new IllegalArgumentException("Unsupported comparison: " + operator);
+    }
+  }
+
+  private static void compareLongs(
+      FilterSerializeId operator, long[] values, long target, int count, boolean[] selected) {
+    switch (operator) {
+      case GT:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] > target;
+        }
+        break;
+      case GTEQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] >= target;
+        }
+        break;
+      case LT:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] < target;
+        }
+        break;
+      case LTEQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] <= target;
+        }
+        break;
+      case EQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] == target;
+        }
+        break;
+      case NEQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] != target;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported comparison: " + operator);
+    }
+  }
+
+  private static void compareInts(
+      FilterSerializeId operator, int[] values, int target, int count, boolean[] selected) {
+    switch (operator) {
+      case GT:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] > target;
+        }
+        break;
+      case GTEQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] >= target;
+        }
+        break;
+      case LT:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] < target;
+        }
+        break;
+      case LTEQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] <= target;
+        }
+        break;
+      case EQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] == target;
+        }
+        break;
+      case NEQ:
+        for (int i = 0; i < count; i++) {
+          selected[i] &= values[i] != target;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported comparison: " + operator);
+    }
+  }
+
+  // Float and Double comparisons go through compare() to keep the same semantics as
+  // Comparable.compareTo() and equals() used by the filters, e.g. for NaN and -0.0.
+
+  private static void compareFloats(
+      FilterSerializeId operator, float[] values, float target, int count, boolean[] selected) {
+    for (int i = 0; i < count; i++) {
+      selected[i] &= satisfy(operator, Float.compare(values[i], target));
+    }
+  }
+
+  private static void compareDoubles(
+      FilterSerializeId operator, double[] values, double target, int count, boolean[] selected) {
+    for (int i = 0; i < count; i++) {
+      selected[i] &= satisfy(operator, Double.compare(values[i], target));
+    }
+  }
+
+  private static void evaluatePointByPoint(
+      Filter filter,
+      TSDataType dataType,
+      long[] times,
+      Object values,
+      int count,
+      boolean[] selected) {
+    switch (dataType) {
+      case BOOLEAN:
+        boolean[] booleans = (boolean[]) values;
+        for (int i = 0; i < count; i++) {
+          selected[i] = selected[i] && filter.satisfy(times[i], booleans[i]);
+        }
+        break;
+      case INT32:
+        int[] ints = (int[]) values;
+        for (int i = 0; i < count; i++) {
+          selected[i] = selected[i] && filter.satisfy(times[i], ints[i]);
+        }
+        break;
+      case INT64:
+        long[] longs = (long[]) values;
+        for (int i = 0; i < count; i++) {
+          selected[i] = selected[i] && filter.satisfy(times[i], longs[i]);
+        }
+        break;
+      case FLOAT:
+        float[] floats = (float[]) values;
+        for (int i = 0; i < count; i++) {
+          selected[i] = selected[i] && filter.satisfy(times[i], floats[i]);
+        }
+        break;
+      case DOUBLE:
+        double[] doubles = (double[]) values;
+        for (int i = 0; i < count; i++) {
+          selected[i] = selected[i] && filter.satisfy(times[i], doubles[i]);
+        }
+        break;
+      case TEXT:
+        Binary[] binaries = (Binary[]) values;
+        for (int i = 0; i < count; i++) {
+          selected[i] = selected[i] && filter.satisfy(times[i], binaries[i]);
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A TsFileInput of a sealed local file, which is memory-mapped in regions of {@link #REGION_SIZE}
+ * bytes when opened. Positional reads are served from the mapping without system calls, and
+ * {@link #slice(long, int)} returns read-only views of the mapping so that chunks and metadata are
+ * read without copying. Sequential reads still go through the file channel.
+ *
+ * <p>The file must not change after it is opened. The mapping is released explicitly when the
+ * input is closed, after which no slice of it may be accessed, so callers keeping data beyond the
+ * lifetime of the input, e.g. caches, must copy it.
+ */
+public class MappedTsFileInput implements TsFileInput {
+
+  private static final Logger logger = LoggerFactory.getLogger(MappedTsFileInput.class);
+
+  static final int REGION_SIZE = 1 << 30;
+
+  private final FileChannel channel;
+  private final String filePath;
+  private final long size;
+  private final int regionSize;
+  private final MappedByteBuffer[] regions;
+
+  public MappedTsFileInput(Path file) throws IOException {
+    this(file, REGION_SIZE);
+  }
+
+  MappedTsFileInput(Path file, int regionSize) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    filePath = file.toString();
+    this.regionSize = regionSize;
+    try {
+      size = channel.size();
+      regions = new MappedByteBuffer[(int) ((size + regionSize - 1) / regionSize)];
+      for (int i = 0; i < regions.length; i++) {
+        long regionStart = (long) i * regionSize;
+        long regionLength = Math.min(regionSize, size - regionStart);
+        regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionLength);
+      }
+    } catch (IOException e) {
+      logger.error("Error happened while mapping {}", filePath);
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public long position() throws IOException {
+    try {
+      return channel.position();
+    } catch (IOException e) {
+      logger.error("Error happened while getting {} current position", filePath);
+      throw e;
+    }
+  }
+
+  @Override
+  public TsFileInput position(long newPosition) throws IOException {
+    try {
+      channel.position(newPosition);
+      return this;
+    } catch (IOException e) {
+      logger.error("Error happened while changing {} position to {}", filePath, newPosition);
+      throw e;
+    }
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    try {
+      return channel.read(dst);
+    } catch (IOException e) {
+      logger.error("Error happened while reading {} from current position", filePath);
+      throw e;
+    }
+  }
+
+  @Override
+  public int read(ByteBuffer dst, long position) throws IOException {
+    if (position < 0) {
+      throw new IllegalArgumentException("Negative position");
+    }
+    checkOpen();
+    if (position >= size) {
+      return -1;
+    }
+    int length = (int) Math.min(dst.remaining(), size - position);
+    int read = 0;
+    while (read < length) {
+      ByteBuffer region = regions[(int) ((position + read) / regionSize)].duplicate();
+      int offsetInRegion = (int) ((position + read) % regionSize);
+      int toRead = Math.min(length - read, region.capacity() - offsetInRegion);
+      region.position(offsetInRegion);
+      region.limit(offsetInRegion + toRead);
+      dst.put(region);
+      read += toRead;
+    }
+    return read;
+  }
+
+  /**
+   * @return a read-only view of the mapping, or a copy if the range spans two regions
+   * @throws IOException if the range exceeds the file
+   */
+  @Override
+  public ByteBuffer slice(long position, int length) throws IOException {
+    checkOpen();
+    if (position < 0 || position + length > size) {
+      throw new IOException(
+          String.format(
+              "reach the end of the data. Size of data that want to read: %s,"
+                  + "file size: %s, position: %s",
+              length, size, position));
+    }
+    if (length == 0) {
+      return ByteBuffer.allocate(0);
+    }
+    int offsetInRegion = (int) (position % regionSize);
+    if (offsetInRegion + length > regionSize) {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      read(buffer, position);
+      buffer.flip();
+      return buffer;
+    }
+    ByteBuffer region = regions[(int) (position / regionSize)].asReadOnlyBuffer();
+    region.position(offsetInRegion);
+    region.limit(offsetInRegion + length);
+    return region.slice();
+  }
+
+  private void checkOpen() throws IOException {
+    if (!channel.isOpen()) {
+      throw new IOException(String.format("%s has been closed", filePath));
+    }
+  }
+
+  @Override
+  public int read() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public FileChannel wrapAsFileChannel() {
+    return channel;
+  }
+
+  @Override
+  public InputStream wrapAsInputStream() {
+    return Channels.newInputStream(channel);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.error("Error happened while closing {}", filePath);
+      throw e;
+    } finally {
+      unmap();
+    }
+  }
+
+  /** Release the mapping at once rather than waiting for GC to hold less address space and disk. */
+  private void unmap() {
+    for (int i = 0; i < regions.length; i++) {
+      if (regions[i] != null && regions[i].capacity() > 0) {
+        PlatformDependent.freeDirectBuffer(regions[i]);
+      }
+      regions[i] = null;
+    }
+  }
+
+  @Override
+  public int readInt() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String readVarIntString(long offset) throws IOException {
+    ByteBuffer byteBuffer = ByteBuffer.allocate(5);
+    read(byteBuffer, offset);
+    byteBuffer.flip();
+    int strLength = ReadWriteForEncodingUtils.readVarInt(byteBuffer);
+    if (strLength < 0) {
+      return null;
+    } else if (strLength == 0) {
+      return "";
+    }
+    int varIntLength = ReadWriteForEncodingUtils.varIntSize(strLength);
+    byte[] bytes = new byte[strLength];
+    slice(offset + varIntLength, strLength).get(bytes);
+    return new String(bytes, 0, strLength);
+  }
+
+  @Override
+  public String getFilePath() {
+    return filePath;
+  }
+}
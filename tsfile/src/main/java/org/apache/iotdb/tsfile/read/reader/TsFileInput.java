@@ -97,6 +97,20 @@ public interface TsFileInput {
    */
   int read(ByteBuffer dst, long position) throws IOException;
 
+  /**
+   * Returns the given range of this TsFileInput as a buffer which shares the underlying memory of
+   * this input instead of copying it. The returned buffer should be treated as read-only.
+   *
+   * @param position The position at which the range begins; must be non-negative
+   * @param length The length of the range
+   * @return the buffer of the range, or null if this TsFileInput can not expose its content without
+   *     copying, in which case the caller should use {@link #read(ByteBuffer, long)}
+   * @throws IOException If the range exceeds this input or some other I/O error occurs
+   */
+  default ByteBuffer slice(long position, int length) throws IOException {
+    return null;
+  }
+
   /** read a byte from the Input. */
   int read() throws IOException;
 
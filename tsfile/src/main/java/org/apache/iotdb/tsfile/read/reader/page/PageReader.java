@@ -28,8 +28,15 @@ import org.apache.iotdb.tsfile.read.common.BatchDataFactory;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
-import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.BinaryColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+import org.apache.iotdb.tsfile.read.filter.BatchFilterEvaluator;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
 import org.apache.iotdb.tsfile.read.reader.IPageReader;
@@ -38,11 +45,16 @@ import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 public class PageReader implements IPageReader {
 
+  /** initial capacity of the decoded arrays if the point count of this page is unknown */
+  private static final int INITIAL_BATCH_CAPACITY = 32;
+
   private PageHeader pageHeader;
 
   protected TSDataType dataType;
@@ -106,128 +118,59 @@ public class PageReader implements IPageReader {
   }
 
   /** @return the returned BatchData may be empty, but never be null */
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   @Override
   public BatchData getAllSatisfiedPageData(boolean ascending) throws IOException {
     BatchData pageData = BatchDataFactory.createBatchData(dataType, ascending, false);
     if (filter == null || filter.satisfy(getStatistics())) {
-      while (timeDecoder.hasNext(timeBuffer)) {
-        long timestamp = timeDecoder.readLong(timeBuffer);
-        switch (dataType) {
-          case BOOLEAN:
-            boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBoolean))) {
-              pageData.putBoolean(timestamp, aBoolean);
-            }
-            break;
-          case INT32:
-            int anInt = valueDecoder.readInt(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, anInt))) {
-              pageData.putInt(timestamp, anInt);
-            }
-            break;
-          case INT64:
-            long aLong = valueDecoder.readLong(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aLong))) {
-              pageData.putLong(timestamp, aLong);
-            }
-            break;
-          case FLOAT:
-            float aFloat = valueDecoder.readFloat(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aFloat))) {
-              pageData.putFloat(timestamp, aFloat);
-            }
-            break;
-          case DOUBLE:
-            double aDouble = valueDecoder.readDouble(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aDouble))) {
-              pageData.putDouble(timestamp, aDouble);
-            }
-            break;
-          case TEXT:
-            Binary aBinary = valueDecoder.readBinary(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBinary))) {
-              pageData.putBinary(timestamp, aBinary);
-            }
-            break;
-          default:
-            throw new UnSupportedDataTypeException(String.valueOf(dataType));
-        }
-      }
-    }
-    return pageData.flip();
-  }
-
-  @Override
-  public TsBlock getAllSatisfiedData() throws IOException {
-    TsBlockBuilder builder = new TsBlockBuilder(Collections.singletonList(dataType));
-    TimeColumnBuilder timeBuilder = builder.getTimeColumnBuilder();
-    ColumnBuilder valueBuilder = builder.getColumnBuilder(0);
-    if (filter == null || filter.satisfy(getStatistics())) {
+      DecodedPage page = decodeAndSelect();
+      long[] times = page.times;
+      boolean[] selected = page.selected;
       switch (dataType) {
         case BOOLEAN:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBoolean))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeBoolean(aBoolean);
-              builder.declarePosition();
+          boolean[] booleans = (boolean[]) page.values;
+          for (int i = 0; i < page.count; i++) {
+            if (selected[i]) {
+              pageData.putBoolean(times[i], booleans[i]);
             }
           }
           break;
         case INT32:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            int anInt = valueDecoder.readInt(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, anInt))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeInt(anInt);
-              builder.declarePosition();
+          int[] ints = (int[]) page.values;
+          for (int i = 0; i < page.count; i++) {
+            if (selected[i]) {
+              pageData.putInt(times[i], ints[i]);
             }
           }
           break;
         case INT64:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            long aLong = valueDecoder.readLong(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aLong))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeLong(aLong);
-              builder.declarePosition();
+          long[] longs = (long[]) page.values;
+          for (int i = 0; i < page.count; i++) {
+            if (selected[i]) {
+              pageData.putLong(times[i], longs[i]);
             }
           }
           break;
         case FLOAT:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            float aFloat = valueDecoder.readFloat(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aFloat))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeFloat(aFloat);
-              builder.declarePosition();
+          float[] floats = (float[]) page.values;
+          for (int i = 0; i < page.count; i++) {
+            if (selected[i]) {
+              pageData.putFloat(times[i], floats[i]);
             }
           }
           break;
         case DOUBLE:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            double aDouble = valueDecoder.readDouble(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aDouble))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeDouble(aDouble);
-              builder.declarePosition();
+          double[] doubles = (double[]) page.values;
+          for (int i = 0; i < page.count; i++) {
+            if (selected[i]) {
+              pageData.putDouble(times[i], doubles[i]);
             }
           }
           break;
         case TEXT:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            Binary aBinary = valueDecoder.readBinary(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBinary))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeBinary(aBinary);
-              builder.declarePosition();
+          Binary[] binaries = (Binary[]) page.values;
+          for (int i = 0; i < page.count; i++) {
+            if (selected[i]) {
+              pageData.putBinary(times[i], binaries[i]);
             }
           }
           break;
@@ -235,7 +178,229 @@ public class PageReader implements IPageReader {
           throw new UnSupportedDataTypeException(String.valueOf(dataType));
       }
     }
-    return builder.build();
+    return pageData.flip();
+  }
+
+  @Override
+  public TsBlock getAllSatisfiedData() throws IOException {
+    if (filter != null && !filter.satisfy(getStatistics())) {
+      return new TsBlockBuilder(0, Collections.singletonList(dataType)).build();
+    }
+    DecodedPage page = decodeAndSelect();
+    // compact the selected points to the head of the arrays, so that columns can be built on
+    // them directly without copying point by point through column builders
+    long[] times = page.times;
+    boolean[] selected = page.selected;
+    int positionCount = 0;
+    Column valueColumn;
+    switch (dataType) {
+      case BOOLEAN:
+        boolean[] booleans = (boolean[]) page.values;
+        for (int i = 0; i < page.count; i++) {
+          if (selected[i]) {
+            times[positionCount] = times[i];
+            booleans[positionCount++] = booleans[i];
+          }
+        }
+        valueColumn =
+            new BooleanColumn(
+                positionCount, Optional.empty(), trim(booleans, positionCount, page.count));
+        break;
+      case INT32:
+        int[] ints = (int[]) page.values;
+        for (int i = 0; i < page.count; i++) {
+          if (selected[i]) {
+            times[positionCount] = times[i];
+            ints[positionCount++] = ints[i];
+          }
+        }
+        valueColumn =
+            new IntColumn(positionCount, Optional.empty(), trim(ints, positionCount, page.count));
+        break;
+      case INT64:
+        long[] longs = (long[]) page.values;
+        for (int i = 0; i < page.count; i++) {
+          if (selected[i]) {
+            times[positionCount] = times[i];
+            longs[positionCount++] = longs[i];
+          }
+        }
+        valueColumn =
+            new LongColumn(positionCount, Optional.empty(), trim(longs, positionCount, page.count));
+        break;
+      case FLOAT:
+        float[] floats = (float[]) page.values;
+        for (int i = 0; i < page.count; i++) {
+          if (selected[i]) {
+            times[positionCount] = times[i];
+            floats[positionCount++] = floats[i];
+          }
+        }
+        valueColumn =
+            new FloatColumn(
+                positionCount, Optional.empty(), trim(floats, positionCount, page.count));
+        break;
+      case DOUBLE:
+        double[] doubles = (double[]) page.values;
+        for (int i = 0; i < page.count; i++) {
+          if (selected[i]) {
+            times[positionCount] = times[i];
+            doubles[positionCount++] = doubles[i];
+          }
+        }
+        valueColumn =
+            new DoubleColumn(
+                positionCount, Optional.empty(), trim(doubles, positionCount, page.count));
+        break;
+      case TEXT:
+        Binary[] binaries = (Binary[]) page.values;
+        for (int i = 0; i < page.count; i++) {
+          if (selected[i]) {
+            times[positionCount] = times[i];
+            binaries[positionCount++] = binaries[i];
+          }
+        }
+        valueColumn =
+            new BinaryColumn(
+                positionCount, Optional.empty(), trim(binaries, positionCount, page.count));
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+    return new TsBlock(
+        positionCount,
+        new TimeColumn(positionCount, trim(times, positionCount, times.length)),
+        valueColumn);
+  }
+
+  /**
+   * Decode all the points of this page into primitive arrays, then mark the points that are not
+   * deleted and satisfy the filter in a selection bitmap.
+   */
+  private DecodedPage decodeAndSelect() throws IOException {
+    DecodedPage page = new DecodedPage();
+
+    int capacity = INITIAL_BATCH_CAPACITY;
+    if (pageHeader != null && pageHeader.getStatistics() != null) {
+      capacity = Math.max(1, (int) pageHeader.getStatistics().getCount());
+    }
+    long[] times = new long[capacity];
+    int count = 0;
+    while (timeDecoder.hasNext(timeBuffer)) {
+      if (count == times.length) {
+        times = Arrays.copyOf(times, times.length << 1);
+      }
+      times[count++] = timeDecoder.readLong(timeBuffer);
+    }
+    page.times = times;
+    page.count = count;
+
+    switch (dataType) {
+      case BOOLEAN:
+        boolean[] booleans = new boolean[count];
+        for (int i = 0; i < count; i++) {
+          booleans[i] = valueDecoder.readBoolean(valueBuffer);
+        }
+        page.values = booleans;
+        break;
+      case INT32:
+        int[] ints = new int[count];
+        for (int i = 0; i < count; i++) {
+          ints[i] = valueDecoder.readInt(valueBuffer);
+        }
+        page.values = ints;
+        break;
+      case INT64:
+        long[] longs = new long[count];
+        for (int i = 0; i < count; i++) {
+          longs[i] = valueDecoder.readLong(valueBuffer);
+        }
+        page.values = longs;
+        break;
+      case FLOAT:
+        float[] floats = new float[count];
+        for (int i = 0; i < count; i++) {
+          floats[i] = valueDecoder.readFloat(valueBuffer);
+        }
+        page.values = floats;
+        break;
+      case DOUBLE:
+        double[] doubles = new double[count];
+        for (int i = 0; i < count; i++) {
+          doubles[i] = valueDecoder.readDouble(valueBuffer);
+        }
+        page.values = doubles;
+        break;
+      case TEXT:
+        Binary[] binaries = new Binary[count];
+        for (int i = 0; i < count; i++) {
+          binaries[i] = valueDecoder.readBinary(valueBuffer);
+        }
+        page.values = binaries;
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+
+    boolean[] selected = new boolean[count];
+    Arrays.fill(selected, true);
+    markDeleted(times, count, selected);
+    BatchFilterEvaluator.evaluate(filter, dataType, times, page.values, count, selected);
+    page.selected = selected;
+    return page;
+  }
+
+  /** Unselect the deleted points, times should be in ascending order. */
+  private void markDeleted(long[] times, int count, boolean[] selected) {
+    if (deleteIntervalList == null) {
+      return;
+    }
+    int i = 0;
+    while (i < count && deleteCursor < deleteIntervalList.size()) {
+      TimeRange range = deleteIntervalList.get(deleteCursor);
+      if (range.contains(times[i])) {
+        selected[i++] = false;
+      } else if (range.getMax() < times[i]) {
+        deleteCursor++;
+      } else {
+        i++;
+      }
+    }
+  }
+
+  private static long[] trim(long[] array, int length, int capacity) {
+    return length < (capacity >>> 1) ? Arrays.copyOf(array, length) : array;
+  }
+
+  private static int[] trim(int[] array, int length, int capacity) {
+    return length < (capacity >>> 1) ? Arrays.copyOf(array, length) : array;
+  }
+
+  private static boolean[] trim(boolean[] array, int length, int capacity) {
+    return length < (capacity >>> 1) ? Arrays.copyOf(array, length) : array;
+  }
+
+  private static float[] trim(float[] array, int length, int capacity) {
+    return length < (capacity >>> 1) ? Arrays.copyOf(array, length) : array;
+  }
+
+  private static double[] trim(double[] array, int length, int capacity) {
+    return length < (capacity >>> 1) ? Arrays.copyOf(array, length) : array;
+  }
+
+  private static Binary[] trim(Binary[] array, int length, int capacity) {
+    return length < (capacity >>> 1) ? Arrays.copyOf(array, length) : array;
+  }
+
+  /** Points of a page decoded into primitive arrays. */
+  private static class DecodedPage {
+    private long[] times;
+    /** boolean[], int[], long[], float[], double[] or Binary[] according to the data type */
+    private Object values;
+    /** whether each point is not deleted and satisfies the filter */
+    private boolean[] selected;
+
+    private int count;
   }
 
   @Override
@@ -353,8 +353,9 @@ public class ChunkWriterImpl implements IChunkWriter {
   }
 
   /**
-   * write the page header and data into the PageWriter's output stream. @NOTE: for upgrading
-   * 0.11/v2 to 0.12/v3 TsFile
+   * write the page header and data into the PageWriter's output stream. Used for upgrading 0.11/v2
+   * to 0.12/v3 TsFile, and by compaction to append a compressed page without decoding it. The
+   * current page should be sealed before calling this method.
    */
   public void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header)
       throws PageException {
@@ -365,7 +366,7 @@ public class ChunkWriterImpl implements IChunkWriter {
       // serialize pageHeader  see writePageToPageBuffer method
       if (numOfPages == 0) { // record the firstPageStatistics
         this.firstPageStatistics = header.getStatistics();
-        this.sizeWithoutStatistic +=
+        this.sizeWithoutStatistic =
             ReadWriteForEncodingUtils.writeUnsignedVarInt(header.getUncompressedSize(), pageBuffer);
         this.sizeWithoutStatistic +=
             ReadWriteForEncodingUtils.writeUnsignedVarInt(header.getCompressedSize(), pageBuffer);
@@ -66,8 +66,18 @@ public class LocalTsFileOutput extends OutputStream implements TsFileOutput {
 
   @Override
   public synchronized void write(ByteBuffer b) throws IOException {
-    bufferedStream.write(b.array());
-    position += b.array().length;
+    if (b.hasArray()) {
+      bufferedStream.write(b.array());
+      position += b.array().length;
+      return;
+    }
+    // e.g. a chunk read from a memory-mapped file, write its whole content like the array above
+    ByteBuffer source = b.duplicate();
+    source.clear();
+    byte[] bytes = new byte[source.remaining()];
+    source.get(bytes);
+    bufferedStream.write(bytes);
+    position += bytes.length;
   }
 
   @Override
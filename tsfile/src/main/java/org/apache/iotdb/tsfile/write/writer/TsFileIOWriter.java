@@ -37,6 +37,7 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.BloomFilter;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -44,15 +45,27 @@ import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.TreeMap;
 
 /**
@@ -66,6 +79,15 @@ public class TsFileIOWriter implements AutoCloseable {
   private static final Logger logger = LoggerFactory.getLogger(TsFileIOWriter.class);
   private static final Logger resourceLogger = LoggerFactory.getLogger("FileMonitor");
 
+  /** suffix of the temp file that holds the spilled chunk metadata of a tsfile being written */
+  public static final String CHUNK_METADATA_TEMP_FILE_SUFFIX = ".meta";
+
+  private static final int SORTED_RUN_READ_BUFFER_SIZE = 16 * 1024;
+
+  // spilled series are sorted by device first, so that the series of a device are contiguous
+  private static final Comparator<Path> SERIES_COMPARATOR =
+      Comparator.comparing(Path::getDevice).thenComparing(Path::getMeasurement);
+
   static {
     MAGIC_STRING_BYTES = BytesUtils.stringToBytes(TSFileConfig.MAGIC_STRING);
     VERSION_NUMBER_BYTE = TSFileConfig.VERSION_NUMBER;
@@ -93,6 +115,17 @@ public class TsFileIOWriter implements AutoCloseable {
   private long minPlanIndex;
   private long maxPlanIndex;
 
+  // whether to spill the chunk metadata to a temp file when it takes too much memory
+  private boolean enableMemoryControl = false;
+  private long maxMetadataSize;
+  // estimated ram size of the chunk metadata held by chunkGroupMetadataList and chunkMetadataList
+  private long currentChunkMetadataSize = 0;
+  private boolean hasSpilledCurrentChunkGroup = false;
+  private File chunkMetadataTempFile;
+  private FileChannel chunkMetadataTempChannel;
+  // [start offset, end offset) of each sorted run in the temp file
+  private final List<long[]> sortedRunRanges = new ArrayList<>();
+
   /** empty construct function. */
   protected TsFileIOWriter() {}
 
@@ -111,6 +144,26 @@ public class TsFileIOWriter implements AutoCloseable {
     startFile();
   }
 
+  /**
+   * for writing a new tsfile with bounded memory for chunk metadata. Once the estimated size of the
+   * chunk metadata in memory exceeds maxMetadataSize, it is sorted by series and spilled to a temp
+   * file beside the tsfile, and the metadata index is built from the temp file in {@link
+   * #endFile()}. The spilled chunk metadata is no longer visible to {@link
+   * #getDeviceChunkMetadataMap()} and {@link #filterChunks(Map)}, so this is only used by writers
+   * that do not serve queries before the tsfile is sealed, e.g., compaction.
+   *
+   * @param file be used to output written data
+   * @param enableMemoryControl whether to spill the chunk metadata
+   * @param maxMetadataSize max estimated size in byte of the chunk metadata held in memory
+   * @throws IOException if I/O error occurs
+   */
+  public TsFileIOWriter(File file, boolean enableMemoryControl, long maxMetadataSize)
+      throws IOException {
+    this(file);
+    this.enableMemoryControl = enableMemoryControl;
+    this.maxMetadataSize = maxMetadataSize;
+  }
+
   /**
    * for writing a new tsfile.
    *
@@ -144,6 +197,7 @@ public class TsFileIOWriter implements AutoCloseable {
 
   public int startChunkGroup(String deviceId) throws IOException {
     this.currentChunkGroupDeviceId = deviceId;
+    this.hasSpilledCurrentChunkGroup = false;
     if (logger.isDebugEnabled()) {
       logger.debug("start chunk group:{}, file position {}", deviceId, out.getPosition());
     }
@@ -156,14 +210,19 @@ public class TsFileIOWriter implements AutoCloseable {
    * end chunk and write some log. If there is no data in the chunk group, nothing will be flushed.
    */
   public void endChunkGroup() throws IOException {
-    if (currentChunkGroupDeviceId == null || chunkMetadataList.isEmpty()) {
+    if (currentChunkGroupDeviceId == null
+        || (chunkMetadataList.isEmpty() && !hasSpilledCurrentChunkGroup)) {
       return;
     }
-    chunkGroupMetadataList.add(
-        new ChunkGroupMetadata(currentChunkGroupDeviceId, chunkMetadataList));
+    if (!chunkMetadataList.isEmpty()) {
+      chunkGroupMetadataList.add(
+          new ChunkGroupMetadata(currentChunkGroupDeviceId, chunkMetadataList));
+    }
     currentChunkGroupDeviceId = null;
     chunkMetadataList = null;
+    hasSpilledCurrentChunkGroup = false;
     out.flush();
+    checkMetadataSizeAndMayFlush();
   }
 
   /**
@@ -197,6 +256,7 @@ public class TsFileIOWriter implements AutoCloseable {
       int numOfPages,
       int mask)
       throws IOException {
+    checkMetadataSizeAndMayFlush();
 
     currentChunkMetadata =
         new ChunkMetadata(measurementId, tsDataType, out.getPosition(), statistics);
@@ -216,6 +276,7 @@ public class TsFileIOWriter implements AutoCloseable {
 
   /** Write a whole chunk in another file into this file. Providing fast merge for IoTDB. */
   public void writeChunk(Chunk chunk, ChunkMetadata chunkMetadata) throws IOException {
+    checkMetadataSizeAndMayFlush();
     ChunkHeader chunkHeader = chunk.getHeader();
     currentChunkMetadata =
         new ChunkMetadata(
@@ -236,6 +297,9 @@ public class TsFileIOWriter implements AutoCloseable {
 
   /** end chunk and write some log. */
   public void endCurrentChunk() {
+    if (enableMemoryControl) {
+      currentChunkMetadataSize += currentChunkMetadata.calculateRamSize();
+    }
     chunkMetadataList.add(currentChunkMetadata);
     currentChunkMetadata = null;
   }
@@ -252,18 +316,27 @@ public class TsFileIOWriter implements AutoCloseable {
     // serialize the SEPARATOR of MetaData
     ReadWriteIOUtils.write(MetaMarker.SEPARATOR, out.wrapAsStream());
 
-    // group ChunkMetadata by series
-    Map<Path, List<IChunkMetadata>> chunkMetadataListMap = new TreeMap<>();
-
-    for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
-      List<ChunkMetadata> chunkMetadatas = chunkGroupMetadata.getChunkMetadataList();
-      for (IChunkMetadata chunkMetadata : chunkMetadatas) {
-        Path series = new Path(chunkGroupMetadata.getDevice(), chunkMetadata.getMeasurementUid());
-        chunkMetadataListMap.computeIfAbsent(series, k -> new ArrayList<>()).add(chunkMetadata);
+    Map<Path, List<IChunkMetadata>> chunkMetadataListMap = null;
+    MetadataIndexNode metadataIndex;
+    if (sortedRunRanges.isEmpty()) {
+      // group ChunkMetadata by series
+      chunkMetadataListMap = new TreeMap<>();
+
+      for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+        List<ChunkMetadata> chunkMetadatas = chunkGroupMetadata.getChunkMetadataList();
+        for (IChunkMetadata chunkMetadata : chunkMetadatas) {
+          Path series =
+              new Path(chunkGroupMetadata.getDevice(), chunkMetadata.getMeasurementUid());
+          chunkMetadataListMap.computeIfAbsent(series, k -> new ArrayList<>()).add(chunkMetadata);
+        }
       }
-    }
 
-    MetadataIndexNode metadataIndex = flushMetadataIndex(chunkMetadataListMap);
+      metadataIndex = flushMetadataIndex(chunkMetadataListMap);
+    } else {
+      // the chunk metadata has been partly spilled, spill the rest and build from the sorted runs
+      spillChunkMetadata();
+      metadataIndex = flushMetadataIndexFromSortedRuns();
+    }
     TsFileMetadata tsFileMetaData = new TsFileMetadata();
     tsFileMetaData.setMetadataIndex(metadataIndex);
     tsFileMetaData.setMetaOffset(metaOffset);
@@ -280,7 +353,13 @@ public class TsFileIOWriter implements AutoCloseable {
     }
 
     // write bloom filter
-    size += tsFileMetaData.serializeBloomFilter(out.wrapAsStream(), chunkMetadataListMap.keySet());
+    if (chunkMetadataListMap != null) {
+      size +=
+          tsFileMetaData.serializeBloomFilter(out.wrapAsStream(), chunkMetadataListMap.keySet());
+    } else {
+      size +=
+          tsFileMetaData.serializeBloomFilter(out.wrapAsStream(), buildBloomFilterFromSortedRuns());
+    }
     if (logger.isDebugEnabled()) {
       logger.debug("finish flushing the bloom filter file pos:{}", out.getPosition());
     }
@@ -293,6 +372,7 @@ public class TsFileIOWriter implements AutoCloseable {
 
     // close file
     out.close();
+    deleteChunkMetadataTempFile();
     if (resourceLogger.isDebugEnabled() && file != null) {
       resourceLogger.debug("{} writer is closed.", file.getName());
     }
@@ -328,6 +408,17 @@ public class TsFileIOWriter implements AutoCloseable {
    */
   private void flushOneChunkMetadata(Path path, List<IChunkMetadata> chunkMetadataList)
       throws IOException {
+    deviceTimeseriesMetadataMap
+        .computeIfAbsent(path.getDevice(), k -> new ArrayList<>())
+        .add(constructOneTimeseriesMetadata(path.getMeasurement(), chunkMetadataList));
+  }
+
+  /**
+   * Construct the TimeseriesMetadata of one series, with its chunk metadata list serialized in the
+   * buffer
+   */
+  private TimeseriesMetadata constructOneTimeseriesMetadata(
+      String measurement, List<IChunkMetadata> chunkMetadataList) throws IOException {
     // create TimeseriesMetaData
     PublicBAOS publicBAOS = new PublicBAOS();
     TSDataType dataType = chunkMetadataList.get(chunkMetadataList.size() - 1).getDataType();
@@ -344,18 +435,169 @@ public class TsFileIOWriter implements AutoCloseable {
       seriesStatistics.mergeStatistics(chunkMetadata.getStatistics());
     }
 
-    TimeseriesMetadata timeseriesMetadata =
-        new TimeseriesMetadata(
-            (byte)
-                ((serializeStatistic ? (byte) 1 : (byte) 0) | chunkMetadataList.get(0).getMask()),
-            chunkMetadataListLength,
-            path.getMeasurement(),
-            dataType,
-            seriesStatistics,
-            publicBAOS);
-    deviceTimeseriesMetadataMap
-        .computeIfAbsent(path.getDevice(), k -> new ArrayList<>())
-        .add(timeseriesMetadata);
+    return new TimeseriesMetadata(
+        (byte) ((serializeStatistic ? (byte) 1 : (byte) 0) | chunkMetadataList.get(0).getMask()),
+        chunkMetadataListLength,
+        measurement,
+        dataType,
+        seriesStatistics,
+        publicBAOS);
+  }
+
+  /** Spill the chunk metadata in memory as a sorted run if it exceeds the threshold. */
+  private void checkMetadataSizeAndMayFlush() throws IOException {
+    if (enableMemoryControl && currentChunkMetadataSize > maxMetadataSize) {
+      spillChunkMetadata();
+    }
+  }
+
+  /**
+   * Sort the chunk metadata in memory by series and append it to the temp file as a sorted run.
+   * Each series is written as: full path, device, measurement, chunk num, and the data type, mask,
+   * offset and statistics of each chunk.
+   */
+  private void spillChunkMetadata() throws IOException {
+    Map<Path, List<ChunkMetadata>> chunkMetadataListMap = new TreeMap<>(SERIES_COMPARATOR);
+    for (ChunkGroupMetadata chunkGroupMetadata : chunkGroupMetadataList) {
+      for (ChunkMetadata chunkMetadata : chunkGroupMetadata.getChunkMetadataList()) {
+        Path series = new Path(chunkGroupMetadata.getDevice(), chunkMetadata.getMeasurementUid());
+        chunkMetadataListMap.computeIfAbsent(series, k -> new ArrayList<>()).add(chunkMetadata);
+      }
+    }
+    if (currentChunkGroupDeviceId != null && chunkMetadataList != null) {
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        Path series = new Path(currentChunkGroupDeviceId, chunkMetadata.getMeasurementUid());
+        chunkMetadataListMap.computeIfAbsent(series, k -> new ArrayList<>()).add(chunkMetadata);
+      }
+      hasSpilledCurrentChunkGroup |= !chunkMetadataList.isEmpty();
+      chunkMetadataList = new ArrayList<>();
+    }
+    chunkGroupMetadataList = new ArrayList<>();
+    currentChunkMetadataSize = 0;
+    if (chunkMetadataListMap.isEmpty()) {
+      return;
+    }
+
+    if (chunkMetadataTempChannel == null) {
+      chunkMetadataTempFile = new File(file.getPath() + CHUNK_METADATA_TEMP_FILE_SUFFIX);
+      chunkMetadataTempChannel =
+          FileChannel.open(
+              chunkMetadataTempFile.toPath(),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+    }
+    long startOffset = chunkMetadataTempChannel.position();
+    // positional reads of the sorted runs do not change the position of the channel
+    OutputStream outputStream =
+        new BufferedOutputStream(Channels.newOutputStream(chunkMetadataTempChannel));
+    for (Map.Entry<Path, List<ChunkMetadata>> entry : chunkMetadataListMap.entrySet()) {
+      Path series = entry.getKey();
+      ReadWriteIOUtils.writeVar(series.getFullPath(), outputStream);
+      ReadWriteIOUtils.writeVar(series.getDevice(), outputStream);
+      ReadWriteIOUtils.writeVar(series.getMeasurement(), outputStream);
+      ReadWriteIOUtils.write(entry.getValue().size(), outputStream);
+      for (ChunkMetadata chunkMetadata : entry.getValue()) {
+        ReadWriteIOUtils.write(chunkMetadata.getDataType(), outputStream);
+        ReadWriteIOUtils.write(chunkMetadata.getMask(), outputStream);
+        ReadWriteIOUtils.write(chunkMetadata.getOffsetOfChunkHeader(), outputStream);
+        chunkMetadata.getStatistics().serialize(outputStream);
+      }
+    }
+    outputStream.flush();
+    sortedRunRanges.add(new long[] {startOffset, chunkMetadataTempChannel.position()});
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "spill chunk metadata of {} series to {}, sorted run num {}",
+          chunkMetadataListMap.size(),
+          chunkMetadataTempFile,
+          sortedRunRanges.size());
+    }
+  }
+
+  /**
+   * Merge the sorted runs and flush the TimeseriesMetadata and the metadata index one device by one
+   * device, so that only the chunk metadata of one series is held in memory. Only the statistics of
+   * each series is kept in deviceTimeseriesMetadataMap.
+   */
+  private MetadataIndexNode flushMetadataIndexFromSortedRuns() throws IOException {
+    deviceTimeseriesMetadataMap = new LinkedHashMap<>();
+    Map<String, MetadataIndexNode> deviceMetadataIndexMap = new TreeMap<>();
+    SortedRunsIterator iterator = new SortedRunsIterator();
+    try {
+      while (iterator.hasNext()) {
+        flushOneDeviceFromSortedRuns(iterator, deviceMetadataIndexMap);
+      }
+    } catch (SpilledChunkMetadataReadException e) {
+      throw (IOException) e.getCause();
+    }
+    return MetadataIndexConstructor.constructDeviceIndex(deviceMetadataIndexMap, out);
+  }
+
+  private void flushOneDeviceFromSortedRuns(
+      SortedRunsIterator iterator, Map<String, MetadataIndexNode> deviceMetadataIndexMap)
+      throws IOException {
+    String device = iterator.peek().device;
+    List<TimeseriesMetadata> statisticsList = new ArrayList<>();
+    Iterator<TimeseriesMetadata> deviceIterator =
+        new Iterator<TimeseriesMetadata>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext() && iterator.peek().device.equals(device);
+          }
+
+          @Override
+          public TimeseriesMetadata next() {
+            SpilledSeries series = iterator.next();
+            TimeseriesMetadata timeseriesMetadata;
+            try {
+              timeseriesMetadata =
+                  constructOneTimeseriesMetadata(series.measurement, series.chunkMetadataList);
+            } catch (IOException e) {
+              throw new SpilledChunkMetadataReadException(e);
+            }
+            statisticsList.add(
+                new TimeseriesMetadata(
+                    timeseriesMetadata.getTimeSeriesMetadataType(),
+                    timeseriesMetadata.getDataSizeOfChunkMetaDataList(),
+                    timeseriesMetadata.getMeasurementId(),
+                    timeseriesMetadata.getTSDataType(),
+                    timeseriesMetadata.getStatistics(),
+                    null));
+            return timeseriesMetadata;
+          }
+        };
+    deviceMetadataIndexMap.put(
+        device, MetadataIndexConstructor.constructMeasurementIndex(deviceIterator, out));
+    deviceTimeseriesMetadataMap.put(device, statisticsList);
+  }
+
+  /** Merge the sorted runs again to build the bloom filter of all the series. */
+  private BloomFilter buildBloomFilterFromSortedRuns() throws IOException {
+    int seriesNum = 0;
+    for (List<TimeseriesMetadata> timeseriesMetadataList : deviceTimeseriesMetadataMap.values()) {
+      seriesNum += timeseriesMetadataList.size();
+    }
+    BloomFilter filter =
+        BloomFilter.getEmptyBloomFilter(config.getBloomFilterErrorRate(), seriesNum);
+    SortedRunsIterator iterator = new SortedRunsIterator();
+    try {
+      while (iterator.hasNext()) {
+        filter.add(iterator.next().fullPath);
+      }
+    } catch (SpilledChunkMetadataReadException e) {
+      throw (IOException) e.getCause();
+    }
+    return filter;
+  }
+
+  private void deleteChunkMetadataTempFile() throws IOException {
+    if (chunkMetadataTempChannel != null) {
+      chunkMetadataTempChannel.close();
+      chunkMetadataTempChannel = null;
+      Files.deleteIfExists(chunkMetadataTempFile.toPath());
+    }
   }
 
   /**
@@ -399,6 +641,7 @@ public class TsFileIOWriter implements AutoCloseable {
   public void close() throws IOException {
     canWrite = false;
     out.close();
+    deleteChunkMetadataTempFile();
   }
 
   void writeSeparatorMaskForTest() throws IOException {
@@ -495,4 +738,212 @@ public class TsFileIOWriter implements AutoCloseable {
   public void setMaxPlanIndex(long maxPlanIndex) {
     this.maxPlanIndex = maxPlanIndex;
   }
+
+  /** The chunk metadata of one series read from the sorted runs. */
+  private static class SpilledSeries {
+    private final String fullPath;
+    private final String device;
+    private final String measurement;
+    private final List<IChunkMetadata> chunkMetadataList;
+
+    private SpilledSeries(
+        String fullPath,
+        String device,
+        String measurement,
+        List<IChunkMetadata> chunkMetadataList) {
+      this.fullPath = fullPath;
+      this.device = device;
+      this.measurement = measurement;
+      this.chunkMetadataList = chunkMetadataList;
+    }
+
+    private int compareTo(SpilledSeries other) {
+      int result = device.compareTo(other.device);
+      return result != 0 ? result : measurement.compareTo(other.measurement);
+    }
+  }
+
+  /**
+   * K-way merge of the sorted runs, which returns the series in the order of device and
+   * measurement. The chunk metadata of a series spilled in different runs is concatenated in the
+   * order of the runs, which is the order that the chunks are written.
+   */
+  private class SortedRunsIterator implements Iterator<SpilledSeries> {
+
+    private final PriorityQueue<SortedRunReader> readers =
+        new PriorityQueue<>(
+            (a, b) -> {
+              int result = a.current.compareTo(b.current);
+              return result != 0 ? result : Integer.compare(a.runIndex, b.runIndex);
+            });
+
+    private SpilledSeries nextSeries;
+
+    private SortedRunsIterator() throws IOException {
+      for (int i = 0; i < sortedRunRanges.size(); i++) {
+        long[] range = sortedRunRanges.get(i);
+        SortedRunReader reader =
+            new SortedRunReader(
+                i, new SortedRunInputStream(chunkMetadataTempChannel, range[0], range[1]));
+        if (reader.advance()) {
+          readers.add(reader);
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextSeries != null) {
+        return true;
+      }
+      if (readers.isEmpty()) {
+        return false;
+      }
+      try {
+        SortedRunReader reader = readers.poll();
+        nextSeries = reader.current;
+        if (reader.advance()) {
+          readers.add(reader);
+        }
+        while (!readers.isEmpty() && readers.peek().current.compareTo(nextSeries) == 0) {
+          reader = readers.poll();
+          nextSeries.chunkMetadataList.addAll(reader.current.chunkMetadataList);
+          if (reader.advance()) {
+            readers.add(reader);
+          }
+        }
+      } catch (IOException e) {
+        throw new SpilledChunkMetadataReadException(e);
+      }
+      return true;
+    }
+
+    private SpilledSeries peek() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return nextSeries;
+    }
+
+    @Override
+    public SpilledSeries next() {
+      SpilledSeries series = peek();
+      nextSeries = null;
+      return series;
+    }
+  }
+
+  /** Reads the series of one sorted run one by one. */
+  private static class SortedRunReader {
+
+    private final int runIndex;
+    private final SortedRunInputStream inputStream;
+    private SpilledSeries current;
+
+    private SortedRunReader(int runIndex, SortedRunInputStream inputStream) {
+      this.runIndex = runIndex;
+      this.inputStream = inputStream;
+    }
+
+    /** @return false if the run is exhausted */
+    private boolean advance() throws IOException {
+      if (!inputStream.hasRemaining()) {
+        current = null;
+        return false;
+      }
+      String fullPath = ReadWriteIOUtils.readVarIntString(inputStream);
+      String device = ReadWriteIOUtils.readVarIntString(inputStream);
+      String measurement = ReadWriteIOUtils.readVarIntString(inputStream);
+      int chunkNum = ReadWriteIOUtils.readInt(inputStream);
+      List<IChunkMetadata> chunkMetadataList = new ArrayList<>(chunkNum);
+      for (int i = 0; i < chunkNum; i++) {
+        TSDataType dataType = ReadWriteIOUtils.readDataType(inputStream);
+        byte mask = ReadWriteIOUtils.readByte(inputStream);
+        long offset = ReadWriteIOUtils.readLong(inputStream);
+        ChunkMetadata chunkMetadata =
+            new ChunkMetadata(
+                measurement, dataType, offset, Statistics.deserialize(inputStream, dataType));
+        chunkMetadata.setMask(mask);
+        chunkMetadataList.add(chunkMetadata);
+      }
+      current = new SpilledSeries(fullPath, device, measurement, chunkMetadataList);
+      return true;
+    }
+  }
+
+  /**
+   * Buffered input stream over a range of the temp file. It uses positional reads so that the runs
+   * can be read by one channel at the same time, and always fills the whole array in {@link
+   * #read(byte[], int, int)} unless the range is exhausted.
+   */
+  private static class SortedRunInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long endOffset;
+    private long position;
+    private final ByteBuffer buffer;
+
+    private SortedRunInputStream(FileChannel channel, long startOffset, long endOffset) {
+      this.channel = channel;
+      this.position = startOffset;
+      this.endOffset = endOffset;
+      this.buffer =
+          ByteBuffer.allocate(
+              (int) Math.max(1, Math.min(SORTED_RUN_READ_BUFFER_SIZE, endOffset - startOffset)));
+      this.buffer.limit(0);
+    }
+
+    private boolean hasRemaining() {
+      return buffer.hasRemaining() || position < endOffset;
+    }
+
+    private boolean fill() throws IOException {
+      if (position >= endOffset) {
+        return false;
+      }
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), endOffset - position));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, position + buffer.position()) < 0) {
+          throw new EOFException("Unexpected end of chunk metadata temp file");
+        }
+      }
+      buffer.flip();
+      position += buffer.limit();
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!buffer.hasRemaining() && !fill()) {
+        return -1;
+      }
+      return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      int readLen = 0;
+      while (readLen < len) {
+        if (!buffer.hasRemaining() && !fill()) {
+          break;
+        }
+        int length = Math.min(len - readLen, buffer.remaining());
+        buffer.get(b, off + readLen, length);
+        readLen += length;
+      }
+      return readLen == 0 ? -1 : readLen;
+    }
+  }
+
+  /** Wraps the IOException thrown when iterating the sorted runs. */
+  private static class SpilledChunkMetadataReadException extends RuntimeException {
+
+    private SpilledChunkMetadataReadException(IOException cause) {
+      super(cause);
+    }
+  }
 }
@@ -71,6 +71,9 @@ public class TsBlockSerdeTest {
     try {
       ByteBuffer output = tsBlockSerde.serialize(tsBlockBuilder.build());
       output.rewind();
+      // uncompressed flag and body length
+      Assert.assertEquals(0, output.get());
+      Assert.assertEquals(output.remaining() - Integer.BYTES, output.getInt());
       int valueColumnCount = output.getInt();
       Assert.assertEquals(6, valueColumnCount);
       Assert.assertEquals(TSDataType.INT32, TSDataType.deserialize(output.get()));
@@ -109,4 +112,45 @@ public class TsBlockSerdeTest {
       Assert.fail();
     }
   }
+
+  @Test
+  public void testSerializeAndDeserializeWithCompression() throws IOException {
+    final int positionCount = 1000;
+
+    List<TSDataType> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.INT64);
+    dataTypes.add(TSDataType.DOUBLE);
+    TsBlockBuilder tsBlockBuilder = new TsBlockBuilder(dataTypes);
+    ColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    ColumnBuilder longColumnBuilder = tsBlockBuilder.getColumnBuilder(0);
+    ColumnBuilder doubleColumnBuilder = tsBlockBuilder.getColumnBuilder(1);
+    for (int i = 0; i < positionCount; i++) {
+      timeColumnBuilder.writeLong(i);
+      longColumnBuilder.writeLong(i % 10);
+      if (i % 3 == 0) {
+        doubleColumnBuilder.appendNull();
+      } else {
+        doubleColumnBuilder.writeDouble(i % 7);
+      }
+      tsBlockBuilder.declarePosition();
+    }
+
+    TsBlockSerde tsBlockSerde = new TsBlockSerde(1024);
+    ByteBuffer output = tsBlockSerde.serialize(tsBlockBuilder.build());
+    // compressed flag
+    Assert.assertEquals(1, output.get(output.position()));
+
+    TsBlock tsBlock = tsBlockSerde.deserialize(output);
+    Assert.assertEquals(positionCount, tsBlock.getPositionCount());
+    for (int i = 0; i < positionCount; i++) {
+      Assert.assertEquals(i, tsBlock.getTimeByIndex(i));
+      Assert.assertEquals(i % 10, tsBlock.getColumn(0).getLong(i));
+      if (i % 3 == 0) {
+        Assert.assertTrue(tsBlock.getColumn(1).isNull(i));
+      } else {
+        Assert.assertFalse(tsBlock.getColumn(1).isNull(i));
+        Assert.assertEquals(i % 7, tsBlock.getColumn(1).getDouble(i), 0.0);
+      }
+    }
+  }
 }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.filter;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class BatchFilterEvaluatorTest {
+
+  private static final int COUNT = 1000;
+
+  @Test
+  public void testTimeFilter() {
+    long[] times = new long[COUNT];
+    int[] values = new int[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      times[i] = i * 3L;
+      values[i] = i % 17;
+    }
+    checkSameAsPointByPoint(TimeFilter.gt(300L), TSDataType.INT32, times, values);
+    checkSameAsPointByPoint(TimeFilter.ltEq(300L), TSDataType.INT32, times, values);
+    checkSameAsPointByPoint(TimeFilter.notEq(300L), TSDataType.INT32, times, values);
+    checkSameAsPointByPoint(
+        FilterFactory.and(TimeFilter.gtEq(30L), TimeFilter.lt(1200L)),
+        TSDataType.INT32,
+        times,
+        values);
+    checkSameAsPointByPoint(
+        FilterFactory.or(TimeFilter.lt(30L), TimeFilter.gt(1200L)),
+        TSDataType.INT32,
+        times,
+        values);
+    checkSameAsPointByPoint(
+        FilterFactory.not(TimeFilter.eq(30L)), TSDataType.INT32, times, values);
+  }
+
+  @Test
+  public void testValueFilter() {
+    long[] times = new long[COUNT];
+    int[] ints = new int[COUNT];
+    long[] longs = new long[COUNT];
+    float[] floats = new float[COUNT];
+    double[] doubles = new double[COUNT];
+    boolean[] booleans = new boolean[COUNT];
+    Binary[] binaries = new Binary[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      times[i] = i;
+      ints[i] = i % 17 - 8;
+      longs[i] = i % 19 - 9L;
+      floats[i] = i % 7 == 0 ? Float.NaN : (i % 23) / 10f;
+      doubles[i] = i % 11 == 0 ? -0.0 : (i % 29) / 10d;
+      booleans[i] = i % 3 == 0;
+      binaries[i] = new Binary("s" + i % 13);
+    }
+    checkSameAsPointByPoint(ValueFilter.gt(0), TSDataType.INT32, times, ints);
+    checkSameAsPointByPoint(ValueFilter.eq(3), TSDataType.INT32, times, ints);
+    checkSameAsPointByPoint(ValueFilter.ltEq(-2L), TSDataType.INT64, times, longs);
+    checkSameAsPointByPoint(ValueFilter.notEq(4L), TSDataType.INT64, times, longs);
+    checkSameAsPointByPoint(ValueFilter.gtEq(1.1f), TSDataType.FLOAT, times, floats);
+    checkSameAsPointByPoint(ValueFilter.lt(Float.NaN), TSDataType.FLOAT, times, floats);
+    checkSameAsPointByPoint(ValueFilter.eq(0.0), TSDataType.DOUBLE, times, doubles);
+    checkSameAsPointByPoint(ValueFilter.gt(1.5), TSDataType.DOUBLE, times, doubles);
+    checkSameAsPointByPoint(ValueFilter.eq(true), TSDataType.BOOLEAN, times, booleans);
+    checkSameAsPointByPoint(ValueFilter.gt(new Binary("s5")), TSDataType.TEXT, times, binaries);
+    checkSameAsPointByPoint(
+        FilterFactory.and(TimeFilter.gt(100L), ValueFilter.lt(2)), TSDataType.INT32, times, ints);
+    checkSameAsPointByPoint(
+        FilterFactory.or(ValueFilter.lt(-5), FilterFactory.not(ValueFilter.lt(5))),
+        TSDataType.INT32,
+        times,
+        ints);
+  }
+
+  private void checkSameAsPointByPoint(
+      Filter filter, TSDataType dataType, long[] times, Object values) {
+    boolean[] selected = new boolean[COUNT];
+    Arrays.fill(selected, true);
+    // points unselected in advance should never be selected again
+    for (int i = 0; i < COUNT; i += 5) {
+      selected[i] = false;
+    }
+    BatchFilterEvaluator.evaluate(filter, dataType, times, values, COUNT, selected);
+    for (int i = 0; i < COUNT; i++) {
+      boolean expected = i % 5 != 0 && filter.satisfy(times[i], getValue(values, i));
+      Assert.assertEquals(filter + " at " + i, expected, selected[i]);
+    }
+  }
+
+  private Object getValue(Object values, int index) {
+    if (values instanceof int[]) {
+      return ((int[]) values)[index];
+    } else if (values instanceof long[]) {
+      return ((long[]) values)[index];
+    } else if (values instanceof float[]) {
+      return ((float[]) values)[index];
+    } else if (values instanceof double[]) {
+      return ((double[]) values)[index];
+    } else if (values instanceof boolean[]) {
+      return ((boolean[]) values)[index];
+    } else {
+      return ((Object[]) values)[index];
+    }
+  }
+}
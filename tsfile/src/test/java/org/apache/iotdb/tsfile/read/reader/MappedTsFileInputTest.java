@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.FileGenerator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+
+public class MappedTsFileInputTest {
+
+  private static final String FILE_PATH = FileGenerator.outputDataFile;
+
+  /** small regions so that reads across regions are covered */
+  private static final int REGION_SIZE = 1024;
+
+  @Before
+  public void before() throws IOException {
+    FileGenerator.generateFile(10000, 100);
+  }
+
+  @After
+  public void after() throws IOException {
+    FileGenerator.after();
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    TsFileInput local = new LocalTsFileInput(Paths.get(FILE_PATH));
+    TsFileInput mapped = new MappedTsFileInput(Paths.get(FILE_PATH), REGION_SIZE);
+    try {
+      long size = local.size();
+      Assert.assertEquals(size, mapped.size());
+      Assert.assertTrue(size > 3 * REGION_SIZE);
+
+      for (long position : new long[] {0, 100, REGION_SIZE - 10, 2 * REGION_SIZE, size - 50}) {
+        int length = (int) Math.min(100, size - position);
+        ByteBuffer expected = ByteBuffer.allocate(length);
+        local.read(expected, position);
+        expected.flip();
+
+        ByteBuffer actual = ByteBuffer.allocate(length);
+        Assert.assertEquals(length, mapped.read(actual, position));
+        actual.flip();
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected, mapped.slice(position, length));
+      }
+      // a slice inside a region shares the mapping
+      Assert.assertTrue(mapped.slice(100, 100).isDirect());
+      Assert.assertEquals(-1, mapped.read(ByteBuffer.allocate(1), size));
+      try {
+        mapped.slice(size - 10, 20);
+        Assert.fail();
+      } catch (IOException e) {
+        // expected
+      }
+    } finally {
+      local.close();
+      mapped.close();
+    }
+  }
+
+  @Test
+  public void testClose() throws IOException {
+    TsFileInput mapped = new MappedTsFileInput(Paths.get(FILE_PATH), REGION_SIZE);
+    Assert.assertEquals(100, mapped.read(ByteBuffer.allocate(100), 0));
+    mapped.close();
+    // the mapping has been released, so it must not be accessed any more
+    try {
+      mapped.read(ByteBuffer.allocate(100), 0);
+      Assert.fail();
+    } catch (IOException e) {
+      // expected
+    }
+    try {
+      mapped.slice(0, 100);
+      Assert.fail();
+    } catch (IOException e) {
+      // expected
+    }
+    // closing again is harmless
+    mapped.close();
+  }
+
+  @Test
+  public void testReadChunk() throws IOException {
+    try (TsFileSequenceReader localReader = new TsFileSequenceReader(FILE_PATH);
+        TsFileSequenceReader mappedReader =
+            new TsFileSequenceReader(
+                new MappedTsFileInput(Paths.get(FILE_PATH), REGION_SIZE), true)) {
+      for (Path path : localReader.getAllPaths()) {
+        for (ChunkMetadata chunkMetadata : mappedReader.getChunkMetadataList(path)) {
+          Chunk expected = localReader.readMemChunk(chunkMetadata);
+          Chunk actual = mappedReader.readMemChunk(chunkMetadata);
+          Assert.assertEquals(expected.getHeader().getDataSize(), actual.getHeader().getDataSize());
+          Assert.assertEquals(expected.getData(), actual.getData());
+        }
+      }
+    }
+  }
+}
@@ -32,6 +32,7 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.file.metadata.utils.TestHelper;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.BloomFilter;
 import org.apache.iotdb.tsfile.utils.MeasurementGroup;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
@@ -55,6 +56,8 @@ public class TsFileIOWriterTest {
 
   private static final String FILE_PATH =
       TestConstant.BASE_OUTPUT_PATH.concat("TsFileIOWriterTest.tsfile");
+  private static final String SPILL_FILE_PATH =
+      TestConstant.BASE_OUTPUT_PATH.concat("TsFileIOWriterSpillTest.tsfile");
   private static final String DEVICE_1 = "device1";
   private static final String DEVICE_2 = "device2";
   private static final String SENSOR_1 = "sensor1";
@@ -63,8 +66,10 @@ public class TsFileIOWriterTest {
 
   @Before
   public void before() throws IOException {
-    TsFileIOWriter writer = new TsFileIOWriter(new File(FILE_PATH));
+    writeFile(new TsFileIOWriter(new File(FILE_PATH)));
+  }
 
+  private void writeFile(TsFileIOWriter writer) throws IOException {
     // file schema
     MeasurementSchema measurementSchema = TestHelper.createSimpleMeasurementSchema(SENSOR_1);
     VectorMeasurementSchema vectorMeasurementSchema =
@@ -94,6 +99,10 @@ public class TsFileIOWriterTest {
     if (file.exists()) {
       file.delete();
     }
+    file = new File(SPILL_FILE_PATH);
+    if (file.exists()) {
+      file.delete();
+    }
   }
 
   @Test
@@ -163,6 +172,45 @@ public class TsFileIOWriterTest {
     Assert.assertEquals(2, metaData.getMetadataIndex().getChildren().size());
   }
 
+  @Test
+  public void spillChunkMetadataTest() throws IOException {
+    // spill the chunk metadata before flushing each chunk
+    writeFile(new TsFileIOWriter(new File(SPILL_FILE_PATH), true, 0));
+    Assert.assertFalse(
+        new File(SPILL_FILE_PATH + TsFileIOWriter.CHUNK_METADATA_TEMP_FILE_SUFFIX).exists());
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH);
+        TsFileSequenceReader spillReader = new TsFileSequenceReader(SPILL_FILE_PATH)) {
+      Map<String, List<TimeseriesMetadata>> expectedMap = reader.getAllTimeseriesMetadata(true);
+      Map<String, List<TimeseriesMetadata>> actualMap = spillReader.getAllTimeseriesMetadata(true);
+      Assert.assertEquals(expectedMap.keySet(), actualMap.keySet());
+      BloomFilter bloomFilter = spillReader.readBloomFilter();
+      for (Map.Entry<String, List<TimeseriesMetadata>> entry : expectedMap.entrySet()) {
+        List<TimeseriesMetadata> actualList = actualMap.get(entry.getKey());
+        Assert.assertEquals(entry.getValue().size(), actualList.size());
+        for (int i = 0; i < actualList.size(); i++) {
+          TimeseriesMetadata expected = entry.getValue().get(i);
+          TimeseriesMetadata actual = actualList.get(i);
+          Assert.assertEquals(expected.getMeasurementId(), actual.getMeasurementId());
+          Assert.assertEquals(expected.getTSDataType(), actual.getTSDataType());
+          Assert.assertEquals(
+              expected.getStatistics().getCount(), actual.getStatistics().getCount());
+          Assert.assertEquals(
+              expected.getChunkMetadataList().size(), actual.getChunkMetadataList().size());
+          for (int j = 0; j < actual.getChunkMetadataList().size(); j++) {
+            Assert.assertEquals(
+                expected.getChunkMetadataList().get(j).getOffsetOfChunkHeader(),
+                actual.getChunkMetadataList().get(j).getOffsetOfChunkHeader());
+          }
+          Assert.assertTrue(
+              bloomFilter.contains(entry.getKey() + "." + actual.getMeasurementId()));
+        }
+      }
+      Assert.assertEquals(
+          2, spillReader.readFileMetadata().getMetadataIndex().getChildren().size());
+    }
+  }
+
   private void writeChunkGroup(TsFileIOWriter writer, MeasurementSchema measurementSchema)
       throws IOException {
     for (int i = 0; i < CHUNK_GROUP_NUM; i++) {